@@ -3,6 +3,12 @@ package src.com.dnu.bookshare;
 import src.com.dnu.bookshare.service.*;
 import src.com.dnu.bookshare.model.*;
 import src.com.dnu.bookshare.persistence.DataManager;
+import src.com.dnu.bookshare.persistence.NodeLease;
+import src.com.dnu.bookshare.persistence.StorageEngine;
+import src.com.dnu.bookshare.persistence.StorageEngines;
+import src.com.dnu.bookshare.service.search.BookQuery;
+import src.com.dnu.bookshare.service.search.FuzzySearchResult;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Scanner;
 
@@ -12,6 +18,8 @@ import java.util.Scanner;
  */
 public class BookShareApplication {
     private static DataManager dataManager;
+    private static NodeLease nodeLease;
+    private static boolean closed;
     private static UserService userService;
     private static BookService bookService;
     private static TransactionService transactionService;
@@ -24,51 +32,83 @@ public class BookShareApplication {
         System.out.println("    DNU BOOKSHARE - HỆ THỐNG CHIA SẺ SÁCH    ");
         System.out.println("==============================================\n");
         
-        // Khởi tạo các services
-        initializeServices();
-        
-        // Demo các chức năng chính
+        // Khởi tạo các services và demo các chức năng chính
         try {
+            initializeServices();
             demoApplication();
         } catch (Exception e) {
             System.err.println("Lỗi: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            shutdown();
         }
     }
     
     /**
      * Khởi tạo tất cả services
      */
-    private static void initializeServices() {
+    private static void initializeServices() throws Exception {
         System.out.println("📦 Đang khởi tạo hệ thống...");
         
-        // 1. DataManager - quản lý lưu trữ
-        dataManager = new DataManager();
-        
-        // 2. UserService - quản lý người dùng
-        userService = new UserService(dataManager);
-        
-        // 3. BookService - quản lý sách
-        bookService = new BookService(dataManager);
-        
-        // 4. TransactionService - quản lý giao dịch
-        transactionService = new TransactionService(bookService, dataManager);
-        
-        // 5. ReportService - quản lý báo cáo
-        reportService = new ReportService(dataManager);
-        
-        // 6. NotificationService - quản lý thông báo
-        notificationService = new NotificationService(dataManager);
-        
-        // 7. AdminService - quản trị hệ thống
-        adminService = new AdminService(
-            userService, bookService, transactionService, 
-            reportService, notificationService, dataManager
-        );
+        // 1. DataManager - quản lý lưu trữ, engine chọn theo cấu hình
+        //    (-Dbookshare.storage=json|log|memory, -Dbookshare.writeBehind=true)
+        StorageEngine engine = StorageEngines.fromConfig();
+        if (engine.getDataDir() != null) {
+            // Giữ node id của IdGenerator trên thư mục dữ liệu (process khác cùng node id bị từ chối)
+            nodeLease = NodeLease.acquire(engine.getDataDir());
+        }
+        dataManager = new DataManager(engine);
+        // Một đường tắt duy nhất, kể cả khi JVM bị dừng giữa chừng (Ctrl+C)
+        Runtime.getRuntime().addShutdownHook(new Thread(BookShareApplication::shutdown, "bookshare-shutdown"));
+        System.out.println("Storage engine: " + engine.getName());
+        
+        // 2. Load dữ liệu song song và dựng các service theo phụ thuộc
+        //    (-Dbookshare.bootstrap.threads=N để giới hạn số thread)
+        ServiceBootstrap bootstrap = new ServiceBootstrap(dataManager);
+        bootstrap.start();
+        userService = bootstrap.getUserService();
+        bookService = bootstrap.getBookService();
+        transactionService = bootstrap.getTransactionService();
+        reportService = bootstrap.getReportService();
+        notificationService = bootstrap.getNotificationService();
+        adminService = bootstrap.getAdminService();
         
         System.out.println("✅ Hệ thống đã sẵn sàng!\n");
     }
     
+    /**
+     * Đóng hệ thống theo thứ tự: lượt xem đang đếm -> hàng đợi write-behind -> storage -> node id
+     * Mỗi bước chạy sau khi bước trước đã ghi xong, nên lượt xem cuối cùng không bị mất.
+     */
+    private static synchronized void shutdown() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (bookService != null) {
+            bookService.shutdown();
+        }
+        if (dataManager != null) {
+            try {
+                dataManager.flush();
+            } catch (Exception e) {
+                System.err.println("Lỗi ghi write-behind: " + e.getMessage());
+            }
+            try {
+                dataManager.close();
+            } catch (Exception e) {
+                System.err.println("Lỗi đóng storage: " + e.getMessage());
+            }
+        }
+        if (nodeLease != null) {
+            try {
+                nodeLease.close();
+            } catch (Exception e) {
+                System.err.println("Lỗi nhả node id: " + e.getMessage());
+            }
+        }
+    }
+    
     /**
      * Demo các chức năng chính của hệ thống
      */
@@ -166,6 +206,28 @@ public class BookShareApplication {
         for (Book book : searchResults) {
             System.out.println("  • " + book.getTitle() + " - " + book.getAuthor());
         }
+        // Xem chi tiết sách: lượt xem được đếm trong bộ nhớ
+        for (Book book : searchResults) {
+            bookService.incrementViewCount(book.getBookId(), student2.getUserId());
+        }
+        bookService.incrementViewCount(book1.getBookId(), student2.getUserId());
+        bookService.incrementViewCount(book2.getBookId(), student1.getUserId());
+        bookService.incrementViewCount(book2.getBookId(), student2.getUserId());
+        
+        // Truy vấn lặp lại được trả từ cache
+        bookService.searchBooks("java", null, "CNTT", null, null, "newest");
+        System.out.println("Cache tìm kiếm: " + bookService.getSearchCacheStats());
+        // Gõ sai chính tả: tìm gần đúng và gợi ý từ khóa
+        FuzzySearchResult<Book> fuzzyResults = bookService.searchBooksFuzzy(
+            new BookQuery().keyword("lap trnh jva"), 5
+        );
+        System.out.println("Tìm \"lap trnh jva\": " + fuzzyResults.getTotalMatches() + " sách"
+                + (fuzzyResults.hasSuggestion() ? ", có phải bạn muốn tìm \"" + fuzzyResults.getSuggestion() + "\"?" : ""));
+        // Gợi ý khi gõ
+        System.out.println("Gợi ý cho \"lap\": " + bookService.autocomplete("lap", null, 5));
+        LocalDateTime now = LocalDateTime.now();
+        System.out.println("Sách đăng trong 1 giờ qua: "
+                + bookService.getBooksPostedBetween(now.minusHours(1), now.plusSeconds(1)).size());
         System.out.println();
         
         // ========== 4. YÊU CẦU MƯỢN SÁCH ==========
@@ -321,7 +383,7 @@ public class BookShareApplication {
         // Tạo báo cáo mẫu
         Report report = reportService.createReport(
             student1.getUserId(),
-            "USER" + System.currentTimeMillis(),
+            IdGenerator.next("USER"),
             Report.ReportType.LATE_RETURN,
             "Trả sách trễ 5 ngày",
             transaction1.getTransactionId()
@@ -344,6 +406,7 @@ public class BookShareApplication {
         System.out.println("  • Sách đang mượn: " + stats.get("borrowedBooks"));
         System.out.println("  • Tổng giao dịch: " + stats.get("totalTransactions"));
         System.out.println("  • Giao dịch hoàn thành: " + stats.get("completedTransactions"));
+        System.out.println("  • Sự kiện giao dịch: " + stats.get("transactionEvents"));
         
         // Top sách phổ biến
         System.out.println("\n🔥 TOP SÁCH PHỔ BIẾN:");
@@ -351,7 +414,18 @@ public class BookShareApplication {
         for (int i = 0; i < topBooks.size(); i++) {
             Book book = topBooks.get(i);
             System.out.println("  " + (i+1) + ". " + book.getTitle() + 
-                             " (" + book.getViewCount() + " lượt xem)");
+                             " (" + bookService.getUniqueViewers(book.getBookId()) + " người xem, "
+                             + bookService.getViewCount(book.getBookId()) + " lượt xem)");
+        }
+        List<Book> trendingBooks = adminService.getTopTrendingBooks(1);
+        if (!trendingBooks.isEmpty()) {
+            System.out.printf("📈 Đang được quan tâm: %s (điểm %.2f)%n", trendingBooks.get(0).getTitle(),
+                    bookService.getTrendingScore(trendingBooks.get(0).getBookId()));
+        }
+        List<Book> mostLent = adminService.getMostLentBooks(1);
+        if (!mostLent.isEmpty()) {
+            System.out.println("📚 Được mượn nhiều nhất: " + mostLent.get(0).getTitle() + " ("
+                    + transactionService.getBookLendingCounts(mostLent.get(0).getBookId()) + ")");
         }
         
         // Gửi thông báo hệ thống
@@ -362,10 +436,23 @@ public class BookShareApplication {
         );
         System.out.println("✓ Đã gửi thông báo đến tất cả người dùng");
         
-        // Backup dữ liệu
+        // Backup dữ liệu (ghi lượt xem đang đếm trước khi backup)
         System.out.println("\n💾 BACKUP DỮ LIỆU:");
-        adminService.backupSystemData();
-        System.out.println("✓ Đã backup dữ liệu thành công");
+        try {
+            bookService.flushViewCounts();
+            System.out.println("✓ Lượt xem: " + bookService.getViewCounterStats());
+        } catch (Exception e) {
+            System.out.println("✗ Lỗi ghi lượt xem: " + e.getMessage());
+        }
+        if (adminService.backupSystemData() != null) {
+            System.out.println("✓ Đã backup dữ liệu thành công");
+            System.out.println("✓ Kiểm tra backup: " + adminService.verifyBackups());
+        }
+        
+        var writeBehindStats = adminService.getWriteBehindStats();
+        if (writeBehindStats != null) {
+            System.out.println("✓ Write-behind: " + writeBehindStats);
+        }
         
         System.out.println("\n==============================================");
         System.out.println("           ✅ DEMO HOÀN TẤT!                  ");
@@ -0,0 +1,126 @@
+package src.com.dnu.bookshare.benchmark;
+
+import src.com.dnu.bookshare.model.Book;
+import src.com.dnu.bookshare.persistence.DataManager;
+import src.com.dnu.bookshare.persistence.InMemoryStorageEngine;
+import src.com.dnu.bookshare.service.BookService;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+/**
+ * AutocompleteBenchmark - Gõ dần tiêu đề/tác giả của sách ngẫu nhiên, mỗi phím một lần gợi ý 8 cụm:
+ * searchBooks rồi gom tiêu đề khác nhau theo lượt xem (cách không có trie) so với autocomplete.
+ * In thời gian và bộ nhớ cấp phát trung bình mỗi phím, p99, và số lượt cập nhật lượt xem/giây
+ * (mỗi lượt cập nhật lại top-K dọc đường đi trong trie).
+ *
+ * Chạy: java -cp ... src.com.dnu.bookshare.benchmark.AutocompleteBenchmark [số sách] [số lần gõ]
+ * Mặc định: 100.000 sách, 2.000 lần gõ (cách cũ chỉ chạy 1/10 số lần).
+ */
+public class AutocompleteBenchmark {
+    private static final int LIMIT = 8;
+    private static final int MAX_TYPED = 12;
+    
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int typings = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        System.setProperty("bookshare.searchCache.size", "0");
+        
+        List<Book> catalog = BenchmarkData.catalog(count);
+        ConcurrentNavigableMap<String, Book> preloaded = new ConcurrentSkipListMap<>();
+        for (Book book : catalog) {
+            preloaded.put(book.getBookId(), book);
+        }
+        long start = System.nanoTime();
+        BookService service = new BookService(new DataManager(new InMemoryStorageEngine()), preloaded);
+        System.out.printf("%d sách, dựng chỉ mục %.0f ms, %d cụm gợi ý, trie %.1f MB%n", count,
+                (System.nanoTime() - start) / 1e6, service.getCompletionCount(), service.getCompletionBytes() / 1e6);
+        
+        Random random = new Random(19);
+        List<String> prefixes = new ArrayList<>();
+        for (int i = 0; i < typings; i++) {
+            Book book = catalog.get(random.nextInt(catalog.size()));
+            String text = random.nextBoolean() ? book.getTitle() : book.getAuthor();
+            for (int n = 1; n <= Math.min(MAX_TYPED, text.length()); n++) {
+                prefixes.add(text.substring(0, n));
+            }
+        }
+        
+        List<String> legacyPrefixes = prefixes.subList(0, prefixes.size() / 10);
+        long[] legacy = run(legacyPrefixes, prefix -> legacyComplete(service, prefix).size());
+        long[] indexed = run(prefixes, prefix -> service.autocomplete(prefix, null, LIMIT).size());
+        System.out.printf("%-12s %8s %10s %10s %12s%n", "", "phím", "tb (µs)", "p99 (µs)", "byte/phím");
+        print("searchBooks", legacy);
+        print("autocomplete", indexed);
+        
+        // Cập nhật: lượt xem thay đổi được flush vào trie
+        int updates = 200_000;
+        start = System.nanoTime();
+        for (int i = 0; i < updates; i++) {
+            service.incrementViewCount(catalog.get(random.nextInt(catalog.size())).getBookId());
+            if (i % 10_000 == 9_999) {
+                flush(service);
+            }
+        }
+        flush(service);
+        System.out.printf("%d lượt xem + flush vào trie: %.0f lượt/giây%n", updates,
+                updates / ((System.nanoTime() - start) / 1e9));
+    }
+    
+    private interface Lookup {
+        int complete(String prefix);
+    }
+    
+    /**
+     * [0] = tổng nano, [1] = byte cấp phát, [2] = p99 nano, [3] = số phím
+     */
+    private static long[] run(List<String> prefixes, Lookup lookup) {
+        // Khởi động JIT
+        for (int i = 0; i < Math.min(2_000, prefixes.size()); i++) {
+            lookup.complete(prefixes.get(i));
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long[] latencies = new long[prefixes.size()];
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long total = 0;
+        for (int i = 0; i < prefixes.size(); i++) {
+            long t = System.nanoTime();
+            lookup.complete(prefixes.get(i));
+            latencies[i] = System.nanoTime() - t;
+            total += latencies[i];
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        Arrays.sort(latencies);
+        return new long[] {total, allocated, latencies[latencies.length * 99 / 100], prefixes.size()};
+    }
+    
+    private static void print(String name, long[] r) {
+        System.out.printf("%-12s %8d %10.2f %10.2f %12d%n", name, r[3], r[0] / 1e3 / r[3], r[2] / 1e3, r[1] / r[3]);
+    }
+    
+    /**
+     * Gợi ý không có trie: tìm theo từ khóa rồi gom tiêu đề khác nhau, nhiều lượt xem trước
+     */
+    private static List<String> legacyComplete(BookService service, String prefix) {
+        Map<String, Integer> views = new HashMap<>();
+        for (Book book : service.searchBooks(prefix, null, null, null, null, null)) {
+            views.merge(book.getTitle(), book.getViewCount() + 1, Integer::sum);
+        }
+        return views.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(LIMIT)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+    
+    private static void flush(BookService service) {
+        try {
+            service.flushViewCounts();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package src.com.dnu.bookshare.benchmark;
+
+import src.com.dnu.bookshare.model.Book;
+import src.com.dnu.bookshare.persistence.*;
+import src.com.dnu.bookshare.persistence.backup.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * BackupBenchmark - So sánh backup tăng dần (chunk theo nội dung) với cách copy toàn bộ file cũ
+ * Đo 3 trường hợp: lần đầu, dữ liệu không đổi, sửa một cuốn sách.
+ *
+ * Chạy: java -cp ... src.com.dnu.bookshare.benchmark.BackupBenchmark [số sách] [số giao dịch]
+ * Mặc định: 50000 sách, 50000 giao dịch (engine json).
+ */
+public class BackupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int bookCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int transactionCount = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+
+        Path dir = Files.createTempDirectory("bookshare-backup");
+        JsonStorageEngine engine = new JsonStorageEngine(dir, StorageEngines.createGson(true));
+        List<Book> books = BenchmarkData.books(bookCount);
+        engine.books().replaceAll(books);
+        engine.transactions().replaceAll(BenchmarkData.transactions(transactionCount));
+
+        BackupManager backups = new BackupManager(dir.resolve("backups"));
+        System.out.printf("%-22s %10s %14s %10s%n", "trường hợp", "thời gian", "bytes mới", "chunk mới");
+        run("lần đầu", backups, engine);
+        run("không đổi", backups, engine);
+
+        Book book = books.get(bookCount / 2);
+        book.setPrice(book.getPrice() + 1000);
+        engine.books().upsert(book);
+        run("sửa 1 sách", backups, engine);
+
+        // Cách cũ: copy toàn bộ file vào backup_<millis>
+        long start = System.nanoTime();
+        Path copyDir = dir.resolve("backup_" + System.currentTimeMillis());
+        Files.createDirectories(copyDir);
+        long copied = 0;
+        for (Path file : engine.dataFiles()) {
+            Files.copy(file, copyDir.resolve(file.getFileName()));
+            copied += Files.size(file);
+        }
+        System.out.printf("%-22s %8.1fms %14d %10s%n", "copy toàn bộ (cũ)",
+                (System.nanoTime() - start) / 1e6, copied, "-");
+
+        VerifyReport report = backups.verify();
+        System.out.println(report);
+
+        deleteRecursively(dir);
+    }
+
+    private static void run(String label, BackupManager backups, StorageEngine engine) throws Exception {
+        long start = System.nanoTime();
+        BackupManifest manifest = engine.readDataFiles(files -> backups.backup(files, engine.getName()));
+        System.out.printf("%-22s %8.1fms %14d %10d%n", label, (System.nanoTime() - start) / 1e6,
+                manifest.getNewBytes(), manifest.getNewChunks());
+    }
+
+    private static void deleteRecursively(Path dir) throws Exception {
+        try (var paths = Files.walk(dir)) {
+            List<Path> all = new ArrayList<>(paths.toList());
+            Collections.reverse(all);
+            for (Path p : all) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package src.com.dnu.bookshare.benchmark;
+
+import src.com.dnu.bookshare.model.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * BenchmarkData - Sinh dữ liệu giả lập (seed cố định) cho các benchmark
+ */
+public final class BenchmarkData {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 8, 0);
+    
+    private BenchmarkData() {
+    }
+    
+    public static List<Book> books(int count) {
+        Random random = new Random(42);
+        String[] subjects = {"Lập trình Java", "Cấu trúc dữ liệu", "Cơ sở dữ liệu", "Mạng máy tính", "Kinh tế vi mô"};
+        String[] faculties = {"Công nghệ thông tin", "Kinh tế", "Ngoại ngữ", "Điện tử"};
+        Book.BookCondition[] conditions = Book.BookCondition.values();
+        Book.BookStatus[] statuses = Book.BookStatus.values();
+        
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String subject = subjects[random.nextInt(subjects.length)];
+            List<Book.TransactionType> types = new ArrayList<>(List.of(Book.TransactionType.BORROW));
+            if (random.nextBoolean()) {
+                types.add(Book.TransactionType.SELL);
+            }
+            books.add(new Book("BOOK" + (1_700_000_000_000L + i),
+                    "USER" + (1_700_000_000_000L + random.nextInt(5000)),
+                    "Giáo trình " + subject + " tập " + (1 + random.nextInt(3)),
+                    "Tác giả " + random.nextInt(500), subject,
+                    faculties[random.nextInt(faculties.length)],
+                    "Sách còn tốt, có ghi chú bút chì vài trang", "",
+                    conditions[random.nextInt(conditions.length)], types,
+                    random.nextInt(200) * 1000.0, 7 + random.nextInt(24),
+                    statuses[random.nextInt(statuses.length)],
+                    BASE.plusSeconds(random.nextInt(365 * 24 * 3600)),
+                    random.nextInt(1000), true));
+        }
+        return books;
+    }
+    
+    /**
+     * Danh mục sách đa dạng (tiêu đề, tác giả, mô tả, khoa, giá, lượt xem) cho các benchmark tìm kiếm.
+     * Id tăng theo thời gian đăng như id do IdGenerator sinh.
+     */
+    public static List<Book> catalog(int count) {
+        Random random = new Random(2024);
+        String[] topics = {"Lập trình Java", "Lập trình C++", "Lập trình Python", "Cấu trúc dữ liệu",
+                "Giải thuật", "Cơ sở dữ liệu", "Mạng máy tính", "Hệ điều hành", "Trí tuệ nhân tạo",
+                "Học máy", "Xác suất thống kê", "Giải tích", "Đại số tuyến tính", "Vật lý đại cương",
+                "Kinh tế vi mô", "Kinh tế vĩ mô", "Nguyên lý kế toán", "Tài chính doanh nghiệp",
+                "Marketing căn bản", "Quản trị học", "Luật kinh tế", "Tiếng Anh chuyên ngành",
+                "Tiếng Nhật sơ cấp", "Tiếng Hàn giao tiếp", "Điện tử số", "Kỹ thuật vi xử lý",
+                "Triết học Mác Lênin", "Tư tưởng Hồ Chí Minh", "Lịch sử Đảng", "Kỹ năng mềm"};
+        String[] kinds = {"Giáo trình", "Bài tập", "Tài liệu ôn thi", "Sách tham khảo", "Đề cương"};
+        String[] faculties = {"Công nghệ thông tin", "Kinh tế", "Ngoại ngữ", "Điện tử", "Quản trị kinh doanh",
+                "Tài chính ngân hàng", "Kế toán", "Luật", "Du lịch", "Y dược", "Truyền thông", "Logistics"};
+        String[] surnames = {"Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Huỳnh", "Phan", "Vũ", "Võ", "Đặng",
+                "Bùi", "Đỗ", "Hồ", "Ngô", "Dương", "Lý"};
+        String[] middles = {"Văn", "Thị", "Minh", "Đức", "Thu", "Ngọc", "Quang", "Hữu", "Thanh", "Xuân"};
+        String[] givens = {"An", "Bình", "Cường", "Dũng", "Giang", "Hà", "Hải", "Hạnh", "Hùng", "Khánh",
+                "Lan", "Linh", "Long", "Mai", "Nam", "Phong", "Phúc", "Quân", "Sơn", "Tâm", "Thảo",
+                "Trang", "Tuấn", "Việt", "Yến"};
+        String[] notes = {"còn mới", "có ghi chú bút chì", "bìa hơi cũ", "đầy đủ đáp án", "kèm đề thi các năm",
+                "bản in màu", "có highlight trọng tâm", "thiếu vài trang cuối", "tặng kèm vở ghi", "bản mới nhất"};
+        Book.BookCondition[] conditions = Book.BookCondition.values();
+        Book.BookStatus[] statuses = Book.BookStatus.values();
+        Book.TransactionType[] types = Book.TransactionType.values();
+        
+        List<Book> books = new ArrayList<>(count);
+        long postedMillis = 1_700_000_000_000L;
+        for (int i = 0; i < count; i++) {
+            postedMillis += 1 + random.nextInt(60_000);
+            String topic = topics[random.nextInt(topics.length)];
+            String author = surnames[random.nextInt(surnames.length)] + " "
+                    + middles[random.nextInt(middles.length)] + " " + givens[random.nextInt(givens.length)];
+            String description = "Sách " + notes[random.nextInt(notes.length)] + ", "
+                    + notes[random.nextInt(notes.length)] + ". Phù hợp ôn thi học kỳ " + (1 + random.nextInt(2));
+            List<Book.TransactionType> available = new ArrayList<>();
+            for (Book.TransactionType type : types) {
+                if (random.nextInt(3) == 0) {
+                    available.add(type);
+                }
+            }
+            if (available.isEmpty()) {
+                available.add(Book.TransactionType.BORROW);
+            }
+            books.add(new Book(String.format("BOOK%d%03d%04d", postedMillis, 0, 0),
+                    "USER" + (1_700_000_000_000L + random.nextInt(5000)),
+                    kinds[random.nextInt(kinds.length)] + " " + topic + " tập " + (1 + random.nextInt(3)),
+                    author, topic, faculties[random.nextInt(faculties.length)], description, "",
+                    conditions[random.nextInt(conditions.length)], available,
+                    random.nextInt(400) * 1000.0, 7 + random.nextInt(24),
+                    statuses[random.nextInt(statuses.length)],
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(postedMillis), ZoneId.systemDefault()),
+                    random.nextInt(random.nextInt(10) == 0 ? 5000 : 200), random.nextInt(20) != 0));
+        }
+        return books;
+    }
+    
+    public static List<Transaction> transactions(int count) {
+        Random random = new Random(7);
+        Transaction.TransactionType[] types = Transaction.TransactionType.values();
+        Transaction.TransactionStatus[] statuses = Transaction.TransactionStatus.values();
+        
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime requestedAt = BASE.plusSeconds(random.nextInt(365 * 24 * 3600))
+                                            .plusNanos(random.nextInt(1_000_000) * 1000L);
+            boolean approved = random.nextBoolean();
+            transactions.add(new Transaction("TXN" + (1_700_000_000_000L + i),
+                    "BOOK" + (1_700_000_000_000L + random.nextInt(200_000)),
+                    "USER" + (1_700_000_000_000L + random.nextInt(5000)),
+                    "USER" + (1_700_000_000_000L + random.nextInt(5000)),
+                    types[random.nextInt(types.length)], statuses[random.nextInt(statuses.length)],
+                    requestedAt, approved ? requestedAt.plusHours(3) : null,
+                    approved ? requestedAt.plusDays(1) : null, null,
+                    approved ? requestedAt.plusDays(15) : null,
+                    random.nextInt(100) * 1000.0, "Xin mượn sách để ôn thi cuối kỳ",
+                    random.nextInt(6), random.nextInt(6), null, null));
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,114 @@
+package src.com.dnu.bookshare.benchmark;
+
+import src.com.dnu.bookshare.model.Book;
+import src.com.dnu.bookshare.persistence.*;
+import src.com.dnu.bookshare.persistence.codec.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * CodecBenchmark - So sánh dung lượng và thời gian load của books
+ * - pretty-json: books.json của engine json (đọc bằng JsonStreamLoader)
+ * - log-json:    engine log với codec json
+ * - log-binary:  engine log với codec nhị phân
+ *
+ * Chạy: java -cp ... src.com.dnu.bookshare.benchmark.CodecBenchmark [số sách] [số lần đo]
+ * Mặc định 200.000 sách, lấy thời gian tốt nhất của 5 lần đo.
+ * Nên cố định heap (vd -Xms2g -Xmx2g), nếu không thời gian GC sẽ lấn át kết quả.
+ */
+public class CodecBenchmark {
+    
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        
+        List<Book> books = BenchmarkData.books(count);
+        Path dir = Files.createTempDirectory("bookshare-codec");
+        Gson pretty = StorageEngines.createGson(true);
+        Gson compact = StorageEngines.createGson(false);
+        AtomicLong lsn = new AtomicLong();
+        
+        Path jsonFile = dir.resolve("books.json");
+        writePrettyJson(jsonFile, books, pretty);
+        
+        RecordCodec<Book> jsonCodec = new JsonRecordCodec<>(compact, Book.class);
+        RecordCodec<Book> binaryCodec = EntityType.BOOKS.getBinaryCodec();
+        EntityLog<Book> jsonLog = new EntityLog<>(dir.resolve("json/books.log"), Book::getBookId,
+                                                  jsonCodec, List.of(), lsn);
+        EntityLog<Book> binaryLog = new EntityLog<>(dir.resolve("binary/books.log"), Book::getBookId,
+                                                    binaryCodec, List.of(), lsn);
+        Files.createDirectories(jsonLog.getLogFile().getParent());
+        Files.createDirectories(binaryLog.getLogFile().getParent());
+        jsonLog.rewrite(books);
+        binaryLog.rewrite(books);
+        books = null;
+        
+        long prettyBytes = Files.size(jsonFile);
+        System.out.printf("%d sách, đo %d lần%n", count, rounds);
+        System.out.printf("%-12s %10s %8s %10s%n", "định dạng", "bytes", "x nhỏ", "load ms");
+        
+        long prettyMs = best(rounds, () -> {
+            Map<String, Book> map = new HashMap<>();
+            JsonStreamLoader.forEach(jsonFile, pretty, Book.class, b -> map.put(b.getBookId(), b));
+            return map.size();
+        });
+        print("pretty-json", prettyBytes, prettyBytes, prettyMs, prettyMs);
+        
+        long jsonMs = best(rounds, () -> {
+            Map<String, Book> map = new HashMap<>();
+            return jsonLog.replay(b -> map.put(b.getBookId(), b));
+        });
+        print("log-json", jsonLog.snapshotBytes() + jsonLog.tailBytes(), prettyBytes, jsonMs, prettyMs);
+        
+        long binaryMs = best(rounds, () -> {
+            Map<String, Book> map = new HashMap<>();
+            return binaryLog.replay(b -> map.put(b.getBookId(), b));
+        });
+        print("log-binary", binaryLog.snapshotBytes() + binaryLog.tailBytes(), prettyBytes, binaryMs, prettyMs);
+        
+        jsonLog.close();
+        binaryLog.close();
+        List<Path> files = new ArrayList<>(jsonLog.files());
+        files.addAll(binaryLog.files());
+        files.addAll(List.of(jsonFile, jsonLog.getLogFile().getParent(), binaryLog.getLogFile().getParent(), dir));
+        for (Path p : files) {
+            Files.deleteIfExists(p);
+        }
+    }
+    
+    private interface Load {
+        int run() throws IOException;
+    }
+    
+    private static long best(int rounds, Load load) throws IOException {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            load.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000;
+    }
+    
+    private static void print(String name, long bytes, long baseBytes, long ms, long baseMs) {
+        System.out.printf("%-12s %10d %7.1fx %10d (%.1fx)%n", name, bytes,
+                (double) baseBytes / bytes, ms, (double) baseMs / Math.max(1, ms));
+    }
+    
+    private static void writePrettyJson(Path file, List<Book> books, Gson gson) throws IOException {
+        try (JsonWriter w = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), 1 << 16))) {
+            w.setIndent("  ");
+            w.beginArray();
+            for (Book b : books) {
+                gson.toJson(b, Book.class, w);
+            }
+            w.endArray();
+        }
+    }
+}
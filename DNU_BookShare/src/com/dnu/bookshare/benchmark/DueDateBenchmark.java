@@ -0,0 +1,85 @@
+package src.com.dnu.bookshare.benchmark;
+
+import src.com.dnu.bookshare.model.Transaction;
+import src.com.dnu.bookshare.model.Transaction.*;
+import src.com.dnu.bookshare.service.transactions.DueDateScheduler;
+import src.com.dnu.bookshare.service.transactions.DueReminder;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * DueDateBenchmark - Đồng hồ chạy từng giờ qua cả năm dữ liệu giao dịch:
+ * mỗi giờ tìm các giao dịch quá hạn bằng cách quét mọi giao dịch (cách cũ của checkOverdueBooks)
+ * so với DueDateScheduler.poll (chỉ lấy các mốc nhắc vừa tới).
+ * In thời gian dựng lịch, thời gian mỗi lần kiểm tra, và kiểm tra mỗi mốc của một giao dịch
+ * được nhắc đúng một lần, kể cả khi lịch được dựng lại giữa chừng (giả lập khởi động lại).
+ *
+ * Chạy: java -cp ... src.com.dnu.bookshare.benchmark.DueDateBenchmark [số giao dịch]
+ * Mặc định: 200.000 giao dịch.
+ */
+public class DueDateBenchmark {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int HOURS = 400 * 24;
+    
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        List<Transaction> transactions = BenchmarkData.transactions(count);
+        long borrowing = transactions.stream().filter(DueDateBenchmark::isBorrowing).count();
+        
+        long start = System.nanoTime();
+        DueDateScheduler scheduler = new DueDateScheduler(transactions);
+        System.out.printf("%d giao dịch (%d đang mượn), dựng lịch %.0f ms%n", count, borrowing,
+                (System.nanoTime() - start) / 1e6);
+        
+        // Quét mọi giao dịch mỗi giờ: chỉ chạy 1/50 số giờ
+        long scanNanos = 0;
+        int scans = 0;
+        long found = 0;
+        for (int hour = 0; hour < HOURS; hour += 50) {
+            LocalDateTime now = START.plusHours(hour);
+            long t = System.nanoTime();
+            found += transactions.stream()
+                    .filter(tx -> isBorrowing(tx) && now.isAfter(tx.getDueDate()))
+                    .collect(Collectors.toList()).size();
+            scanNanos += System.nanoTime() - t;
+            scans++;
+        }
+        
+        Map<String, Set<Object>> sent = new HashMap<>();
+        int reminders = 0;
+        int duplicates = 0;
+        long pollNanos = 0;
+        for (int hour = 0; hour < HOURS; hour++) {
+            LocalDateTime now = START.plusHours(hour);
+            if (hour == HOURS / 2) {
+                // Khởi động lại: dựng lịch từ remindersSent đã lưu trên giao dịch
+                scheduler = new DueDateScheduler(transactions);
+            }
+            long t = System.nanoTime();
+            List<DueReminder> due = scheduler.poll(now);
+            pollNanos += System.nanoTime() - t;
+            for (DueReminder reminder : due) {
+                reminders++;
+                if (!sent.computeIfAbsent(reminder.getTransaction().getTransactionId(), id -> new HashSet<>())
+                         .add(reminder.getStage())) {
+                    duplicates++;
+                }
+            }
+        }
+        
+        System.out.printf("%-16s %10s %14s%n", "", "lần kiểm tra", "µs/lần");
+        System.out.printf("%-16s %10d %14.1f   (%d lượt quá hạn)%n", "quét tất cả", scans,
+                scanNanos / 1e3 / scans, found);
+        System.out.printf("%-16s %10d %14.1f   (%d nhắc, %d trùng)%n", "DueDateScheduler", HOURS,
+                pollNanos / 1e3 / HOURS, reminders, duplicates);
+        if (duplicates > 0) {
+            throw new IllegalStateException("Có mốc nhắc bị gửi lặp");
+        }
+    }
+    
+    private static boolean isBorrowing(Transaction t) {
+        return t.getType() == TransactionType.BORROW && t.getStatus() == TransactionStatus.IN_PROGRESS
+                && t.getDueDate() != null;
+    }
+}
@@ -0,0 +1,82 @@
+package src.com.dnu.bookshare.benchmark;
+
+import src.com.dnu.bookshare.model.Notification;
+import src.com.dnu.bookshare.persistence.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * DurabilityBenchmark - Nhiều thread cùng lưu thông báo với từng DurabilityLevel
+ * In số lần ghi/giây, độ trễ trung bình và số lần commit (mỗi commit = một lần ghi file + fsync)
+ * để thấy group commit gom bao nhiêu lần ghi vào một fsync.
+ *
+ * Chạy: java -cp ... src.com.dnu.bookshare.benchmark.DurabilityBenchmark [json|log] [số thread] [số lần ghi mỗi thread]
+ * Mặc định: json, 8 thread, 50 lần ghi mỗi thread.
+ */
+public class DurabilityBenchmark {
+    
+    public static void main(String[] args) throws Exception {
+        String engineName = args.length > 0 ? args[0] : "json";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int perThread = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        
+        System.out.printf("engine %s, %d thread x %d lần ghi%n", engineName, threads, perThread);
+        System.out.printf("%-8s %10s %12s %10s%n", "mức", "ghi/giây", "trễ TB (ms)", "commit");
+        for (DurabilityLevel level : DurabilityLevel.values()) {
+            run(engineName, level, threads, perThread);
+        }
+    }
+    
+    private static void run(String engineName, DurabilityLevel level, int threads,
+                            int perThread) throws Exception {
+        Path dir = Files.createTempDirectory("bookshare-durability");
+        StorageEngine engine = engineName.equals("log")
+                ? new LogStructuredStorageEngine(dir, StorageEngines.createGson(false), Map.of(),
+                                                 level, 2000, 3600, Long.MAX_VALUE)
+                : new JsonStorageEngine(dir, StorageEngines.createGson(true), level, 2000);
+        Repository<Notification> repo = engine.notifications();
+        
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Long>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            results.add(pool.submit(() -> {
+                long latency = 0;
+                for (int i = 0; i < perThread; i++) {
+                    Notification n = new Notification("NOTIF-" + thread + "-" + i, "USER" + thread,
+                            Notification.NotificationType.SYSTEM_ANNOUNCEMENT, "Thông báo " + i,
+                            "Nội dung thông báo thử nghiệm số " + i, null, false, null);
+                    long s = System.nanoTime();
+                    repo.upsert(n);
+                    latency += System.nanoTime() - s;
+                }
+                return latency;
+            }));
+        }
+        long totalLatency = 0;
+        for (Future<Long> f : results) {
+            totalLatency += f.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+        
+        int ops = threads * perThread;
+        long commits = engine instanceof JsonStorageEngine
+                ? ((JsonStorageEngine) engine).getCommitCount()
+                : ((LogStructuredStorageEngine) engine).getSyncCount();
+        System.out.printf("%-8s %10.0f %12.2f %10s%n", level.name().toLowerCase(),
+                ops * 1e9 / elapsed, totalLatency / 1e6 / ops,
+                level.isDurable() || engine instanceof JsonStorageEngine ? commits : "-");
+        
+        int stored = repo.findAll().size();
+        if (stored != ops) {
+            System.err.println("Mất dữ liệu: chỉ còn " + stored + "/" + ops + " thông báo");
+        }
+        
+        engine.clear();
+        engine.close();
+        Files.deleteIfExists(dir);
+    }
+}
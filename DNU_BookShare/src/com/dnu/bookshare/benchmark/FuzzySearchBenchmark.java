@@ -0,0 +1,119 @@
+package src.com.dnu.bookshare.benchmark;
+
+import src.com.dnu.bookshare.model.Book;
+import src.com.dnu.bookshare.persistence.DataManager;
+import src.com.dnu.bookshare.persistence.InMemoryStorageEngine;
+import src.com.dnu.bookshare.service.BookService;
+import src.com.dnu.bookshare.service.search.BookQuery;
+import src.com.dnu.bookshare.service.search.FuzzySearchResult;
+import src.com.dnu.bookshare.service.search.TextNormalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * FuzzySearchBenchmark - Từ khóa gõ sai (không dấu, sót/thừa/đổi chỗ/thay một ký tự) lấy từ tiêu đề
+ * và tác giả của sách ngẫu nhiên. In số truy vấn searchBooks trả về rỗng, tỉ lệ trong số đó
+ * searchBooksFuzzy vẫn ra sách, tỉ lệ gợi ý sửa đúng về từ gốc và độ trễ p50/p99.
+ * (Tiêu đề sinh ngẫu nhiên lặp lại nhiều nên không đo "đúng sách gốc": nhiều sách cùng điểm.)
+ *
+ * Chạy: java -cp ... src.com.dnu.bookshare.benchmark.FuzzySearchBenchmark [số sách] [số truy vấn]
+ * Mặc định: 100.000 sách, 2.000 truy vấn.
+ */
+public class FuzzySearchBenchmark {
+    
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        System.setProperty("bookshare.searchCache.size", "0");
+        
+        List<Book> catalog = BenchmarkData.catalog(count);
+        ConcurrentNavigableMap<String, Book> preloaded = new ConcurrentSkipListMap<>();
+        for (Book book : catalog) {
+            preloaded.put(book.getBookId(), book);
+        }
+        long start = System.nanoTime();
+        BookService service = new BookService(new DataManager(new InMemoryStorageEngine()), preloaded);
+        System.out.printf("%d sách, dựng chỉ mục %.0f ms%n", count, (System.nanoTime() - start) / 1e6);
+        
+        Random random = new Random(11);
+        List<String> keywords = new ArrayList<>();
+        List<String> originals = new ArrayList<>();
+        for (int i = 0; i < queries; i++) {
+            Book book = catalog.get(random.nextInt(catalog.size()));
+            List<String> words = TextNormalizer.tokenize(book.getTitle() + " " + book.getAuthor());
+            // 3 từ liên tiếp, sửa sai một từ dài ít nhất 3 ký tự
+            int from = random.nextInt(Math.max(1, words.size() - 2));
+            List<String> picked = new ArrayList<>(words.subList(from, Math.min(words.size(), from + 3)));
+            originals.add(String.join(" ", picked));
+            int typo = random.nextInt(picked.size());
+            if (picked.get(typo).length() >= 3) {
+                picked.set(typo, misspell(picked.get(typo), random));
+            }
+            keywords.add(String.join(" ", picked));
+        }
+        
+        // Khởi động JIT
+        for (int i = 0; i < Math.min(500, queries); i++) {
+            service.searchBooksFuzzy(new BookQuery().keyword(keywords.get(i)), 20);
+        }
+        int exactEmpty = 0;
+        int recovered = 0;
+        int suggested = 0;
+        int corrected = 0;
+        long[] latencies = new long[queries];
+        for (int i = 0; i < queries; i++) {
+            boolean empty = service.searchBooks(keywords.get(i), null, null, null, null, null).isEmpty();
+            long t = System.nanoTime();
+            FuzzySearchResult<Book> result = service.searchBooksFuzzy(new BookQuery().keyword(keywords.get(i)), 20);
+            latencies[i] = System.nanoTime() - t;
+            if (empty) {
+                exactEmpty++;
+                if (!result.getResults().isEmpty()) {
+                    recovered++;
+                }
+            }
+            if (result.hasSuggestion()) {
+                suggested++;
+                if (String.join(" ", TextNormalizer.tokenize(result.getSuggestion())).equals(originals.get(i))) {
+                    corrected++;
+                }
+            }
+            if (i < 5) {
+                System.out.printf("  \"%s\" -> %d sách, gợi ý: %s%n", keywords.get(i), result.getTotalMatches(),
+                        result.getSuggestion());
+            }
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%d truy vấn: searchBooks rỗng %d, trong đó fuzzy vẫn ra sách %.1f%%%n",
+                queries, exactEmpty, 100.0 * recovered / Math.max(1, exactEmpty));
+        System.out.printf("có gợi ý %d, gợi ý đúng từ gốc %.1f%%%n", suggested,
+                100.0 * corrected / Math.max(1, suggested));
+        System.out.printf("độ trễ fuzzy: p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                latencies[queries / 2] / 1e6, latencies[queries * 99 / 100] / 1e6, latencies[queries - 1] / 1e6);
+    }
+    
+    /**
+     * Một lỗi gõ: xóa, thêm, thay hoặc đổi chỗ hai ký tự kề nhau
+     */
+    private static String misspell(String word, Random random) {
+        StringBuilder sb = new StringBuilder(word);
+        int i = random.nextInt(word.length() - 1);
+        char letter = (char) ('a' + random.nextInt(26));
+        switch (random.nextInt(4)) {
+            case 0:
+                sb.deleteCharAt(i);
+                break;
+            case 1:
+                sb.insert(i, letter);
+                break;
+            case 2:
+                sb.setCharAt(i, letter);
+                break;
+            default:
+                sb.setCharAt(i, word.charAt(i + 1));
+                sb.setCharAt(i + 1, word.charAt(i));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,214 @@
+package src.com.dnu.bookshare.benchmark;
+
+import src.com.dnu.bookshare.model.Book;
+import src.com.dnu.bookshare.model.Book.BookStatus;
+import src.com.dnu.bookshare.model.Transaction;
+import src.com.dnu.bookshare.model.Transaction.*;
+import src.com.dnu.bookshare.model.TransactionEvent;
+import src.com.dnu.bookshare.persistence.DataManager;
+import src.com.dnu.bookshare.persistence.InMemoryStorageEngine;
+import src.com.dnu.bookshare.service.BookService;
+import src.com.dnu.bookshare.service.TransactionService;
+import src.com.dnu.bookshare.service.transactions.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * ProjectionBenchmark - Log sự kiện giao dịch và các projection dựng từ nó
+ * Chạy các vòng đời giao dịch thật qua TransactionService (engine trong bộ nhớ) để có log sự kiện, rồi đo:
+ * - cập nhật tăng dần: append từng sự kiện vào log có 3 projection đã đăng ký
+ * - dựng lại từng projection bằng cách phát lại toàn bộ log
+ * - catch-up của projection bị trễ 1% và 10% log so với dựng lại từ đầu
+ * Kiểm tra projection dựng lại và projection tăng dần của TransactionService khớp với trạng thái
+ * thật của từng giao dịch (cả mượn lẫn mua), lịch sử từng người dùng và bộ đếm từng sách.
+ *
+ * Chạy: java -cp ... src.com.dnu.bookshare.benchmark.ProjectionBenchmark [số vòng đời] [số sách]
+ * Mặc định: 40.000 vòng đời, 2.000 sách cho mượn (thêm một sách bán riêng cho mỗi giao dịch mua).
+ */
+public class ProjectionBenchmark {
+    private static final int USERS = 500;
+    private static final int ROUNDS = 5;
+    // Cứ SALE_EVERY vòng đời thì một vòng đời là giao dịch mua
+    private static final int SALE_EVERY = 10;
+    
+    public static void main(String[] args) throws Exception {
+        int lifecycles = args.length > 0 ? Integer.parseInt(args[0]) : 40_000;
+        int bookCount = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        
+        DataManager dataManager = new DataManager(new InMemoryStorageEngine());
+        List<Book> all = BenchmarkData.books(bookCount + lifecycles / SALE_EVERY + 1);
+        List<Book> books = all.subList(0, bookCount);
+        List<Book> forSale = all.subList(bookCount, all.size());
+        ConcurrentNavigableMap<String, Book> byId = new ConcurrentSkipListMap<>();
+        for (Book book : all) {
+            book.setStatus(BookStatus.AVAILABLE);
+            byId.put(book.getBookId(), book);
+        }
+        TransactionService service = new TransactionService(new BookService(dataManager, byId), dataManager,
+                                                            new ConcurrentHashMap<>());
+        long start = System.nanoTime();
+        runLifecycles(service, books, forSale, lifecycles);
+        List<TransactionEvent> events = new ArrayList<>(dataManager.findAllTransactionEvents());
+        events.sort(Comparator.comparingLong(TransactionEvent::getSequence));
+        System.out.printf("%d vòng đời, %d sự kiện (%.0f ms qua TransactionService)%n",
+                lifecycles, events.size(), (System.nanoTime() - start) / 1e6);
+        
+        System.out.printf("%-26s %14s%n", "", "sự kiện/giây");
+        double incremental = best(() -> {
+            TransactionEventLog log = new TransactionEventLog(List.of());
+            log.register(new TransactionStateProjection());
+            log.register(new UserHistoryProjection());
+            log.register(new BookLendingProjection());
+            long t0 = System.nanoTime();
+            for (TransactionEvent event : events) {
+                log.append(event);
+            }
+            return System.nanoTime() - t0;
+        });
+        System.out.printf("%-26s %14.0f%n", "tăng dần (3 projection)", events.size() / incremental);
+        
+        TransactionEventLog log = new TransactionEventLog(events);
+        TransactionStateProjection states = new TransactionStateProjection();
+        UserHistoryProjection histories = new UserHistoryProjection();
+        BookLendingProjection lending = new BookLendingProjection();
+        Map<String, TransactionProjection> projections = new LinkedHashMap<>();
+        projections.put("trạng thái", states);
+        projections.put("lịch sử người dùng", histories);
+        projections.put("số lần mượn theo sách", lending);
+        for (Map.Entry<String, TransactionProjection> e : projections.entrySet()) {
+            double seconds = best(() -> {
+                long t0 = System.nanoTime();
+                log.rebuild(e.getValue());
+                return System.nanoTime() - t0;
+            });
+            System.out.printf("%-26s %14.0f%n", "dựng lại: " + e.getKey(), events.size() / seconds);
+        }
+        
+        verify(service, all, states, histories, lending);
+        
+        System.out.printf("%n%-26s %14s %14s%n", "catch-up (cả 3 projection)", "sự kiện", "ms");
+        for (double lag : new double[] {0.01, 0.10, 1.0}) {
+            int behind = (int) (events.size() * lag);
+            List<TransactionProjection> lagging = List.of(new TransactionStateProjection(),
+                    new UserHistoryProjection(), new BookLendingProjection());
+            double seconds = best(() -> {
+                for (TransactionProjection projection : lagging) {
+                    projection.reset();
+                    for (TransactionEvent event : events.subList(0, events.size() - behind)) {
+                        projection.apply(event);
+                    }
+                }
+                long t0 = System.nanoTime();
+                for (TransactionProjection projection : lagging) {
+                    log.catchUp(projection);
+                }
+                return System.nanoTime() - t0;
+            });
+            System.out.printf("%-26s %14d %14.2f%n", lag == 1.0 ? "từ đầu" : "trễ " + (int) (lag * 100) + "%",
+                    behind, seconds * 1e3);
+        }
+    }
+    
+    /**
+     * Vòng đời ngẫu nhiên: mua (duyệt → giao là xong), hoặc mượn: hủy, từ chối,
+     * hoặc duyệt → giao → (gia hạn) → trả → (đánh giá)
+     */
+    private static void runLifecycles(TransactionService service, List<Book> books, List<Book> forSale,
+                                      int lifecycles) throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < lifecycles; i++) {
+            String borrower = "USER_BENCH" + random.nextInt(USERS);
+            if (i % SALE_EVERY == SALE_EVERY - 1) {
+                Book book = forSale.get(i / SALE_EVERY);
+                Transaction t = service.createRequest(book.getBookId(), borrower, TransactionType.BUY, "");
+                service.approveRequest(t.getTransactionId());
+                service.confirmDelivery(t.getTransactionId(), 0);
+                continue;
+            }
+            Book book = books.get(i % books.size());
+            Transaction t = service.createRequest(book.getBookId(), borrower, TransactionType.BORROW, "");
+            String id = t.getTransactionId();
+            int outcome = random.nextInt(10);
+            if (outcome == 0) {
+                service.cancelTransaction(id);
+                continue;
+            }
+            if (outcome == 1) {
+                service.rejectRequest(id, "Sách đang cần dùng");
+                continue;
+            }
+            service.approveRequest(id);
+            service.confirmDelivery(id, 14);
+            if (outcome < 4) {
+                service.extendBorrow(id, 7);
+            }
+            service.confirmReturn(id);
+            if (outcome < 6) {
+                service.rateTransaction(id, borrower, 1 + random.nextInt(5), "");
+            }
+        }
+    }
+    
+    /**
+     * Projection dựng lại từ log và projection tăng dần của service phải khớp trạng thái giao dịch thật
+     */
+    private static void verify(TransactionService service, List<Book> books, TransactionStateProjection states,
+                               UserHistoryProjection histories, BookLendingProjection lending) {
+        int mismatches = 0;
+        Map<TransactionStatus, Integer> live = new EnumMap<>(TransactionStatus.class);
+        for (Transaction t : service.getAllTransactions()) {
+            live.merge(t.getStatus(), 1, Integer::sum);
+            if (states.statusOf(t.getTransactionId()) != t.getStatus()) {
+                mismatches++;
+            }
+        }
+        for (TransactionStatus status : TransactionStatus.values()) {
+            int expected = live.getOrDefault(status, 0);
+            if (states.count(status) != expected || service.countByStatus(status) != expected) {
+                mismatches++;
+            }
+        }
+        for (int u = 0; u < USERS; u++) {
+            String user = "USER_BENCH" + u;
+            if (!eventIds(histories.history(user, Integer.MAX_VALUE))
+                    .equals(eventIds(service.getUserActivity(user, Integer.MAX_VALUE)))) {
+                mismatches++;
+            }
+        }
+        for (Book book : books) {
+            if (!lending.countsOf(book.getBookId()).equals(service.getBookLendingCounts(book.getBookId()))) {
+                mismatches++;
+            }
+        }
+        System.out.printf("Kiểm tra dựng lại = tăng dần = thật: %d giao dịch, %d người dùng, %d sách, %d lệch%n",
+                service.getAllTransactions().size(), USERS, books.size(), mismatches);
+        if (mismatches > 0) {
+            throw new IllegalStateException("Projection khác trạng thái giao dịch thật");
+        }
+    }
+    
+    private static List<String> eventIds(List<TransactionEvent> events) {
+        List<String> ids = new ArrayList<>(events.size());
+        for (TransactionEvent event : events) {
+            ids.add(event.getEventId());
+        }
+        return ids;
+    }
+    
+    /**
+     * Thời gian tốt nhất (giây) trong ROUNDS lần chạy, lần đầu để khởi động JIT
+     */
+    private static double best(Supplier<Long> run) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i <= ROUNDS; i++) {
+            long nanos = run.get();
+            if (i > 0) {
+                best = Math.min(best, nanos);
+            }
+        }
+        return best / 1e9;
+    }
+}
@@ -0,0 +1,97 @@
+package src.com.dnu.bookshare.benchmark;
+
+import src.com.dnu.bookshare.model.Book;
+import src.com.dnu.bookshare.persistence.DataManager;
+import src.com.dnu.bookshare.persistence.InMemoryStorageEngine;
+import src.com.dnu.bookshare.service.BookService;
+import src.com.dnu.bookshare.service.search.BookQuery;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * RelevanceBenchmark - Số truy vấn/giây khi xếp theo độ liên quan BM25 (mặc định khi có từ khóa):
+ * - top 20 có dừng sớm (searchBooksPage: heap 20 + cận trên từng từ)
+ * - chấm điểm và sắp xếp mọi sách khớp rồi lấy 20 (searchBooks, không thể dừng sớm)
+ * - top 20 theo thứ tự đăng (không chấm điểm), để so chi phí của việc xếp hạng
+ *
+ * Chạy: java -cp ... src.com.dnu.bookshare.benchmark.RelevanceBenchmark [số sách] [số lần lặp]
+ * Mặc định: 100.000 sách, 200 lần lặp mỗi truy vấn.
+ */
+public class RelevanceBenchmark {
+    private static final String[] QUERIES = {
+        "java",
+        "lap trinh java",
+        "giao trinh",
+        "kinh te vi mo",
+        "nguyen van",
+        "xac suat thong ke",
+        "\"on thi\" giai tich",
+        "tap 2",
+        "c",
+    };
+    private static final int PAGE_SIZE = 20;
+    
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        
+        // Đo xếp hạng: tắt cache kết quả
+        System.setProperty("bookshare.searchCache.size", "0");
+        List<Book> catalog = BenchmarkData.catalog(count);
+        ConcurrentNavigableMap<String, Book> preloaded = new ConcurrentSkipListMap<>();
+        for (Book book : catalog) {
+            preloaded.put(book.getBookId(), book);
+        }
+        long start = System.nanoTime();
+        BookService service = new BookService(new DataManager(new InMemoryStorageEngine()), preloaded);
+        System.out.printf("%d sách, dựng chỉ mục %.0f ms%n", count, (System.nanoTime() - start) / 1e6);
+        
+        System.out.printf("%-24s %8s %12s %12s %12s%n", "truy vấn", "khớp", "top20 q/s", "chấm hết q/s",
+                "đăng q/s");
+        double[] totals = new double[3];
+        for (String keyword : QUERIES) {
+            BookQuery relevance = new BookQuery().keyword(keyword);
+            BookQuery posted = new BookQuery().keyword(keyword).sort(BookQuery.Sort.POSTED);
+            Supplier<List<Book>> top = () -> page(service, relevance);
+            Supplier<List<Book>> exhaustive = () -> {
+                List<Book> all = service.searchBooks(keyword, null, null, null, null, "relevance");
+                return all.subList(0, Math.min(PAGE_SIZE, all.size()));
+            };
+            Supplier<List<Book>> byPosted = () -> page(service, posted);
+            if (!top.get().equals(exhaustive.get())) {
+                throw new IllegalStateException("Top 20 khác với xếp hạng đầy đủ: " + keyword);
+            }
+            double[] micros = {measure(top, iterations), measure(exhaustive, iterations), measure(byPosted, iterations)};
+            int matches = service.searchBooks(keyword, null, null, null, null, null).size();
+            System.out.printf("%-24s %8d %12.0f %12.0f %12.0f%n", keyword, matches,
+                    1e6 / micros[0], 1e6 / micros[1], 1e6 / micros[2]);
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += micros[i];
+            }
+        }
+        System.out.printf("%-24s %8s %12.0f %12.0f %12.0f%n", "cả bộ truy vấn", "",
+                QUERIES.length * 1e6 / totals[0], QUERIES.length * 1e6 / totals[1], QUERIES.length * 1e6 / totals[2]);
+    }
+    
+    private static List<Book> page(BookService service, BookQuery query) {
+        try {
+            return service.searchBooksPage(query, null, PAGE_SIZE).getResults();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static double measure(Supplier<List<Book>> search, int iterations) {
+        // Khởi động JIT
+        for (int i = 0; i < Math.max(10, iterations / 10); i++) {
+            search.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            search.get();
+        }
+        return (System.nanoTime() - start) / 1e3 / iterations;
+    }
+}
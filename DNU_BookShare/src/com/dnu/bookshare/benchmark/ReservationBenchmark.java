@@ -0,0 +1,154 @@
+package src.com.dnu.bookshare.benchmark;
+
+import src.com.dnu.bookshare.model.Book;
+import src.com.dnu.bookshare.model.Book.BookStatus;
+import src.com.dnu.bookshare.model.Transaction;
+import src.com.dnu.bookshare.persistence.DataManager;
+import src.com.dnu.bookshare.persistence.InMemoryStorageEngine;
+import src.com.dnu.bookshare.service.BookService;
+import src.com.dnu.bookshare.service.TransactionService;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ReservationBenchmark - Nhiều thread cùng gửi yêu cầu mượn một cuốn sách, lặp nhiều vòng
+ * (sau mỗi vòng hủy giao dịch thắng để sách AVAILABLE trở lại):
+ * - cách cũ: đọc status == AVAILABLE rồi mới đặt RESERVED, không nguyên tử
+ * - TransactionService.createRequest: CAS AVAILABLE → RESERVED
+ * In số vòng có nhiều hơn một người đặt được, và số yêu cầu/giây khi mỗi thread
+ * mượn rồi trả sách riêng của mình (không tranh chấp) để thấy không có khóa chung.
+ *
+ * Chạy: java -cp ... src.com.dnu.bookshare.benchmark.ReservationBenchmark [số thread] [số vòng]
+ * Mặc định: 8 thread, 2.000 vòng.
+ */
+public class ReservationBenchmark {
+    private static final String OWNER = "USER_OWNER";
+    
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        
+        DataManager dataManager = new DataManager(new InMemoryStorageEngine());
+        Book hot = new Book(OWNER, "Giải tích 1", "Nguyễn Đình Trí");
+        ConcurrentNavigableMap<String, Book> preloaded = new ConcurrentSkipListMap<>();
+        preloaded.put(hot.getBookId(), hot);
+        List<Book> own = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Book book = new Book(OWNER, "Sách riêng " + i, "Tác giả " + i);
+            own.add(book);
+            preloaded.put(book.getBookId(), book);
+        }
+        BookService bookService = new BookService(dataManager, preloaded);
+        TransactionService service = new TransactionService(bookService, dataManager, new ConcurrentHashMap<>());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        
+        System.out.printf("%d thread cùng giành một sách, %d vòng%n", threads, rounds);
+        System.out.printf("%-18s %18s %16s%n", "", "vòng bị đặt trùng", "đặt trùng tối đa");
+        
+        // Cách cũ
+        int[] legacy = race(pool, threads, rounds, borrower -> {
+            if (hot.getStatus() == BookStatus.AVAILABLE) {
+                Thread.yield();
+                hot.setStatus(BookStatus.RESERVED);
+                return true;
+            }
+            return false;
+        }, winners -> hot.setStatus(BookStatus.AVAILABLE));
+        System.out.printf("%-18s %18d %16d%n", "kiểm tra rồi đặt", legacy[0], legacy[1]);
+        
+        // CAS
+        Map<String, Transaction> won = new ConcurrentHashMap<>();
+        int[] cas = race(pool, threads, rounds, borrower -> {
+            try {
+                Transaction t = service.createRequest(hot.getBookId(), borrower, Transaction.TransactionType.BORROW, "");
+                won.put(borrower, t);
+                return true;
+            } catch (Exception e) {
+                return false;
+            }
+        }, winners -> {
+            for (Transaction t : won.values()) {
+                try {
+                    service.cancelTransaction(t.getTransactionId());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            won.clear();
+        });
+        System.out.printf("%-18s %18d %16d%n", "createRequest", cas[0], cas[1]);
+        if (cas[0] > 0 || cas[1] != 1 || hot.getStatus() != BookStatus.AVAILABLE) {
+            throw new IllegalStateException("Một sách bị đặt bởi nhiều người");
+        }
+        
+        // Không tranh chấp: mỗi thread một sách, trọn vòng đời yêu cầu → duyệt → giao → trả
+        int perThread = rounds * 5;
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            String bookId = own.get(i).getBookId();
+            String borrower = "USER" + i;
+            pool.execute(() -> {
+                try {
+                    for (int n = 0; n < perThread; n++) {
+                        Transaction t = service.createRequest(bookId, borrower, Transaction.TransactionType.BORROW, "");
+                        service.approveRequest(t.getTransactionId());
+                        service.confirmDelivery(t.getTransactionId(), 14);
+                        service.confirmReturn(t.getTransactionId());
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Không tranh chấp: %d vòng đời giao dịch, %.0f giao dịch/giây (%d CPU)%n",
+                threads * perThread, threads * perThread / seconds, Runtime.getRuntime().availableProcessors());
+        pool.shutdown();
+    }
+    
+    private interface Attempt {
+        boolean reserve(String borrowerId);
+    }
+    
+    private interface Reset {
+        void afterRound(int winners);
+    }
+    
+    /**
+     * [0] = số vòng có hơn một người thắng, [1] = số người thắng nhiều nhất trong một vòng
+     */
+    private static int[] race(ExecutorService pool, int threads, int rounds, Attempt attempt, Reset reset)
+            throws Exception {
+        int doubled = 0;
+        int worst = 0;
+        for (int round = 0; round < rounds; round++) {
+            CyclicBarrier barrier = new CyclicBarrier(threads);
+            AtomicInteger winners = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                String borrower = "USER" + i;
+                futures.add(pool.submit(() -> {
+                    barrier.await();
+                    if (attempt.reserve(borrower)) {
+                        winners.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+            if (winners.get() > 1) {
+                doubled++;
+            }
+            worst = Math.max(worst, winners.get());
+            reset.afterRound(winners.get());
+        }
+        return new int[] {doubled, worst};
+    }
+}
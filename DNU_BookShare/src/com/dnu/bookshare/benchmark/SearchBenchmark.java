@@ -0,0 +1,183 @@
+package src.com.dnu.bookshare.benchmark;
+
+import src.com.dnu.bookshare.model.Book;
+import src.com.dnu.bookshare.model.Book.*;
+import src.com.dnu.bookshare.persistence.DataManager;
+import src.com.dnu.bookshare.persistence.InMemoryStorageEngine;
+import src.com.dnu.bookshare.service.BookService;
+import src.com.dnu.bookshare.service.search.BookQuery;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * SearchBenchmark - searchBooks: quét toàn bộ + lọc bằng stream (cách cũ) so với chỉ mục
+ * (chỉ mục ngược cho từ khóa, AND bitmap cho bộ lọc).
+ * Cách cũ phân biệt dấu và khớp chuỗi con nên số kết quả có từ khóa có thể khác.
+ * Phần sau: lấy trang đầu (20 sách) theo từng kiểu sắp xếp: sắp xếp toàn bộ rồi cắt (cách cũ)
+ * so với searchBooksPage (duyệt chỉ mục có thứ tự / top-K).
+ *
+ * Chạy: java -cp ... src.com.dnu.bookshare.benchmark.SearchBenchmark [số sách] [số lần lặp]
+ * Mặc định: 100.000 sách, 200 lần lặp mỗi truy vấn.
+ */
+public class SearchBenchmark {
+    private static final Object[][] CASES = {
+        // keyword, subject, faculty, condition, type
+        {"Java", null, null, null, null},
+        {"Giải thuật", null, null, null, null},
+        {"Nguyễn Văn Hùng", null, null, null, null},
+        {"lap trinh", null, null, null, null},
+        {"kinh te vi", null, null, null, null},
+        {"\"ôn thi học kỳ 2\"", null, null, null, null},
+        {null, null, "Kinh tế", null, null},
+        {null, "Giải tích", "Công nghệ thông tin", null, null},
+        {null, null, "Kế toán", BookCondition.NEW, TransactionType.SELL},
+        {null, "Học máy", "Công nghệ thông tin", BookCondition.LIKE_NEW, TransactionType.EXCHANGE},
+        {"Giáo trình", "Hệ điều hành", null, null, TransactionType.BORROW},
+        {"đáp án", null, "Luật", BookCondition.GOOD, null},
+    };
+    private static final Object[][] PAGE_CASES = {
+        // sortBy, keyword, faculty
+        {"newest", null, null},
+        {"price_asc", null, null},
+        {"price_desc", null, "Kinh tế"},
+        {"popular", null, null},
+        {"popular", "Giáo trình", null},
+        {"price_asc", "Java", "Công nghệ thông tin"},
+    };
+    private static final int PAGE_SIZE = 20;
+    
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        
+        // Đo chỉ mục: tắt cache kết quả (xem SearchCacheBenchmark)
+        System.setProperty("bookshare.searchCache.size", "0");
+        List<Book> catalog = BenchmarkData.catalog(count);
+        ConcurrentNavigableMap<String, Book> preloaded = new ConcurrentSkipListMap<>();
+        for (Book book : catalog) {
+            preloaded.put(book.getBookId(), book);
+        }
+        long start = System.nanoTime();
+        BookService service = new BookService(new DataManager(new InMemoryStorageEngine()), preloaded);
+        System.out.printf("%d sách, dựng chỉ mục %.0f ms%n", count, (System.nanoTime() - start) / 1e6);
+        
+        System.out.printf("%-58s %8s %8s %10s %10s %7s%n", "truy vấn", "kq cũ", "kq mới",
+                "cũ (µs)", "mới (µs)", "x");
+        for (Object[] c : CASES) {
+            String keyword = (String) c[0];
+            String subject = (String) c[1];
+            String faculty = (String) c[2];
+            BookCondition condition = (BookCondition) c[3];
+            TransactionType type = (TransactionType) c[4];
+            Supplier<List<Book>> legacy = () -> legacySearch(catalog, keyword, subject, faculty, condition, type);
+            Supplier<List<Book>> indexed = () -> service.searchBooks(keyword, subject, faculty, condition, type, null);
+            double legacyMicros = measure(legacy, iterations);
+            double indexedMicros = measure(indexed, iterations);
+            System.out.printf("%-58s %8d %8d %10.1f %10.1f %7.1f%n", describe(c), legacy.get().size(),
+                    indexed.get().size(), legacyMicros, indexedMicros, legacyMicros / indexedMicros);
+        }
+        
+        System.out.printf("%nTrang đầu %d sách%n", PAGE_SIZE);
+        System.out.printf("%-58s %8s %10s %10s %7s%n", "truy vấn", "khớp", "cũ (µs)", "mới (µs)", "x");
+        for (Object[] c : PAGE_CASES) {
+            String sortBy = (String) c[0];
+            String keyword = (String) c[1];
+            String faculty = (String) c[2];
+            BookQuery query = new BookQuery().keyword(keyword).faculty(faculty).sort(BookQuery.Sort.fromString(sortBy));
+            Supplier<List<Book>> legacy = () -> {
+                List<Book> all = legacySort(legacySearch(catalog, keyword, null, faculty, null, null), sortBy);
+                return all.subList(0, Math.min(PAGE_SIZE, all.size()));
+            };
+            Supplier<List<Book>> paged = () -> {
+                try {
+                    return service.searchBooksPage(query, null, PAGE_SIZE).getResults();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+            double legacyMicros = measure(legacy, iterations);
+            double pagedMicros = measure(paged, iterations);
+            int matches = service.searchBooks(keyword, null, faculty, null, null, sortBy).size();
+            System.out.printf("%-58s %8d %10.1f %10.1f %7.1f%n", describe(c), matches,
+                    legacyMicros, pagedMicros, legacyMicros / pagedMicros);
+        }
+    }
+    
+    private static String describe(Object[] c) {
+        StringJoiner joiner = new StringJoiner(" ");
+        for (Object value : c) {
+            if (value != null) {
+                joiner.add(value.toString());
+            }
+        }
+        return joiner.toString();
+    }
+    
+    private static double measure(Supplier<List<Book>> search, int iterations) {
+        // Khởi động JIT
+        for (int i = 0; i < Math.max(10, iterations / 10); i++) {
+            search.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            search.get();
+        }
+        return (System.nanoTime() - start) / 1e3 / iterations;
+    }
+    
+    /**
+     * Sắp xếp của searchBooks trước khi có chỉ mục có thứ tự
+     */
+    private static List<Book> legacySort(List<Book> result, String sortBy) {
+        switch (sortBy) {
+            case "newest":
+                result.sort(Comparator.comparing(Book::getBookId).reversed());
+                break;
+            case "price_asc":
+                result.sort(Comparator.comparingDouble(Book::getPrice));
+                break;
+            case "price_desc":
+                result.sort(Comparator.comparingDouble(Book::getPrice).reversed());
+                break;
+            case "popular":
+                result.sort(Comparator.comparingInt(Book::getViewCount).reversed());
+                break;
+        }
+        return result;
+    }
+    
+    /**
+     * searchBooks trước khi có chỉ mục: lowercase từng sách rồi contains, mỗi bộ lọc một lượt stream
+     */
+    private static List<Book> legacySearch(List<Book> books, String keyword, String subject, String faculty,
+                                           BookCondition condition, TransactionType type) {
+        List<Book> result = books.stream()
+                .filter(b -> b.isVisible())
+                .collect(Collectors.toList());
+        if (keyword != null && !keyword.isEmpty()) {
+            String lowerKeyword = keyword.toLowerCase();
+            result = result.stream()
+                    .filter(b -> b.getTitle().toLowerCase().contains(lowerKeyword) ||
+                               b.getAuthor().toLowerCase().contains(lowerKeyword) ||
+                               (b.getDescription() != null &&
+                                b.getDescription().toLowerCase().contains(lowerKeyword)))
+                    .collect(Collectors.toList());
+        }
+        if (subject != null && !subject.isEmpty()) {
+            result = result.stream().filter(b -> subject.equals(b.getSubject())).collect(Collectors.toList());
+        }
+        if (faculty != null && !faculty.isEmpty()) {
+            result = result.stream().filter(b -> faculty.equals(b.getFaculty())).collect(Collectors.toList());
+        }
+        if (condition != null) {
+            result = result.stream().filter(b -> condition == b.getCondition()).collect(Collectors.toList());
+        }
+        if (type != null) {
+            result = result.stream().filter(b -> b.getAvailableTypes().contains(type)).collect(Collectors.toList());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,107 @@
+package src.com.dnu.bookshare.benchmark;
+
+import src.com.dnu.bookshare.model.Book;
+import src.com.dnu.bookshare.model.Book.*;
+import src.com.dnu.bookshare.persistence.DataManager;
+import src.com.dnu.bookshare.persistence.InMemoryStorageEngine;
+import src.com.dnu.bookshare.service.BookService;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * SearchCacheBenchmark - Mùa thi: các truy vấn theo khoa/môn lặp lại nhiều (phân bố Zipf),
+ * xen lẫn cập nhật sách (tăng lượt xem, đổi trạng thái). So sánh searchBooks không cache và có cache.
+ *
+ * Chạy: java -cp ... src.com.dnu.bookshare.benchmark.SearchCacheBenchmark [số sách] [số thao tác] [% cập nhật]
+ * Mặc định: 100.000 sách, 20.000 thao tác, 5% cập nhật.
+ */
+public class SearchCacheBenchmark {
+    private static final String[] SORTS = {"newest", "price_asc", "popular"};
+    
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int mutationPercent = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        
+        System.out.printf("%d sách, %d thao tác, %d%% cập nhật%n", count, operations, mutationPercent);
+        for (int cacheSize : new int[] {0, 256}) {
+            System.setProperty("bookshare.searchCache.size", String.valueOf(cacheSize));
+            List<Book> catalog = BenchmarkData.catalog(count);
+            ConcurrentNavigableMap<String, Book> preloaded = new ConcurrentSkipListMap<>();
+            for (Book book : catalog) {
+                preloaded.put(book.getBookId(), book);
+            }
+            BookService service = new BookService(new DataManager(new InMemoryStorageEngine()), preloaded);
+            List<String[]> queries = queries(catalog);
+            
+            // Cùng seed cho hai lần chạy: cùng chuỗi thao tác
+            Random random = new Random(1);
+            double[] zipf = zipfCumulative(queries.size());
+            long searchNanos = 0;
+            int searches = 0;
+            long results = 0;
+            for (int op = 0; op < operations; op++) {
+                if (random.nextInt(100) < mutationPercent) {
+                    Book book = catalog.get(random.nextInt(catalog.size()));
+                    if (random.nextInt(10) < 7) {
+                        service.incrementViewCount(book.getBookId());
+                    } else {
+                        service.updateBookStatus(book.getBookId(),
+                                book.getStatus() == BookStatus.AVAILABLE ? BookStatus.RESERVED : BookStatus.AVAILABLE);
+                    }
+                    continue;
+                }
+                String[] q = queries.get(pick(zipf, random.nextDouble()));
+                long start = System.nanoTime();
+                results += service.searchBooks(null, q[0], q[1], null, null, q[2]).size();
+                searchNanos += System.nanoTime() - start;
+                searches++;
+            }
+            System.out.printf("cache %3d mục: %7.1f µs/truy vấn, tổng kết quả %d%n", cacheSize,
+                    searchNanos / 1e3 / searches, results);
+            System.out.println("  " + service.getSearchCacheStats());
+        }
+    }
+    
+    /**
+     * Truy vấn theo khoa (mỗi kiểu sắp xếp) và theo môn học: {subject, faculty, sortBy}
+     */
+    private static List<String[]> queries(List<Book> catalog) {
+        Set<String> faculties = new TreeSet<>();
+        Set<String> subjects = new TreeSet<>();
+        for (Book book : catalog) {
+            faculties.add(book.getFaculty());
+            subjects.add(book.getSubject());
+        }
+        List<String[]> queries = new ArrayList<>();
+        for (String faculty : faculties) {
+            for (String sortBy : SORTS) {
+                queries.add(new String[] {null, faculty, sortBy});
+            }
+        }
+        for (String subject : subjects) {
+            queries.add(new String[] {subject, null, "newest"});
+        }
+        Collections.shuffle(queries, new Random(3));
+        return queries;
+    }
+    
+    private static double[] zipfCumulative(int n) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+    
+    private static int pick(double[] cumulative, double u) {
+        int i = Arrays.binarySearch(cumulative, u);
+        return Math.min(cumulative.length - 1, i >= 0 ? i : -i - 1);
+    }
+}
@@ -0,0 +1,139 @@
+package src.com.dnu.bookshare.benchmark;
+
+import src.com.dnu.bookshare.model.Notification;
+import src.com.dnu.bookshare.persistence.JsonStreamLoader;
+import src.com.dnu.bookshare.persistence.StorageEngines;
+import java.io.*;
+import java.lang.management.*;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * StreamingLoadBenchmark - So sánh cách load notifications.json cũ và mới
+ * - string: Files.readString + gson.fromJson(List) rồi đổ vào HashMap (cách cũ)
+ * - stream: JsonStreamLoader đọc từng phần tử, đổ thẳng vào HashMap
+ *
+ * Chạy: java -cp ... src.com.dnu.bookshare.benchmark.StreamingLoadBenchmark [số bản ghi] [string|stream]
+ * Mặc định 1.000.000 bản ghi, chạy cả hai cách. Đo chính xác nhất khi chạy mỗi cách
+ * trong một JVM riêng.
+ */
+public class StreamingLoadBenchmark {
+    
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String only = args.length > 1 ? args[1] : null;
+        
+        Path dir = Files.createTempDirectory("bookshare-bench");
+        Path file = dir.resolve("notifications.json");
+        generate(file, count);
+        System.out.printf("Đã tạo %s: %d thông báo, %.1f MB%n",
+                file, count, Files.size(file) / 1e6);
+        
+        Gson gson = StorageEngines.createGson(true);
+        
+        try {
+            if (only == null || only.equals("string")) {
+                run("string", () -> loadWithString(file, gson));
+            }
+            if (only == null || only.equals("stream")) {
+                run("stream", () -> loadWithStream(file, gson));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+    
+    private interface Loader {
+        Map<String, Notification> load() throws IOException;
+    }
+    
+    private static void run(String name, Loader loader) throws IOException {
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        long before = usedHeap();
+        
+        long start = System.nanoTime();
+        Map<String, Notification> result = loader.load();
+        long elapsed = System.nanoTime() - start;
+        
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        System.out.printf("%-7s %8d bản ghi  %7.0f ms  heap đỉnh %7.1f MB%n",
+                name, result.size(), elapsed / 1e6, (peak - before) / 1e6);
+    }
+    
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+    
+    // Cách cũ của DataManager.loadFromFile
+    private static Map<String, Notification> loadWithString(Path file, Gson gson) throws IOException {
+        Type listType = new TypeToken<List<Notification>>(){}.getType();
+        String json = Files.readString(file);
+        List<Notification> list = gson.fromJson(json, listType);
+        Map<String, Notification> map = new HashMap<>();
+        for (Notification n : list) {
+            map.put(n.getNotificationId(), n);
+        }
+        return map;
+    }
+    
+    private static Map<String, Notification> loadWithStream(Path file, Gson gson) throws IOException {
+        Map<String, Notification> map = new HashMap<>();
+        JsonStreamLoader.forEach(file, gson, Notification.class,
+                n -> map.put(n.getNotificationId(), n));
+        return map;
+    }
+    
+    /**
+     * Ghi file giống định dạng pretty-printed của DataManager
+     */
+    private static void generate(Path file, int count) throws IOException {
+        Random random = new Random(42);
+        Notification.NotificationType[] types = Notification.NotificationType.values();
+        try (JsonWriter w = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), 1 << 16))) {
+            w.setIndent("  ");
+            w.beginArray();
+            for (int i = 0; i < count; i++) {
+                w.beginObject();
+                w.name("notificationId").value("NOTIF" + (1_700_000_000_000L + i));
+                w.name("userId").value("USER" + (1_700_000_000_000L + random.nextInt(5000)));
+                w.name("type").value(types[random.nextInt(types.length)].name());
+                w.name("title").value("Yêu cầu mượn sách mới");
+                w.name("message").value("Sinh viên " + i + " muốn mượn sách \"Cấu trúc dữ liệu\"");
+                w.name("relatedId").value("TXN" + (1_700_000_000_000L + i));
+                w.name("isRead").value(random.nextBoolean());
+                w.name("createdAt").beginObject();
+                w.name("date").beginObject()
+                        .name("year").value(2024)
+                        .name("month").value(1 + random.nextInt(12))
+                        .name("day").value(1 + random.nextInt(28))
+                        .endObject();
+                w.name("time").beginObject()
+                        .name("hour").value(random.nextInt(24))
+                        .name("minute").value(random.nextInt(60))
+                        .name("second").value(random.nextInt(60))
+                        .name("nano").value(0)
+                        .endObject();
+                w.endObject();
+                w.endObject();
+            }
+            w.endArray();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package src.com.dnu.bookshare.benchmark;
+
+import src.com.dnu.bookshare.model.Transaction;
+import src.com.dnu.bookshare.model.Transaction.*;
+import src.com.dnu.bookshare.persistence.DataManager;
+import src.com.dnu.bookshare.persistence.InMemoryStorageEngine;
+import src.com.dnu.bookshare.service.BookService;
+import src.com.dnu.bookshare.service.TransactionService;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+/**
+ * TransactionHistoryBenchmark - Tải dashboard của người dùng ngẫu nhiên: lịch sử giao dịch,
+ * sách đang mượn, sách đang cho mượn, yêu cầu chờ duyệt.
+ * So sánh quét mọi giao dịch (cách cũ) với chỉ mục theo người dùng của TransactionService,
+ * và kiểm tra hai cách cho cùng kết quả.
+ *
+ * Chạy: java -cp ... src.com.dnu.bookshare.benchmark.TransactionHistoryBenchmark [số giao dịch] [số lần tải]
+ * Mặc định: 200.000 giao dịch (5.000 người dùng), 2.000 lần tải.
+ */
+public class TransactionHistoryBenchmark {
+    
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int loads = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        
+        List<Transaction> generated = BenchmarkData.transactions(count);
+        ConcurrentMap<String, Transaction> transactions = new ConcurrentHashMap<>();
+        for (Transaction transaction : generated) {
+            transactions.put(transaction.getTransactionId(), transaction);
+        }
+        DataManager dataManager = new DataManager(new InMemoryStorageEngine());
+        long start = System.nanoTime();
+        TransactionService service = new TransactionService(new BookService(dataManager, new ConcurrentSkipListMap<>()),
+                                                            dataManager, transactions);
+        System.out.printf("%d giao dịch, dựng chỉ mục (kèm bổ sung log sự kiện) %.0f ms%n",
+                          count, (System.nanoTime() - start) / 1e6);
+        
+        Random random = new Random(21);
+        List<String> users = new ArrayList<>();
+        for (int i = 0; i < loads; i++) {
+            users.add(generated.get(random.nextInt(generated.size())).getOwnerId());
+        }
+        for (String user : users.subList(0, Math.min(50, users.size()))) {
+            if (!legacyDashboard(transactions, user).equals(dashboard(service, user))) {
+                throw new IllegalStateException("Kết quả khác nhau cho " + user);
+            }
+        }
+        
+        List<String> legacyUsers = users.subList(0, Math.max(1, users.size() / 20));
+        double legacy = measure(legacyUsers, user -> legacyDashboard(transactions, user).size());
+        double indexed = measure(users, user -> dashboard(service, user).size());
+        System.out.printf("%-14s %10s %14s%n", "", "lần tải", "µs/lần tải");
+        System.out.printf("%-14s %10d %14.1f%n", "quét tất cả", legacyUsers.size(), legacy);
+        System.out.printf("%-14s %10d %14.1f%n", "chỉ mục", users.size(), indexed);
+        System.out.printf("nhanh hơn %.0f lần%n", legacy / indexed);
+    }
+    
+    private interface Dashboard {
+        int load(String userId);
+    }
+    
+    /**
+     * Thời gian trung bình mỗi lần tải (µs)
+     */
+    private static double measure(List<String> users, Dashboard dashboard) {
+        // Khởi động JIT
+        for (String user : users.subList(0, Math.min(200, users.size()))) {
+            dashboard.load(user);
+        }
+        long start = System.nanoTime();
+        for (String user : users) {
+            dashboard.load(user);
+        }
+        return (System.nanoTime() - start) / 1e3 / users.size();
+    }
+    
+    private static List<List<Transaction>> dashboard(TransactionService service, String userId) {
+        return List.of(service.getUserTransactions(userId), service.getBorrowedBooks(userId),
+                       service.getLentBooks(userId), service.getPendingRequests(userId));
+    }
+    
+    /**
+     * Các truy vấn như trước khi có chỉ mục: stream qua mọi giao dịch
+     */
+    private static List<List<Transaction>> legacyDashboard(Map<String, Transaction> transactions, String userId) {
+        List<Transaction> history = transactions.values().stream()
+                .filter(t -> t.getOwnerId().equals(userId) || t.getBorrowerId().equals(userId))
+                .sorted(Comparator.comparing(Transaction::getRequestedAt).reversed()
+                                  .thenComparing(Comparator.comparing(Transaction::getTransactionId).reversed()))
+                .collect(Collectors.toList());
+        List<Transaction> borrowed = transactions.values().stream()
+                .filter(t -> t.getBorrowerId().equals(userId) && t.getType() == TransactionType.BORROW
+                          && t.getStatus() == TransactionStatus.IN_PROGRESS)
+                .collect(Collectors.toList());
+        List<Transaction> lent = transactions.values().stream()
+                .filter(t -> t.getOwnerId().equals(userId) && t.getType() == TransactionType.BORROW
+                          && t.getStatus() == TransactionStatus.IN_PROGRESS)
+                .collect(Collectors.toList());
+        List<Transaction> pending = transactions.values().stream()
+                .filter(t -> t.getOwnerId().equals(userId) && t.getStatus() == TransactionStatus.PENDING)
+                .collect(Collectors.toList());
+        return List.of(history, sortNewest(borrowed), sortNewest(lent), sortNewest(pending));
+    }
+    
+    /**
+     * Cách cũ trả theo thứ tự của HashMap; sắp lại để so được với chỉ mục
+     */
+    private static List<Transaction> sortNewest(List<Transaction> transactions) {
+        transactions.sort(Comparator.comparing(Transaction::getRequestedAt).reversed()
+                                    .thenComparing(Comparator.comparing(Transaction::getTransactionId).reversed()));
+        return transactions;
+    }
+}
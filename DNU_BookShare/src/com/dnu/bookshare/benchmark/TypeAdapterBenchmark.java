@@ -0,0 +1,87 @@
+package src.com.dnu.bookshare.benchmark;
+
+import src.com.dnu.bookshare.model.*;
+import src.com.dnu.bookshare.persistence.StorageEngines;
+import src.com.dnu.bookshare.persistence.adapter.LocalDateTimeAdapter;
+import java.io.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * TypeAdapterBenchmark - Thông lượng serialize/parse của Book và Transaction
+ * - reflection:      Gson mặc định (cần --add-opens java.base/java.time=ALL-UNNAMED trên Java 17+)
+ * - reflection+date: reflection cho model, LocalDateTimeAdapter cho ngày giờ
+ * - adapters:        Gson của StorageEngines.createGson (TypeAdapter viết tay cho mọi model)
+ *
+ * Chạy: java -cp ... src.com.dnu.bookshare.benchmark.TypeAdapterBenchmark [số bản ghi] [số lần đo]
+ * Mặc định 100.000 bản ghi mỗi loại, lấy kết quả tốt nhất của 5 lần đo.
+ */
+public class TypeAdapterBenchmark {
+    
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        List<Book> books = BenchmarkData.books(count);
+        List<Transaction> transactions = BenchmarkData.transactions(count);
+        
+        Map<String, Gson> modes = new LinkedHashMap<>();
+        modes.put("reflection", new GsonBuilder().create());
+        modes.put("reflection+date", new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .create());
+        modes.put("adapters", StorageEngines.createGson(false));
+        
+        System.out.printf("%d bản ghi mỗi loại, đo %d lần (bản ghi/giây)%n", count, rounds);
+        System.out.printf("%-16s %-12s %14s %14s%n", "chế độ", "model", "serialize", "parse");
+        for (Map.Entry<String, Gson> mode : modes.entrySet()) {
+            try {
+                run(mode.getKey(), mode.getValue(), Book.class, books, rounds);
+                run(mode.getKey(), mode.getValue(), Transaction.class, transactions, rounds);
+            } catch (RuntimeException e) {
+                // Reflection vào java.time bị chặn nếu thiếu --add-opens
+                System.out.printf("%-16s bỏ qua: %s%n", mode.getKey(), e.getMessage());
+            }
+        }
+    }
+    
+    private static <T> void run(String mode, Gson gson, Class<T> type, List<T> data,
+                                int rounds) throws IOException {
+        TypeAdapter<T> adapter = gson.getAdapter(type);
+        
+        long bestWrite = Long.MAX_VALUE;
+        String json = null;
+        for (int r = 0; r < rounds; r++) {
+            StringWriter buffer = new StringWriter(data.size() * 512);
+            long start = System.nanoTime();
+            try (JsonWriter out = new JsonWriter(buffer)) {
+                out.beginArray();
+                for (T entity : data) {
+                    adapter.write(out, entity);
+                }
+                out.endArray();
+            }
+            bestWrite = Math.min(bestWrite, System.nanoTime() - start);
+            json = buffer.toString();
+        }
+        
+        long bestRead = Long.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            List<T> parsed = new ArrayList<>(data.size());
+            long start = System.nanoTime();
+            try (JsonReader in = new JsonReader(new StringReader(json))) {
+                in.beginArray();
+                while (in.hasNext()) {
+                    parsed.add(adapter.read(in));
+                }
+                in.endArray();
+            }
+            bestRead = Math.min(bestRead, System.nanoTime() - start);
+        }
+        
+        System.out.printf("%-16s %-12s %14.0f %14.0f%n", mode, type.getSimpleName(),
+                data.size() * 1e9 / bestWrite, data.size() * 1e9 / bestRead);
+    }
+}
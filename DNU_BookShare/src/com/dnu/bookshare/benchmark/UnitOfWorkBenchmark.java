@@ -0,0 +1,212 @@
+package src.com.dnu.bookshare.benchmark;
+
+import src.com.dnu.bookshare.model.Book;
+import src.com.dnu.bookshare.model.Book.BookStatus;
+import src.com.dnu.bookshare.model.Transaction;
+import src.com.dnu.bookshare.model.Transaction.*;
+import src.com.dnu.bookshare.persistence.*;
+import src.com.dnu.bookshare.service.BookService;
+import src.com.dnu.bookshare.service.TransactionService;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * UnitOfWorkBenchmark - Vòng đời giao dịch (yêu cầu → duyệt → giao → trả) trên engine json, durability strict:
+ * - từng file: mỗi thao tác ghi lại transactions.json rồi books.json, mỗi file một fsync (cách cũ)
+ * - journal: JournaledStorageEngine, mỗi thao tác là một record trong commit.journal, một fsync;
+ *   file JSON được ghi lại khi checkpoint (tính cả vào kết quả)
+ * In số thao tác/giây, số fsync và số byte ghi (wchar của /proc/self/io, nếu có) mỗi thao tác.
+ * Sau đó cắt journal tại nhiều vị trí ngẫu nhiên (giả lập crash), khôi phục và kiểm tra
+ * trạng thái mọi giao dịch khớp với trạng thái sách.
+ *
+ * Chạy: java -cp ... src.com.dnu.bookshare.benchmark.UnitOfWorkBenchmark [số sách] [số vòng đời]
+ * Mặc định: 2.000 sách, 200 vòng đời.
+ */
+public class UnitOfWorkBenchmark {
+    private static final String BORROWER = "USER_BENCH";
+    private static final int CRASH_POINTS = 200;
+    
+    public static void main(String[] args) throws Exception {
+        int bookCount = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int lifecycles = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        
+        System.out.printf("%d sách, %d vòng đời giao dịch (%d thao tác)%n", bookCount, lifecycles, lifecycles * 4);
+        System.out.printf("%-10s %12s %12s %14s%n", "", "thao tác/s", "fsync/thao tác", "KB ghi/thao tác");
+        run("từng file", bookCount, lifecycles, false);
+        run("journal", bookCount, lifecycles, true);
+        crashRecovery(bookCount, lifecycles);
+    }
+    
+    private static void run(String label, int bookCount, int lifecycles, boolean journaled) throws Exception {
+        Path dir = Files.createTempDirectory("bookshare-uow");
+        JsonStorageEngine json = new JsonStorageEngine(dir, StorageEngines.createGson(true), DurabilityLevel.STRICT, 0);
+        JournaledStorageEngine journal = journaled
+                ? new JournaledStorageEngine(json, dir.resolve("commit.journal"), DurabilityLevel.STRICT, 0, 1 << 20)
+                : null;
+        StorageEngine engine = journaled ? journal : json;
+        DataManager dataManager = new DataManager(engine);
+        List<Book> books = availableBooks(bookCount);
+        dataManager.saveAllBooks(books);
+        dataManager.saveAllTransactions(new ArrayList<>());
+        TransactionService service = services(dataManager, books);
+        
+        long commitsBefore = json.getCommitCount();
+        long bytesBefore = writtenBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < lifecycles; i++) {
+            Transaction t = service.createRequest(books.get(i).getBookId(), BORROWER, TransactionType.BORROW, "");
+            service.approveRequest(t.getTransactionId());
+            service.confirmDelivery(t.getTransactionId(), 14);
+            service.confirmReturn(t.getTransactionId());
+        }
+        // Phần ghi file JSON bị hoãn đến checkpoint vẫn được tính
+        engine.flush();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long bytes = writtenBytes() - bytesBefore;
+        long fsyncs = json.getCommitCount() - commitsBefore + (journaled ? journal.getSyncCount() : 0);
+        
+        int ops = lifecycles * 4;
+        System.out.printf("%-10s %12.0f %12.2f %14s%s%n", label, ops / seconds, (double) fsyncs / ops,
+                bytes < 0 ? "-" : String.format("%.1f", bytes / 1024.0 / ops),
+                journaled ? "   (" + journal.getCheckpointCount() + " checkpoint)" : "");
+        engine.close();
+        deleteDirectory(dir);
+    }
+    
+    /**
+     * Chạy các vòng đời dừng ở bước ngẫu nhiên, không checkpoint; với mỗi điểm cắt journal
+     * khôi phục vào thư mục mới và đếm giao dịch lệch trạng thái với sách
+     */
+    private static void crashRecovery(int bookCount, int lifecycles) throws Exception {
+        Path dir = Files.createTempDirectory("bookshare-uow");
+        JsonStorageEngine json = new JsonStorageEngine(dir, StorageEngines.createGson(true));
+        DataManager dataManager = new DataManager(json);
+        List<Book> books = availableBooks(bookCount);
+        dataManager.saveAllBooks(books);
+        dataManager.saveAllTransactions(new ArrayList<>());
+        
+        JournaledStorageEngine engine = new JournaledStorageEngine(json, dir.resolve("commit.journal"),
+                DurabilityLevel.NONE, 0, Long.MAX_VALUE);
+        TransactionService service = services(new DataManager(engine), books);
+        Random random = new Random(42);
+        for (int i = 0; i < lifecycles; i++) {
+            Transaction t = service.createRequest(books.get(i).getBookId(), BORROWER, TransactionType.BORROW, "");
+            int steps = random.nextInt(5);
+            if (steps == 4) {
+                service.cancelTransaction(t.getTransactionId());
+                continue;
+            }
+            if (steps > 0) {
+                service.approveRequest(t.getTransactionId());
+            }
+            if (steps > 1) {
+                service.confirmDelivery(t.getTransactionId(), 14);
+            }
+            if (steps > 2) {
+                service.confirmReturn(t.getTransactionId());
+            }
+        }
+        Path journalFile = dir.resolve("commit.journal");
+        long journalSize = Files.size(journalFile);
+        
+        int torn = 0;
+        long recoveredUnits = 0;
+        for (int point = 0; point < CRASH_POINTS; point++) {
+            long cut = point == 0 ? journalSize : (long) (random.nextDouble() * journalSize);
+            Path copy = Files.createTempDirectory("bookshare-uow-crash");
+            for (String name : List.of("books.json", "transactions.json", "commit.journal")) {
+                Files.copy(dir.resolve(name), copy.resolve(name));
+            }
+            try (FileChannel ch = FileChannel.open(copy.resolve("commit.journal"), StandardOpenOption.WRITE)) {
+                ch.truncate(cut);
+            }
+            StorageEngine recovered = new JournaledStorageEngine(
+                    new JsonStorageEngine(copy, StorageEngines.createGson(true)),
+                    copy.resolve("commit.journal"), DurabilityLevel.NONE, 0, Long.MAX_VALUE);
+            DataManager restored = new DataManager(recovered);
+            torn += countTorn(restored.findAllBooks(), restored.findAllTransactions());
+            recoveredUnits += restored.findAllTransactions().size();
+            recovered.close();
+            deleteDirectory(copy);
+        }
+        System.out.printf("Crash giả lập: journal %.1f KB, %d điểm cắt, trung bình %.0f giao dịch khôi phục, "
+                + "%d trạng thái lệch%n", journalSize / 1024.0, CRASH_POINTS,
+                (double) recoveredUnits / CRASH_POINTS, torn);
+        engine.close();
+        deleteDirectory(dir);
+        if (torn > 0) {
+            throw new IllegalStateException("Giao dịch và sách lệch nhau sau khôi phục");
+        }
+    }
+    
+    /**
+     * Số sách có trạng thái không khớp giao dịch của nó (sách đặt trước mà không có giao dịch
+     * đang chờ cũng tính)
+     */
+    private static int countTorn(List<Book> books, List<Transaction> transactions) {
+        Map<String, BookStatus> expected = new HashMap<>();
+        for (Transaction t : transactions) {
+            switch (t.getStatus()) {
+                case PENDING:
+                case APPROVED:
+                    expected.put(t.getBookId(), BookStatus.RESERVED);
+                    break;
+                case IN_PROGRESS:
+                    expected.put(t.getBookId(), BookStatus.BORROWED);
+                    break;
+                default:
+                    expected.putIfAbsent(t.getBookId(), BookStatus.AVAILABLE);
+            }
+        }
+        int torn = 0;
+        for (Book book : books) {
+            if (book.getStatus() != expected.getOrDefault(book.getBookId(), BookStatus.AVAILABLE)) {
+                torn++;
+            }
+        }
+        return torn;
+    }
+    
+    private static List<Book> availableBooks(int count) {
+        List<Book> books = BenchmarkData.books(count);
+        for (Book book : books) {
+            book.setStatus(BookStatus.AVAILABLE);
+        }
+        return books;
+    }
+    
+    private static TransactionService services(DataManager dataManager, List<Book> books) {
+        ConcurrentNavigableMap<String, Book> byId = new ConcurrentSkipListMap<>();
+        for (Book book : books) {
+            byId.put(book.getBookId(), book);
+        }
+        return new TransactionService(new BookService(dataManager, byId), dataManager, new ConcurrentHashMap<>());
+    }
+    
+    /**
+     * Tổng số byte tiến trình đã ghi qua write(), -1 nếu hệ điều hành không có /proc/self/io
+     */
+    private static long writtenBytes() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/io"))) {
+                if (line.startsWith("wchar:")) {
+                    return Long.parseLong(line.substring(6).trim());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Không hỗ trợ
+        }
+        return -1;
+    }
+    
+    private static void deleteDirectory(Path dir) throws IOException {
+        try (var paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
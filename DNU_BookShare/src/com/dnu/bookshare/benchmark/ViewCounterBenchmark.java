@@ -0,0 +1,130 @@
+package src.com.dnu.bookshare.benchmark;
+
+import src.com.dnu.bookshare.model.Book;
+import src.com.dnu.bookshare.persistence.*;
+import src.com.dnu.bookshare.service.BookService;
+import src.com.dnu.bookshare.service.views.ViewCounter;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * ViewCounterBenchmark - Nhiều thread cùng xem một nhóm sách "hot"
+ * - cách cũ: viewCount++ trên Book rồi saveBook (JSON engine) cho mỗi lượt xem
+ * - BookService.incrementViewCount: LongAdder trong bộ nhớ, flush định kỳ
+ * - incrementViewCount(bookId, viewerId): thêm HyperLogLog người xem và điểm xu hướng
+ * In số lượt xem/giây và số lượt bị mất (tổng viewCount so với số lượt đã xem).
+ *
+ * Chạy: java -cp ... src.com.dnu.bookshare.benchmark.ViewCounterBenchmark [số thread] [lượt xem mỗi thread]
+ * Mặc định: 8 thread, 200 lượt xem mỗi thread với cách cũ (x1000 với bộ đếm mới).
+ */
+public class ViewCounterBenchmark {
+    private static final int BOOKS = 2_000;
+    private static final int HOT_BOOKS = 20;
+    
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        
+        System.out.printf("%d sách, %d thread xem %d sách hot%n", BOOKS, threads, HOT_BOOKS);
+        System.out.printf("%-14s %12s %14s %10s%n", "cách", "lượt xem", "lượt/giây", "bị mất");
+        
+        // Cách cũ
+        Path dir = Files.createTempDirectory("bookshare-views");
+        DataManager legacyData = new DataManager(new JsonStorageEngine(dir, StorageEngines.createGson(true),
+                                                                        DurabilityLevel.BATCHED, 2000));
+        List<Book> legacyBooks = BenchmarkData.catalog(BOOKS);
+        legacyData.saveAllBooks(legacyBooks);
+        long legacyBase = totalViews(legacyBooks);
+        double legacyRate = run(threads, perThread, book -> {
+            Book b = legacyBooks.get(book);
+            b.incrementViewCount();
+            legacyData.saveBook(b);
+        });
+        long legacyViews = (long) threads * perThread;
+        System.out.printf("%-14s %12d %14.0f %10d%n", "viewCount++", legacyViews, legacyRate,
+                legacyViews - (totalViews(legacyBooks) - legacyBase));
+        legacyData.close();
+        
+        // Bộ đếm mới
+        List<Book> books = BenchmarkData.catalog(BOOKS);
+        ConcurrentNavigableMap<String, Book> preloaded = new ConcurrentSkipListMap<>();
+        for (Book book : books) {
+            preloaded.put(book.getBookId(), book);
+        }
+        BookService service = new BookService(new DataManager(new InMemoryStorageEngine()), preloaded);
+        long base = totalViews(books);
+        int counterPerThread = perThread * 1000;
+        double counterRate = run(threads, counterPerThread,
+                book -> service.incrementViewCount(books.get(book).getBookId()));
+        service.flushViewCounts();
+        long views = (long) threads * counterPerThread;
+        System.out.printf("%-14s %12d %14.0f %10d%n", "LongAdder", views, counterRate,
+                views - (totalViews(books) - base));
+        System.out.println("  " + service.getViewCounterStats());
+        
+        // Kèm người xem: HyperLogLog + điểm xu hướng
+        BookService viewerService = new BookService(new DataManager(new InMemoryStorageEngine()), preloaded);
+        String[] viewers = new String[5_000];
+        for (int i = 0; i < viewers.length; i++) {
+            viewers[i] = "USER" + i;
+        }
+        double viewerRate = run(threads, counterPerThread, book -> viewerService.incrementViewCount(
+                books.get(book).getBookId(), viewers[ThreadLocalRandom.current().nextInt(viewers.length)]));
+        System.out.printf("%-14s %12d %14.0f %10s%n", "+ người xem", views, viewerRate, "-");
+        System.out.printf("  bộ nhớ mỗi sách đang đếm: ~%d bytes%n", ViewCounter.bytesPerBook());
+        
+        // Một người tải lại trang liên tục so với nhiều người xem một lần
+        Book spammed = books.get(HOT_BOOKS);
+        Book liked = books.get(HOT_BOOKS + 1);
+        for (int i = 0; i < 10_000; i++) {
+            viewerService.incrementViewCount(spammed.getBookId(), "USER-spam");
+        }
+        for (int i = 0; i < 300; i++) {
+            viewerService.incrementViewCount(liked.getBookId(), "USER-reader-" + i);
+        }
+        System.out.printf("sách bị 1 người tải lại 10.000 lần: %d lượt xem, %d người xem, điểm xu hướng %.1f%n",
+                viewerService.getViewCount(spammed.getBookId()), viewerService.getUniqueViewers(spammed.getBookId()),
+                viewerService.getTrendingScore(spammed.getBookId()));
+        System.out.printf("sách được 300 người xem:            %d lượt xem, %d người xem, điểm xu hướng %.1f%n",
+                viewerService.getViewCount(liked.getBookId()), viewerService.getUniqueViewers(liked.getBookId()),
+                viewerService.getTrendingScore(liked.getBookId()));
+    }
+    
+    private interface View {
+        void view(int book) throws Exception;
+    }
+    
+    private static double run(int threads, int perThread, View view) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            results.add(pool.submit(() -> {
+                Random random = new Random(seed);
+                ready.await();
+                for (int i = 0; i < perThread; i++) {
+                    view.view(random.nextInt(HOT_BOOKS));
+                }
+                return null;
+            }));
+        }
+        long start = System.nanoTime();
+        ready.countDown();
+        for (Future<?> f : results) {
+            f.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+        return threads * (double) perThread / seconds;
+    }
+    
+    private static long totalViews(List<Book> books) {
+        long total = 0;
+        for (Book book : books) {
+            total += book.getViewCount();
+        }
+        return total;
+    }
+}
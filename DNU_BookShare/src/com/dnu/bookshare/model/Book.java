@@ -3,8 +3,12 @@ package src.com.dnu.bookshare.model;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public class Book {
+    private static final AtomicReferenceFieldUpdater<Book, BookStatus> STATUS =
+            AtomicReferenceFieldUpdater.newUpdater(Book.class, BookStatus.class, "status");
+    
     private String bookId;
     private String ownerId;
     private String title;
@@ -17,7 +21,8 @@ public class Book {
     private List<TransactionType> availableTypes;
     private double price;
     private int borrowDays;
-    private BookStatus status;
+    // Đổi bằng compareAndSetStatus khi nhiều thread cùng giành sách (đặt trước, mượn, trả)
+    private volatile BookStatus status;
     private LocalDateTime postedAt;
     private int viewCount;
     private boolean isVisible;
@@ -38,7 +43,20 @@ public class Book {
     }
     
     public enum BookStatus {
-        AVAILABLE, BORROWED, SOLD, RESERVED
+        AVAILABLE, BORROWED, SOLD, RESERVED;
+        
+        /**
+         * Bảng chuyển trạng thái: AVAILABLE → RESERVED (có yêu cầu) → BORROWED / SOLD (giao sách)
+         * hoặc AVAILABLE (từ chối, hủy); BORROWED → AVAILABLE (trả, hủy); SOLD là trạng thái cuối
+         */
+        public boolean canTransitionTo(BookStatus next) {
+            switch (this) {
+                case AVAILABLE: return next == RESERVED;
+                case RESERVED: return next == AVAILABLE || next == BORROWED || next == SOLD;
+                case BORROWED: return next == AVAILABLE;
+                default: return false;
+            }
+        }
     }
     
     public Book(String ownerId, String title, String author) {
@@ -54,8 +72,33 @@ public class Book {
         this.isVisible = true;
     }
     
+    /**
+     * Khôi phục sách từ storage (codec/adapter), không sinh id mới
+     */
+    public Book(String bookId, String ownerId, String title, String author, String subject,
+                String faculty, String description, String imageUrl, BookCondition condition,
+                List<TransactionType> availableTypes, double price, int borrowDays,
+                BookStatus status, LocalDateTime postedAt, int viewCount, boolean isVisible) {
+        this.bookId = bookId;
+        this.ownerId = ownerId;
+        this.title = title;
+        this.author = author;
+        this.subject = subject;
+        this.faculty = faculty;
+        this.description = description;
+        this.imageUrl = imageUrl;
+        this.condition = condition;
+        this.availableTypes = availableTypes != null ? availableTypes : new ArrayList<>();
+        this.price = price;
+        this.borrowDays = borrowDays;
+        this.status = status;
+        this.postedAt = postedAt;
+        this.viewCount = viewCount;
+        this.isVisible = isVisible;
+    }
+    
     private String generateId() {
-        return "BOOK" + System.currentTimeMillis();
+        return IdGenerator.next("BOOK");
     }
     
     // Getters and Setters
@@ -87,8 +130,17 @@ public class Book {
     public void setBorrowDays(int borrowDays) { this.borrowDays = borrowDays; }
     public BookStatus getStatus() { return status; }
     public void setStatus(BookStatus status) { this.status = status; }
+    public LocalDateTime getPostedAt() { return postedAt; }
     public int getViewCount() { return viewCount; }
     public void incrementViewCount() { this.viewCount++; }
+    public void setViewCount(int viewCount) { this.viewCount = viewCount; }
     public boolean isVisible() { return isVisible; }
     public void setVisible(boolean visible) { isVisible = visible; }
+    
+    /**
+     * Đổi trạng thái nếu trạng thái hiện tại đúng là expected (CAS, không khóa)
+     */
+    public boolean compareAndSetStatus(BookStatus expected, BookStatus status) {
+        return STATUS.compareAndSet(this, expected, status);
+    }
 }
\ No newline at end of file
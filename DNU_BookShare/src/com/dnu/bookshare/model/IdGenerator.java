@@ -0,0 +1,152 @@
+package src.com.dnu.bookshare.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IdGenerator - Sinh id tăng dần theo thời gian, không trùng (kiểu Snowflake)
+ * Dạng: tiền tố + millis (13 chữ số) + node (3 chữ số) + sequence (4 chữ số),
+ * ví dụ BOOK17000000000000420007.
+ *
+ * - Lock-free: trạng thái (millis, sequence) gói trong một AtomicLong, cập nhật bằng CAS
+ * - Tối đa 10000 id/ms/node; hết sequence thì mượn ms kế tiếp (đi trước đồng hồ tối đa
+ *   MAX_LEAD_MILLIS, quá thì chờ), đồng hồ lùi thì giữ ms cũ nên id luôn tăng trong một process
+ * - Nhiều process ghi chung dữ liệu chỉ không trùng id khi mỗi process có node id riêng:
+ *   phải đặt -Dbookshare.nodeId=0..999 khác nhau. Mặc định pid % 1000 (có cảnh báo) không bảo đảm
+ *   điều đó (pid trùng 3 chữ số cuối, mọi JVM trong container đều là pid 1); NodeLease khóa node id
+ *   theo thư mục dữ liệu để process thứ hai cùng node bị từ chối.
+ * - Khởi động lại: NodeLease đưa trạng thái qua mốc millis đã cấp của lần chạy trước (advanceTo),
+ *   nên không cấp lại id của các ms đã mượn.
+ * - Cùng độ dài và tiền tố thì thứ tự chuỗi = thứ tự tạo. Id cũ (tiền tố + millis) vẫn
+ *   xếp đúng chỗ vì là tiền tố của các id mới trong cùng ms.
+ */
+public final class IdGenerator {
+    private static final int SEQUENCE_BITS = 14;
+    private static final long MAX_SEQUENCE = 9999;
+    /**
+     * Số ms tối đa được mượn trước đồng hồ khi hết sequence
+     */
+    public static final long MAX_LEAD_MILLIS = 1000;
+    private static final int NODE_ID = nodeIdFromConfig();
+    private static final AtomicLong STATE = new AtomicLong();
+
+    private IdGenerator() {
+    }
+
+    /**
+     * Id mới với tiền tố cho trước ("BOOK", "USER", "TXN", "NOTIF", "RPT")
+     */
+    public static String next(String prefix) {
+        long state = nextState();
+        long millis = state >>> SEQUENCE_BITS;
+        long sequence = state & ((1L << SEQUENCE_BITS) - 1);
+        StringBuilder sb = new StringBuilder(prefix.length() + 20).append(prefix).append(millis);
+        appendPadded(sb, NODE_ID, 3);
+        appendPadded(sb, sequence, 4);
+        return sb.toString();
+    }
+
+    private static long nextState() {
+        while (true) {
+            long current = STATE.get();
+            long lastMillis = current >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis();
+            long next;
+            if (now > lastMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if ((current & ((1L << SEQUENCE_BITS) - 1)) < MAX_SEQUENCE) {
+                next = current + 1;
+            } else if (lastMillis + 1 - now > MAX_LEAD_MILLIS) {
+                // Đã đi trước đồng hồ quá xa: chờ thay vì mượn thêm
+                Thread.onSpinWait();
+                continue;
+            } else {
+                next = (lastMillis + 1) << SEQUENCE_BITS;
+            }
+            if (STATE.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Chỉ cấp id với millis lớn hơn hoặc bằng millis từ giờ trở đi (dùng bởi NodeLease khi khởi động)
+     */
+    public static void advanceTo(long millis) {
+        while (true) {
+            long current = STATE.get();
+            if (current >>> SEQUENCE_BITS >= millis) {
+                return;
+            }
+            if (STATE.compareAndSet(current, millis << SEQUENCE_BITS)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Millis của id cấp gần nhất (0 nếu chưa cấp id nào)
+     */
+    public static long lastIssuedMillis() {
+        return STATE.get() >>> SEQUENCE_BITS;
+    }
+
+    /**
+     * Cận dưới (bao gồm) của mọi id có tiền tố này được tạo từ thời điểm time trở đi.
+     * Dùng với subMap/tailMap của map sắp theo id để quét theo khoảng thời gian.
+     */
+    public static String lowerBound(String prefix, LocalDateTime time) {
+        return prefix + toMillis(time);
+    }
+
+    /**
+     * Thời điểm tạo (millis) của id, -1 nếu id không theo định dạng tiền tố + millis
+     */
+    public static long timestampOf(String prefix, String id) {
+        int start = prefix.length();
+        if (id == null || !id.startsWith(prefix) || id.length() < start + 13) {
+            return -1;
+        }
+        long millis = 0;
+        for (int i = start; i < start + 13; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            millis = millis * 10 + (c - '0');
+        }
+        return millis;
+    }
+
+    public static int getNodeId() {
+        return NODE_ID;
+    }
+
+    static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static void appendPadded(StringBuilder sb, long value, int width) {
+        String digits = Long.toString(value);
+        for (int i = digits.length(); i < width; i++) {
+            sb.append('0');
+        }
+        sb.append(digits);
+    }
+
+    private static int nodeIdFromConfig() {
+        String configured = System.getProperty("bookshare.nodeId");
+        if (configured != null) {
+            int node = Integer.parseInt(configured.trim());
+            if (node < 0 || node > 999) {
+                throw new IllegalArgumentException("bookshare.nodeId phải trong khoảng 0..999: " + configured);
+            }
+            return node;
+        }
+        int node = (int) (ProcessHandle.current().pid() % 1000);
+        System.err.println("⚠ bookshare.nodeId chưa đặt, dùng node " + node + " (pid % 1000): "
+                + "nhiều process dùng chung thư mục dữ liệu phải đặt -Dbookshare.nodeId khác nhau");
+        return node;
+    }
+}
\ No newline at end of file
@@ -29,8 +29,23 @@ public class Notification {
         this.createdAt = LocalDateTime.now();
     }
     
+    /**
+     * Khôi phục thông báo từ storage (codec/adapter), không sinh id mới
+     */
+    public Notification(String notificationId, String userId, NotificationType type, String title,
+                        String message, String relatedId, boolean isRead, LocalDateTime createdAt) {
+        this.notificationId = notificationId;
+        this.userId = userId;
+        this.type = type;
+        this.title = title;
+        this.message = message;
+        this.relatedId = relatedId;
+        this.isRead = isRead;
+        this.createdAt = createdAt;
+    }
+    
     private String generateId() {
-        return "NOTIF" + System.currentTimeMillis();
+        return IdGenerator.next("NOTIF");
     }
     
     // Getters and Setters
@@ -42,8 +42,26 @@ public class Report {
         this.createdAt = LocalDateTime.now();
     }
     
+    /**
+     * Khôi phục báo cáo từ storage (codec/adapter), không sinh id mới
+     */
+    public Report(String reportId, String reporterId, String reportedUserId, String transactionId,
+                  ReportType type, String description, ReportStatus status,
+                  LocalDateTime createdAt, LocalDateTime resolvedAt, String adminNote) {
+        this.reportId = reportId;
+        this.reporterId = reporterId;
+        this.reportedUserId = reportedUserId;
+        this.transactionId = transactionId;
+        this.type = type;
+        this.description = description;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.resolvedAt = resolvedAt;
+        this.adminNote = adminNote;
+    }
+    
     private String generateId() {
-        return "RPT" + System.currentTimeMillis();
+        return IdGenerator.next("RPT");
     }
     
     // Getters and Setters
@@ -2,14 +2,19 @@
 package src.com.dnu.bookshare.model;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public class Transaction {
+    private static final AtomicReferenceFieldUpdater<Transaction, TransactionStatus> STATUS =
+            AtomicReferenceFieldUpdater.newUpdater(Transaction.class, TransactionStatus.class, "status");
+    
     private String transactionId;
     private String bookId;
     private String ownerId;
     private String borrowerId;
     private TransactionType type;
-    private TransactionStatus status;
+    // Đổi bằng compareAndSetStatus: hai thao tác đồng thời (duyệt và hủy...) chỉ một cái thắng
+    private volatile TransactionStatus status;
     private LocalDateTime requestedAt;
     private LocalDateTime approvedAt;
     private LocalDateTime deliveredAt;
@@ -21,13 +26,30 @@ public class Transaction {
     private int borrowerRating;
     private String ownerReview;
     private String borrowerReview;
+    // Số mốc nhắc trả (DueDateScheduler) đã gửi cho hạn trả hiện tại, để không gửi lại sau khi khởi động lại
+    private int remindersSent;
     
     public enum TransactionType {
         BORROW, BUY, EXCHANGE
     }
     
     public enum TransactionStatus {
-        PENDING, APPROVED, REJECTED, IN_PROGRESS, COMPLETED, OVERDUE, CANCELLED
+        PENDING, APPROVED, REJECTED, IN_PROGRESS, COMPLETED, OVERDUE, CANCELLED;
+        
+        /**
+         * Bảng chuyển trạng thái: PENDING → APPROVED / REJECTED, APPROVED → IN_PROGRESS,
+         * IN_PROGRESS → COMPLETED / OVERDUE, OVERDUE → COMPLETED; hủy được khi chưa kết thúc.
+         * REJECTED, COMPLETED, CANCELLED là trạng thái cuối.
+         */
+        public boolean canTransitionTo(TransactionStatus next) {
+            switch (this) {
+                case PENDING: return next == APPROVED || next == REJECTED || next == CANCELLED;
+                case APPROVED: return next == IN_PROGRESS || next == CANCELLED;
+                case IN_PROGRESS: return next == COMPLETED || next == OVERDUE || next == CANCELLED;
+                case OVERDUE: return next == COMPLETED || next == CANCELLED;
+                default: return false;
+            }
+        }
     }
     
     public Transaction(String bookId, String ownerId, String borrowerId, TransactionType type) {
@@ -40,8 +62,35 @@ public class Transaction {
         this.requestedAt = LocalDateTime.now();
     }
     
+    /**
+     * Khôi phục giao dịch từ storage (codec/adapter), không sinh id mới
+     */
+    public Transaction(String transactionId, String bookId, String ownerId, String borrowerId,
+                       TransactionType type, TransactionStatus status, LocalDateTime requestedAt,
+                       LocalDateTime approvedAt, LocalDateTime deliveredAt, LocalDateTime returnedAt,
+                       LocalDateTime dueDate, double amount, String message,
+                       int ownerRating, int borrowerRating, String ownerReview, String borrowerReview) {
+        this.transactionId = transactionId;
+        this.bookId = bookId;
+        this.ownerId = ownerId;
+        this.borrowerId = borrowerId;
+        this.type = type;
+        this.status = status;
+        this.requestedAt = requestedAt;
+        this.approvedAt = approvedAt;
+        this.deliveredAt = deliveredAt;
+        this.returnedAt = returnedAt;
+        this.dueDate = dueDate;
+        this.amount = amount;
+        this.message = message;
+        this.ownerRating = ownerRating;
+        this.borrowerRating = borrowerRating;
+        this.ownerReview = ownerReview;
+        this.borrowerReview = borrowerReview;
+    }
+    
     private String generateId() {
-        return "TXN" + System.currentTimeMillis();
+        return IdGenerator.next("TXN");
     }
     
     // Getters and Setters
@@ -73,6 +122,15 @@ public class Transaction {
     public void setOwnerReview(String ownerReview) { this.ownerReview = ownerReview; }
     public String getBorrowerReview() { return borrowerReview; }
     public void setBorrowerReview(String borrowerReview) { this.borrowerReview = borrowerReview; }
+    public int getRemindersSent() { return remindersSent; }
+    public void setRemindersSent(int remindersSent) { this.remindersSent = remindersSent; }
+    
+    /**
+     * Đổi trạng thái nếu trạng thái hiện tại đúng là expected (CAS, không khóa)
+     */
+    public boolean compareAndSetStatus(TransactionStatus expected, TransactionStatus status) {
+        return STATUS.compareAndSet(this, expected, status);
+    }
     
     public boolean isOverdue() {
         return dueDate != null && LocalDateTime.now().isAfter(dueDate) && 
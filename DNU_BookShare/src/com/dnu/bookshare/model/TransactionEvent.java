@@ -0,0 +1,120 @@
+// ========== TransactionEvent.java ==========
+package src.com.dnu.bookshare.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * TransactionEvent - Một sự kiện trong vòng đời giao dịch, chỉ ghi thêm, không sửa
+ * Mang sẵn id sách, hai bên và trạng thái giao dịch sau sự kiện để projection không cần tra lại.
+ * Các field riêng của từng loại sự kiện để null/0 ở loại khác.
+ */
+public class TransactionEvent {
+    private String eventId;
+    // Thứ tự trong log sự kiện, gán khi ghi vào log
+    private long sequence;
+    private EventType type;
+    private String transactionId;
+    private String bookId;
+    private String ownerId;
+    private String borrowerId;
+    private Transaction.TransactionType transactionType;
+    private Transaction.TransactionStatus status;
+    private LocalDateTime occurredAt;
+    // REQUESTED: lời nhắn, REJECTED: lý do, RATED: nhận xét
+    private String message;
+    // DELIVERED (mượn), EXTENDED: hạn trả mới
+    private LocalDateTime dueDate;
+    // REQUESTED: giá (giao dịch mua)
+    private double amount;
+    // RATED: người đánh giá và số sao
+    private String actorId;
+    private int rating;
+    
+    public enum EventType {
+        REQUESTED, APPROVED, REJECTED, DELIVERED, EXTENDED, RETURNED, RATED, CANCELLED
+    }
+    
+    public TransactionEvent(EventType type, Transaction transaction, LocalDateTime occurredAt) {
+        this(type, transaction, transaction.getStatus(), occurredAt);
+    }
+    
+    /**
+     * Sự kiện với trạng thái sau sự kiện cho trước (dựng lại lịch sử từ các mốc thời gian của giao dịch cũ)
+     */
+    public TransactionEvent(EventType type, Transaction transaction, Transaction.TransactionStatus status,
+                            LocalDateTime occurredAt) {
+        this.eventId = generateId();
+        this.type = type;
+        this.transactionId = transaction.getTransactionId();
+        this.bookId = transaction.getBookId();
+        this.ownerId = transaction.getOwnerId();
+        this.borrowerId = transaction.getBorrowerId();
+        this.transactionType = transaction.getType();
+        this.status = status;
+        this.occurredAt = occurredAt;
+    }
+    
+    /**
+     * Khôi phục sự kiện từ storage (codec/adapter), không sinh id mới
+     */
+    public TransactionEvent(String eventId, long sequence, EventType type, String transactionId,
+                            String bookId, String ownerId, String borrowerId,
+                            Transaction.TransactionType transactionType, Transaction.TransactionStatus status,
+                            LocalDateTime occurredAt, String message, LocalDateTime dueDate, double amount,
+                            String actorId, int rating) {
+        this.eventId = eventId;
+        this.sequence = sequence;
+        this.type = type;
+        this.transactionId = transactionId;
+        this.bookId = bookId;
+        this.ownerId = ownerId;
+        this.borrowerId = borrowerId;
+        this.transactionType = transactionType;
+        this.status = status;
+        this.occurredAt = occurredAt;
+        this.message = message;
+        this.dueDate = dueDate;
+        this.amount = amount;
+        this.actorId = actorId;
+        this.rating = rating;
+    }
+    
+    private String generateId() {
+        return IdGenerator.next("EVT");
+    }
+    
+    // Getters and Setters
+    public String getEventId() { return eventId; }
+    public long getSequence() { return sequence; }
+    public void setSequence(long sequence) { this.sequence = sequence; }
+    public EventType getType() { return type; }
+    public String getTransactionId() { return transactionId; }
+    public String getBookId() { return bookId; }
+    public String getOwnerId() { return ownerId; }
+    public String getBorrowerId() { return borrowerId; }
+    public Transaction.TransactionType getTransactionType() { return transactionType; }
+    public Transaction.TransactionStatus getStatus() { return status; }
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+    public LocalDateTime getDueDate() { return dueDate; }
+    public void setDueDate(LocalDateTime dueDate) { this.dueDate = dueDate; }
+    public double getAmount() { return amount; }
+    public void setAmount(double amount) { this.amount = amount; }
+    public String getActorId() { return actorId; }
+    public void setActorId(String actorId) { this.actorId = actorId; }
+    public int getRating() { return rating; }
+    public void setRating(int rating) { this.rating = rating; }
+    
+    /**
+     * Người dùng có tham gia giao dịch của sự kiện không
+     */
+    public boolean involves(String userId) {
+        return userId.equals(ownerId) || userId.equals(borrowerId);
+    }
+    
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + type + " " + transactionId + " → " + status + " (" + occurredAt + ")";
+    }
+}
\ No newline at end of file
@@ -36,9 +36,28 @@ public class User {
         this.favoriteBookIds = new ArrayList<>();
     }
     
+    /**
+     * Khôi phục user từ storage (codec/adapter), không sinh id mới
+     */
+    public User(String userId, String email, String password, String fullName, String studentId,
+                String phoneNumber, String faculty, UserRole role, double trustScore,
+                LocalDateTime createdAt, boolean isActive, List<String> favoriteBookIds) {
+        this.userId = userId;
+        this.email = email;
+        this.password = password;
+        this.fullName = fullName;
+        this.studentId = studentId;
+        this.phoneNumber = phoneNumber;
+        this.faculty = faculty;
+        this.role = role;
+        this.trustScore = trustScore;
+        this.createdAt = createdAt;
+        this.isActive = isActive;
+        this.favoriteBookIds = favoriteBookIds != null ? favoriteBookIds : new ArrayList<>();
+    }
     
     private String generateId() {
-        return "USER" + System.currentTimeMillis();
+        return IdGenerator.next("USER");
     }
     
     // Getters and Setters
@@ -58,6 +77,7 @@ public class User {
     public void setRole(UserRole role) { this.role = role; }
     public double getTrustScore() { return trustScore; }
     public void setTrustScore(double trustScore) { this.trustScore = trustScore; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
     public boolean isActive() { return isActive; }
     public void setActive(boolean active) { isActive = active; }
     public List<String> getFavoriteBookIds() { return favoriteBookIds; }
@@ -0,0 +1,322 @@
+package src.com.dnu.bookshare.persistence;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * CommitJournal - Journal ghi nối tiếp, mỗi UnitOfWork là đúng một record:
+ * [length:4][crc32:4][sequence:8][changes:4] rồi từng thay đổi [type][op:1][id][payloadLength:4][payload]
+ * Payload dùng codec nhị phân của EntityType. Một record được ghi bằng một lần write;
+ * record cuối bị ghi dở (sai độ dài hoặc crc) bị cắt bỏ khi replay, nên cả unit bị bỏ.
+ *
+ * Với DurabilityLevel BATCHED/STRICT, append chỉ trả về sau khi journal được fsync;
+ * các unit đồng thời dùng chung một lần fsync (GroupCommit).
+ *
+ * Checkpoint nền: rotate đổi tên journal thành <file>.checkpoint để unit mới vào file mới trong lúc
+ * các unit cũ được ghi xuống storage; dropRotated xóa file đó khi ghi xong.
+ * Replay đọc file .checkpoint (cũ hơn) trước rồi đến journal hiện tại.
+ */
+public class CommitJournal {
+    private static final byte OP_UPSERT = 1;
+    private static final byte OP_DELETE = 2;
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_RECORD = 64 << 20;
+    
+    private final Path file;
+    private final Path rotatedFile;
+    private final DurabilityLevel durability;
+    private final GroupCommit<Object> syncs;
+    private FileChannel channel;
+    private long sequence;
+    private long size;
+    
+    /**
+     * @param windowMicros cửa sổ gom fsync (chỉ dùng với BATCHED)
+     */
+    public CommitJournal(Path file, DurabilityLevel durability, long windowMicros) {
+        this.file = file;
+        this.rotatedFile = file.resolveSibling(file.getFileName() + ".checkpoint");
+        this.durability = durability;
+        this.syncs = new GroupCommit<>(batch -> force(),
+                durability == DurabilityLevel.BATCHED ? windowMicros : 0);
+    }
+    
+    // ============ GHI ============
+    
+    /**
+     * Ghi unit thành một record (chưa fsync, xem sync)
+     * @return số byte đã ghi
+     */
+    public synchronized int write(UnitOfWork unit) throws IOException {
+        ByteBuffer record = encode(unit, ++sequence);
+        int bytes = record.remaining();
+        FileChannel ch = channel();
+        while (record.hasRemaining()) {
+            ch.write(record);
+        }
+        size += bytes;
+        return bytes;
+    }
+    
+    /**
+     * Chờ đến khi các record đã ghi được fsync (không làm gì với DurabilityLevel.NONE)
+     */
+    public void sync() throws IOException {
+        if (durability.isDurable()) {
+            syncs.submit(Boolean.TRUE);
+        }
+    }
+    
+    /**
+     * Xóa nội dung journal sau khi mọi unit đã được ghi bền vững vào storage bên dưới
+     */
+    public synchronized void reset() throws IOException {
+        if (size == 0 && !Files.exists(file)) {
+            return;
+        }
+        FileChannel ch = channel();
+        ch.truncate(0);
+        if (durability.isDurable()) {
+            ch.force(false);
+        }
+        size = 0;
+    }
+    
+    /**
+     * Chuyển các record hiện có sang file .checkpoint, record tiếp theo ghi vào journal mới.
+     * Chỉ gọi khi không còn file .checkpoint (lần checkpoint trước đã dropRotated).
+     */
+    public synchronized void rotate() throws IOException {
+        if (Files.exists(rotatedFile)) {
+            throw new IllegalStateException("Journal " + rotatedFile.getFileName() + " chưa được checkpoint xong");
+        }
+        if (channel != null) {
+            // Unit đã ghi nhưng có thể chưa fsync (sync đang chờ) phải bền trước khi đổi kênh
+            if (durability.isDurable()) {
+                channel.force(false);
+            }
+            channel.close();
+            channel = null;
+        }
+        if (Files.exists(file)) {
+            Files.move(file, rotatedFile, StandardCopyOption.ATOMIC_MOVE);
+            if (durability.isDurable()) {
+                DurableFiles.syncDirectory(file.toAbsolutePath().getParent());
+            }
+        }
+        size = 0;
+    }
+    
+    /**
+     * Xóa file .checkpoint sau khi các unit trong đó đã được ghi bền vững vào storage bên dưới
+     */
+    public synchronized void dropRotated() throws IOException {
+        if (Files.deleteIfExists(rotatedFile) && durability.isDurable()) {
+            DurableFiles.syncDirectory(file.toAbsolutePath().getParent());
+        }
+    }
+    
+    private FileChannel channel() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            boolean created = !Files.exists(file);
+            channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                       StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            if (created && durability.isDurable()) {
+                DurableFiles.syncDirectory(file.toAbsolutePath().getParent());
+            }
+        }
+        return channel;
+    }
+    
+    /**
+     * fsync journal; không giữ monitor trong lúc fsync để unit khác vẫn ghi được
+     */
+    private void force() throws IOException {
+        FileChannel ch;
+        synchronized (this) {
+            ch = channel;
+        }
+        if (ch == null) {
+            return;
+        }
+        try {
+            ch.force(false);
+        } catch (ClosedChannelException e) {
+            // Journal vừa đóng, close đã fsync
+        }
+    }
+    
+    public long getSyncCount() {
+        return syncs.getCommitCount();
+    }
+    
+    /**
+     * Số byte đang có trong journal
+     */
+    public synchronized long size() {
+        return size;
+    }
+    
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            if (durability.isDurable()) {
+                channel.force(false);
+            }
+            channel.close();
+            channel = null;
+        }
+    }
+    
+    public Path getFile() {
+        return file;
+    }
+    
+    // ============ REPLAY ============
+    
+    /**
+     * Đọc các unit còn nguyên vẹn theo thứ tự ghi (file .checkpoint trước); phần đuôi hỏng bị cắt bỏ
+     * @return số unit
+     */
+    public synchronized int replay(Consumer<UnitOfWork> consumer) throws IOException {
+        int units = replay(rotatedFile, consumer);
+        units += replay(file, consumer);
+        size = Files.exists(file) ? Files.size(file) : 0;
+        return units;
+    }
+    
+    private int replay(Path file, Consumer<UnitOfWork> consumer) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        int units = 0;
+        long validOffset = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            while (true) {
+                byte[] body = readRecord(in);
+                if (body == null) {
+                    break;
+                }
+                UnitOfWork unit = decode(body);
+                consumer.accept(unit);
+                validOffset += HEADER_SIZE + body.length;
+                units++;
+            }
+        }
+        
+        long fileSize = Files.size(file);
+        if (validOffset < fileSize) {
+            System.err.println("Journal " + file.getFileName() + " có unit ghi dở ở cuối, bỏ "
+                             + (fileSize - validOffset) + " bytes");
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ch.truncate(validOffset);
+            }
+        }
+        return units;
+    }
+    
+    /**
+     * Đọc body của record tiếp theo; null nếu hết file hoặc record không hợp lệ
+     */
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        int length;
+        int storedCrc;
+        try {
+            length = in.readInt();
+            storedCrc = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 12 || length > MAX_RECORD) {
+            return null;
+        }
+        byte[] body = new byte[length];
+        try {
+            in.readFully(body);
+        } catch (EOFException e) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue() == storedCrc ? body : null;
+    }
+    
+    // ============ ĐỊNH DẠNG RECORD ============
+    
+    private static ByteBuffer encode(UnitOfWork unit, long sequence) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeLong(sequence);
+        out.writeInt(unit.size());
+        for (EntityType<?> type : unit.types()) {
+            encodeChanges(unit, type, out);
+        }
+        out.flush();
+        
+        ByteBuffer buf = ByteBuffer.wrap(bytes.toByteArray());
+        int length = buf.limit() - HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), HEADER_SIZE, length);
+        buf.putInt(0, length).putInt(4, (int) crc.getValue());
+        return buf;
+    }
+    
+    private static <T> void encodeChanges(UnitOfWork unit, EntityType<T> type,
+                                          DataOutputStream out) throws IOException {
+        for (String id : unit.deletes(type)) {
+            out.writeUTF(type.getName());
+            out.writeByte(OP_DELETE);
+            out.writeUTF(id);
+            out.writeInt(0);
+        }
+        for (T entity : unit.upserts(type)) {
+            byte[] payload = type.getBinaryCodec().encode(entity);
+            out.writeUTF(type.getName());
+            out.writeByte(OP_UPSERT);
+            out.writeUTF(type.idOf(entity));
+            out.writeInt(payload.length);
+            out.write(payload);
+        }
+    }
+    
+    private UnitOfWork decode(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        sequence = Math.max(sequence, in.readLong());
+        int changes = in.readInt();
+        UnitOfWork unit = new UnitOfWork();
+        for (int i = 0; i < changes; i++) {
+            EntityType<?> type = typeOf(in.readUTF());
+            byte op = in.readByte();
+            String id = in.readUTF();
+            byte[] payload = new byte[in.readInt()];
+            in.readFully(payload);
+            if (op == OP_DELETE) {
+                unit.delete(type, id);
+            } else {
+                addUpsert(unit, type, payload);
+            }
+        }
+        return unit;
+    }
+    
+    private static <T> void addUpsert(UnitOfWork unit, EntityType<T> type, byte[] payload) throws IOException {
+        unit.upsert(type, type.getBinaryCodec().decode(payload));
+    }
+    
+    private EntityType<?> typeOf(String name) throws IOException {
+        for (EntityType<?> type : EntityType.values()) {
+            if (type.getName().equals(name)) {
+                return type;
+            }
+        }
+        throw new IOException("Loại entity không hợp lệ trong " + file.getFileName() + ": " + name);
+    }
+}
@@ -0,0 +1,42 @@
+package src.com.dnu.bookshare.persistence;
+
+import java.time.LocalDateTime;
+
+/**
+ * CompactionStats - Kết quả một lần compaction log của một entity
+ */
+public class CompactionStats {
+    private final String logName;
+    private final long bytesBefore;
+    private final long bytesAfter;
+    private final long durationMillis;
+    private final int liveRecords;
+    private final int deadRecords;
+    private final LocalDateTime compactedAt;
+    
+    public CompactionStats(String logName, long bytesBefore, long bytesAfter,
+                           long durationMillis, int liveRecords, int deadRecords) {
+        this.logName = logName;
+        this.bytesBefore = bytesBefore;
+        this.bytesAfter = bytesAfter;
+        this.durationMillis = durationMillis;
+        this.liveRecords = liveRecords;
+        this.deadRecords = deadRecords;
+        this.compactedAt = LocalDateTime.now();
+    }
+    
+    public String getLogName() { return logName; }
+    public long getBytesBefore() { return bytesBefore; }
+    public long getBytesAfter() { return bytesAfter; }
+    public long getBytesReclaimed() { return Math.max(0, bytesBefore - bytesAfter); }
+    public long getDurationMillis() { return durationMillis; }
+    public int getLiveRecords() { return liveRecords; }
+    public int getDeadRecords() { return deadRecords; }
+    public LocalDateTime getCompactedAt() { return compactedAt; }
+    
+    @Override
+    public String toString() {
+        return logName + ": thu hồi " + getBytesReclaimed() + " bytes trong " + durationMillis
+                + "ms (" + liveRecords + " record sống, " + deadRecords + " record chết)";
+    }
+}
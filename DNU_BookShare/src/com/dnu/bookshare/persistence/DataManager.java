@@ -1,84 +1,52 @@
 package src.com.dnu.bookshare.persistence;
 
 import src.com.dnu.bookshare.model.*;
+import src.com.dnu.bookshare.persistence.backup.*;
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
-import com.google.gson.*;
-import com.google.gson.reflect.TypeToken;
-import java.lang.reflect.Type;
+import java.util.function.Consumer;
 
 /**
- * DataManager - Quản lý lưu trữ dữ liệu vào file JSON
- * Sử dụng Gson để serialize/deserialize objects
+ * DataManager - Quản lý lưu trữ dữ liệu cho các service
+ * Ủy quyền cho một StorageEngine (JSON, log-structured hoặc in-memory),
+ * chọn qua StorageEngines.fromConfig()
  */
 public class DataManager {
-    private static final String DATA_DIR = "data";
-    private static final String USERS_FILE = DATA_DIR + "/users.json";
-    private static final String BOOKS_FILE = DATA_DIR + "/books.json";
-    private static final String TRANSACTIONS_FILE = DATA_DIR + "/transactions.json";
-    private static final String NOTIFICATIONS_FILE = DATA_DIR + "/notifications.json";
-    private static final String REPORTS_FILE = DATA_DIR + "/reports.json";
-    
-    private Gson gson;
+    private final StorageEngine engine;
+    private BackupManager backupManager;
     
     public DataManager() {
-        // Khởi tạo Gson với pretty printing
-        this.gson = new GsonBuilder()
-                .setPrettyPrinting()
-                .setDateFormat("yyyy-MM-dd'T'HH:mm:ss")
-                .create();
-        
-        // Tạo thư mục data nếu chưa có
-        createDataDirectory();
+        this(StorageEngines.fromConfig());
     }
     
-    private void createDataDirectory() {
-        try {
-            Path dataPath = Paths.get(DATA_DIR);
-            if (!Files.exists(dataPath)) {
-                Files.createDirectories(dataPath);
-                System.out.println("Đã tạo thư mục data");
-            }
-        } catch (IOException e) {
-            System.err.println("Lỗi tạo thư mục data: " + e.getMessage());
-        }
+    public DataManager(StorageEngine engine) {
+        this.engine = engine;
     }
     
     // ============ USER OPERATIONS ============
     
     public void saveUser(User user) throws IOException {
-        List<User> users = findAllUsers();
-        
-        // Xóa user cũ nếu đã tồn tại
-        users.removeIf(u -> u.getUserId().equals(user.getUserId()));
-        
-        // Thêm user mới
-        users.add(user);
-        
-        // Lưu lại file
-        saveToFile(USERS_FILE, users);
+        engine.users().upsert(user);
     }
     
     public void saveAllUsers(List<User> users) throws IOException {
-        saveToFile(USERS_FILE, users);
+        engine.users().replaceAll(users);
     }
     
     public List<User> findAllUsers() {
-        try {
-            Type listType = new TypeToken<List<User>>(){}.getType();
-            return loadFromFile(USERS_FILE, listType);
-        } catch (IOException e) {
-            System.out.println("Không tìm thấy file users, tạo danh sách mới");
-            return new ArrayList<>();
-        }
+        return findAll(engine.users(), "users");
+    }
+    
+    /**
+     * Đọc từng user và đưa thẳng cho consumer, không tạo List trung gian
+     */
+    public void forEachUser(Consumer<? super User> consumer) {
+        scan(engine.users(), "users", consumer);
     }
     
     public User findUserById(String userId) {
-        return findAllUsers().stream()
-                .filter(u -> u.getUserId().equals(userId))
-                .findFirst()
-                .orElse(null);
+        return findById(engine.users(), "users", userId);
     }
     
     public User findUserByEmail(String email) {
@@ -91,87 +59,87 @@ public class DataManager {
     // ============ BOOK OPERATIONS ============
     
     public void saveBook(Book book) throws IOException {
-        List<Book> books = findAllBooks();
-        books.removeIf(b -> b.getBookId().equals(book.getBookId()));
-        books.add(book);
-        saveToFile(BOOKS_FILE, books);
+        engine.books().upsert(book);
+    }
+    
+    /**
+     * Ghi nhiều sách bằng một lô (không đụng tới các sách khác)
+     */
+    public void saveBooks(List<Book> books) throws IOException {
+        engine.books().batch(books, Collections.emptyList());
     }
     
     public void saveAllBooks(List<Book> books) throws IOException {
-        saveToFile(BOOKS_FILE, books);
+        engine.books().replaceAll(books);
     }
     
     public List<Book> findAllBooks() {
-        try {
-            Type listType = new TypeToken<List<Book>>(){}.getType();
-            return loadFromFile(BOOKS_FILE, listType);
-        } catch (IOException e) {
-            return new ArrayList<>();
-        }
+        return findAll(engine.books(), "books");
+    }
+    
+    /**
+     * Đọc từng book và đưa thẳng cho consumer, không tạo List trung gian
+     */
+    public void forEachBook(Consumer<? super Book> consumer) {
+        scan(engine.books(), "books", consumer);
     }
     
     public Book findBookById(String bookId) {
-        return findAllBooks().stream()
-                .filter(b -> b.getBookId().equals(bookId))
-                .findFirst()
-                .orElse(null);
+        return findById(engine.books(), "books", bookId);
     }
     
     public void deleteBook(String bookId) throws IOException {
-        List<Book> books = findAllBooks();
-        books.removeIf(b -> b.getBookId().equals(bookId));
-        saveToFile(BOOKS_FILE, books);
+        engine.books().delete(bookId);
     }
     
     // ============ TRANSACTION OPERATIONS ============
     
     public void saveTransaction(Transaction transaction) throws IOException {
-        List<Transaction> transactions = findAllTransactions();
-        transactions.removeIf(t -> t.getTransactionId().equals(transaction.getTransactionId()));
-        transactions.add(transaction);
-        saveToFile(TRANSACTIONS_FILE, transactions);
+        engine.transactions().upsert(transaction);
     }
     
     public void saveAllTransactions(List<Transaction> transactions) throws IOException {
-        saveToFile(TRANSACTIONS_FILE, transactions);
+        engine.transactions().replaceAll(transactions);
     }
     
     public List<Transaction> findAllTransactions() {
-        try {
-            Type listType = new TypeToken<List<Transaction>>(){}.getType();
-            return loadFromFile(TRANSACTIONS_FILE, listType);
-        } catch (IOException e) {
-            return new ArrayList<>();
-        }
+        return findAll(engine.transactions(), "transactions");
+    }
+    
+    /**
+     * Đọc từng transaction và đưa thẳng cho consumer, không tạo List trung gian
+     */
+    public void forEachTransaction(Consumer<? super Transaction> consumer) {
+        scan(engine.transactions(), "transactions", consumer);
     }
     
     public Transaction findTransactionById(String transactionId) {
-        return findAllTransactions().stream()
-                .filter(t -> t.getTransactionId().equals(transactionId))
-                .findFirst()
-                .orElse(null);
+        return findById(engine.transactions(), "transactions", transactionId);
     }
     
     // ============ NOTIFICATION OPERATIONS ============
     
     public void saveNotification(Notification notification) throws IOException {
-        List<Notification> notifications = findAllNotifications();
-        notifications.removeIf(n -> n.getNotificationId().equals(notification.getNotificationId()));
-        notifications.add(notification);
-        saveToFile(NOTIFICATIONS_FILE, notifications);
+        engine.notifications().upsert(notification);
     }
     
     public void saveAllNotifications(List<Notification> notifications) throws IOException {
-        saveToFile(NOTIFICATIONS_FILE, notifications);
+        engine.notifications().replaceAll(notifications);
     }
     
     public List<Notification> findAllNotifications() {
-        try {
-            Type listType = new TypeToken<List<Notification>>(){}.getType();
-            return loadFromFile(NOTIFICATIONS_FILE, listType);
-        } catch (IOException e) {
-            return new ArrayList<>();
-        }
+        return findAll(engine.notifications(), "notifications");
+    }
+    
+    /**
+     * Đọc từng notification và đưa thẳng cho consumer, không tạo List trung gian
+     */
+    public void forEachNotification(Consumer<? super Notification> consumer) {
+        scan(engine.notifications(), "notifications", consumer);
+    }
+    
+    public void deleteNotification(String notificationId) throws IOException {
+        engine.notifications().delete(notificationId);
     }
     
     public List<Notification> findNotificationsByUser(String userId) {
@@ -183,78 +151,185 @@ public class DataManager {
     // ============ REPORT OPERATIONS ============
     
     public void saveReport(Report report) throws IOException {
-        List<Report> reports = findAllReports();
-        reports.removeIf(r -> r.getReportId().equals(report.getReportId()));
-        reports.add(report);
-        saveToFile(REPORTS_FILE, reports);
+        engine.reports().upsert(report);
     }
     
     public void saveAllReports(List<Report> reports) throws IOException {
-        saveToFile(REPORTS_FILE, reports);
+        engine.reports().replaceAll(reports);
     }
     
     public List<Report> findAllReports() {
-        try {
-            Type listType = new TypeToken<List<Report>>(){}.getType();
-            return loadFromFile(REPORTS_FILE, listType);
-        } catch (IOException e) {
-            return new ArrayList<>();
+        return findAll(engine.reports(), "reports");
+    }
+    
+    /**
+     * Đọc từng report và đưa thẳng cho consumer, không tạo List trung gian
+     */
+    public void forEachReport(Consumer<? super Report> consumer) {
+        scan(engine.reports(), "reports", consumer);
+    }
+    
+    // ============ TRANSACTION EVENT OPERATIONS ============
+    
+    public void saveTransactionEvent(TransactionEvent event) throws IOException {
+        engine.transactionEvents().upsert(event);
+    }
+    
+    /**
+     * Ghi thêm nhiều sự kiện trong một lô (không thay thế các sự kiện đã có)
+     */
+    public void saveTransactionEvents(List<TransactionEvent> events) throws IOException {
+        engine.transactionEvents().batch(events, Collections.emptyList());
+    }
+    
+    public List<TransactionEvent> findAllTransactionEvents() {
+        return findAll(engine.transactionEvents(), "transaction_events");
+    }
+    
+    /**
+     * Đọc từng sự kiện giao dịch và đưa thẳng cho consumer, không tạo List trung gian
+     */
+    public void forEachTransactionEvent(Consumer<? super TransactionEvent> consumer) {
+        scan(engine.transactionEvents(), "transaction_events", consumer);
+    }
+    
+    // ============ UNIT OF WORK ============
+    
+    /**
+     * Ghi các thay đổi của một thao tác nghiệp vụ (vd giao dịch + sách) cùng nhau:
+     * với engine có journal là một record, một fsync, khôi phục được cả hoặc không gì
+     */
+    public void commit(UnitOfWork unit) throws IOException {
+        if (!unit.isEmpty()) {
+            engine.commit(unit);
         }
     }
     
     // ============ HELPER METHODS ============
     
-    private void saveToFile(String filename, Object data) throws IOException {
-        String json = gson.toJson(data);
-        Files.writeString(Paths.get(filename), json);
+    private <T> List<T> findAll(Repository<T> repository, String name) {
+        List<T> result = new ArrayList<>();
+        scan(repository, name, result::add);
+        return result;
+    }
+    
+    private <T> void scan(Repository<T> repository, String name, Consumer<? super T> consumer) {
+        try {
+            repository.scan(consumer);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Lỗi đọc " + name + ": " + e.getMessage());
+        }
     }
     
-    private <T> T loadFromFile(String filename, Type type) throws IOException {
-        String json = Files.readString(Paths.get(filename));
-        return gson.fromJson(json, type);
+    private <T> T findById(Repository<T> repository, String name, String id) {
+        try {
+            return repository.findById(id);
+        } catch (IOException e) {
+            System.err.println("Lỗi đọc " + name + ": " + e.getMessage());
+            return null;
+        }
     }
     
     /**
      * Xóa tất cả dữ liệu (dùng cho testing)
      */
     public void clearAllData() throws IOException {
-        Files.deleteIfExists(Paths.get(USERS_FILE));
-        Files.deleteIfExists(Paths.get(BOOKS_FILE));
-        Files.deleteIfExists(Paths.get(TRANSACTIONS_FILE));
-        Files.deleteIfExists(Paths.get(NOTIFICATIONS_FILE));
-        Files.deleteIfExists(Paths.get(REPORTS_FILE));
+        engine.clear();
         System.out.println("Đã xóa tất cả dữ liệu");
     }
     
     /**
-     * Backup dữ liệu
+     * Backup tăng dần vào <dataDir>/backups: chỉ ghi các chunk nội dung chưa có,
+     * sau đó xóa backup cũ theo RetentionPolicy (-Dbookshare.backup.keepLast, maxAgeDays)
+     * @return manifest của backup, null nếu không có gì để backup
      */
-    public void backupData() throws IOException {
-        String backupDir = DATA_DIR + "/backup_" + System.currentTimeMillis();
-        Files.createDirectories(Paths.get(backupDir));
-        
-        // Copy tất cả file
-        if (Files.exists(Paths.get(USERS_FILE))) {
-            Files.copy(Paths.get(USERS_FILE), 
-                      Paths.get(backupDir + "/users.json"));
+    public BackupManifest backupData() throws IOException {
+        BackupManager backups = engine.getDataDir() == null ? null : backups();
+        // Compaction tạm dừng trong suốt lúc liệt kê và đọc file
+        BackupManifest manifest = engine.readDataFiles(files ->
+                files.isEmpty() || backups == null ? null : backups.backup(files, engine.getName()));
+        if (manifest == null) {
+            System.out.println("Không có file dữ liệu để backup (engine: " + engine.getName() + ")");
+            return null;
         }
-        if (Files.exists(Paths.get(BOOKS_FILE))) {
-            Files.copy(Paths.get(BOOKS_FILE), 
-                      Paths.get(backupDir + "/books.json"));
-        }
-        if (Files.exists(Paths.get(TRANSACTIONS_FILE))) {
-            Files.copy(Paths.get(TRANSACTIONS_FILE), 
-                      Paths.get(backupDir + "/transactions.json"));
+        System.out.println("Đã backup dữ liệu: " + manifest);
+        
+        List<String> removed = backups.prune(RetentionPolicy.fromConfig());
+        if (!removed.isEmpty()) {
+            System.out.println("Đã xóa " + removed.size() + " backup cũ: " + removed);
         }
-        if (Files.exists(Paths.get(NOTIFICATIONS_FILE))) {
-            Files.copy(Paths.get(NOTIFICATIONS_FILE), 
-                      Paths.get(backupDir + "/notifications.json"));
+        return manifest;
+    }
+    
+    /**
+     * Danh sách backup, mới nhất trước
+     */
+    public List<BackupManifest> listBackups() throws IOException {
+        return engine.getDataDir() == null ? new ArrayList<>() : backups().list();
+    }
+    
+    /**
+     * Kiểm tra toàn vẹn mọi backup (đọc lại và so hash từng chunk)
+     */
+    public VerifyReport verifyBackups() throws IOException {
+        return engine.getDataDir() == null ? new VerifyReport() : backups().verify();
+    }
+    
+    /**
+     * Khôi phục một backup vào thư mục đích.
+     * Không ghi đè thư mục dữ liệu đang mở; khởi động lại với -Dbookshare.dataDir=<đích> để dùng.
+     */
+    public List<Path> restoreBackup(String backupId, Path targetDir) throws IOException {
+        if (engine.getDataDir() != null
+                && targetDir.toAbsolutePath().normalize().equals(engine.getDataDir().toAbsolutePath().normalize())) {
+            throw new IOException("Không thể khôi phục đè lên thư mục dữ liệu đang dùng");
         }
-        if (Files.exists(Paths.get(REPORTS_FILE))) {
-            Files.copy(Paths.get(REPORTS_FILE), 
-                      Paths.get(backupDir + "/reports.json"));
+        return backups().restore(backupId, targetDir);
+    }
+    
+    private synchronized BackupManager backups() {
+        if (backupManager == null) {
+            backupManager = new BackupManager(engine.getDataDir().resolve("backups"));
         }
-        
-        System.out.println("Đã backup dữ liệu vào: " + backupDir);
+        return backupManager;
+    }
+    
+    /**
+     * Gộp log thành snapshot ngay (engine log-structured)
+     */
+    public List<CompactionStats> compactNow() throws IOException {
+        return engine.compact();
+    }
+    
+    /**
+     * Thống kê compaction gần nhất của từng log
+     */
+    public List<CompactionStats> getCompactionStats() {
+        return engine.getCompactionStats();
+    }
+    
+    /**
+     * Ghi ngay mọi thay đổi đang chờ (chế độ write-behind)
+     */
+    public void flush() throws IOException {
+        engine.flush();
+    }
+    
+    /**
+     * Thống kê write-behind: tỉ lệ gộp và độ trễ flush (null nếu không bật)
+     */
+    public WriteBehindStats getWriteBehindStats() {
+        return engine.getWriteBehindStats();
+    }
+    
+    /**
+     * Đóng storage engine
+     */
+    public void close() throws IOException {
+        engine.close();
+    }
+    
+    public StorageEngine getEngine() {
+        return engine;
     }
 }
\ No newline at end of file
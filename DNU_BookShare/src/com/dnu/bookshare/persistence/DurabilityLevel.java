@@ -0,0 +1,26 @@
+package src.com.dnu.bookshare.persistence;
+
+/**
+ * DurabilityLevel - Mức đảm bảo dữ liệu đã xuống đĩa khi lệnh ghi trả về
+ * Mọi mức đều ghi file tạm rồi đổi tên nguyên tử, nên file không bao giờ bị ghi dở.
+ */
+public enum DurabilityLevel {
+    /** Không fsync: nhanh nhất, mất điện có thể mất các lần ghi gần đây */
+    NONE,
+    /** Group commit: gom các lần ghi trong một cửa sổ ngắn, cả nhóm dùng chung một fsync */
+    BATCHED,
+    /** fsync ngay cho mỗi lần commit, không chờ cửa sổ gom; các lần ghi đến lúc đang commit vẫn đi chung lô sau */
+    STRICT;
+    
+    public boolean isDurable() {
+        return this != NONE;
+    }
+    
+    public static DurabilityLevel parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Durability không hợp lệ: " + value);
+        }
+    }
+}
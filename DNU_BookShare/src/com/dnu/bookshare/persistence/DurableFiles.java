@@ -0,0 +1,67 @@
+package src.com.dnu.bookshare.persistence;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+/**
+ * DurableFiles - Thay file bằng cách ghi file tạm, fsync (tùy chọn) rồi đổi tên nguyên tử
+ * Crash giữa chừng chỉ để lại file tạm; file đích luôn là bản cũ hoặc bản mới đầy đủ.
+ */
+public final class DurableFiles {
+    
+    /**
+     * Ghi nội dung file qua Writer
+     */
+    public interface Content {
+        void writeTo(Writer writer) throws IOException;
+    }
+    
+    private DurableFiles() {
+    }
+    
+    public static void replace(Path target, Content content, boolean fsync) throws IOException {
+        Path tmp = writeTemp(target, content, fsync);
+        moveInto(tmp, target);
+        if (fsync) {
+            syncDirectory(target.toAbsolutePath().getParent());
+        }
+    }
+    
+    /**
+     * Ghi nội dung vào file tạm cạnh file đích
+     * @return đường dẫn file tạm
+     */
+    public static Path writeTemp(Path target, Content content, boolean fsync) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+             Writer writer = new BufferedWriter(new OutputStreamWriter(fos, StandardCharsets.UTF_8), 1 << 16)) {
+            content.writeTo(writer);
+            writer.flush();
+            if (fsync) {
+                fos.getFD().sync();
+            }
+        }
+        return tmp;
+    }
+    
+    public static void moveInto(Path tmp, Path target) throws IOException {
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * fsync thư mục để việc tạo/đổi tên file cũng bền vững.
+     * Một số hệ điều hành (Windows) không cho mở thư mục, khi đó bỏ qua.
+     */
+    public static void syncDirectory(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException e) {
+            // Không hỗ trợ fsync thư mục
+        }
+    }
+}
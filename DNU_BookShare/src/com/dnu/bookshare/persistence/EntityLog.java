@@ -0,0 +1,651 @@
+package src.com.dnu.bookshare.persistence;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import src.com.dnu.bookshare.persistence.codec.RecordCodec;
+
+/**
+ * EntityLog - Log ghi nối tiếp (append-only) cho một loại entity
+ * Mỗi upsert/delete được ghi thành một record có khung:
+ * [op:1][lsn:8][keyLength:2][payloadLength:4][crc32:4][key][payload]
+ * 4 bit thấp của op là loại thao tác, 4 bit cao là formatId của codec đã ghi payload,
+ * nên log cũ (JSON, formatId 0) vẫn đọc được sau khi đổi sang codec nhị phân.
+ * Trạng thái được dựng lại bằng cách replay log, record sau đè record trước cùng key.
+ *
+ * Compaction: log hiện tại được đổi tên thành .compacting (writer mở log mới ngay),
+ * sau đó snapshot cũ + .compacting được gộp thành snapshot mới chỉ chứa record còn sống.
+ * Snapshot kết thúc bằng một frame đánh dấu (OP_MARK) mang LSN lớn nhất nó đã bao gồm;
+ * khi khởi động đọc snapshot, rồi chỉ replay phần đuôi (.compacting nếu còn sót, .log)
+ * có LSN lớn hơn mốc đó. Nhờ vậy thay snapshot là một bước nguyên tử (đổi tên file):
+ * crash trước khi kịp xóa .compacting/.log cũ thì các file này bị bỏ qua khi replay.
+ *
+ * Với DurabilityLevel BATCHED/STRICT, mỗi lệnh ghi chỉ trả về sau khi log được fsync;
+ * các lệnh ghi đồng thời dùng chung một lần fsync (GroupCommit).
+ */
+public class EntityLog<T> {
+    static final byte OP_UPSERT = 1;
+    static final byte OP_DELETE = 2;
+    static final byte OP_MARK = 3;
+    static final int HEADER_SIZE = 19;
+    private static final int MAX_PAYLOAD = 64 << 20;
+
+    private final Path logFile;
+    private final Path snapshotFile;
+    private final Path compactingFile;
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    private final Function<T, String> idOf;
+    private final RecordCodec<T> codec;
+    // Codec đọc theo formatId (4 bit cao của op)
+    private final Map<Integer, RecordCodec<T>> decoders = new HashMap<>();
+    private final AtomicLong lsnCounter;
+    private final DurabilityLevel durability;
+    private final GroupCommit<Object> syncs;
+    private FileChannel channel;
+    // lsnCounter đã vượt qua mọi LSN trong các file của log này chưa (xem nextLsn)
+    private boolean lsnRecovered;
+    // Chỉ mục id -> entity còn sống cho find; null cho đến lần replay/find đầu tiên,
+    // sau đó cập nhật ở mỗi lần ghi (compaction không đổi nội dung nên không đụng tới)
+    private Map<String, T> index;
+
+    /**
+     * @param codec codec dùng khi ghi
+     * @param readable các codec dùng để đọc lại record cũ (theo formatId)
+     */
+    public EntityLog(Path logFile, Function<T, String> idOf, RecordCodec<T> codec,
+                     List<RecordCodec<T>> readable, AtomicLong lsnCounter) {
+        this(logFile, idOf, codec, readable, lsnCounter, DurabilityLevel.NONE, 0);
+    }
+    
+    /**
+     * @param windowMicros cửa sổ gom fsync (chỉ dùng với BATCHED)
+     */
+    public EntityLog(Path logFile, Function<T, String> idOf, RecordCodec<T> codec,
+                     List<RecordCodec<T>> readable, AtomicLong lsnCounter,
+                     DurabilityLevel durability, long windowMicros) {
+        this.logFile = logFile;
+        String name = logFile.getFileName().toString().replaceFirst("\\.log$", "");
+        this.snapshotFile = logFile.resolveSibling(name + ".snapshot");
+        this.compactingFile = logFile.resolveSibling(logFile.getFileName() + ".compacting");
+        this.idOf = idOf;
+        this.codec = codec;
+        for (RecordCodec<T> c : readable) {
+            decoders.put((int) c.getFormatId(), c);
+        }
+        decoders.put((int) codec.getFormatId(), codec);
+        this.lsnCounter = lsnCounter;
+        this.durability = durability;
+        this.syncs = new GroupCommit<>(batch -> force(),
+                durability == DurabilityLevel.BATCHED ? windowMicros : 0);
+    }
+
+    // ============ GHI LOG ============
+
+    public void appendUpsert(T entity) throws IOException {
+        synchronized (this) {
+            write(encodeUpsert(entity, nextLsn()));
+            if (index != null) {
+                index.put(idOf.apply(entity), entity);
+            }
+        }
+        sync();
+    }
+
+    public void appendDelete(String id) throws IOException {
+        synchronized (this) {
+            write(encodeFrame(OP_DELETE, nextLsn(), id, new byte[0]));
+            if (index != null) {
+                index.remove(id);
+            }
+        }
+        sync();
+    }
+
+    /**
+     * Ghi một lô upsert/delete bằng một lần ghi xuống file
+     */
+    public void appendBatch(List<T> upserts, List<String> deletes) throws IOException {
+        synchronized (this) {
+            writeBatch(upserts, deletes);
+        }
+        sync();
+    }
+    
+    private void writeBatch(List<T> upserts, List<String> deletes) throws IOException {
+        ByteBuffer[] frames = new ByteBuffer[upserts.size() + deletes.size()];
+        int i = 0;
+        for (String id : deletes) {
+            frames[i++] = encodeFrame(OP_DELETE, nextLsn(), id, new byte[0]);
+        }
+        for (T entity : upserts) {
+            frames[i++] = encodeUpsert(entity, nextLsn());
+        }
+        
+        FileChannel ch = channel();
+        long remaining = 0;
+        for (ByteBuffer frame : frames) {
+            remaining += frame.remaining();
+        }
+        while (remaining > 0) {
+            remaining -= ch.write(frames);
+        }
+        if (index != null) {
+            for (String id : deletes) {
+                index.remove(id);
+            }
+            for (T entity : upserts) {
+                index.put(idOf.apply(entity), entity);
+            }
+        }
+    }
+
+    /**
+     * Thay toàn bộ dữ liệu bằng các entity cho trước (dùng cho saveAll*): ghi thành snapshot mới
+     * (file tạm rồi đổi tên nguyên tử) kết thúc bằng frame đánh dấu LSN, sau đó mới xóa log cũ.
+     * Crash trước khi xóa xong thì log cũ có LSN nhỏ hơn mốc của snapshot và bị bỏ qua khi replay.
+     */
+    public void rewrite(Collection<T> entities) throws IOException {
+        compactionLock.lock();
+        try {
+            synchronized (this) {
+                closeChannel();
+                Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+                try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+                     OutputStream out = new BufferedOutputStream(fos, 1 << 16)) {
+                    for (T entity : entities) {
+                        ByteBuffer frame = encodeUpsert(entity, nextLsn());
+                        out.write(frame.array(), 0, frame.limit());
+                    }
+                    ByteBuffer mark = encodeMark(nextLsn());
+                    out.write(mark.array(), 0, mark.limit());
+                    out.flush();
+                    if (durability.isDurable()) {
+                        fos.getFD().sync();
+                    }
+                }
+                Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                // Snapshot mới đã chứa toàn bộ trạng thái, phần đuôi cũ không còn cần
+                Files.deleteIfExists(compactingFile);
+                Files.deleteIfExists(logFile);
+                if (durability.isDurable()) {
+                    DurableFiles.syncDirectory(logFile.toAbsolutePath().getParent());
+                }
+                index = new HashMap<>();
+                for (T entity : entities) {
+                    index.put(idOf.apply(entity), entity);
+                }
+            }
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * LSN cho frame tiếp theo. Lần đầu (chưa replay) quét các file của log để lsnCounter vượt qua
+     * LSN đã có trên đĩa: frame mới phải lớn hơn mốc của snapshot, nếu không sẽ bị bỏ qua khi replay.
+     * Gọi khi giữ monitor.
+     */
+    private long nextLsn() throws IOException {
+        if (!lsnRecovered) {
+            for (Path file : List.of(snapshotFile, compactingFile, logFile)) {
+                replayInto(file, null, Long.MAX_VALUE);
+            }
+            lsnRecovered = true;
+        }
+        return lsnCounter.incrementAndGet();
+    }
+
+    private ByteBuffer encodeUpsert(T entity, long lsn) throws IOException {
+        byte op = (byte) (OP_UPSERT | codec.getFormatId() << 4);
+        return encodeFrame(op, lsn, idOf.apply(entity), codec.encode(entity));
+    }
+    
+    /**
+     * Frame đánh dấu cuối snapshot: mọi record có LSN không lớn hơn lsn đã nằm trong snapshot
+     */
+    private static ByteBuffer encodeMark(long lsn) {
+        return encodeFrame(OP_MARK, lsn, "", new byte[0]);
+    }
+    
+    private void write(ByteBuffer frame) throws IOException {
+        FileChannel ch = channel();
+        while (frame.hasRemaining()) {
+            ch.write(frame);
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            boolean created = !Files.exists(logFile);
+            channel = FileChannel.open(logFile, StandardOpenOption.CREATE,
+                                       StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            if (created && durability.isDurable()) {
+                DurableFiles.syncDirectory(logFile.toAbsolutePath().getParent());
+            }
+        }
+        return channel;
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            // Writer có thể chưa kịp fsync phần vừa ghi trước khi log bị xoay
+            if (durability.isDurable()) {
+                channel.force(false);
+            }
+            channel.close();
+            channel = null;
+        }
+    }
+    
+    /**
+     * Chờ đến khi các frame đã ghi được fsync (không làm gì với DurabilityLevel.NONE)
+     */
+    private void sync() throws IOException {
+        if (durability.isDurable()) {
+            syncs.submit(Boolean.TRUE);
+        }
+    }
+    
+    /**
+     * fsync log hiện tại; không giữ monitor trong lúc fsync để writer khác vẫn ghi được
+     */
+    private void force() throws IOException {
+        FileChannel ch;
+        synchronized (this) {
+            ch = channel;
+        }
+        if (ch == null) {
+            return;
+        }
+        try {
+            ch.force(false);
+        } catch (ClosedChannelException e) {
+            // Channel vừa bị đóng khi xoay log, closeChannel đã fsync
+        }
+    }
+    
+    public long getSyncCount() {
+        return syncs.getCommitCount();
+    }
+
+    /**
+     * Đóng file log; chỉ mục của find được dựng lại ở lần đọc sau (file có thể bị xóa sau khi đóng)
+     */
+    public synchronized void close() throws IOException {
+        closeChannel();
+        index = null;
+    }
+
+    // ============ REPLAY ============
+
+    /**
+     * Dựng lại trạng thái hiện tại: snapshot + đuôi log, giữ thứ tự ghi lần đầu
+     */
+    public Map<String, T> replay() throws IOException {
+        Map<String, T> result = new LinkedHashMap<>();
+        replay(entity -> result.put(idOf.apply(entity), entity));
+        return result;
+    }
+
+    /**
+     * Replay và đưa từng entity còn sống cho consumer
+     * @return số entity
+     */
+    public synchronized int replay(Consumer<? super T> consumer) throws IOException {
+        Map<String, Frame> live = new LinkedHashMap<>();
+        // Đuôi log chỉ tính các record sau mốc của snapshot
+        long covered = replayInto(snapshotFile, live, 0).maxLsn;
+        replayInto(compactingFile, live, covered);
+        replayInto(logFile, live, covered);
+        lsnRecovered = true;
+
+        // Chỉ deserialize các record còn sống; lần replay đầu dựng luôn chỉ mục cho find
+        Map<String, T> built = index == null ? new HashMap<>(live.size() * 2) : null;
+        for (Frame frame : live.values()) {
+            T entity = decode(frame);
+            if (built != null) {
+                built.put(frame.key, entity);
+            }
+            consumer.accept(entity);
+        }
+        if (built != null) {
+            index = built;
+        }
+        return live.size();
+    }
+    
+    /**
+     * Tìm entity còn sống theo id từ chỉ mục trong bộ nhớ, null nếu không có.
+     * Chỉ lần gọi đầu (khi chưa replay) phải đọc toàn bộ snapshot + đuôi log để dựng chỉ mục.
+     */
+    public synchronized T find(String id) throws IOException {
+        if (index == null) {
+            replay(entity -> { });
+        }
+        return index.get(id);
+    }
+    
+    private T decode(Frame frame) throws IOException {
+        RecordCodec<T> decoder = decoders.get(frame.format());
+        if (decoder == null) {
+            throw new IOException("Không có codec cho định dạng " + frame.format()
+                                + " trong " + logFile.getFileName());
+        }
+        return decoder.decode(frame.payload);
+    }
+
+    /**
+     * Đọc các frame hợp lệ của file vào map key -> frame (live null: chỉ cập nhật lsnCounter).
+     * Frame có LSN không lớn hơn covered đã nằm trong snapshot và bị bỏ qua.
+     * Frame cuối bị ghi dở (crash giữa chừng) sẽ bị cắt bỏ.
+     */
+    Replayed replayInto(Path file, Map<String, Frame> live, long covered) throws IOException {
+        if (!Files.exists(file)) {
+            return new Replayed(0, 0);
+        }
+
+        int records = 0;
+        long maxLsn = 0;
+        long validOffset = 0;
+        try (FrameReader in = new FrameReader(FileChannel.open(file, StandardOpenOption.READ))) {
+            while (true) {
+                Frame frame = in.next();
+                if (frame == null) {
+                    break;
+                }
+                maxLsn = Math.max(maxLsn, frame.lsn);
+                validOffset += HEADER_SIZE + frame.keyBytes + frame.payload.length;
+                if (frame.kind() == OP_MARK || frame.lsn <= covered) {
+                    continue;
+                }
+                if (live != null) {
+                    if (frame.kind() == OP_UPSERT) {
+                        live.put(frame.key, frame);
+                    } else {
+                        live.remove(frame.key);
+                    }
+                }
+                records++;
+            }
+        }
+        lsnCounter.accumulateAndGet(maxLsn, Math::max);
+
+        long size = Files.size(file);
+        if (validOffset < size) {
+            System.err.println("Log " + file.getFileName() + " có record hỏng ở cuối, cắt bỏ "
+                             + (size - validOffset) + " bytes");
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ch.truncate(validOffset);
+            }
+        }
+        return new Replayed(records, maxLsn);
+    }
+    
+    /**
+     * Kết quả đọc một file: số record đã áp dụng và LSN lớn nhất trong file (kể cả frame đánh dấu)
+     */
+    static final class Replayed {
+        final int records;
+        final long maxLsn;
+        
+        Replayed(int records, long maxLsn) {
+            this.records = records;
+            this.maxLsn = maxLsn;
+        }
+    }
+
+    // ============ COMPACTION ============
+
+    /**
+     * Dung lượng đuôi log chưa được gộp vào snapshot
+     */
+    public long tailBytes() throws IOException {
+        return sizeOf(logFile) + sizeOf(compactingFile);
+    }
+
+    public long snapshotBytes() throws IOException {
+        return sizeOf(snapshotFile);
+    }
+
+    /**
+     * Gộp snapshot + log hiện tại thành snapshot mới.
+     * Writer chỉ bị chặn trong lúc đổi tên file log, không chặn trong lúc ghi snapshot.
+     * @return thống kê, hoặc null nếu không có gì để gộp
+     */
+    public CompactionStats compact() throws IOException {
+        compactionLock.lock();
+        try {
+            long start = System.nanoTime();
+
+            // 1. Xoay log: writer tiếp theo sẽ ghi vào file log mới
+            synchronized (this) {
+                if (!Files.exists(compactingFile)) {
+                    if (sizeOf(logFile) == 0) {
+                        return null;
+                    }
+                    closeChannel();
+                    Files.move(logFile, compactingFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+
+            // 2. Gộp snapshot cũ + phần log đã xoay (không giữ lock của writer)
+            long bytesBefore = sizeOf(snapshotFile) + sizeOf(compactingFile);
+            Map<String, Frame> live = new LinkedHashMap<>();
+            Replayed snapshot = replayInto(snapshotFile, live, 0);
+            Replayed rotated = replayInto(compactingFile, live, snapshot.maxLsn);
+            int records = snapshot.records + rotated.records;
+
+            Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+                 OutputStream out = new BufferedOutputStream(fos, 1 << 16)) {
+                for (Frame frame : live.values()) {
+                    // Record ghi bằng codec cũ được chuyển sang codec hiện tại
+                    ByteBuffer buf = frame.format() == codec.getFormatId()
+                            ? encodeFrame(frame.op, frame.lsn, frame.key, frame.payload)
+                            : encodeUpsert(decode(frame), frame.lsn);
+                    out.write(buf.array(), 0, buf.limit());
+                }
+                // Snapshot mới bao gồm cả các record đã bị xóa trong .compacting
+                ByteBuffer mark = encodeMark(Math.max(snapshot.maxLsn, rotated.maxLsn));
+                out.write(mark.array(), 0, mark.limit());
+                out.flush();
+                fos.getFD().sync();
+            }
+
+            // 3. Thay snapshot và bỏ phần log đã gộp (cùng lúc với replay thì phải khóa)
+            synchronized (this) {
+                Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.ATOMIC_MOVE);
+                Files.deleteIfExists(compactingFile);
+            }
+            if (durability.isDurable()) {
+                DurableFiles.syncDirectory(snapshotFile.toAbsolutePath().getParent());
+            }
+
+            long bytesAfter = sizeOf(snapshotFile);
+            long durationMillis = (System.nanoTime() - start) / 1_000_000;
+            return new CompactionStats(logFile.getFileName().toString(), bytesBefore, bytesAfter,
+                                       durationMillis, live.size(), records - live.size());
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Chặn compaction và rewrite (không chặn ghi nối) cho đến resumeCompaction: các file trong files()
+     * không bị đổi tên hay xóa trong lúc backup đọc chúng. Cùng thread phải gọi resumeCompaction.
+     */
+    public void pauseCompaction() {
+        compactionLock.lock();
+    }
+
+    public void resumeCompaction() {
+        compactionLock.unlock();
+    }
+
+    /**
+     * Các file đang tồn tại của entity (dùng cho backup/xóa dữ liệu)
+     */
+    public synchronized List<Path> files() {
+        List<Path> files = new ArrayList<>();
+        for (Path p : List.of(snapshotFile, compactingFile, logFile)) {
+            if (Files.exists(p)) {
+                files.add(p);
+            }
+        }
+        return files;
+    }
+
+    private static long sizeOf(Path file) throws IOException {
+        return Files.exists(file) ? Files.size(file) : 0;
+    }
+
+    // ============ ĐỊNH DẠNG FRAME ============
+
+    static final class Frame {
+        final byte op;
+        final long lsn;
+        final String key;
+        final int keyBytes;
+        final byte[] payload;
+
+        Frame(byte op, long lsn, String key, int keyBytes, byte[] payload) {
+            this.op = op;
+            this.lsn = lsn;
+            this.key = key;
+            this.keyBytes = keyBytes;
+            this.payload = payload;
+        }
+        
+        int kind() {
+            return op & 0x0F;
+        }
+        
+        int format() {
+            return (op >> 4) & 0x0F;
+        }
+    }
+
+    static ByteBuffer encodeFrame(byte op, long lsn, String key, byte[] payload) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + keyBytes.length + payload.length);
+        buf.put(op)
+           .putLong(lsn)
+           .putShort((short) keyBytes.length)
+           .putInt(payload.length)
+           .putInt(checksum(op, lsn, keyBytes, payload))
+           .put(keyBytes)
+           .put(payload);
+        buf.flip();
+        return buf;
+    }
+
+    /**
+     * Đọc tuần tự các frame của một file qua bộ đệm lớn, không đi qua DataInputStream
+     */
+    static final class FrameReader implements Closeable {
+        private final FileChannel channel;
+        private ByteBuffer buf = ByteBuffer.allocate(1 << 20).flip();
+        private final CRC32 crc = new CRC32();
+        private boolean eof;
+        
+        FrameReader(FileChannel channel) {
+            this.channel = channel;
+        }
+        
+        /**
+         * Đọc frame tiếp theo; trả về null nếu hết file hoặc frame không hợp lệ
+         */
+        Frame next() throws IOException {
+            if (!fill(HEADER_SIZE)) {
+                return null;
+            }
+            int start = buf.position();
+            byte op = buf.get(start);
+            long lsn = buf.getLong(start + 1);
+            int keyLength = buf.getShort(start + 9) & 0xFFFF;
+            int payloadLength = buf.getInt(start + 11);
+            int storedCrc = buf.getInt(start + 15);
+            int kind = op & 0x0F;
+            if ((kind != OP_UPSERT && kind != OP_DELETE && kind != OP_MARK) || payloadLength < 0 || payloadLength > MAX_PAYLOAD) {
+                return null;
+            }
+            
+            int total = HEADER_SIZE + keyLength + payloadLength;
+            if (!fill(total)) {
+                return null;
+            }
+            start = buf.position();
+            byte[] array = buf.array();
+            int body = start + HEADER_SIZE;
+            crc.reset();
+            crc.update(array, start, 9);
+            crc.update(array, body, keyLength + payloadLength);
+            if ((int) crc.getValue() != storedCrc) {
+                return null;
+            }
+            String key = new String(array, body, keyLength, StandardCharsets.UTF_8);
+            byte[] payload = Arrays.copyOfRange(array, body + keyLength, body + keyLength + payloadLength);
+            buf.position(start + total);
+            return new Frame(op, lsn, key, keyLength, payload);
+        }
+        
+        /**
+         * Đảm bảo bộ đệm có ít nhất n byte chưa đọc
+         */
+        private boolean fill(int n) throws IOException {
+            if (buf.remaining() >= n) {
+                return true;
+            }
+            if (eof) {
+                return false;
+            }
+            if (n > buf.capacity()) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(n, buf.capacity() * 2));
+                bigger.put(buf);
+                buf = bigger;
+            } else {
+                buf.compact();
+            }
+            while (buf.position() < n) {
+                if (channel.read(buf) < 0) {
+                    eof = true;
+                    break;
+                }
+            }
+            buf.flip();
+            return buf.remaining() >= n;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+    
+    private static int checksum(byte op, long lsn, byte[] key, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(op);
+        crc.update(ByteBuffer.allocate(8).putLong(lsn).array());
+        crc.update(key);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    public Path getLogFile() {
+        return logFile;
+    }
+    
+    public RecordCodec<T> getCodec() {
+        return codec;
+    }
+}
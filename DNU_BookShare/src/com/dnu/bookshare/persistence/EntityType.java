@@ -0,0 +1,59 @@
+package src.com.dnu.bookshare.persistence;
+
+import src.com.dnu.bookshare.model.*;
+import src.com.dnu.bookshare.persistence.codec.*;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * EntityType - Mô tả một loại entity được lưu trữ: tên, class, cách lấy id
+ * và codec nhị phân của entity
+ */
+public final class EntityType<T> {
+    public static final EntityType<User> USERS =
+            new EntityType<>("users", User.class, User::getUserId, new UserCodec());
+    public static final EntityType<Book> BOOKS =
+            new EntityType<>("books", Book.class, Book::getBookId, new BookCodec());
+    public static final EntityType<Transaction> TRANSACTIONS =
+            new EntityType<>("transactions", Transaction.class, Transaction::getTransactionId, new TransactionCodec());
+    public static final EntityType<Notification> NOTIFICATIONS =
+            new EntityType<>("notifications", Notification.class, Notification::getNotificationId, new NotificationCodec());
+    public static final EntityType<Report> REPORTS =
+            new EntityType<>("reports", Report.class, Report::getReportId, new ReportCodec());
+    public static final EntityType<TransactionEvent> TRANSACTION_EVENTS =
+            new EntityType<>("transaction_events", TransactionEvent.class, TransactionEvent::getEventId,
+                             new TransactionEventCodec());
+    
+    private static final List<EntityType<?>> ALL =
+            List.of(USERS, BOOKS, TRANSACTIONS, NOTIFICATIONS, REPORTS, TRANSACTION_EVENTS);
+    
+    private final String name;
+    private final Class<T> type;
+    private final Function<T, String> idOf;
+    private final BinaryRecordCodec<T> binaryCodec;
+    
+    private EntityType(String name, Class<T> type, Function<T, String> idOf,
+                       BinaryRecordCodec<T> binaryCodec) {
+        this.name = name;
+        this.type = type;
+        this.idOf = idOf;
+        this.binaryCodec = binaryCodec;
+    }
+    
+    public static List<EntityType<?>> values() {
+        return ALL;
+    }
+    
+    public String getName() { return name; }
+    public Class<T> getType() { return type; }
+    public BinaryRecordCodec<T> getBinaryCodec() { return binaryCodec; }
+    
+    public String idOf(T entity) {
+        return idOf.apply(entity);
+    }
+    
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,127 @@
+package src.com.dnu.bookshare.persistence;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.*;
+
+/**
+ * GroupCommit - Gom các lần ghi đồng thời thành một lần commit
+ * Thread đầu tiên thấy không có commit nào đang chạy trở thành leader: chờ cửa sổ gom,
+ * lấy toàn bộ thay đổi đang chờ và commit một lần (một lần ghi file, một fsync).
+ * Các thread khác chờ đến khi lô chứa thay đổi của mình được commit; thay đổi đến trong lúc
+ * đang commit sẽ vào lô sau, do một thread đang chờ đảm nhận làm leader.
+ * Mỗi lệnh submit chỉ trả về sau khi thay đổi của nó đã được commit (hoặc ném lỗi của lô).
+ */
+public class GroupCommit<W> {
+    
+    /**
+     * Commit một lô thay đổi theo đúng thứ tự submit
+     */
+    public interface Committer<W> {
+        void commit(List<W> batch) throws IOException;
+    }
+    
+    private static final class Pending<W> {
+        final W change;
+        boolean done;
+        IOException error;
+        
+        Pending(W change) {
+            this.change = change;
+        }
+    }
+    
+    private final Committer<W> committer;
+    private final long windowNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition committed = lock.newCondition();
+    private List<Pending<W>> queue = new ArrayList<>();
+    private boolean committing;
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder changes = new LongAdder();
+    
+    public GroupCommit(Committer<W> committer, long windowMicros) {
+        this.committer = committer;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+    }
+    
+    public void submit(W change) throws IOException {
+        Pending<W> pending = new Pending<>(change);
+        lock.lock();
+        try {
+            queue.add(pending);
+            while (!pending.done) {
+                if (committing) {
+                    committed.awaitUninterruptibly();
+                    continue;
+                }
+                committing = true;
+                lock.unlock();
+                try {
+                    commitNextBatch();
+                } finally {
+                    lock.lock();
+                    committing = false;
+                    committed.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (pending.error != null) {
+            throw pending.error;
+        }
+    }
+    
+    /**
+     * Chạy bởi leader, không giữ lock
+     */
+    private void commitNextBatch() {
+        if (windowNanos > 0) {
+            LockSupport.parkNanos(windowNanos);
+        }
+        List<Pending<W>> batch;
+        lock.lock();
+        try {
+            batch = queue;
+            queue = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+        
+        List<W> changeList = new ArrayList<>(batch.size());
+        for (Pending<W> p : batch) {
+            changeList.add(p.change);
+        }
+        IOException error = null;
+        try {
+            committer.commit(changeList);
+        } catch (IOException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = new IOException(e.getMessage(), e);
+        }
+        commits.increment();
+        changes.add(batch.size());
+        
+        lock.lock();
+        try {
+            for (Pending<W> p : batch) {
+                p.error = error;
+                p.done = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public long getCommitCount() {
+        return commits.sum();
+    }
+    
+    public long getChangeCount() {
+        return changes.sum();
+    }
+}
@@ -0,0 +1,94 @@
+package src.com.dnu.bookshare.persistence;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * InMemoryStorageEngine - Lưu toàn bộ dữ liệu trong bộ nhớ, không ghi đĩa
+ * Dùng cho chạy thử và bộ test nhanh; dữ liệu mất khi tắt ứng dụng.
+ */
+public class InMemoryStorageEngine implements StorageEngine {
+    private final Map<EntityType<?>, InMemoryRepository<?>> repositories = new LinkedHashMap<>();
+    
+    public InMemoryStorageEngine() {
+        for (EntityType<?> type : EntityType.values()) {
+            repositories.put(type, new InMemoryRepository<>(type));
+        }
+    }
+    
+    @Override
+    public String getName() {
+        return "memory";
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Repository<T> repository(EntityType<T> type) {
+        return (Repository<T>) repositories.get(type);
+    }
+    
+    @Override
+    public List<Path> dataFiles() {
+        return new ArrayList<>();
+    }
+    
+    @Override
+    public void clear() {
+        for (InMemoryRepository<?> repo : repositories.values()) {
+            repo.entities.clear();
+        }
+    }
+    
+    @Override
+    public void close() {
+    }
+    
+    static class InMemoryRepository<T> implements Repository<T> {
+        private final EntityType<T> type;
+        private final Map<String, T> entities = new ConcurrentHashMap<>();
+        
+        InMemoryRepository(EntityType<T> type) {
+            this.type = type;
+        }
+        
+        @Override
+        public void upsert(T entity) {
+            entities.put(type.idOf(entity), entity);
+        }
+        
+        @Override
+        public void delete(String id) {
+            entities.remove(id);
+        }
+        
+        @Override
+        public T findById(String id) {
+            return entities.get(id);
+        }
+        
+        @Override
+        public void scan(Consumer<? super T> consumer) {
+            entities.values().forEach(consumer);
+        }
+        
+        @Override
+        public void batch(List<T> upserts, List<String> deletes) {
+            for (String id : deletes) {
+                delete(id);
+            }
+            for (T entity : upserts) {
+                upsert(entity);
+            }
+        }
+        
+        @Override
+        public synchronized void replaceAll(Collection<T> newEntities) {
+            entities.clear();
+            for (T entity : newEntities) {
+                upsert(entity);
+            }
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package src.com.dnu.bookshare.persistence;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * JournaledStorageEngine - Bọc một StorageEngine ghi đĩa, mọi lần ghi đi qua CommitJournal
+ * Mỗi UnitOfWork (kể cả upsert/batch của một repository) là một record trong journal:
+ * một lần ghi, một fsync, dù unit chạm tới nhiều loại entity (vd giao dịch + sách).
+ * Thay đổi được giữ trong bộ nhớ và ghi xuống engine bên dưới khi checkpoint, mỗi loại entity một lô.
+ * Journal vượt checkpointBytes thì checkpoint chạy trên thread nền: chỉ việc tách pending và xoay journal
+ * giữ monitor, còn ghi xuống engine bên dưới (có thể là ghi lại cả file JSON) không chặn commit;
+ * findById thấy cả lô đang được ghi. Đọc bằng scan, flush, backup, đóng thì checkpoint đồng bộ.
+ *
+ * Khởi động: các unit còn trong journal (cả phần đã xoay chưa checkpoint xong) được ghi lại vào
+ * engine bên dưới theo thứ tự rồi xóa.
+ * Mọi lần ghi đều qua journal nên ghi lại là lũy đẳng; unit cuối bị ghi dở thì bị bỏ cả unit.
+ */
+public class JournaledStorageEngine implements StorageEngine {
+    private final StorageEngine delegate;
+    private final CommitJournal journal;
+    private final long checkpointBytes;
+    private final Map<EntityType<?>, JournaledRepository<?>> repositories = new LinkedHashMap<>();
+    // Thay đổi đã vào journal nhưng chưa ghi xuống engine bên dưới
+    private UnitOfWork pending = new UnitOfWork();
+    // Lô đang (hoặc ghi lỗi, chờ ghi lại) xuống engine bên dưới, null nếu không có; journal của nó đã xoay
+    private UnitOfWork checkpointing;
+    private long checkpoints;
+    // Mỗi lúc chỉ một checkpoint ghi xuống engine bên dưới (nền hoặc đồng bộ)
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    private final AtomicBoolean checkpointRequested = new AtomicBoolean();
+    private final ExecutorService checkpointer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "journal-checkpoint");
+        t.setDaemon(true);
+        return t;
+    });
+    
+    /**
+     * @param windowMicros cửa sổ gom fsync của journal (chỉ dùng với BATCHED)
+     */
+    public JournaledStorageEngine(StorageEngine delegate, Path journalFile, DurabilityLevel durability,
+                                  long windowMicros, long checkpointBytes) throws IOException {
+        this.delegate = delegate;
+        this.journal = new CommitJournal(journalFile, durability, windowMicros);
+        this.checkpointBytes = checkpointBytes;
+        for (EntityType<?> type : EntityType.values()) {
+            repositories.put(type, createRepository(type));
+        }
+        recover();
+    }
+    
+    private <T> JournaledRepository<T> createRepository(EntityType<T> type) {
+        return new JournaledRepository<>(type, delegate.repository(type));
+    }
+    
+    private synchronized void recover() throws IOException {
+        int units = journal.replay(this::stage);
+        if (units > 0) {
+            System.out.println("Journal: ghi lại " + units + " unit chưa checkpoint");
+            pending.writeTo(delegate);
+            delegate.flush();
+            pending = new UnitOfWork();
+            checkpoints++;
+        }
+        journal.dropRotated();
+        journal.reset();
+    }
+    
+    // ============ COMMIT ============
+    
+    @Override
+    public void commit(UnitOfWork unit) throws IOException {
+        if (unit.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            // Cùng thứ tự trong journal và trong pending
+            journal.write(unit);
+            stage(unit);
+        }
+        journal.sync();
+        if (journal.size() >= checkpointBytes && checkpointRequested.compareAndSet(false, true)) {
+            try {
+                checkpointer.execute(this::backgroundCheckpoint);
+            } catch (RejectedExecutionException e) {
+                // Đang đóng: close tự checkpoint
+                checkpointRequested.set(false);
+            }
+        }
+    }
+    
+    private void stage(UnitOfWork unit) {
+        pending.merge(unit);
+    }
+    
+    /**
+     * Ghi mọi thay đổi đã commit xuống engine bên dưới (mỗi loại entity một lô), chờ cả checkpoint nền.
+     * Lỗi giữa chừng thì giữ nguyên phần journal đã xoay, lần sau ghi lại lô đó trước.
+     */
+    public void checkpoint() throws IOException {
+        checkpointLock.lock();
+        try {
+            // Tối đa hai lô: lô ghi lỗi lần trước (nếu có) rồi pending hiện tại
+            for (int i = 0; i < 2 && startCheckpoint(); i++) {
+                writeCheckpoint();
+            }
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+    
+    private void backgroundCheckpoint() {
+        checkpointRequested.set(false);
+        checkpointLock.lock();
+        try {
+            if (startCheckpoint()) {
+                writeCheckpoint();
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Lỗi checkpoint journal (sẽ ghi lại lần sau): " + e.getMessage());
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+    
+    /**
+     * Tách pending thành lô checkpoint và xoay journal (giữ monitor, không ghi engine bên dưới)
+     * @return false nếu không có gì để ghi
+     */
+    private synchronized boolean startCheckpoint() throws IOException {
+        if (checkpointing != null) {
+            return true;
+        }
+        if (pending.isEmpty()) {
+            return false;
+        }
+        journal.rotate();
+        checkpointing = pending;
+        pending = new UnitOfWork();
+        return true;
+    }
+    
+    /**
+     * Ghi lô checkpoint xuống engine bên dưới ngoài monitor; gọi khi giữ checkpointLock
+     */
+    private void writeCheckpoint() throws IOException {
+        UnitOfWork batch;
+        synchronized (this) {
+            batch = checkpointing;
+        }
+        batch.writeTo(delegate);
+        delegate.flush();
+        synchronized (this) {
+            journal.dropRotated();
+            checkpointing = null;
+            checkpoints++;
+        }
+    }
+    
+    // ============ STORAGE ENGINE ============
+    
+    @Override
+    public String getName() {
+        return delegate.getName() + "+journal";
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Repository<T> repository(EntityType<T> type) {
+        return (Repository<T>) repositories.get(type);
+    }
+    
+    @Override
+    public List<Path> dataFiles() throws IOException {
+        checkpoint();
+        return delegate.dataFiles();
+    }
+    
+    @Override
+    public <R> R readDataFiles(DataFilesReader<R> reader) throws IOException {
+        checkpoint();
+        return delegate.readDataFiles(reader);
+    }
+    
+    @Override
+    public Path getDataDir() {
+        return delegate.getDataDir();
+    }
+    
+    @Override
+    public void clear() throws IOException {
+        checkpointLock.lock();
+        try {
+            synchronized (this) {
+                pending = new UnitOfWork();
+                checkpointing = null;
+                journal.dropRotated();
+                journal.reset();
+                delegate.clear();
+            }
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+    
+    @Override
+    public void flush() throws IOException {
+        checkpoint();
+    }
+    
+    @Override
+    public List<CompactionStats> compact() throws IOException {
+        checkpoint();
+        return delegate.compact();
+    }
+    
+    @Override
+    public List<CompactionStats> getCompactionStats() {
+        return delegate.getCompactionStats();
+    }
+    
+    @Override
+    public WriteBehindStats getWriteBehindStats() {
+        return delegate.getWriteBehindStats();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        checkpointer.shutdown();
+        checkpoint();
+        journal.close();
+        delegate.close();
+    }
+    
+    /**
+     * Số lần fsync journal (mỗi lần có thể gồm nhiều unit)
+     */
+    public long getSyncCount() {
+        return journal.getSyncCount();
+    }
+    
+    public synchronized long getCheckpointCount() {
+        return checkpoints;
+    }
+    
+    public long getJournalBytes() {
+        return journal.size();
+    }
+    
+    public StorageEngine getDelegate() {
+        return delegate;
+    }
+    
+    class JournaledRepository<T> implements Repository<T> {
+        private final EntityType<T> type;
+        private final Repository<T> target;
+        
+        JournaledRepository(EntityType<T> type, Repository<T> target) {
+            this.type = type;
+            this.target = target;
+        }
+        
+        @Override
+        public void upsert(T entity) throws IOException {
+            commit(new UnitOfWork().upsert(type, entity));
+        }
+        
+        @Override
+        public void delete(String id) throws IOException {
+            commit(new UnitOfWork().delete(type, id));
+        }
+        
+        @Override
+        public T findById(String id) throws IOException {
+            synchronized (JournaledStorageEngine.this) {
+                if (pending.contains(type, id)) {
+                    return pending.get(type, id);
+                }
+                // Lô đang checkpoint chỉ rời bộ nhớ sau khi đã ghi xong xuống engine bên dưới
+                if (checkpointing != null && checkpointing.contains(type, id)) {
+                    return checkpointing.get(type, id);
+                }
+            }
+            return target.findById(id);
+        }
+        
+        @Override
+        public void scan(Consumer<? super T> consumer) throws IOException {
+            checkpoint();
+            target.scan(consumer);
+        }
+        
+        @Override
+        public void batch(List<T> upserts, List<String> deletes) throws IOException {
+            commit(UnitOfWork.of(type, upserts, deletes));
+        }
+        
+        @Override
+        public void replaceAll(Collection<T> entities) throws IOException {
+            // Giữ checkpointLock (không giữ monitor): checkpoint nền không chen vào giữa
+            checkpointLock.lock();
+            try {
+                checkpoint();
+                target.replaceAll(entities);
+            } finally {
+                checkpointLock.unlock();
+            }
+        }
+    }
+}
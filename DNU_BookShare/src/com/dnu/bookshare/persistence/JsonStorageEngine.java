@@ -0,0 +1,238 @@
+package src.com.dnu.bookshare.persistence;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * JsonStorageEngine - Mỗi loại entity là một file JSON pretty-printed (users.json, books.json...)
+ * Mỗi lần commit áp các thay đổi lên nội dung hiện tại và thay file bằng file tạm + đổi tên nguyên tử.
+ * Nội dung file được giữ trong bộ nhớ dạng id -> entity (dựng ở lần đọc/ghi đầu tiên) để findById
+ * và commit không phải đọc lại cả file.
+ * Các lần ghi đồng thời được gom (GroupCommit) để dùng chung một lần ghi file và một fsync.
+ */
+public class JsonStorageEngine implements StorageEngine {
+    private final Path dataDir;
+    private final Gson gson;
+    private final DurabilityLevel durability;
+    private final long windowMicros;
+    private final Map<EntityType<?>, JsonFileRepository<?>> repositories = new LinkedHashMap<>();
+    
+    public JsonStorageEngine(Path dataDir, Gson gson) {
+        this(dataDir, gson, DurabilityLevel.NONE, 0);
+    }
+    
+    /**
+     * @param windowMicros cửa sổ gom của group commit (chỉ dùng với BATCHED)
+     */
+    public JsonStorageEngine(Path dataDir, Gson gson, DurabilityLevel durability, long windowMicros) {
+        this.dataDir = dataDir;
+        this.gson = gson;
+        this.durability = durability;
+        this.windowMicros = durability == DurabilityLevel.BATCHED ? windowMicros : 0;
+        for (EntityType<?> type : EntityType.values()) {
+            repositories.put(type, createRepository(type));
+        }
+    }
+    
+    private <T> JsonFileRepository<T> createRepository(EntityType<T> type) {
+        return new JsonFileRepository<>(type, dataDir.resolve(type.getName() + ".json"), gson,
+                                        durability, windowMicros);
+    }
+    
+    @Override
+    public String getName() {
+        return "json";
+    }
+    
+    @Override
+    public Path getDataDir() {
+        return dataDir;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Repository<T> repository(EntityType<T> type) {
+        return (Repository<T>) repositories.get(type);
+    }
+    
+    @Override
+    public List<Path> dataFiles() {
+        List<Path> files = new ArrayList<>();
+        for (JsonFileRepository<?> repo : repositories.values()) {
+            if (Files.exists(repo.file)) {
+                files.add(repo.file);
+            }
+        }
+        return files;
+    }
+    
+    @Override
+    public void clear() throws IOException {
+        for (JsonFileRepository<?> repo : repositories.values()) {
+            repo.deleteFile();
+        }
+    }
+    
+    @Override
+    public void close() {
+    }
+    
+    /**
+     * Tổng số lần commit (ghi file) của mọi repository
+     */
+    public long getCommitCount() {
+        long total = 0;
+        for (JsonFileRepository<?> repo : repositories.values()) {
+            total += repo.getCommitCount();
+        }
+        return total;
+    }
+    
+    /**
+     * Repository lưu cả danh sách entity trong một file JSON
+     */
+    static class JsonFileRepository<T> implements Repository<T> {
+        private final EntityType<T> type;
+        private final Path file;
+        private final Gson gson;
+        private final DurabilityLevel durability;
+        private final GroupCommit<Change<T>> commits;
+        // Nội dung hiện tại của file theo thứ tự ghi, null cho đến lần dùng đầu; chỉ thay khi giữ khóa
+        private Map<String, T> current;
+        
+        JsonFileRepository(EntityType<T> type, Path file, Gson gson,
+                           DurabilityLevel durability, long windowMicros) {
+            this.type = type;
+            this.file = file;
+            this.gson = gson;
+            this.durability = durability;
+            this.commits = new GroupCommit<>(this::commit, windowMicros);
+        }
+        
+        @Override
+        public void upsert(T entity) throws IOException {
+            batch(List.of(entity), List.of());
+        }
+        
+        @Override
+        public void delete(String id) throws IOException {
+            batch(List.of(), List.of(id));
+        }
+        
+        @Override
+        public synchronized T findById(String id) throws IOException {
+            return current().get(id);
+        }
+        
+        /**
+         * Nội dung hiện tại của file; lần đầu đọc cả file (gọi khi giữ khóa)
+         */
+        private Map<String, T> current() throws IOException {
+            if (current == null) {
+                Map<String, T> loaded = new LinkedHashMap<>();
+                scan(e -> loaded.put(type.idOf(e), e));
+                current = loaded;
+            }
+            return current;
+        }
+        
+        @Override
+        public synchronized void scan(Consumer<? super T> consumer) throws IOException {
+            if (!Files.exists(file)) {
+                return;
+            }
+            JsonStreamLoader.forEach(file, gson, type.getType(), consumer);
+        }
+        
+        @Override
+        public void batch(List<T> upserts, List<String> deletes) throws IOException {
+            commits.submit(new Change<>(upserts, deletes, null));
+        }
+        
+        @Override
+        public void replaceAll(Collection<T> entities) throws IOException {
+            commits.submit(new Change<>(null, null, entities));
+        }
+        
+        /**
+         * Áp một lô thay đổi theo thứ tự rồi ghi file một lần (chỉ leader của GroupCommit gọi)
+         */
+        private void commit(List<Change<T>> batch) throws IOException {
+            Map<String, T> entities = null;
+            for (Change<T> change : batch) {
+                if (change.replacement != null) {
+                    entities = new LinkedHashMap<>();
+                    for (T entity : change.replacement) {
+                        entities.put(type.idOf(entity), entity);
+                    }
+                    continue;
+                }
+                if (entities == null) {
+                    synchronized (this) {
+                        entities = new LinkedHashMap<>(current());
+                    }
+                }
+                for (String id : change.deletes) {
+                    entities.remove(id);
+                }
+                // Bản mới được đưa xuống cuối file
+                for (T entity : change.upserts) {
+                    String id = type.idOf(entity);
+                    entities.remove(id);
+                    entities.put(id, entity);
+                }
+            }
+            saveToFile(entities);
+        }
+        
+        private void saveToFile(Map<String, T> entities) throws IOException {
+            TypeAdapter<T> adapter = gson.getAdapter(type.getType());
+            Path tmp = DurableFiles.writeTemp(file, writer -> {
+                JsonWriter out = gson.newJsonWriter(writer);
+                out.beginArray();
+                for (T entity : entities.values()) {
+                    adapter.write(out, entity);
+                }
+                out.endArray();
+                out.flush();
+            }, durability.isDurable());
+            // Khóa để không đổi tên file trong lúc scan đang đọc; nội dung trong bộ nhớ đổi cùng file
+            synchronized (this) {
+                DurableFiles.moveInto(tmp, file);
+                current = entities;
+            }
+            if (durability.isDurable()) {
+                DurableFiles.syncDirectory(file.toAbsolutePath().getParent());
+            }
+        }
+        
+        public long getCommitCount() {
+            return commits.getCommitCount();
+        }
+        
+        synchronized void deleteFile() throws IOException {
+            Files.deleteIfExists(file);
+            current = null;
+        }
+    }
+    
+    /**
+     * Một thay đổi chờ commit: batch(upserts, deletes) hoặc replaceAll(replacement)
+     */
+    static final class Change<T> {
+        final List<T> upserts;
+        final List<String> deletes;
+        final Collection<T> replacement;
+        
+        Change(List<T> upserts, List<String> deletes, Collection<T> replacement) {
+            this.upserts = upserts;
+            this.deletes = deletes;
+            this.replacement = replacement;
+        }
+    }
+}
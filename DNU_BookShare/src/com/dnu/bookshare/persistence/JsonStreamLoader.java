@@ -0,0 +1,56 @@
+package src.com.dnu.bookshare.persistence;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.function.Consumer;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * JsonStreamLoader - Đọc file JSON dạng mảng theo từng phần tử
+ * Không đọc cả file vào một String và không tạo List trung gian:
+ * mỗi entity được đưa thẳng cho consumer ngay khi parse xong.
+ */
+public final class JsonStreamLoader {
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    private JsonStreamLoader() {
+    }
+    
+    /**
+     * Duyệt từng phần tử của mảng JSON trong file
+     * @return số phần tử đã đọc
+     */
+    public static <T> int forEach(Path file, Gson gson, Class<T> type,
+                                  Consumer<? super T> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             JsonReader reader = new JsonReader(new BufferedReader(
+                     Channels.newReader(channel, StandardCharsets.UTF_8), BUFFER_SIZE))) {
+            
+            // File rỗng hoặc "null" coi như không có dữ liệu
+            JsonToken first;
+            try {
+                first = reader.peek();
+            } catch (EOFException e) {
+                return 0;
+            }
+            if (first == JsonToken.NULL) {
+                return 0;
+            }
+            
+            int count = 0;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                T entity = gson.fromJson(reader, type);
+                consumer.accept(entity);
+                count++;
+            }
+            reader.endArray();
+            return count;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package src.com.dnu.bookshare.persistence;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LogCompactor - Định kỳ gộp log của các entity thành snapshot trên thread nền
+ * Một log được gộp khi phần đuôi vượt ngưỡng tối thiểu và đủ lớn so với snapshot.
+ */
+public class LogCompactor {
+    private final List<EntityLog<?>> logs;
+    private final long minTailBytes;
+    private final double tailRatio;
+    private final Map<String, CompactionStats> lastStats = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytesReclaimed = new AtomicLong();
+    private final AtomicLong totalRuns = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+    
+    public LogCompactor(List<EntityLog<?>> logs, long minTailBytes, double tailRatio) {
+        this.logs = logs;
+        this.minTailBytes = minTailBytes;
+        this.tailRatio = tailRatio;
+    }
+    
+    /**
+     * Chạy compaction định kỳ trên một thread daemon
+     */
+    public synchronized void start(long intervalSeconds) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "log-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::compactIfNeeded,
+                intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+    
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            scheduler = null;
+        }
+    }
+    
+    /**
+     * Gộp các log có phần đuôi vượt ngưỡng
+     */
+    public void compactIfNeeded() {
+        for (EntityLog<?> log : logs) {
+            try {
+                long tail = log.tailBytes();
+                if (tail >= minTailBytes && tail >= log.snapshotBytes() * tailRatio) {
+                    compact(log);
+                }
+            } catch (Exception e) {
+                System.err.println("Lỗi compaction " + log.getLogFile() + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Gộp tất cả log ngay lập tức
+     */
+    public List<CompactionStats> compactAll() throws IOException {
+        List<CompactionStats> result = new ArrayList<>();
+        for (EntityLog<?> log : logs) {
+            CompactionStats stats = compact(log);
+            if (stats != null) {
+                result.add(stats);
+            }
+        }
+        return result;
+    }
+    
+    private CompactionStats compact(EntityLog<?> log) throws IOException {
+        CompactionStats stats = log.compact();
+        if (stats != null) {
+            lastStats.put(stats.getLogName(), stats);
+            totalBytesReclaimed.addAndGet(stats.getBytesReclaimed());
+            totalRuns.incrementAndGet();
+            System.out.println("Compaction " + stats);
+        }
+        return stats;
+    }
+    
+    /**
+     * Thống kê lần compaction gần nhất của mỗi log
+     */
+    public List<CompactionStats> getLastStats() {
+        return new ArrayList<>(lastStats.values());
+    }
+    
+    public long getTotalBytesReclaimed() {
+        return totalBytesReclaimed.get();
+    }
+    
+    public long getTotalRuns() {
+        return totalRuns.get();
+    }
+}
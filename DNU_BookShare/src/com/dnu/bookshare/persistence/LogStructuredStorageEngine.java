@@ -0,0 +1,201 @@
+package src.com.dnu.bookshare.persistence;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import src.com.dnu.bookshare.persistence.codec.*;
+import com.google.gson.Gson;
+
+/**
+ * LogStructuredStorageEngine - Mỗi loại entity có một log ghi nối tiếp (xem EntityLog)
+ * Chi phí mỗi lần ghi không phụ thuộc kích thước dữ liệu; log được LogCompactor
+ * gộp định kỳ thành snapshot trên thread nền.
+ * Payload của từng loại entity được ghi bằng codec "binary" (mặc định) hoặc "json".
+ */
+public class LogStructuredStorageEngine implements StorageEngine {
+    private final Map<EntityType<?>, LogRepository<?>> repositories = new LinkedHashMap<>();
+    private final LogCompactor compactor;
+    private final Path dataDir;
+    
+    /**
+     * @param codecs tên entity -> "binary" | "json"; entity không có trong map dùng binary
+     */
+    public LogStructuredStorageEngine(Path dataDir, Gson gson, Map<String, String> codecs,
+                                      long compactionIntervalSeconds, long minTailBytes) {
+        this(dataDir, gson, codecs, DurabilityLevel.NONE, 0, compactionIntervalSeconds, minTailBytes);
+    }
+    
+    /**
+     * @param windowMicros cửa sổ gom fsync khi durability là BATCHED
+     */
+    public LogStructuredStorageEngine(Path dataDir, Gson gson, Map<String, String> codecs,
+                                      DurabilityLevel durability, long windowMicros,
+                                      long compactionIntervalSeconds, long minTailBytes) {
+        this.dataDir = dataDir;
+        // LSN dùng chung cho mọi entity
+        AtomicLong lsn = new AtomicLong();
+        List<EntityLog<?>> logs = new ArrayList<>();
+        for (EntityType<?> type : EntityType.values()) {
+            String codec = codecs.getOrDefault(type.getName(), "binary");
+            LogRepository<?> repo = createRepository(type, dataDir, gson, codec, lsn,
+                                                     durability, windowMicros);
+            repositories.put(type, repo);
+            logs.add(repo.log);
+        }
+        
+        this.compactor = new LogCompactor(logs, minTailBytes, 0.5);
+        compactor.start(compactionIntervalSeconds);
+    }
+    
+    private static <T> LogRepository<T> createRepository(EntityType<T> type, Path dataDir, Gson gson,
+                                                        String codecName, AtomicLong lsn,
+                                                        DurabilityLevel durability, long windowMicros) {
+        RecordCodec<T> json = new JsonRecordCodec<>(gson, type.getType());
+        RecordCodec<T> binary = type.getBinaryCodec();
+        RecordCodec<T> codec;
+        switch (codecName.toLowerCase()) {
+            case "json":
+                codec = json;
+                break;
+            case "binary":
+                codec = binary;
+                break;
+            default:
+                throw new IllegalArgumentException("Codec không hợp lệ cho " + type + ": " + codecName);
+        }
+        EntityLog<T> log = new EntityLog<>(dataDir.resolve(type.getName() + ".log"),
+                type::idOf, codec, List.of(json, binary), lsn, durability, windowMicros);
+        return new LogRepository<>(log);
+    }
+    
+    @Override
+    public String getName() {
+        return "log";
+    }
+    
+    @Override
+    public Path getDataDir() {
+        return dataDir;
+    }
+    
+    /**
+     * Codec đang dùng để ghi của từng entity, dạng "users=binary, books=binary, ..."
+     */
+    public String describeCodecs() {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (Map.Entry<EntityType<?>, LogRepository<?>> e : repositories.entrySet()) {
+            joiner.add(e.getKey() + "=" + e.getValue().log.getCodec().getName());
+        }
+        return joiner.toString();
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Repository<T> repository(EntityType<T> type) {
+        return (Repository<T>) repositories.get(type);
+    }
+    
+    @Override
+    public List<Path> dataFiles() {
+        List<Path> files = new ArrayList<>();
+        for (LogRepository<?> repo : repositories.values()) {
+            files.addAll(repo.log.files());
+        }
+        return files;
+    }
+    
+    @Override
+    public <R> R readDataFiles(DataFilesReader<R> reader) throws IOException {
+        List<EntityLog<?>> paused = new ArrayList<>();
+        try {
+            for (LogRepository<?> repo : repositories.values()) {
+                repo.log.pauseCompaction();
+                paused.add(repo.log);
+            }
+            return reader.read(dataFiles());
+        } finally {
+            for (EntityLog<?> log : paused) {
+                log.resumeCompaction();
+            }
+        }
+    }
+    
+    @Override
+    public void clear() throws IOException {
+        for (LogRepository<?> repo : repositories.values()) {
+            repo.log.close();
+            for (Path file : repo.log.files()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+    
+    /**
+     * Tổng số lần fsync theo nhóm của mọi log
+     */
+    public long getSyncCount() {
+        long total = 0;
+        for (LogRepository<?> repo : repositories.values()) {
+            total += repo.log.getSyncCount();
+        }
+        return total;
+    }
+    
+    @Override
+    public List<CompactionStats> compact() throws IOException {
+        return compactor.compactAll();
+    }
+    
+    @Override
+    public List<CompactionStats> getCompactionStats() {
+        return compactor.getLastStats();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        compactor.stop();
+        for (LogRepository<?> repo : repositories.values()) {
+            repo.log.close();
+        }
+    }
+    
+    static class LogRepository<T> implements Repository<T> {
+        private final EntityLog<T> log;
+        
+        LogRepository(EntityLog<T> log) {
+            this.log = log;
+        }
+        
+        @Override
+        public void upsert(T entity) throws IOException {
+            log.appendUpsert(entity);
+        }
+        
+        @Override
+        public void delete(String id) throws IOException {
+            log.appendDelete(id);
+        }
+        
+        @Override
+        public T findById(String id) throws IOException {
+            return log.find(id);
+        }
+        
+        @Override
+        public void scan(Consumer<? super T> consumer) throws IOException {
+            log.replay(consumer);
+        }
+        
+        @Override
+        public void batch(List<T> upserts, List<String> deletes) throws IOException {
+            log.appendBatch(upserts, deletes);
+        }
+        
+        @Override
+        public void replaceAll(Collection<T> entities) throws IOException {
+            log.rewrite(entities);
+        }
+    }
+}
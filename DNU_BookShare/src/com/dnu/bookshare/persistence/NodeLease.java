@@ -0,0 +1,105 @@
+package src.com.dnu.bookshare.persistence;
+
+import src.com.dnu.bookshare.model.IdGenerator;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+/**
+ * NodeLease - Giữ node id của IdGenerator trên một thư mục dữ liệu trong suốt thời gian chạy
+ * Khóa file node-<id>.lock trong thư mục dữ liệu: process thứ hai dùng cùng thư mục với cùng
+ * node id bị từ chối thay vì sinh id trùng (cần -Dbookshare.nodeId khác nhau cho từng process).
+ *
+ * File lưu millis của id cuối cùng khi nhả lease; lần chạy sau chỉ cấp id sau mốc đó.
+ * Lần trước không nhả được (crash) thì bắt đầu sau hiện tại + IdGenerator.MAX_LEAD_MILLIS,
+ * vì IdGenerator không bao giờ mượn trước đồng hồ quá mức này.
+ */
+public final class NodeLease implements Closeable {
+    private static final String RUNNING = "running";
+    
+    private final Path file;
+    private final FileChannel channel;
+    private final FileLock lock;
+    
+    private NodeLease(Path file, FileChannel channel, FileLock lock) {
+        this.file = file;
+        this.channel = channel;
+        this.lock = lock;
+    }
+    
+    /**
+     * Giữ node id hiện tại cho dataDir
+     * @throws IOException nếu process khác đang giữ cùng node id trên thư mục này
+     */
+    public static NodeLease acquire(Path dataDir) throws IOException {
+        Files.createDirectories(dataDir);
+        int node = IdGenerator.getNodeId();
+        Path file = dataDir.resolve(String.format("node-%03d.lock", node));
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                               StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException("Node id " + node + " đang được process khác dùng với " + dataDir
+                    + ": đặt -Dbookshare.nodeId khác nhau cho từng process");
+        }
+        
+        String previous = read(channel);
+        long lastMillis;
+        try {
+            lastMillis = previous.isEmpty() ? 0 : Long.parseLong(previous);
+        } catch (NumberFormatException e) {
+            // RUNNING (hoặc hỏng): lần trước không nhả lease, không biết đã mượn tới ms nào
+            lastMillis = System.currentTimeMillis() + IdGenerator.MAX_LEAD_MILLIS;
+        }
+        IdGenerator.advanceTo(lastMillis + 1);
+        write(channel, RUNNING);
+        return new NodeLease(file, channel, lock);
+    }
+    
+    /**
+     * Ghi mốc millis đã cấp rồi nhả khóa
+     */
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            write(channel, Long.toString(IdGenerator.lastIssuedMillis()));
+            lock.release();
+        } finally {
+            channel.close();
+        }
+    }
+    
+    public Path getFile() {
+        return file;
+    }
+    
+    private static String read(FileChannel channel) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) Math.min(channel.size(), 64));
+        channel.read(buf, 0);
+        return new String(buf.array(), 0, buf.position(), StandardCharsets.UTF_8).trim();
+    }
+    
+    private static void write(FileChannel channel, String content) throws IOException {
+        channel.truncate(0);
+        ByteBuffer buf = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+        long position = 0;
+        while (buf.hasRemaining()) {
+            position += channel.write(buf, position);
+        }
+        channel.force(false);
+    }
+}
@@ -0,0 +1,43 @@
+package src.com.dnu.bookshare.persistence;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Repository - Kho lưu trữ của một loại entity trong StorageEngine
+ */
+public interface Repository<T> {
+    
+    void upsert(T entity) throws IOException;
+    
+    void delete(String id) throws IOException;
+    
+    /**
+     * Tìm theo id, trả về null nếu không có.
+     * Các engine ghi đĩa trả lời từ chỉ mục id -> entity trong bộ nhớ; lần gọi đầu tiên
+     * (khi chưa scan) phải đọc toàn bộ dữ liệu của loại entity để dựng chỉ mục.
+     */
+    T findById(String id) throws IOException;
+    
+    /**
+     * Duyệt tất cả entity, đưa từng entity cho consumer
+     */
+    void scan(Consumer<? super T> consumer) throws IOException;
+    
+    /**
+     * Ghi một lô: các delete được áp dụng trước, sau đó đến các upsert
+     */
+    void batch(List<T> upserts, List<String> deletes) throws IOException;
+    
+    /**
+     * Thay toàn bộ dữ liệu bằng danh sách mới
+     */
+    void replaceAll(Collection<T> entities) throws IOException;
+    
+    default List<T> findAll() throws IOException {
+        List<T> result = new ArrayList<>();
+        scan(result::add);
+        return result;
+    }
+}
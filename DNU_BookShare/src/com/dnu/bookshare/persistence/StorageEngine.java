@@ -0,0 +1,92 @@
+package src.com.dnu.bookshare.persistence;
+
+import src.com.dnu.bookshare.model.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * StorageEngine - Backend lưu trữ dùng bởi DataManager
+ * Các cài đặt: JsonStorageEngine, LogStructuredStorageEngine, InMemoryStorageEngine
+ * (có thể bọc thêm JournaledStorageEngine, WriteBehindStorageEngine). Chọn qua StorageEngines.fromConfig().
+ */
+public interface StorageEngine {
+    
+    String getName();
+    
+    <T> Repository<T> repository(EntityType<T> type);
+    
+    /**
+     * Các file dữ liệu hiện có (dùng cho backup)
+     */
+    List<Path> dataFiles() throws IOException;
+    
+    /**
+     * Đọc các file dữ liệu trong lúc engine không đổi tên hay xóa chúng (compaction tạm dừng),
+     * để backup không thiếu phần log vừa bị gộp. Ghi nối vào log vẫn tiếp tục.
+     */
+    default <R> R readDataFiles(DataFilesReader<R> reader) throws IOException {
+        return reader.read(dataFiles());
+    }
+    
+    /**
+     * Đọc danh sách file dữ liệu (xem readDataFiles)
+     */
+    interface DataFilesReader<R> {
+        R read(List<Path> files) throws IOException;
+    }
+    
+    /**
+     * Thư mục dữ liệu, null nếu engine không lưu xuống đĩa
+     */
+    default Path getDataDir() {
+        return null;
+    }
+    
+    /**
+     * Xóa toàn bộ dữ liệu
+     */
+    void clear() throws IOException;
+    
+    void close() throws IOException;
+    
+    default Repository<User> users() { return repository(EntityType.USERS); }
+    default Repository<Book> books() { return repository(EntityType.BOOKS); }
+    default Repository<Transaction> transactions() { return repository(EntityType.TRANSACTIONS); }
+    default Repository<Notification> notifications() { return repository(EntityType.NOTIFICATIONS); }
+    default Repository<Report> reports() { return repository(EntityType.REPORTS); }
+    default Repository<TransactionEvent> transactionEvents() { return repository(EntityType.TRANSACTION_EVENTS); }
+    
+    /**
+     * Ghi mọi thay đổi của một thao tác nghiệp vụ.
+     * Mặc định: mỗi loại entity một lô, không nguyên tử giữa các loại;
+     * JournaledStorageEngine ghi cả unit thành một record (một lần ghi, một fsync).
+     */
+    default void commit(UnitOfWork unit) throws IOException {
+        unit.writeTo(this);
+    }
+    
+    /**
+     * Ghi ngay các thay đổi đang được đệm (nếu có)
+     */
+    default void flush() throws IOException {
+    }
+    
+    /**
+     * Gộp log thành snapshot (chỉ engine log-structured)
+     */
+    default List<CompactionStats> compact() throws IOException {
+        return new ArrayList<>();
+    }
+    
+    default List<CompactionStats> getCompactionStats() {
+        return new ArrayList<>();
+    }
+    
+    /**
+     * Thống kê write-behind, null nếu engine không đệm ghi
+     */
+    default WriteBehindStats getWriteBehindStats() {
+        return null;
+    }
+}
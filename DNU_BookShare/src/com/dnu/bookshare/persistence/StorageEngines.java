@@ -0,0 +1,135 @@
+package src.com.dnu.bookshare.persistence;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import src.com.dnu.bookshare.persistence.adapter.ModelAdapters;
+import com.google.gson.*;
+
+/**
+ * StorageEngines - Tạo StorageEngine theo cấu hình
+ * System properties:
+ *   bookshare.storage      json (mặc định) | log | memory
+ *   bookshare.dataDir      thư mục dữ liệu, mặc định "data"
+ *   bookshare.writeBehind  true để bật ghi trễ theo lô
+ *   bookshare.codec        codec của engine log: binary (mặc định) | json
+ *   bookshare.codec.<entity>  codec riêng cho một entity, vd bookshare.codec.books=json
+ *   bookshare.json.epochDates true để ghi LocalDateTime trong JSON dạng epoch millis
+ *   bookshare.durability   none | batched (mặc định) | strict, xem DurabilityLevel
+ *   bookshare.durability.windowMicros  cửa sổ gom của group commit, mặc định 2000
+ *   bookshare.journal      false để tắt CommitJournal của engine json/log (mặc định bật)
+ *   bookshare.journal.checkpointBytes  kích thước journal thì checkpoint, mặc định 1 MB
+ */
+public final class StorageEngines {
+    
+    private StorageEngines() {
+    }
+    
+    public static StorageEngine fromConfig() {
+        String name = System.getProperty("bookshare.storage", "json");
+        Path dataDir = Paths.get(System.getProperty("bookshare.dataDir", "data"));
+        
+        StorageEngine engine = create(name, dataDir);
+        if (Boolean.getBoolean("bookshare.writeBehind")) {
+            long interval = Long.getLong("bookshare.writeBehind.intervalMillis", 200);
+            int maxPending = Integer.getInteger("bookshare.writeBehind.maxPending", 500);
+            engine = new WriteBehindStorageEngine(engine, interval, maxPending);
+            System.out.println("Bật write-behind: flush mỗi " + interval + "ms hoặc khi có "
+                             + maxPending + " thay đổi chờ ghi");
+        }
+        return engine;
+    }
+    
+    public static StorageEngine create(String name, Path dataDir) {
+        switch (name.toLowerCase()) {
+            case "memory":
+                return new InMemoryStorageEngine();
+            case "log":
+                createDataDirectory(dataDir);
+                long interval = Long.getLong("bookshare.compaction.intervalSeconds", 60);
+                long minTailBytes = Long.getLong("bookshare.compaction.minTailBytes", 64 * 1024);
+                LogStructuredStorageEngine log = new LogStructuredStorageEngine(
+                        dataDir, createGson(false), codecConfig(), durability(), windowMicros(),
+                        interval, minTailBytes);
+                System.out.println("Codec log: " + log.describeCodecs());
+                printDurability();
+                return journaled(log, dataDir);
+            case "json":
+                createDataDirectory(dataDir);
+                printDurability();
+                return journaled(new JsonStorageEngine(dataDir, createGson(true), durability(), windowMicros()),
+                                 dataDir);
+            default:
+                throw new IllegalArgumentException("Storage engine không hợp lệ: " + name);
+        }
+    }
+    
+    /**
+     * Bọc engine bằng JournaledStorageEngine (mỗi UnitOfWork một record, một fsync);
+     * các unit còn trong journal từ lần chạy trước được ghi lại ngay
+     */
+    private static StorageEngine journaled(StorageEngine engine, Path dataDir) {
+        if (!Boolean.parseBoolean(System.getProperty("bookshare.journal", "true"))) {
+            return engine;
+        }
+        long checkpointBytes = Long.getLong("bookshare.journal.checkpointBytes", 1 << 20);
+        try {
+            return new JournaledStorageEngine(engine, dataDir.resolve("commit.journal"), durability(),
+                                              windowMicros(), checkpointBytes);
+        } catch (IOException e) {
+            throw new IllegalStateException("Không khôi phục được journal: " + e.getMessage(), e);
+        }
+    }
+    
+    static DurabilityLevel durability() {
+        return DurabilityLevel.parse(System.getProperty("bookshare.durability", "batched"));
+    }
+    
+    static long windowMicros() {
+        return Long.getLong("bookshare.durability.windowMicros", 2000);
+    }
+    
+    private static void printDurability() {
+        DurabilityLevel level = durability();
+        System.out.println("Durability: " + level.name().toLowerCase()
+                + (level == DurabilityLevel.BATCHED ? " (gom trong " + windowMicros() + "µs)" : ""));
+    }
+    
+    /**
+     * Đọc codec của từng entity từ system properties
+     */
+    static Map<String, String> codecConfig() {
+        String defaultCodec = System.getProperty("bookshare.codec", "binary");
+        Map<String, String> codecs = new HashMap<>();
+        for (EntityType<?> type : EntityType.values()) {
+            codecs.put(type.getName(),
+                       System.getProperty("bookshare.codec." + type.getName(), defaultCodec));
+        }
+        return codecs;
+    }
+    
+    /**
+     * Gson dùng chung cho các engine lưu JSON
+     * Model và LocalDateTime dùng TypeAdapter viết tay, không dùng reflection
+     */
+    public static Gson createGson(boolean prettyPrinting) {
+        GsonBuilder builder = new GsonBuilder()
+                .setDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+        ModelAdapters.register(builder, Boolean.getBoolean("bookshare.json.epochDates"));
+        if (prettyPrinting) {
+            builder.setPrettyPrinting();
+        }
+        return builder.create();
+    }
+    
+    private static void createDataDirectory(Path dataDir) {
+        try {
+            if (!Files.exists(dataDir)) {
+                Files.createDirectories(dataDir);
+                System.out.println("Đã tạo thư mục " + dataDir);
+            }
+        } catch (IOException e) {
+            System.err.println("Lỗi tạo thư mục " + dataDir + ": " + e.getMessage());
+        }
+    }
+}
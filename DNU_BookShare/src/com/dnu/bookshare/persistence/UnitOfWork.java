@@ -0,0 +1,134 @@
+package src.com.dnu.bookshare.persistence;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * UnitOfWork - Các thay đổi entity của một thao tác nghiệp vụ, được ghi cùng nhau
+ * (StorageEngine.commit): sau khi khôi phục thì hoặc thấy tất cả, hoặc không thấy thay đổi nào.
+ * Nhiều lần ghi cùng một id trong một unit chỉ giữ lần cuối.
+ */
+public final class UnitOfWork {
+    private static final Object TOMBSTONE = new Object();
+    
+    private final Map<EntityType<?>, Map<String, Object>> changes = new LinkedHashMap<>();
+    
+    public <T> UnitOfWork upsert(EntityType<T> type, T entity) {
+        changesOf(type).put(type.idOf(entity), entity);
+        return this;
+    }
+    
+    public UnitOfWork delete(EntityType<?> type, String id) {
+        changesOf(type).put(id, TOMBSTONE);
+        return this;
+    }
+    
+    /**
+     * Unit gồm một lô của một loại entity (Repository.batch)
+     */
+    public static <T> UnitOfWork of(EntityType<T> type, List<T> upserts, List<String> deletes) {
+        UnitOfWork unit = new UnitOfWork();
+        for (String id : deletes) {
+            unit.delete(type, id);
+        }
+        for (T entity : upserts) {
+            unit.upsert(type, entity);
+        }
+        return unit;
+    }
+    
+    private Map<String, Object> changesOf(EntityType<?> type) {
+        return changes.computeIfAbsent(type, t -> new LinkedHashMap<>());
+    }
+    
+    /**
+     * Các loại entity có thay đổi, theo thứ tự ghi lần đầu
+     */
+    public Set<EntityType<?>> types() {
+        return Collections.unmodifiableSet(changes.keySet());
+    }
+    
+    @SuppressWarnings("unchecked")
+    public <T> List<T> upserts(EntityType<T> type) {
+        List<T> result = new ArrayList<>();
+        for (Object value : changes.getOrDefault(type, Collections.emptyMap()).values()) {
+            if (value != TOMBSTONE) {
+                result.add((T) value);
+            }
+        }
+        return result;
+    }
+    
+    public List<String> deletes(EntityType<?> type) {
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, Object> e : changes.getOrDefault(type, Collections.emptyMap()).entrySet()) {
+            if (e.getValue() == TOMBSTONE) {
+                result.add(e.getKey());
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Ghi vào các repository của engine, mỗi loại entity một lô (delete trước, upsert sau)
+     */
+    public void writeTo(StorageEngine engine) throws IOException {
+        for (EntityType<?> type : changes.keySet()) {
+            writeTo(type, engine);
+        }
+    }
+    
+    private <T> void writeTo(EntityType<T> type, StorageEngine engine) throws IOException {
+        engine.repository(type).batch(upserts(type), deletes(type));
+    }
+    
+    /**
+     * Gộp thay đổi của unit khác vào unit này (thay đổi của other ghi sau)
+     */
+    void merge(UnitOfWork other) {
+        for (Map.Entry<EntityType<?>, Map<String, Object>> e : other.changes.entrySet()) {
+            changesOf(e.getKey()).putAll(e.getValue());
+        }
+    }
+    
+    /**
+     * Unit có thay đổi (upsert hoặc delete) cho id không
+     */
+    boolean contains(EntityType<?> type, String id) {
+        Map<String, Object> c = changes.get(type);
+        return c != null && c.containsKey(id);
+    }
+    
+    /**
+     * Entity được upsert trong unit, null nếu bị delete hoặc không có
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(EntityType<T> type, String id) {
+        Object value = changes.getOrDefault(type, Collections.emptyMap()).get(id);
+        return value == TOMBSTONE ? null : (T) value;
+    }
+    
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+    
+    /**
+     * Tổng số entity thay đổi
+     */
+    public int size() {
+        int total = 0;
+        for (Map<String, Object> c : changes.values()) {
+            total += c.size();
+        }
+        return total;
+    }
+    
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "UnitOfWork[", "]");
+        for (Map.Entry<EntityType<?>, Map<String, Object>> e : changes.entrySet()) {
+            joiner.add(e.getKey() + "=" + e.getValue().size());
+        }
+        return joiner.toString();
+    }
+}
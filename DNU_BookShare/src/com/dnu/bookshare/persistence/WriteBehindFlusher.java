@@ -0,0 +1,94 @@
+package src.com.dnu.bookshare.persistence;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * WriteBehindFlusher - Flush định kỳ các WriteBehindQueue trên thread nền
+ * Flush sớm khi một hàng đợi vượt ngưỡng. Không tự xả khi JVM tắt: shutdown() (qua
+ * WriteBehindStorageEngine.close()) xả hết hàng đợi theo đúng thứ tự đóng của ứng dụng.
+ */
+public class WriteBehindFlusher {
+    private final List<WriteBehindQueue<?>> queues = new CopyOnWriteArrayList<>();
+    private final int maxPending;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final LongAccumulator maxFlushNanos = new LongAccumulator(Math::max, 0);
+    
+    public WriteBehindFlusher(long intervalMillis, int maxPending) {
+        this.maxPending = maxPending;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "write-behind-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushAll,
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    public <T> WriteBehindQueue<T> createQueue(String name, WriteBehindQueue.BatchWriter<T> writer) {
+        WriteBehindQueue<T> queue = new WriteBehindQueue<>(name, writer, this);
+        queues.add(queue);
+        return queue;
+    }
+    
+    void onSubmit(WriteBehindQueue<?> queue) {
+        if (queue.size() >= maxPending && flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flushAll);
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+            }
+        }
+    }
+    
+    /**
+     * Flush tất cả hàng đợi
+     */
+    public void flushAll() {
+        flushRequested.set(false);
+        for (WriteBehindQueue<?> queue : queues) {
+            try {
+                long start = System.nanoTime();
+                if (queue.flush() > 0) {
+                    long elapsed = System.nanoTime() - start;
+                    flushes.increment();
+                    flushNanos.add(elapsed);
+                    maxFlushNanos.accumulate(elapsed);
+                }
+            } catch (Exception e) {
+                System.err.println("Lỗi flush " + queue.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Xả hết hàng đợi rồi dừng thread nền
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushAll();
+    }
+    
+    public WriteBehindStats getStats() {
+        long submitted = 0;
+        long written = 0;
+        int pending = 0;
+        for (WriteBehindQueue<?> queue : queues) {
+            submitted += queue.getSubmitted();
+            written += queue.getWritten();
+            pending += queue.size();
+        }
+        return new WriteBehindStats(submitted, written, pending, flushes.sum(),
+                                    flushNanos.sum(), maxFlushNanos.get());
+    }
+}
@@ -0,0 +1,103 @@
+package src.com.dnu.bookshare.persistence;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * WriteBehindQueue - Tập entity "bẩn" của một loại entity, chờ được ghi theo lô
+ * Nhiều lần cập nhật cùng một id trước khi flush chỉ tạo ra một lần ghi.
+ */
+public class WriteBehindQueue<T> {
+    
+    /**
+     * Ghi một lô upsert/delete xuống storage
+     */
+    public interface BatchWriter<T> {
+        void write(List<T> upserts, List<String> deletes) throws IOException;
+    }
+    
+    private static final Object TOMBSTONE = new Object();
+    
+    private final String name;
+    private final BatchWriter<T> writer;
+    private final WriteBehindFlusher flusher;
+    private final ConcurrentHashMap<String, Object> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    
+    WriteBehindQueue(String name, BatchWriter<T> writer, WriteBehindFlusher flusher) {
+        this.name = name;
+        this.writer = writer;
+        this.flusher = flusher;
+    }
+    
+    public void upsert(String id, T entity) {
+        pending.put(id, entity);
+        submitted.increment();
+        flusher.onSubmit(this);
+    }
+    
+    public void delete(String id) {
+        pending.put(id, TOMBSTONE);
+        submitted.increment();
+        flusher.onSubmit(this);
+    }
+    
+    /**
+     * Ghi toàn bộ entity đang chờ thành một lô
+     * @return số record đã ghi
+     */
+    @SuppressWarnings("unchecked")
+    public int flush() throws IOException {
+        flushLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            
+            Map<String, Object> batch = new LinkedHashMap<>();
+            for (String id : pending.keySet()) {
+                Object value = pending.remove(id);
+                if (value != null) {
+                    batch.put(id, value);
+                }
+            }
+            
+            List<T> upserts = new ArrayList<>();
+            List<String> deletes = new ArrayList<>();
+            for (Map.Entry<String, Object> e : batch.entrySet()) {
+                if (e.getValue() == TOMBSTONE) {
+                    deletes.add(e.getKey());
+                } else {
+                    upserts.add((T) e.getValue());
+                }
+            }
+            
+            try {
+                writer.write(upserts, deletes);
+            } catch (IOException e) {
+                // Trả lại hàng đợi, trừ khi đã có bản cập nhật mới hơn
+                for (Map.Entry<String, Object> entry : batch.entrySet()) {
+                    pending.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+                throw e;
+            }
+            written.add(batch.size());
+            return batch.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    public int size() {
+        return pending.size();
+    }
+    
+    public String getName() { return name; }
+    public long getSubmitted() { return submitted.sum(); }
+    public long getWritten() { return written.sum(); }
+}
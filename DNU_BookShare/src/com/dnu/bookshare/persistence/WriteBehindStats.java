@@ -0,0 +1,49 @@
+package src.com.dnu.bookshare.persistence;
+
+/**
+ * WriteBehindStats - Thống kê chế độ write-behind
+ * Tỉ lệ gộp = số lần cập nhật nhận được / số record thực sự ghi xuống storage
+ */
+public class WriteBehindStats {
+    private final long submitted;
+    private final long written;
+    private final int pending;
+    private final long flushes;
+    private final long totalFlushNanos;
+    private final long maxFlushNanos;
+    
+    public WriteBehindStats(long submitted, long written, int pending, long flushes,
+                            long totalFlushNanos, long maxFlushNanos) {
+        this.submitted = submitted;
+        this.written = written;
+        this.pending = pending;
+        this.flushes = flushes;
+        this.totalFlushNanos = totalFlushNanos;
+        this.maxFlushNanos = maxFlushNanos;
+    }
+    
+    public long getSubmitted() { return submitted; }
+    public long getWritten() { return written; }
+    public int getPending() { return pending; }
+    public long getFlushes() { return flushes; }
+    
+    public double getCoalescingRatio() {
+        return written == 0 ? 0 : (double) submitted / written;
+    }
+    
+    public double getAvgFlushMillis() {
+        return flushes == 0 ? 0 : totalFlushNanos / 1e6 / flushes;
+    }
+    
+    public double getMaxFlushMillis() {
+        return maxFlushNanos / 1e6;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%d cập nhật -> %d lần ghi (gộp %.1fx), %d lần flush, "
+                + "trung bình %.2fms, tối đa %.2fms, đang chờ %d",
+                submitted, written, getCoalescingRatio(), flushes,
+                getAvgFlushMillis(), getMaxFlushMillis(), pending);
+    }
+}
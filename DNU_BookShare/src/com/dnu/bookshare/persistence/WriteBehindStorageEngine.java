@@ -0,0 +1,155 @@
+package src.com.dnu.bookshare.persistence;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * WriteBehindStorageEngine - Bọc một StorageEngine khác, đệm các lần ghi
+ * Upsert/delete chỉ đánh dấu entity là "bẩn"; WriteBehindFlusher ghi theo lô
+ * xuống engine bên dưới. Các thao tác đọc flush trước để luôn thấy dữ liệu mới nhất.
+ */
+public class WriteBehindStorageEngine implements StorageEngine {
+    private final StorageEngine delegate;
+    private final WriteBehindFlusher flusher;
+    private final Map<EntityType<?>, WriteBehindRepository<?>> repositories = new LinkedHashMap<>();
+    
+    public WriteBehindStorageEngine(StorageEngine delegate, long intervalMillis, int maxPending) {
+        this.delegate = delegate;
+        this.flusher = new WriteBehindFlusher(intervalMillis, maxPending);
+        for (EntityType<?> type : EntityType.values()) {
+            repositories.put(type, createRepository(type));
+        }
+    }
+    
+    private <T> WriteBehindRepository<T> createRepository(EntityType<T> type) {
+        Repository<T> target = delegate.repository(type);
+        WriteBehindQueue<T> queue = flusher.createQueue(type.getName(), target::batch);
+        return new WriteBehindRepository<>(type, target, queue);
+    }
+    
+    @Override
+    public String getName() {
+        return delegate.getName() + "+write-behind";
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Repository<T> repository(EntityType<T> type) {
+        return (Repository<T>) repositories.get(type);
+    }
+    
+    @Override
+    public List<Path> dataFiles() throws IOException {
+        flush();
+        return delegate.dataFiles();
+    }
+    
+    @Override
+    public <R> R readDataFiles(DataFilesReader<R> reader) throws IOException {
+        flush();
+        return delegate.readDataFiles(reader);
+    }
+    
+    @Override
+    public Path getDataDir() {
+        return delegate.getDataDir();
+    }
+    
+    @Override
+    public void clear() throws IOException {
+        flush();
+        delegate.clear();
+    }
+    
+    @Override
+    public void flush() {
+        flusher.flushAll();
+    }
+    
+    /**
+     * Unit không được đệm: ghi trước các thay đổi đang chờ của những loại entity liên quan
+     * (để không đè lên unit), rồi commit cả unit xuống engine bên dưới
+     */
+    @Override
+    public void commit(UnitOfWork unit) throws IOException {
+        for (EntityType<?> type : unit.types()) {
+            repositories.get(type).queue.flush();
+        }
+        delegate.commit(unit);
+    }
+    
+    @Override
+    public List<CompactionStats> compact() throws IOException {
+        flush();
+        return delegate.compact();
+    }
+    
+    @Override
+    public List<CompactionStats> getCompactionStats() {
+        return delegate.getCompactionStats();
+    }
+    
+    @Override
+    public WriteBehindStats getWriteBehindStats() {
+        return flusher.getStats();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        flusher.shutdown();
+        System.out.println("Write-behind: " + flusher.getStats());
+        delegate.close();
+    }
+    
+    static class WriteBehindRepository<T> implements Repository<T> {
+        private final EntityType<T> type;
+        private final Repository<T> target;
+        private final WriteBehindQueue<T> queue;
+        
+        WriteBehindRepository(EntityType<T> type, Repository<T> target, WriteBehindQueue<T> queue) {
+            this.type = type;
+            this.target = target;
+            this.queue = queue;
+        }
+        
+        @Override
+        public void upsert(T entity) {
+            queue.upsert(type.idOf(entity), entity);
+        }
+        
+        @Override
+        public void delete(String id) {
+            queue.delete(id);
+        }
+        
+        @Override
+        public T findById(String id) throws IOException {
+            queue.flush();
+            return target.findById(id);
+        }
+        
+        @Override
+        public void scan(Consumer<? super T> consumer) throws IOException {
+            queue.flush();
+            target.scan(consumer);
+        }
+        
+        @Override
+        public void batch(List<T> upserts, List<String> deletes) {
+            for (String id : deletes) {
+                queue.delete(id);
+            }
+            for (T entity : upserts) {
+                queue.upsert(type.idOf(entity), entity);
+            }
+        }
+        
+        @Override
+        public void replaceAll(Collection<T> entities) throws IOException {
+            queue.flush();
+            target.replaceAll(entities);
+        }
+    }
+}
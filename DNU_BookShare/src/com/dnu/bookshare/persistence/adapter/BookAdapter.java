@@ -0,0 +1,76 @@
+package src.com.dnu.bookshare.persistence.adapter;
+
+import src.com.dnu.bookshare.model.Book;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * BookAdapter - Đọc/ghi sách bằng JsonReader/JsonWriter, không dùng reflection
+ */
+public class BookAdapter extends ModelAdapter<Book> {
+    
+    public BookAdapter(LocalDateTimeAdapter dates) {
+        super(dates);
+    }
+    
+    @Override
+    protected void writeFields(JsonWriter out, Book b) throws IOException {
+        writeString(out, "bookId", b.getBookId());
+        writeString(out, "ownerId", b.getOwnerId());
+        writeString(out, "title", b.getTitle());
+        writeString(out, "author", b.getAuthor());
+        writeString(out, "subject", b.getSubject());
+        writeString(out, "faculty", b.getFaculty());
+        writeString(out, "description", b.getDescription());
+        writeString(out, "imageUrl", b.getImageUrl());
+        writeEnum(out, "condition", b.getCondition());
+        writeEnumList(out, "availableTypes", b.getAvailableTypes());
+        out.name("price").value(b.getPrice());
+        out.name("borrowDays").value(b.getBorrowDays());
+        writeEnum(out, "status", b.getStatus());
+        writeDateTime(out, "postedAt", b.getPostedAt());
+        out.name("viewCount").value(b.getViewCount());
+        out.name("isVisible").value(b.isVisible());
+    }
+    
+    @Override
+    protected Book readFields(JsonReader in) throws IOException {
+        String bookId = null, ownerId = null, title = null, author = null, subject = null;
+        String faculty = null, description = null, imageUrl = null;
+        Book.BookCondition condition = null;
+        List<Book.TransactionType> availableTypes = null;
+        double price = 0;
+        int borrowDays = 0, viewCount = 0;
+        Book.BookStatus status = null;
+        LocalDateTime postedAt = null;
+        boolean isVisible = false;
+        
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "bookId": bookId = nextString(in); break;
+                case "ownerId": ownerId = nextString(in); break;
+                case "title": title = nextString(in); break;
+                case "author": author = nextString(in); break;
+                case "subject": subject = nextString(in); break;
+                case "faculty": faculty = nextString(in); break;
+                case "description": description = nextString(in); break;
+                case "imageUrl": imageUrl = nextString(in); break;
+                case "condition": condition = nextEnum(in, Book.BookCondition.class); break;
+                case "availableTypes": availableTypes = nextEnumList(in, Book.TransactionType.class); break;
+                case "price": price = nextDouble(in); break;
+                case "borrowDays": borrowDays = nextInt(in); break;
+                case "status": status = nextEnum(in, Book.BookStatus.class); break;
+                case "postedAt": postedAt = nextDateTime(in); break;
+                case "viewCount": viewCount = nextInt(in); break;
+                case "isVisible": isVisible = nextBoolean(in); break;
+                default: in.skipValue();
+            }
+        }
+        return new Book(bookId, ownerId, title, author, subject, faculty, description, imageUrl,
+                        condition, availableTypes, price, borrowDays, status, postedAt,
+                        viewCount, isVisible);
+    }
+}
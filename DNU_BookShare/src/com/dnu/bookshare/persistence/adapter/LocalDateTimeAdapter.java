@@ -0,0 +1,194 @@
+package src.com.dnu.bookshare.persistence.adapter;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * LocalDateTimeAdapter - Ghi/đọc LocalDateTime không dùng reflection
+ * Ghi: chuỗi ISO "yyyy-MM-ddTHH:mm:ss[.fff]" (mặc định) hoặc epoch millis (UTC).
+ * Đọc được cả ba dạng: chuỗi ISO, số epoch millis và object {"date":{...},"time":{...}}
+ * mà Gson reflection đã ghi trong các file dữ liệu cũ.
+ */
+public class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
+    private final boolean epochMillis;
+    
+    public LocalDateTimeAdapter() {
+        this(false);
+    }
+    
+    public LocalDateTimeAdapter(boolean epochMillis) {
+        this.epochMillis = epochMillis;
+    }
+    
+    @Override
+    public void write(JsonWriter out, LocalDateTime value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else if (epochMillis) {
+            out.value(value.toInstant(ZoneOffset.UTC).toEpochMilli());
+        } else {
+            out.value(format(value));
+        }
+    }
+    
+    @Override
+    public LocalDateTime read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        switch (token) {
+            case NULL:
+                in.nextNull();
+                return null;
+            case NUMBER:
+                return LocalDateTime.ofInstant(Instant.ofEpochMilli(in.nextLong()), ZoneOffset.UTC);
+            case BEGIN_OBJECT:
+                return readLegacyObject(in);
+            default:
+                return parse(in.nextString());
+        }
+    }
+    
+    /**
+     * Định dạng ISO-8601, luôn có giây; phần lẻ 3/6/9 chữ số tùy độ chính xác
+     */
+    static String format(LocalDateTime t) {
+        int year = t.getYear();
+        if (year < 0 || year > 9999) {
+            return t.toString();
+        }
+        int nano = t.getNano();
+        int fraction = nano == 0 ? 0 : nano % 1_000_000 == 0 ? 3 : nano % 1000 == 0 ? 6 : 9;
+        char[] c = new char[19 + (fraction == 0 ? 0 : fraction + 1)];
+        digits(c, 0, year, 4);
+        c[4] = '-';
+        digits(c, 5, t.getMonthValue(), 2);
+        c[7] = '-';
+        digits(c, 8, t.getDayOfMonth(), 2);
+        c[10] = 'T';
+        digits(c, 11, t.getHour(), 2);
+        c[13] = ':';
+        digits(c, 14, t.getMinute(), 2);
+        c[16] = ':';
+        digits(c, 17, t.getSecond(), 2);
+        if (fraction > 0) {
+            c[19] = '.';
+            digits(c, 20, nano / pow10(9 - fraction), fraction);
+        }
+        return new String(c);
+    }
+    
+    /**
+     * Parse nhanh dạng yyyy-MM-ddTHH:mm[:ss[.f...]]; dạng khác dùng LocalDateTime.parse
+     */
+    static LocalDateTime parse(String s) {
+        int len = s.length();
+        if (len < 16 || s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != 'T'
+                || s.charAt(13) != ':') {
+            return slowParse(s);
+        }
+        int year = number(s, 0, 4);
+        int month = number(s, 5, 2);
+        int day = number(s, 8, 2);
+        int hour = number(s, 11, 2);
+        int minute = number(s, 14, 2);
+        int second = 0;
+        int nano = 0;
+        if (len > 16) {
+            if (len < 19 || s.charAt(16) != ':') {
+                return slowParse(s);
+            }
+            second = number(s, 17, 2);
+            if (len > 19) {
+                int digits = len - 20;
+                if (s.charAt(19) != '.' || digits < 1 || digits > 9) {
+                    return slowParse(s);
+                }
+                nano = number(s, 20, digits);
+                if (nano >= 0) {
+                    nano *= pow10(9 - digits);
+                }
+            }
+        }
+        if ((year | month | day | hour | minute | second | nano) < 0) {
+            return slowParse(s);
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        } catch (DateTimeException e) {
+            return slowParse(s);
+        }
+    }
+    
+    private static LocalDateTime slowParse(String s) {
+        try {
+            return LocalDateTime.parse(s);
+        } catch (RuntimeException e) {
+            throw new JsonParseException("Ngày giờ không hợp lệ: " + s, e);
+        }
+    }
+    
+    private static LocalDateTime readLegacyObject(JsonReader in) throws IOException {
+        int year = 1970, month = 1, day = 1, hour = 0, minute = 0, second = 0, nano = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            String part = in.nextName();
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                in.skipValue();
+                continue;
+            }
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "year": year = in.nextInt(); break;
+                    case "month": month = in.nextInt(); break;
+                    case "day": day = in.nextInt(); break;
+                    case "hour": hour = in.nextInt(); break;
+                    case "minute": minute = in.nextInt(); break;
+                    case "second": second = in.nextInt(); break;
+                    case "nano": nano = in.nextInt(); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+        }
+        in.endObject();
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+    
+    private static void digits(char[] c, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            c[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+    
+    /**
+     * Đọc số nguyên không dấu; trả về -1 nếu có ký tự không phải chữ số
+     */
+    private static int number(String s, int offset, int width) {
+        int value = 0;
+        for (int i = offset; i < offset + width; i++) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+    
+    private static int pow10(int n) {
+        int p = 1;
+        for (int i = 0; i < n; i++) {
+            p *= 10;
+        }
+        return p;
+    }
+}
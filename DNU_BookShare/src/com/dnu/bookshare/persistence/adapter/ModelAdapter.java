@@ -0,0 +1,182 @@
+package src.com.dnu.bookshare.persistence.adapter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * ModelAdapter - Lớp cơ sở cho TypeAdapter viết tay của các model
+ * Tên field JSON giữ nguyên như Gson reflection để đọc được file cũ.
+ * Field null không được ghi; field lạ khi đọc được bỏ qua.
+ */
+public abstract class ModelAdapter<T> extends TypeAdapter<T> {
+    private final LocalDateTimeAdapter dates;
+    
+    protected ModelAdapter(LocalDateTimeAdapter dates) {
+        this.dates = dates;
+    }
+    
+    @Override
+    public final void write(JsonWriter out, T value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        writeFields(out, value);
+        out.endObject();
+    }
+    
+    @Override
+    public final T read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        in.beginObject();
+        T value = readFields(in);
+        in.endObject();
+        return value;
+    }
+    
+    protected abstract void writeFields(JsonWriter out, T value) throws IOException;
+    
+    /**
+     * Đọc các cặp name/value của object (đã qua beginObject)
+     */
+    protected abstract T readFields(JsonReader in) throws IOException;
+    
+    // ============ GHI ============
+    
+    protected static void writeString(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+    
+    protected static void writeEnum(JsonWriter out, String name, Enum<?> value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value.name());
+        }
+    }
+    
+    protected void writeDateTime(JsonWriter out, String name, LocalDateTime value) throws IOException {
+        if (value != null) {
+            out.name(name);
+            dates.write(out, value);
+        }
+    }
+    
+    protected static void writeStringList(JsonWriter out, String name, List<String> values) throws IOException {
+        if (values != null) {
+            out.name(name).beginArray();
+            for (String s : values) {
+                out.value(s);
+            }
+            out.endArray();
+        }
+    }
+    
+    protected static void writeEnumList(JsonWriter out, String name, List<? extends Enum<?>> values) throws IOException {
+        if (values != null) {
+            out.name(name).beginArray();
+            for (Enum<?> e : values) {
+                out.value(e == null ? null : e.name());
+            }
+            out.endArray();
+        }
+    }
+    
+    // ============ ĐỌC ============
+    
+    protected static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+    
+    protected static boolean nextBoolean(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return false;
+        }
+        return in.nextBoolean();
+    }
+    
+    protected static int nextInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextInt();
+    }
+    
+    protected static long nextLong(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextLong();
+    }
+    
+    protected static double nextDouble(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextDouble();
+    }
+    
+    /**
+     * Đọc enum theo tên; tên không tồn tại trả về null như Gson reflection
+     */
+    protected static <E extends Enum<E>> E nextEnum(JsonReader in, Class<E> type) throws IOException {
+        String name = nextString(in);
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    protected LocalDateTime nextDateTime(JsonReader in) throws IOException {
+        return dates.read(in);
+    }
+    
+    protected static List<String> nextStringList(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<String> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(nextString(in));
+        }
+        in.endArray();
+        return list;
+    }
+    
+    protected static <E extends Enum<E>> List<E> nextEnumList(JsonReader in, Class<E> type) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<E> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(nextEnum(in, type));
+        }
+        in.endArray();
+        return list;
+    }
+}
@@ -0,0 +1,29 @@
+package src.com.dnu.bookshare.persistence.adapter;
+
+import src.com.dnu.bookshare.model.*;
+import java.time.LocalDateTime;
+import com.google.gson.GsonBuilder;
+
+/**
+ * ModelAdapters - Đăng ký TypeAdapter cho LocalDateTime và mọi model vào GsonBuilder
+ */
+public final class ModelAdapters {
+    
+    private ModelAdapters() {
+    }
+    
+    /**
+     * @param epochMillis true để ghi LocalDateTime dạng epoch millis thay cho chuỗi ISO
+     */
+    public static GsonBuilder register(GsonBuilder builder, boolean epochMillis) {
+        LocalDateTimeAdapter dates = new LocalDateTimeAdapter(epochMillis);
+        return builder
+                .registerTypeAdapter(LocalDateTime.class, dates)
+                .registerTypeAdapter(User.class, new UserAdapter(dates))
+                .registerTypeAdapter(Book.class, new BookAdapter(dates))
+                .registerTypeAdapter(Transaction.class, new TransactionAdapter(dates))
+                .registerTypeAdapter(Notification.class, new NotificationAdapter(dates))
+                .registerTypeAdapter(Report.class, new ReportAdapter(dates))
+                .registerTypeAdapter(TransactionEvent.class, new TransactionEventAdapter(dates));
+    }
+}
@@ -0,0 +1,53 @@
+package src.com.dnu.bookshare.persistence.adapter;
+
+import src.com.dnu.bookshare.model.Notification;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * NotificationAdapter - Đọc/ghi thông báo bằng JsonReader/JsonWriter, không dùng reflection
+ */
+public class NotificationAdapter extends ModelAdapter<Notification> {
+    
+    public NotificationAdapter(LocalDateTimeAdapter dates) {
+        super(dates);
+    }
+    
+    @Override
+    protected void writeFields(JsonWriter out, Notification n) throws IOException {
+        writeString(out, "notificationId", n.getNotificationId());
+        writeString(out, "userId", n.getUserId());
+        writeEnum(out, "type", n.getType());
+        writeString(out, "title", n.getTitle());
+        writeString(out, "message", n.getMessage());
+        writeString(out, "relatedId", n.getRelatedId());
+        out.name("isRead").value(n.isRead());
+        writeDateTime(out, "createdAt", n.getCreatedAt());
+    }
+    
+    @Override
+    protected Notification readFields(JsonReader in) throws IOException {
+        String notificationId = null, userId = null, title = null, message = null, relatedId = null;
+        Notification.NotificationType type = null;
+        boolean isRead = false;
+        LocalDateTime createdAt = null;
+        
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "notificationId": notificationId = nextString(in); break;
+                case "userId": userId = nextString(in); break;
+                case "type": type = nextEnum(in, Notification.NotificationType.class); break;
+                case "title": title = nextString(in); break;
+                case "message": message = nextString(in); break;
+                case "relatedId": relatedId = nextString(in); break;
+                case "isRead": isRead = nextBoolean(in); break;
+                case "createdAt": createdAt = nextDateTime(in); break;
+                default: in.skipValue();
+            }
+        }
+        return new Notification(notificationId, userId, type, title, message, relatedId,
+                                isRead, createdAt);
+    }
+}
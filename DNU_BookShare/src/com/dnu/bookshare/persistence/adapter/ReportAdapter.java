@@ -0,0 +1,58 @@
+package src.com.dnu.bookshare.persistence.adapter;
+
+import src.com.dnu.bookshare.model.Report;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * ReportAdapter - Đọc/ghi báo cáo bằng JsonReader/JsonWriter, không dùng reflection
+ */
+public class ReportAdapter extends ModelAdapter<Report> {
+    
+    public ReportAdapter(LocalDateTimeAdapter dates) {
+        super(dates);
+    }
+    
+    @Override
+    protected void writeFields(JsonWriter out, Report r) throws IOException {
+        writeString(out, "reportId", r.getReportId());
+        writeString(out, "reporterId", r.getReporterId());
+        writeString(out, "reportedUserId", r.getReportedUserId());
+        writeString(out, "transactionId", r.getTransactionId());
+        writeEnum(out, "type", r.getType());
+        writeString(out, "description", r.getDescription());
+        writeEnum(out, "status", r.getStatus());
+        writeDateTime(out, "createdAt", r.getCreatedAt());
+        writeDateTime(out, "resolvedAt", r.getResolvedAt());
+        writeString(out, "adminNote", r.getAdminNote());
+    }
+    
+    @Override
+    protected Report readFields(JsonReader in) throws IOException {
+        String reportId = null, reporterId = null, reportedUserId = null, transactionId = null;
+        String description = null, adminNote = null;
+        Report.ReportType type = null;
+        Report.ReportStatus status = null;
+        LocalDateTime createdAt = null, resolvedAt = null;
+        
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "reportId": reportId = nextString(in); break;
+                case "reporterId": reporterId = nextString(in); break;
+                case "reportedUserId": reportedUserId = nextString(in); break;
+                case "transactionId": transactionId = nextString(in); break;
+                case "type": type = nextEnum(in, Report.ReportType.class); break;
+                case "description": description = nextString(in); break;
+                case "status": status = nextEnum(in, Report.ReportStatus.class); break;
+                case "createdAt": createdAt = nextDateTime(in); break;
+                case "resolvedAt": resolvedAt = nextDateTime(in); break;
+                case "adminNote": adminNote = nextString(in); break;
+                default: in.skipValue();
+            }
+        }
+        return new Report(reportId, reporterId, reportedUserId, transactionId, type, description,
+                          status, createdAt, resolvedAt, adminNote);
+    }
+}
@@ -0,0 +1,81 @@
+package src.com.dnu.bookshare.persistence.adapter;
+
+import src.com.dnu.bookshare.model.Transaction;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * TransactionAdapter - Đọc/ghi giao dịch bằng JsonReader/JsonWriter, không dùng reflection
+ */
+public class TransactionAdapter extends ModelAdapter<Transaction> {
+    
+    public TransactionAdapter(LocalDateTimeAdapter dates) {
+        super(dates);
+    }
+    
+    @Override
+    protected void writeFields(JsonWriter out, Transaction t) throws IOException {
+        writeString(out, "transactionId", t.getTransactionId());
+        writeString(out, "bookId", t.getBookId());
+        writeString(out, "ownerId", t.getOwnerId());
+        writeString(out, "borrowerId", t.getBorrowerId());
+        writeEnum(out, "type", t.getType());
+        writeEnum(out, "status", t.getStatus());
+        writeDateTime(out, "requestedAt", t.getRequestedAt());
+        writeDateTime(out, "approvedAt", t.getApprovedAt());
+        writeDateTime(out, "deliveredAt", t.getDeliveredAt());
+        writeDateTime(out, "returnedAt", t.getReturnedAt());
+        writeDateTime(out, "dueDate", t.getDueDate());
+        out.name("amount").value(t.getAmount());
+        writeString(out, "message", t.getMessage());
+        out.name("ownerRating").value(t.getOwnerRating());
+        out.name("borrowerRating").value(t.getBorrowerRating());
+        writeString(out, "ownerReview", t.getOwnerReview());
+        writeString(out, "borrowerReview", t.getBorrowerReview());
+        out.name("remindersSent").value(t.getRemindersSent());
+    }
+    
+    @Override
+    protected Transaction readFields(JsonReader in) throws IOException {
+        String transactionId = null, bookId = null, ownerId = null, borrowerId = null;
+        Transaction.TransactionType type = null;
+        Transaction.TransactionStatus status = null;
+        LocalDateTime requestedAt = null, approvedAt = null, deliveredAt = null;
+        LocalDateTime returnedAt = null, dueDate = null;
+        double amount = 0;
+        String message = null, ownerReview = null, borrowerReview = null;
+        int ownerRating = 0, borrowerRating = 0, remindersSent = 0;
+        
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "transactionId": transactionId = nextString(in); break;
+                case "bookId": bookId = nextString(in); break;
+                case "ownerId": ownerId = nextString(in); break;
+                case "borrowerId": borrowerId = nextString(in); break;
+                case "type": type = nextEnum(in, Transaction.TransactionType.class); break;
+                case "status": status = nextEnum(in, Transaction.TransactionStatus.class); break;
+                case "requestedAt": requestedAt = nextDateTime(in); break;
+                case "approvedAt": approvedAt = nextDateTime(in); break;
+                case "deliveredAt": deliveredAt = nextDateTime(in); break;
+                case "returnedAt": returnedAt = nextDateTime(in); break;
+                case "dueDate": dueDate = nextDateTime(in); break;
+                case "amount": amount = nextDouble(in); break;
+                case "message": message = nextString(in); break;
+                case "ownerRating": ownerRating = nextInt(in); break;
+                case "borrowerRating": borrowerRating = nextInt(in); break;
+                case "ownerReview": ownerReview = nextString(in); break;
+                case "borrowerReview": borrowerReview = nextString(in); break;
+                case "remindersSent": remindersSent = nextInt(in); break;
+                default: in.skipValue();
+            }
+        }
+        Transaction t = new Transaction(transactionId, bookId, ownerId, borrowerId, type, status,
+                                        requestedAt, approvedAt, deliveredAt, returnedAt, dueDate,
+                                        amount, message, ownerRating, borrowerRating,
+                                        ownerReview, borrowerReview);
+        t.setRemindersSent(remindersSent);
+        return t;
+    }
+}
@@ -0,0 +1,74 @@
+package src.com.dnu.bookshare.persistence.adapter;
+
+import src.com.dnu.bookshare.model.Transaction;
+import src.com.dnu.bookshare.model.TransactionEvent;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * TransactionEventAdapter - Đọc/ghi sự kiện giao dịch bằng JsonReader/JsonWriter, không dùng reflection
+ */
+public class TransactionEventAdapter extends ModelAdapter<TransactionEvent> {
+    
+    public TransactionEventAdapter(LocalDateTimeAdapter dates) {
+        super(dates);
+    }
+    
+    @Override
+    protected void writeFields(JsonWriter out, TransactionEvent e) throws IOException {
+        writeString(out, "eventId", e.getEventId());
+        out.name("sequence").value(e.getSequence());
+        writeEnum(out, "type", e.getType());
+        writeString(out, "transactionId", e.getTransactionId());
+        writeString(out, "bookId", e.getBookId());
+        writeString(out, "ownerId", e.getOwnerId());
+        writeString(out, "borrowerId", e.getBorrowerId());
+        writeEnum(out, "transactionType", e.getTransactionType());
+        writeEnum(out, "status", e.getStatus());
+        writeDateTime(out, "occurredAt", e.getOccurredAt());
+        writeString(out, "message", e.getMessage());
+        writeDateTime(out, "dueDate", e.getDueDate());
+        out.name("amount").value(e.getAmount());
+        writeString(out, "actorId", e.getActorId());
+        out.name("rating").value(e.getRating());
+    }
+    
+    @Override
+    protected TransactionEvent readFields(JsonReader in) throws IOException {
+        String eventId = null, transactionId = null, bookId = null, ownerId = null, borrowerId = null;
+        String message = null, actorId = null;
+        long sequence = 0;
+        TransactionEvent.EventType type = null;
+        Transaction.TransactionType transactionType = null;
+        Transaction.TransactionStatus status = null;
+        LocalDateTime occurredAt = null, dueDate = null;
+        double amount = 0;
+        int rating = 0;
+        
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "eventId": eventId = nextString(in); break;
+                case "sequence": sequence = nextLong(in); break;
+                case "type": type = nextEnum(in, TransactionEvent.EventType.class); break;
+                case "transactionId": transactionId = nextString(in); break;
+                case "bookId": bookId = nextString(in); break;
+                case "ownerId": ownerId = nextString(in); break;
+                case "borrowerId": borrowerId = nextString(in); break;
+                case "transactionType": transactionType = nextEnum(in, Transaction.TransactionType.class); break;
+                case "status": status = nextEnum(in, Transaction.TransactionStatus.class); break;
+                case "occurredAt": occurredAt = nextDateTime(in); break;
+                case "message": message = nextString(in); break;
+                case "dueDate": dueDate = nextDateTime(in); break;
+                case "amount": amount = nextDouble(in); break;
+                case "actorId": actorId = nextString(in); break;
+                case "rating": rating = nextInt(in); break;
+                default: in.skipValue();
+            }
+        }
+        return new TransactionEvent(eventId, sequence, type, transactionId, bookId, ownerId, borrowerId,
+                                    transactionType, status, occurredAt, message, dueDate, amount,
+                                    actorId, rating);
+    }
+}
@@ -0,0 +1,65 @@
+package src.com.dnu.bookshare.persistence.adapter;
+
+import src.com.dnu.bookshare.model.User;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * UserAdapter - Đọc/ghi user bằng JsonReader/JsonWriter, không dùng reflection
+ */
+public class UserAdapter extends ModelAdapter<User> {
+    
+    public UserAdapter(LocalDateTimeAdapter dates) {
+        super(dates);
+    }
+    
+    @Override
+    protected void writeFields(JsonWriter out, User u) throws IOException {
+        writeString(out, "userId", u.getUserId());
+        writeString(out, "email", u.getEmail());
+        writeString(out, "password", u.getPassword());
+        writeString(out, "fullName", u.getFullName());
+        writeString(out, "studentId", u.getStudentId());
+        writeString(out, "phoneNumber", u.getPhoneNumber());
+        writeString(out, "faculty", u.getFaculty());
+        writeEnum(out, "role", u.getRole());
+        out.name("trustScore").value(u.getTrustScore());
+        writeDateTime(out, "createdAt", u.getCreatedAt());
+        out.name("isActive").value(u.isActive());
+        writeStringList(out, "favoriteBookIds", u.getFavoriteBookIds());
+    }
+    
+    @Override
+    protected User readFields(JsonReader in) throws IOException {
+        String userId = null, email = null, password = null, fullName = null;
+        String studentId = null, phoneNumber = null, faculty = null;
+        User.UserRole role = null;
+        double trustScore = 0;
+        LocalDateTime createdAt = null;
+        boolean isActive = false;
+        List<String> favoriteBookIds = null;
+        
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "userId": userId = nextString(in); break;
+                case "email": email = nextString(in); break;
+                case "password": password = nextString(in); break;
+                case "fullName": fullName = nextString(in); break;
+                case "studentId": studentId = nextString(in); break;
+                case "phoneNumber": phoneNumber = nextString(in); break;
+                case "faculty": faculty = nextString(in); break;
+                case "role": role = nextEnum(in, User.UserRole.class); break;
+                case "trustScore": trustScore = nextDouble(in); break;
+                case "createdAt": createdAt = nextDateTime(in); break;
+                case "isActive": isActive = nextBoolean(in); break;
+                case "favoriteBookIds": favoriteBookIds = nextStringList(in); break;
+                default: in.skipValue();
+            }
+        }
+        return new User(userId, email, password, fullName, studentId, phoneNumber, faculty,
+                        role, trustScore, createdAt, isActive, favoriteBookIds);
+    }
+}
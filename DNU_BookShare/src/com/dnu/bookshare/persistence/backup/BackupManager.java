@@ -0,0 +1,311 @@
+package src.com.dnu.bookshare.persistence.backup;
+
+import src.com.dnu.bookshare.persistence.DurableFiles;
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.stream.Stream;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * BackupManager - Backup tăng dần dựa trên ChunkStore
+ * Thư mục gốc (mặc định data/backups):
+ *   chunks/     nội dung file đã cắt chunk, mỗi chunk lưu một lần theo SHA-256
+ *   manifests/  mỗi backup một file <backupId>.json liệt kê file và chunk của nó
+ * File có kích thước và thời điểm sửa giống bản backup trước thì dùng lại danh sách chunk
+ * mà không đọc lại file; file đã đổi chỉ ghi thêm các chunk chưa có trong kho.
+ * Danh sách file phải được đọc khi engine không thay/xóa file (StorageEngine.readDataFiles):
+ * file biến mất giữa chừng là lỗi, file bị thay bằng đổi tên trong lúc đọc thì đọc lại.
+ */
+public class BackupManager {
+    // Số lần đọc lại một file bị thay (đổi tên nguyên tử) trong lúc đang đọc
+    private static final int MAX_ATTEMPTS = 5;
+    
+    private final Path manifestDir;
+    private final ChunkStore chunks;
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    
+    public BackupManager(Path root) {
+        this.manifestDir = root.resolve("manifests");
+        this.chunks = new ChunkStore(root.resolve("chunks"));
+    }
+    
+    // ============ BACKUP ============
+    
+    public synchronized BackupManifest backup(List<Path> files, String engineName) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(manifestDir);
+        
+        long now = System.currentTimeMillis();
+        String backupId = "backup_" + now;
+        while (Files.exists(manifestFile(backupId))) {
+            backupId = "backup_" + (++now);
+        }
+        
+        Map<String, BackupManifest.FileEntry> previous = new HashMap<>();
+        BackupManifest last = latest();
+        if (last != null) {
+            for (BackupManifest.FileEntry f : last.getFiles()) {
+                previous.put(f.getName(), f);
+            }
+        }
+        
+        BackupManifest manifest = new BackupManifest(backupId, now, engineName);
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            BackupManifest.FileEntry entry = null;
+            for (int attempt = 0; entry == null; attempt++) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw new IOException("File dữ liệu bị thay liên tục trong lúc backup: " + file);
+                }
+                entry = capture(file, name, previous.get(name), manifest);
+            }
+            manifest.addFile(entry);
+        }
+        
+        manifest.setDurationMillis((System.nanoTime() - start) / 1_000_000);
+        BackupManifest finished = manifest;
+        DurableFiles.replace(manifestFile(backupId), w -> gson.toJson(finished, w), true);
+        return manifest;
+    }
+    
+    /**
+     * Entry của file trong backup: dùng lại entry cũ nếu file không đổi, nếu không thì cắt chunk.
+     * @return null nếu file bị thay bằng file khác trong lúc đọc (cần đọc lại)
+     */
+    private BackupManifest.FileEntry capture(Path file, String name, BackupManifest.FileEntry prev,
+                                             BackupManifest manifest) throws IOException {
+        BasicFileAttributes attrs = attributes(file);
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        if (prev != null && prev.getSize() == attrs.size() && prev.getLastModified() == lastModified) {
+            return prev;
+        }
+        BackupManifest.FileEntry entry = store(file, name, attrs.size(), lastModified, manifest);
+        // Ghi nối thêm giữ nguyên file; đổi tên nguyên tử (JSON, snapshot) thì fileKey khác
+        Object key = attrs.fileKey();
+        return key == null || key.equals(attributes(file).fileKey()) ? entry : null;
+    }
+    
+    private static BasicFileAttributes attributes(Path file) throws IOException {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            // Backup không được thiếu file: engine phải giữ file trong suốt lúc backup
+            throw new IOException("File dữ liệu biến mất trong lúc backup: " + file, e);
+        }
+    }
+    
+    /**
+     * Cắt file thành chunk và ghi các chunk chưa có.
+     * Chỉ đọc đến kích thước lúc bắt đầu: phần log được ghi thêm trong lúc backup thuộc về lần sau.
+     */
+    private BackupManifest.FileEntry store(Path file, String name, long size, long lastModified,
+                                           BackupManifest manifest) throws IOException {
+        MessageDigest fileDigest = ChunkStore.sha256();
+        MessageDigest chunkDigest = ChunkStore.sha256();
+        List<String> hashes = new ArrayList<>();
+        long[] read = {0};
+        try (InputStream in = new BoundedInputStream(Files.newInputStream(file), size)) {
+            ContentChunker.split(in, (data, length) -> {
+                fileDigest.update(data, 0, length);
+                chunkDigest.update(data, 0, length);
+                String hash = ChunkStore.hex(chunkDigest.digest());
+                if (chunks.put(hash, data, length)) {
+                    manifest.recordNewChunk(length);
+                }
+                hashes.add(hash);
+                read[0] += length;
+            });
+        }
+        return new BackupManifest.FileEntry(name, read[0], lastModified,
+                                            ChunkStore.hex(fileDigest.digest()), hashes);
+    }
+    
+    // ============ DANH SÁCH ============
+    
+    /**
+     * Các backup, mới nhất trước
+     */
+    public synchronized List<BackupManifest> list() throws IOException {
+        List<BackupManifest> manifests = new ArrayList<>();
+        if (!Files.exists(manifestDir)) {
+            return manifests;
+        }
+        try (Stream<Path> files = Files.list(manifestDir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                if (p.getFileName().toString().endsWith(".json")) {
+                    manifests.add(gson.fromJson(Files.readString(p), BackupManifest.class));
+                }
+            }
+        }
+        manifests.sort(Comparator.comparingLong(BackupManifest::getCreatedAt).reversed());
+        return manifests;
+    }
+    
+    public BackupManifest latest() throws IOException {
+        List<BackupManifest> manifests = list();
+        return manifests.isEmpty() ? null : manifests.get(0);
+    }
+    
+    public synchronized BackupManifest find(String backupId) throws IOException {
+        Path file = manifestFile(backupId);
+        if (!Files.exists(file)) {
+            throw new FileNotFoundException("Không tìm thấy backup: " + backupId);
+        }
+        return gson.fromJson(Files.readString(file), BackupManifest.class);
+    }
+    
+    // ============ KIỂM TRA ============
+    
+    /**
+     * Đọc lại mọi chunk được tham chiếu, so hash của chunk và của cả file
+     */
+    public synchronized VerifyReport verify() throws IOException {
+        VerifyReport report = new VerifyReport();
+        Set<String> checkedChunks = new HashSet<>();
+        Set<String> checkedFiles = new HashSet<>();
+        
+        for (BackupManifest manifest : list()) {
+            report.countManifest();
+            for (BackupManifest.FileEntry file : manifest.getFiles()) {
+                report.countFile();
+                // File không đổi giữa các backup có cùng hash và danh sách chunk, chỉ cần kiểm một lần
+                if (!checkedFiles.add(file.getSha256() + file.getChunks())) {
+                    continue;
+                }
+                MessageDigest fileDigest = ChunkStore.sha256();
+                boolean readable = true;
+                for (String hash : file.getChunks()) {
+                    byte[] data;
+                    try {
+                        data = chunks.get(hash);
+                    } catch (NoSuchFileException e) {
+                        report.addProblem(manifest.getBackupId() + "/" + file.getName() + ": thiếu chunk " + hash);
+                        readable = false;
+                        continue;
+                    }
+                    if (checkedChunks.add(hash)) {
+                        report.countChunk();
+                        if (!ChunkStore.hex(ChunkStore.sha256().digest(data)).equals(hash)) {
+                            report.addProblem("chunk hỏng " + hash);
+                            readable = false;
+                        }
+                    }
+                    fileDigest.update(data);
+                }
+                if (readable && !ChunkStore.hex(fileDigest.digest()).equals(file.getSha256())) {
+                    report.addProblem(manifest.getBackupId() + "/" + file.getName() + ": sai hash file");
+                }
+            }
+        }
+        return report;
+    }
+    
+    // ============ KHÔI PHỤC ============
+    
+    /**
+     * Ghép lại các file của một backup vào thư mục đích (ghi file tạm rồi đổi tên)
+     * @return các file đã khôi phục
+     */
+    public synchronized List<Path> restore(String backupId, Path targetDir) throws IOException {
+        BackupManifest manifest = find(backupId);
+        Files.createDirectories(targetDir);
+        List<Path> restored = new ArrayList<>();
+        for (BackupManifest.FileEntry file : manifest.getFiles()) {
+            Path target = targetDir.resolve(file.getName());
+            Path tmp = targetDir.resolve(file.getName() + ".restore");
+            MessageDigest digest = ChunkStore.sha256();
+            try (FileOutputStream out = new FileOutputStream(tmp.toFile())) {
+                for (String hash : file.getChunks()) {
+                    byte[] data = chunks.get(hash);
+                    digest.update(data);
+                    out.write(data);
+                }
+                out.getFD().sync();
+            }
+            if (!ChunkStore.hex(digest.digest()).equals(file.getSha256())) {
+                Files.deleteIfExists(tmp);
+                throw new IOException("Backup " + backupId + " hỏng ở file " + file.getName());
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            restored.add(target);
+        }
+        DurableFiles.syncDirectory(targetDir.toAbsolutePath());
+        return restored;
+    }
+    
+    // ============ DỌN DẸP ============
+    
+    /**
+     * Xóa các backup nằm ngoài policy rồi xóa chunk không còn backup nào tham chiếu
+     * @return các backup đã xóa
+     */
+    public synchronized List<String> prune(RetentionPolicy policy) throws IOException {
+        List<BackupManifest> manifests = list();
+        long now = System.currentTimeMillis();
+        List<String> removed = new ArrayList<>();
+        Set<String> referenced = new HashSet<>();
+        for (int i = 0; i < manifests.size(); i++) {
+            BackupManifest manifest = manifests.get(i);
+            if (policy.shouldKeep(i, manifest.getCreatedAt(), now)) {
+                for (BackupManifest.FileEntry file : manifest.getFiles()) {
+                    referenced.addAll(file.getChunks());
+                }
+            } else {
+                Files.deleteIfExists(manifestFile(manifest.getBackupId()));
+                removed.add(manifest.getBackupId());
+            }
+        }
+        if (!removed.isEmpty()) {
+            for (String hash : chunks.list()) {
+                if (!referenced.contains(hash)) {
+                    chunks.delete(hash);
+                }
+            }
+        }
+        return removed;
+    }
+    
+    private Path manifestFile(String backupId) {
+        return manifestDir.resolve(backupId + ".json");
+    }
+    
+    /**
+     * Chỉ cho đọc tối đa limit byte
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+        
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package src.com.dnu.bookshare.persistence.backup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BackupManifest - Mô tả một bản backup: các file và danh sách chunk của từng file
+ * Được lưu thành manifests/<id>.json; dữ liệu thật nằm trong ChunkStore.
+ */
+public class BackupManifest {
+    private String backupId;
+    private long createdAt;
+    private String engine;
+    private List<FileEntry> files = new ArrayList<>();
+    private int newChunks;
+    private long newBytes;
+    private long durationMillis;
+    
+    public static class FileEntry {
+        private String name;
+        private long size;
+        private long lastModified;
+        private String sha256;
+        private List<String> chunks = new ArrayList<>();
+        
+        public FileEntry(String name, long size, long lastModified, String sha256, List<String> chunks) {
+            this.name = name;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.sha256 = sha256;
+            this.chunks = chunks;
+        }
+        
+        public String getName() { return name; }
+        public long getSize() { return size; }
+        public long getLastModified() { return lastModified; }
+        public String getSha256() { return sha256; }
+        public List<String> getChunks() { return chunks; }
+    }
+    
+    public BackupManifest(String backupId, long createdAt, String engine) {
+        this.backupId = backupId;
+        this.createdAt = createdAt;
+        this.engine = engine;
+    }
+    
+    public String getBackupId() { return backupId; }
+    public long getCreatedAt() { return createdAt; }
+    public String getEngine() { return engine; }
+    public List<FileEntry> getFiles() { return files; }
+    public int getNewChunks() { return newChunks; }
+    public long getNewBytes() { return newBytes; }
+    public long getDurationMillis() { return durationMillis; }
+    
+    public long getTotalBytes() {
+        long total = 0;
+        for (FileEntry f : files) {
+            total += f.size;
+        }
+        return total;
+    }
+    
+    void addFile(FileEntry entry) {
+        files.add(entry);
+    }
+    
+    void recordNewChunk(long bytes) {
+        newChunks++;
+        newBytes += bytes;
+    }
+    
+    void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s: %d file, %d bytes dữ liệu, %d chunk mới (%d bytes), %dms",
+                backupId, files.size(), getTotalBytes(), newChunks, newBytes, durationMillis);
+    }
+}
@@ -0,0 +1,92 @@
+package src.com.dnu.bookshare.persistence.backup;
+
+import java.io.*;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * ChunkStore - Kho chunk đánh địa chỉ theo nội dung: chunks/ab/abcdef... (SHA-256)
+ * Mỗi nội dung chỉ được lưu một lần dù xuất hiện trong bao nhiêu file/backup.
+ */
+public class ChunkStore {
+    private final Path dir;
+    
+    public ChunkStore(Path dir) {
+        this.dir = dir;
+    }
+    
+    /**
+     * Lưu chunk nếu chưa có
+     * @return true nếu chunk mới được ghi
+     */
+    public boolean put(String hash, byte[] data, int length) throws IOException {
+        Path file = pathOf(hash);
+        if (Files.exists(file)) {
+            return false;
+        }
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(hash + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp.toFile())) {
+            out.write(data, 0, length);
+            out.getFD().sync();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+    
+    public byte[] get(String hash) throws IOException {
+        return Files.readAllBytes(pathOf(hash));
+    }
+    
+    public boolean contains(String hash) {
+        return Files.exists(pathOf(hash));
+    }
+    
+    public long sizeOf(String hash) throws IOException {
+        return Files.size(pathOf(hash));
+    }
+    
+    public void delete(String hash) throws IOException {
+        Files.deleteIfExists(pathOf(hash));
+    }
+    
+    /**
+     * Hash của mọi chunk đang lưu
+     */
+    public Set<String> list() throws IOException {
+        Set<String> hashes = new HashSet<>();
+        if (!Files.exists(dir)) {
+            return hashes;
+        }
+        try (Stream<Path> files = Files.walk(dir, 2)) {
+            files.filter(Files::isRegularFile)
+                 .map(p -> p.getFileName().toString())
+                 .filter(name -> name.length() == 64)
+                 .forEach(hashes::add);
+        }
+        return hashes;
+    }
+    
+    private Path pathOf(String hash) {
+        return dir.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+    
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM không hỗ trợ SHA-256", e);
+        }
+    }
+    
+    static String hex(byte[] digest) {
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
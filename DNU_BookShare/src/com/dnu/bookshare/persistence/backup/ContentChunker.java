@@ -0,0 +1,60 @@
+package src.com.dnu.bookshare.persistence.backup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.SplittableRandom;
+
+/**
+ * ContentChunker - Cắt luồng byte thành chunk theo nội dung (gear hash)
+ * Ranh giới chunk phụ thuộc vào ~64 byte cuối chứ không phụ thuộc vị trí tuyệt đối,
+ * nên chèn/xóa một đoạn giữa file JSON chỉ làm đổi vài chunk quanh chỗ sửa.
+ * Kích thước chunk: tối thiểu 2KB, trung bình ~8KB, tối đa 64KB.
+ */
+public final class ContentChunker {
+    static final int MIN_SIZE = 2 * 1024;
+    static final int MAX_SIZE = 64 * 1024;
+    private static final int AVG_BITS = 13;
+    private static final long MASK = ((1L << AVG_BITS) - 1) << (64 - AVG_BITS);
+    private static final long[] GEAR = new long[256];
+    
+    static {
+        // Seed cố định: ranh giới chunk phải giống nhau giữa các lần chạy
+        SplittableRandom random = new SplittableRandom(0x5EEDB00CL);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+    
+    /**
+     * Nhận từng chunk; mảng data được dùng lại cho chunk sau nên phải copy nếu cần giữ
+     */
+    public interface ChunkConsumer {
+        void accept(byte[] data, int length) throws IOException;
+    }
+    
+    private ContentChunker() {
+    }
+    
+    public static void split(InputStream in, ChunkConsumer consumer) throws IOException {
+        byte[] chunk = new byte[MAX_SIZE];
+        byte[] buf = new byte[1 << 16];
+        int length = 0;
+        long hash = 0;
+        int n;
+        while ((n = in.read(buf)) != -1) {
+            for (int i = 0; i < n; i++) {
+                byte b = buf[i];
+                chunk[length++] = b;
+                hash = (hash << 1) + GEAR[b & 0xFF];
+                if ((length >= MIN_SIZE && (hash & MASK) == 0) || length == MAX_SIZE) {
+                    consumer.accept(chunk, length);
+                    length = 0;
+                    hash = 0;
+                }
+            }
+        }
+        if (length > 0) {
+            consumer.accept(chunk, length);
+        }
+    }
+}
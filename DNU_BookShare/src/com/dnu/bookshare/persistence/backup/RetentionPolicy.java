@@ -0,0 +1,36 @@
+package src.com.dnu.bookshare.persistence.backup;
+
+/**
+ * RetentionPolicy - Quy tắc giữ backup: luôn giữ keepLast bản mới nhất,
+ * các bản cũ hơn bị xóa nếu quá maxAgeDays ngày (0 = xóa hết phần còn lại)
+ */
+public class RetentionPolicy {
+    private final int keepLast;
+    private final int maxAgeDays;
+    
+    public RetentionPolicy(int keepLast, int maxAgeDays) {
+        if (keepLast < 1) {
+            throw new IllegalArgumentException("Phải giữ ít nhất 1 backup");
+        }
+        this.keepLast = keepLast;
+        this.maxAgeDays = maxAgeDays;
+    }
+    
+    public static RetentionPolicy fromConfig() {
+        return new RetentionPolicy(Integer.getInteger("bookshare.backup.keepLast", 10),
+                                   Integer.getInteger("bookshare.backup.maxAgeDays", 0));
+    }
+    
+    /**
+     * @param index vị trí của backup tính từ bản mới nhất (0 = mới nhất)
+     */
+    public boolean shouldKeep(int index, long createdAt, long now) {
+        if (index < keepLast) {
+            return true;
+        }
+        return maxAgeDays > 0 && now - createdAt <= maxAgeDays * 24L * 3600 * 1000;
+    }
+    
+    public int getKeepLast() { return keepLast; }
+    public int getMaxAgeDays() { return maxAgeDays; }
+}
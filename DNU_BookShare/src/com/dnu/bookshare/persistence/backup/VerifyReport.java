@@ -0,0 +1,34 @@
+package src.com.dnu.bookshare.persistence.backup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * VerifyReport - Kết quả kiểm tra toàn vẹn các backup
+ */
+public class VerifyReport {
+    private int manifests;
+    private int files;
+    private int chunks;
+    private final List<String> problems = new ArrayList<>();
+    
+    void countManifest() { manifests++; }
+    void countFile() { files++; }
+    void countChunk() { chunks++; }
+    
+    void addProblem(String problem) {
+        problems.add(problem);
+    }
+    
+    public boolean isOk() { return problems.isEmpty(); }
+    public int getManifests() { return manifests; }
+    public int getFiles() { return files; }
+    public int getChunks() { return chunks; }
+    public List<String> getProblems() { return problems; }
+    
+    @Override
+    public String toString() {
+        String summary = String.format("Đã kiểm tra %d backup, %d file, %d chunk", manifests, files, chunks);
+        return isOk() ? summary + ": OK" : summary + ": " + problems.size() + " lỗi " + problems;
+    }
+}
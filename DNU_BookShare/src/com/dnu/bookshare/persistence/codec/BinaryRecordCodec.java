@@ -0,0 +1,50 @@
+package src.com.dnu.bookshare.persistence.codec;
+
+import java.io.IOException;
+
+/**
+ * BinaryRecordCodec - Lớp cơ sở cho codec nhị phân viết tay
+ * Record: [version:1][các field theo thứ tự cố định]
+ * Enum được lưu bằng ordinal, nên chỉ được thêm hằng mới vào cuối enum;
+ * thêm field thì tăng version và đọc có điều kiện theo version.
+ * Version 2: Transaction thêm remindersSent.
+ */
+public abstract class BinaryRecordCodec<T> implements RecordCodec<T> {
+    protected static final int VERSION = 2;
+    
+    @Override
+    public byte getFormatId() {
+        return FORMAT_BINARY;
+    }
+    
+    @Override
+    public String getName() {
+        return "binary";
+    }
+    
+    @Override
+    public byte[] encode(T entity) {
+        RecordWriter out = new RecordWriter(128);
+        out.writeByte(VERSION);
+        write(entity, out);
+        return out.toByteArray();
+    }
+    
+    @Override
+    public T decode(byte[] data) throws IOException {
+        RecordReader in = new RecordReader(data);
+        try {
+            int version = in.readByte();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Không hỗ trợ record nhị phân version " + version);
+            }
+            return read(in, version);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Record nhị phân bị hỏng", e);
+        }
+    }
+    
+    protected abstract void write(T entity, RecordWriter out);
+    
+    protected abstract T read(RecordReader in, int version) throws IOException;
+}
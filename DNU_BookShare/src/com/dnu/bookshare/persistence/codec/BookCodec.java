@@ -0,0 +1,42 @@
+package src.com.dnu.bookshare.persistence.codec;
+
+import src.com.dnu.bookshare.model.Book;
+import java.io.IOException;
+
+/**
+ * BookCodec - Codec nhị phân cho sách, thứ tự field cố định theo constructor khôi phục
+ */
+public class BookCodec extends BinaryRecordCodec<Book> {
+    private static final Book.BookCondition[] CONDITIONS = Book.BookCondition.values();
+    private static final Book.TransactionType[] TYPES = Book.TransactionType.values();
+    private static final Book.BookStatus[] STATUSES = Book.BookStatus.values();
+    
+    @Override
+    protected void write(Book b, RecordWriter out) {
+        out.writeString(b.getBookId());
+        out.writeString(b.getOwnerId());
+        out.writeString(b.getTitle());
+        out.writeString(b.getAuthor());
+        out.writeString(b.getSubject());
+        out.writeString(b.getFaculty());
+        out.writeString(b.getDescription());
+        out.writeString(b.getImageUrl());
+        out.writeEnum(b.getCondition());
+        out.writeEnumList(b.getAvailableTypes());
+        out.writeDouble(b.getPrice());
+        out.writeSignedVarint(b.getBorrowDays());
+        out.writeEnum(b.getStatus());
+        out.writeDateTime(b.getPostedAt());
+        out.writeVarint(b.getViewCount());
+        out.writeBoolean(b.isVisible());
+    }
+    
+    @Override
+    protected Book read(RecordReader in, int version) throws IOException {
+        return new Book(in.readString(), in.readString(), in.readString(), in.readString(),
+                        in.readString(), in.readString(), in.readString(), in.readString(),
+                        in.readEnum(CONDITIONS), in.readEnumList(TYPES), in.readDouble(),
+                        (int) in.readSignedVarint(), in.readEnum(STATUSES), in.readDateTime(),
+                        in.readInt(), in.readBoolean());
+    }
+}
@@ -0,0 +1,98 @@
+package src.com.dnu.bookshare.persistence.codec;
+
+import src.com.dnu.bookshare.persistence.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * CodecConverter - Chuyển dữ liệu giữa thư mục JSON (engine json) và thư mục log nhị phân (engine log)
+ *
+ * Chạy: java -cp ... src.com.dnu.bookshare.persistence.codec.CodecConverter
+ *         to-binary <thư mục json> <thư mục log> [entity...]
+ *         to-json   <thư mục log>  <thư mục json> [entity...]
+ * to-json ghi file JSON pretty-print, dùng để xuất/đọc dữ liệu bằng mắt.
+ */
+public class CodecConverter {
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3 || !(args[0].equals("to-binary") || args[0].equals("to-json"))) {
+            System.err.println("Cách dùng: CodecConverter to-binary|to-json <thư mục nguồn> <thư mục đích> [entity...]");
+            System.exit(1);
+        }
+        Path source = Paths.get(args[1]);
+        Path target = Paths.get(args[2]);
+        Set<String> only = new HashSet<>(Arrays.asList(args).subList(3, args.length));
+        Files.createDirectories(target);
+        
+        AtomicLong lsn = new AtomicLong();
+        for (EntityType<?> type : EntityType.values()) {
+            if (!only.isEmpty() && !only.contains(type.getName())) {
+                continue;
+            }
+            if (args[0].equals("to-binary")) {
+                toBinary(type, source, target, lsn);
+            } else {
+                toJson(type, source, target, lsn);
+            }
+        }
+    }
+    
+    /**
+     * Đọc <name>.json và ghi thành <name>.log dùng codec nhị phân
+     */
+    static <T> void toBinary(EntityType<T> type, Path jsonDir, Path logDir, AtomicLong lsn) throws IOException {
+        Path jsonFile = jsonDir.resolve(type.getName() + ".json");
+        if (!Files.exists(jsonFile)) {
+            return;
+        }
+        Gson gson = StorageEngines.createGson(false);
+        List<T> entities = new ArrayList<>();
+        JsonStreamLoader.forEach(jsonFile, gson, type.getType(), entities::add);
+        
+        EntityLog<T> log = openLog(type, logDir, gson, lsn);
+        log.rewrite(entities);
+        log.close();
+        System.out.printf("%-14s %7d bản ghi  %10d bytes JSON -> %10d bytes nhị phân%n", type,
+                entities.size(), Files.size(jsonFile), log.snapshotBytes() + log.tailBytes());
+    }
+    
+    /**
+     * Replay log (snapshot + đuôi) của entity và xuất ra <name>.json dạng pretty-print
+     */
+    static <T> void toJson(EntityType<T> type, Path logDir, Path jsonDir, AtomicLong lsn) throws IOException {
+        Gson gson = StorageEngines.createGson(false);
+        EntityLog<T> log = openLog(type, logDir, gson, lsn);
+        List<Path> files = log.files();
+        if (files.isEmpty()) {
+            return;
+        }
+        long sourceBytes = 0;
+        for (Path file : files) {
+            sourceBytes += Files.size(file);
+        }
+        
+        Path jsonFile = jsonDir.resolve(type.getName() + ".json");
+        int count;
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(jsonFile), StandardCharsets.UTF_8), 1 << 16))) {
+            writer.setIndent("  ");
+            writer.beginArray();
+            count = log.replay(entity -> gson.toJson(entity, type.getType(), writer));
+            writer.endArray();
+        }
+        log.close();
+        System.out.printf("%-14s %7d bản ghi  %10d bytes log -> %10d bytes JSON%n", type,
+                count, sourceBytes, Files.size(jsonFile));
+    }
+    
+    private static <T> EntityLog<T> openLog(EntityType<T> type, Path logDir, Gson gson, AtomicLong lsn) {
+        RecordCodec<T> json = new JsonRecordCodec<>(gson, type.getType());
+        return new EntityLog<>(logDir.resolve(type.getName() + ".log"), type::idOf,
+                               type.getBinaryCodec(), List.of(json), lsn);
+    }
+}
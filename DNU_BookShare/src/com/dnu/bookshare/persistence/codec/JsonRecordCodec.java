@@ -0,0 +1,37 @@
+package src.com.dnu.bookshare.persistence.codec;
+
+import java.nio.charset.StandardCharsets;
+import com.google.gson.Gson;
+
+/**
+ * JsonRecordCodec - Mỗi record là một object JSON (không pretty-print)
+ */
+public class JsonRecordCodec<T> implements RecordCodec<T> {
+    private final Gson gson;
+    private final Class<T> type;
+    
+    public JsonRecordCodec(Gson gson, Class<T> type) {
+        this.gson = gson;
+        this.type = type;
+    }
+    
+    @Override
+    public byte getFormatId() {
+        return FORMAT_JSON;
+    }
+    
+    @Override
+    public String getName() {
+        return "json";
+    }
+    
+    @Override
+    public byte[] encode(T entity) {
+        return gson.toJson(entity, type).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Override
+    public T decode(byte[] data) {
+        return gson.fromJson(new String(data, StandardCharsets.UTF_8), type);
+    }
+}
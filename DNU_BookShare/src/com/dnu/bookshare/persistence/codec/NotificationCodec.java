@@ -0,0 +1,30 @@
+package src.com.dnu.bookshare.persistence.codec;
+
+import src.com.dnu.bookshare.model.Notification;
+import java.io.IOException;
+
+/**
+ * NotificationCodec - Codec nhị phân cho thông báo, thứ tự field cố định theo constructor khôi phục
+ */
+public class NotificationCodec extends BinaryRecordCodec<Notification> {
+    private static final Notification.NotificationType[] TYPES = Notification.NotificationType.values();
+    
+    @Override
+    protected void write(Notification n, RecordWriter out) {
+        out.writeString(n.getNotificationId());
+        out.writeString(n.getUserId());
+        out.writeEnum(n.getType());
+        out.writeString(n.getTitle());
+        out.writeString(n.getMessage());
+        out.writeString(n.getRelatedId());
+        out.writeBoolean(n.isRead());
+        out.writeDateTime(n.getCreatedAt());
+    }
+    
+    @Override
+    protected Notification read(RecordReader in, int version) throws IOException {
+        return new Notification(in.readString(), in.readString(), in.readEnum(TYPES),
+                                in.readString(), in.readString(), in.readString(),
+                                in.readBoolean(), in.readDateTime());
+    }
+}
@@ -0,0 +1,21 @@
+package src.com.dnu.bookshare.persistence.codec;
+
+import java.io.IOException;
+
+/**
+ * RecordCodec - Chuyển một entity thành mảng byte để ghi vào log và ngược lại
+ * Mỗi codec có một formatId riêng, được ghi kèm trong từng frame của log
+ * nên một log có thể chứa lẫn record của nhiều định dạng.
+ */
+public interface RecordCodec<T> {
+    byte FORMAT_JSON = 0;
+    byte FORMAT_BINARY = 1;
+    
+    byte getFormatId();
+    
+    String getName();
+    
+    byte[] encode(T entity) throws IOException;
+    
+    T decode(byte[] data) throws IOException;
+}
@@ -0,0 +1,125 @@
+package src.com.dnu.bookshare.persistence.codec;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RecordReader - Đọc lại dữ liệu do RecordWriter ghi
+ */
+public final class RecordReader {
+    private final byte[] buf;
+    private int pos;
+    
+    public RecordReader(byte[] buf) {
+        this.buf = buf;
+    }
+    
+    public int readByte() {
+        return buf[pos++] & 0xFF;
+    }
+    
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+    
+    public long readVarint() throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buf[pos++];
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Varint quá dài");
+    }
+    
+    public int readInt() throws IOException {
+        return (int) readVarint();
+    }
+    
+    public long readSignedVarint() throws IOException {
+        long v = readVarint();
+        return (v >>> 1) ^ -(v & 1);
+    }
+    
+    public double readDouble() {
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits |= (long) (buf[pos++] & 0xFF) << (i * 8);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+    
+    public String readString() throws IOException {
+        int len = readInt() - 1;
+        if (len < 0) {
+            return null;
+        }
+        if (len > buf.length - pos) {
+            throw new IOException("Độ dài chuỗi không hợp lệ: " + len);
+        }
+        String s = new String(buf, pos, len, StandardCharsets.UTF_8);
+        pos += len;
+        return s;
+    }
+    
+    public <E extends Enum<E>> E readEnum(E[] values) throws IOException {
+        int ordinal = readInt() - 1;
+        if (ordinal < 0) {
+            return null;
+        }
+        if (ordinal >= values.length) {
+            throw new IOException("Ordinal enum không hợp lệ: " + ordinal);
+        }
+        return values[ordinal];
+    }
+    
+    public LocalDateTime readDateTime() throws IOException {
+        long v = readVarint();
+        if (v == 0) {
+            return null;
+        }
+        v -= 1;
+        long seconds = (v >>> 1) ^ -(v & 1);
+        int nano = readInt();
+        return LocalDateTime.ofEpochSecond(seconds, nano, ZoneOffset.UTC);
+    }
+    
+    public List<String> readStringList() throws IOException {
+        int size = readInt() - 1;
+        if (size < 0) {
+            return null;
+        }
+        checkCount(size);
+        List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(readString());
+        }
+        return list;
+    }
+    
+    private void checkCount(int size) throws IOException {
+        // Mỗi phần tử chiếm ít nhất 1 byte
+        if (size > buf.length - pos) {
+            throw new IOException("Số phần tử không hợp lệ: " + size);
+        }
+    }
+    
+    public <E extends Enum<E>> List<E> readEnumList(E[] values) throws IOException {
+        int size = readInt() - 1;
+        if (size < 0) {
+            return null;
+        }
+        checkCount(size);
+        List<E> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(readEnum(values));
+        }
+        return list;
+    }
+}
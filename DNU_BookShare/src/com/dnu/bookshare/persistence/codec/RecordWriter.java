@@ -0,0 +1,111 @@
+package src.com.dnu.bookshare.persistence.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * RecordWriter - Bộ đệm ghi các kiểu cơ bản ở dạng gọn
+ * - số nguyên: varint (7 bit mỗi byte), số âm dùng zigzag
+ * - String/List: độ dài varint + 1 (0 nghĩa là null)
+ * - enum: ordinal + 1 (0 nghĩa là null)
+ * - LocalDateTime: giây epoch (UTC) zigzag + 1 và phần nano, 0 nghĩa là null
+ */
+public final class RecordWriter {
+    private byte[] buf;
+    private int pos;
+    
+    public RecordWriter(int initialCapacity) {
+        this.buf = new byte[Math.max(16, initialCapacity)];
+    }
+    
+    public void writeByte(int b) {
+        ensure(1);
+        buf[pos++] = (byte) b;
+    }
+    
+    public void writeBoolean(boolean b) {
+        writeByte(b ? 1 : 0);
+    }
+    
+    public void writeVarint(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+    }
+    
+    public void writeSignedVarint(long value) {
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+    
+    public void writeDouble(double value) {
+        long bits = Double.doubleToLongBits(value);
+        ensure(8);
+        for (int i = 0; i < 8; i++) {
+            buf[pos++] = (byte) (bits >>> (i * 8));
+        }
+    }
+    
+    public void writeString(String s) {
+        if (s == null) {
+            writeVarint(0);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length + 1L);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
+    }
+    
+    public void writeEnum(Enum<?> value) {
+        writeVarint(value == null ? 0 : value.ordinal() + 1L);
+    }
+    
+    public void writeDateTime(LocalDateTime time) {
+        if (time == null) {
+            writeVarint(0);
+            return;
+        }
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        writeVarint(((seconds << 1) ^ (seconds >> 63)) + 1);
+        writeVarint(time.getNano());
+    }
+    
+    public void writeStringList(List<String> list) {
+        if (list == null) {
+            writeVarint(0);
+            return;
+        }
+        writeVarint(list.size() + 1L);
+        for (String s : list) {
+            writeString(s);
+        }
+    }
+    
+    public void writeEnumList(List<? extends Enum<?>> list) {
+        if (list == null) {
+            writeVarint(0);
+            return;
+        }
+        writeVarint(list.size() + 1L);
+        for (Enum<?> e : list) {
+            writeEnum(e);
+        }
+    }
+    
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, pos);
+    }
+    
+    private void ensure(int extra) {
+        if (pos + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+        }
+    }
+}
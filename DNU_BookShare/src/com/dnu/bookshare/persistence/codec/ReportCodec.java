@@ -0,0 +1,33 @@
+package src.com.dnu.bookshare.persistence.codec;
+
+import src.com.dnu.bookshare.model.Report;
+import java.io.IOException;
+
+/**
+ * ReportCodec - Codec nhị phân cho báo cáo, thứ tự field cố định theo constructor khôi phục
+ */
+public class ReportCodec extends BinaryRecordCodec<Report> {
+    private static final Report.ReportType[] TYPES = Report.ReportType.values();
+    private static final Report.ReportStatus[] STATUSES = Report.ReportStatus.values();
+    
+    @Override
+    protected void write(Report r, RecordWriter out) {
+        out.writeString(r.getReportId());
+        out.writeString(r.getReporterId());
+        out.writeString(r.getReportedUserId());
+        out.writeString(r.getTransactionId());
+        out.writeEnum(r.getType());
+        out.writeString(r.getDescription());
+        out.writeEnum(r.getStatus());
+        out.writeDateTime(r.getCreatedAt());
+        out.writeDateTime(r.getResolvedAt());
+        out.writeString(r.getAdminNote());
+    }
+    
+    @Override
+    protected Report read(RecordReader in, int version) throws IOException {
+        return new Report(in.readString(), in.readString(), in.readString(), in.readString(),
+                          in.readEnum(TYPES), in.readString(), in.readEnum(STATUSES),
+                          in.readDateTime(), in.readDateTime(), in.readString());
+    }
+}
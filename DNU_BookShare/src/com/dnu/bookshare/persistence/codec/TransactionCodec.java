@@ -0,0 +1,48 @@
+package src.com.dnu.bookshare.persistence.codec;
+
+import src.com.dnu.bookshare.model.Transaction;
+import java.io.IOException;
+
+/**
+ * TransactionCodec - Codec nhị phân cho giao dịch, thứ tự field cố định theo constructor khôi phục
+ */
+public class TransactionCodec extends BinaryRecordCodec<Transaction> {
+    private static final Transaction.TransactionType[] TYPES = Transaction.TransactionType.values();
+    private static final Transaction.TransactionStatus[] STATUSES = Transaction.TransactionStatus.values();
+    
+    @Override
+    protected void write(Transaction t, RecordWriter out) {
+        out.writeString(t.getTransactionId());
+        out.writeString(t.getBookId());
+        out.writeString(t.getOwnerId());
+        out.writeString(t.getBorrowerId());
+        out.writeEnum(t.getType());
+        out.writeEnum(t.getStatus());
+        out.writeDateTime(t.getRequestedAt());
+        out.writeDateTime(t.getApprovedAt());
+        out.writeDateTime(t.getDeliveredAt());
+        out.writeDateTime(t.getReturnedAt());
+        out.writeDateTime(t.getDueDate());
+        out.writeDouble(t.getAmount());
+        out.writeString(t.getMessage());
+        out.writeSignedVarint(t.getOwnerRating());
+        out.writeSignedVarint(t.getBorrowerRating());
+        out.writeString(t.getOwnerReview());
+        out.writeString(t.getBorrowerReview());
+        out.writeVarint(t.getRemindersSent());
+    }
+    
+    @Override
+    protected Transaction read(RecordReader in, int version) throws IOException {
+        Transaction t = new Transaction(in.readString(), in.readString(), in.readString(), in.readString(),
+                                        in.readEnum(TYPES), in.readEnum(STATUSES), in.readDateTime(),
+                                        in.readDateTime(), in.readDateTime(), in.readDateTime(),
+                                        in.readDateTime(), in.readDouble(), in.readString(),
+                                        (int) in.readSignedVarint(), (int) in.readSignedVarint(),
+                                        in.readString(), in.readString());
+        if (version >= 2) {
+            t.setRemindersSent((int) in.readVarint());
+        }
+        return t;
+    }
+}
@@ -0,0 +1,42 @@
+package src.com.dnu.bookshare.persistence.codec;
+
+import src.com.dnu.bookshare.model.Transaction;
+import src.com.dnu.bookshare.model.TransactionEvent;
+import java.io.IOException;
+
+/**
+ * TransactionEventCodec - Codec nhị phân cho sự kiện giao dịch, thứ tự field cố định theo constructor khôi phục
+ */
+public class TransactionEventCodec extends BinaryRecordCodec<TransactionEvent> {
+    private static final TransactionEvent.EventType[] EVENT_TYPES = TransactionEvent.EventType.values();
+    private static final Transaction.TransactionType[] TYPES = Transaction.TransactionType.values();
+    private static final Transaction.TransactionStatus[] STATUSES = Transaction.TransactionStatus.values();
+    
+    @Override
+    protected void write(TransactionEvent e, RecordWriter out) {
+        out.writeString(e.getEventId());
+        out.writeVarint(e.getSequence());
+        out.writeEnum(e.getType());
+        out.writeString(e.getTransactionId());
+        out.writeString(e.getBookId());
+        out.writeString(e.getOwnerId());
+        out.writeString(e.getBorrowerId());
+        out.writeEnum(e.getTransactionType());
+        out.writeEnum(e.getStatus());
+        out.writeDateTime(e.getOccurredAt());
+        out.writeString(e.getMessage());
+        out.writeDateTime(e.getDueDate());
+        out.writeDouble(e.getAmount());
+        out.writeString(e.getActorId());
+        out.writeSignedVarint(e.getRating());
+    }
+    
+    @Override
+    protected TransactionEvent read(RecordReader in, int version) throws IOException {
+        return new TransactionEvent(in.readString(), in.readVarint(), in.readEnum(EVENT_TYPES),
+                                    in.readString(), in.readString(), in.readString(), in.readString(),
+                                    in.readEnum(TYPES), in.readEnum(STATUSES), in.readDateTime(),
+                                    in.readString(), in.readDateTime(), in.readDouble(),
+                                    in.readString(), (int) in.readSignedVarint());
+    }
+}
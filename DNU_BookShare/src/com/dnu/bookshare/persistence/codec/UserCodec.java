@@ -0,0 +1,34 @@
+package src.com.dnu.bookshare.persistence.codec;
+
+import src.com.dnu.bookshare.model.User;
+import java.io.IOException;
+
+/**
+ * UserCodec - Codec nhị phân cho user, thứ tự field cố định theo constructor khôi phục
+ */
+public class UserCodec extends BinaryRecordCodec<User> {
+    private static final User.UserRole[] ROLES = User.UserRole.values();
+    
+    @Override
+    protected void write(User u, RecordWriter out) {
+        out.writeString(u.getUserId());
+        out.writeString(u.getEmail());
+        out.writeString(u.getPassword());
+        out.writeString(u.getFullName());
+        out.writeString(u.getStudentId());
+        out.writeString(u.getPhoneNumber());
+        out.writeString(u.getFaculty());
+        out.writeEnum(u.getRole());
+        out.writeDouble(u.getTrustScore());
+        out.writeDateTime(u.getCreatedAt());
+        out.writeBoolean(u.isActive());
+        out.writeStringList(u.getFavoriteBookIds());
+    }
+    
+    @Override
+    protected User read(RecordReader in, int version) throws IOException {
+        return new User(in.readString(), in.readString(), in.readString(), in.readString(),
+                        in.readString(), in.readString(), in.readString(), in.readEnum(ROLES),
+                        in.readDouble(), in.readDateTime(), in.readBoolean(), in.readStringList());
+    }
+}
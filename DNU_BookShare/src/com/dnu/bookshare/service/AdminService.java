@@ -1,9 +1,19 @@
 package src.com.dnu.bookshare.service;
 
 import src.com.dnu.bookshare.model.*;
+import src.com.dnu.bookshare.persistence.CompactionStats;
 import src.com.dnu.bookshare.persistence.DataManager;
+import src.com.dnu.bookshare.persistence.WriteBehindStats;
+import src.com.dnu.bookshare.persistence.backup.BackupManifest;
+import src.com.dnu.bookshare.persistence.backup.VerifyReport;
+import src.com.dnu.bookshare.service.transactions.DueReminder;
+import src.com.dnu.bookshare.service.transactions.ReminderStage;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -16,6 +26,7 @@ public class AdminService {
     private ReportService reportService;
     private NotificationService notificationService;
     private DataManager dataManager;
+    private ScheduledExecutorService reminderChecks;
     
     public AdminService(UserService userService, BookService bookService,
                        TransactionService transactionService, ReportService reportService,
@@ -252,13 +263,13 @@ public class AdminService {
         stats.put("borrowedBooks", allBooks.stream()
                 .filter(b -> b.getStatus() == Book.BookStatus.BORROWED).count());
         
-        // Giao dịch
-        List<Transaction> allTransactions = transactionService.getAllTransactions();
-        stats.put("totalTransactions", allTransactions.size());
-        stats.put("pendingTransactions", allTransactions.stream()
-                .filter(t -> t.getStatus() == Transaction.TransactionStatus.PENDING).count());
-        stats.put("completedTransactions", allTransactions.stream()
-                .filter(t -> t.getStatus() == Transaction.TransactionStatus.COMPLETED).count());
+        // Giao dịch (số theo trạng thái đọc từ projection của log sự kiện, không quét giao dịch)
+        stats.put("totalTransactions", transactionService.getAllTransactions().size());
+        stats.put("pendingTransactions",
+                (long) transactionService.countByStatus(Transaction.TransactionStatus.PENDING));
+        stats.put("completedTransactions",
+                (long) transactionService.countByStatus(Transaction.TransactionStatus.COMPLETED));
+        stats.put("transactionEvents", transactionService.getEventCount());
         
         // Báo cáo
         List<Report> allReports = reportService.getAllReports();
@@ -287,15 +298,29 @@ public class AdminService {
     }
     
     /**
-     * Top sách phổ biến
+     * Top sách phổ biến theo số người xem phân biệt: một người tải lại trang nhiều lần chỉ tính một
      */
     public List<Book> getTopPopularBooks(int limit) {
-        return bookService.getAllBooks().stream()
-                .sorted(Comparator.comparingInt(Book::getViewCount).reversed())
-                .limit(limit)
+        return bookService.getMostViewedByUniqueViewers(limit);
+    }
+    
+    /**
+     * Top sách được cho mượn nhiều nhất (projection số lần cho mượn theo sách)
+     */
+    public List<Book> getMostLentBooks(int limit) {
+        return transactionService.getMostLentBookIds(limit).stream()
+                .map(bookService::getBookById)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Top sách đang được quan tâm (điểm xu hướng trong 24 giờ qua)
+     */
+    public List<Book> getTopTrendingBooks(int limit) {
+        return bookService.getTrendingBooks(limit);
+    }
+    
     // ============ QUẢN LÝ HỆ THỐNG ============
     
     /**
@@ -310,42 +335,113 @@ public class AdminService {
     }
     
     /**
-     * Backup dữ liệu
+     * Backup dữ liệu (tăng dần, chỉ lưu phần nội dung thay đổi)
+     */
+    public BackupManifest backupSystemData() throws Exception {
+        return dataManager.backupData();
+    }
+    
+    /**
+     * Danh sách backup, mới nhất trước
+     */
+    public List<BackupManifest> listBackups() throws Exception {
+        return dataManager.listBackups();
+    }
+    
+    /**
+     * Kiểm tra toàn vẹn các backup
+     */
+    public VerifyReport verifyBackups() throws Exception {
+        return dataManager.verifyBackups();
+    }
+    
+    /**
+     * Khôi phục backup vào thư mục đích
+     */
+    public List<Path> restoreBackup(String backupId, Path targetDir) throws Exception {
+        return dataManager.restoreBackup(backupId, targetDir);
+    }
+    
+    /**
+     * Gộp log lưu trữ thành snapshot (chế độ log-structured)
+     */
+    public List<CompactionStats> compactStorage() throws Exception {
+        return dataManager.compactNow();
+    }
+    
+    /**
+     * Thống kê compaction gần nhất
+     */
+    public List<CompactionStats> getCompactionStats() {
+        return dataManager.getCompactionStats();
+    }
+    
+    /**
+     * Thống kê write-behind (null nếu không bật)
      */
-    public void backupSystemData() throws Exception {
-        dataManager.backupData();
+    public WriteBehindStats getWriteBehindStats() {
+        return dataManager.getWriteBehindStats();
     }
     
     /**
-     * Kiểm tra và xử lý sách quá hạn
+     * Gửi các nhắc trả sách đã tới hạn: còn 2 ngày, hôm nay, quá hạn, và trừ điểm uy tín
+     * khi quá hạn hơn 3 ngày. Mỗi mốc của một giao dịch chỉ được gửi một lần
+     * (gọi nhiều lần không nhắc lặp, không trừ điểm lặp).
      */
     public void checkOverdueBooks() {
-        List<Transaction> overdueTransactions = transactionService.getOverdueTransactions();
-        
-        for (Transaction transaction : overdueTransactions) {
-            // Gửi thông báo nhắc nhở
+        LocalDateTime now = LocalDateTime.now();
+        for (DueReminder reminder : transactionService.pollDueReminders(now)) {
+            Transaction transaction = reminder.getTransaction();
             Book book = bookService.getBookById(transaction.getBookId());
-            if (book != null) {
-                long daysOverdue = java.time.temporal.ChronoUnit.DAYS.between(
-                    transaction.getDueDate(), LocalDateTime.now()
-                );
-                
-                notificationService.notifyReturnReminder(
+            if (book == null) {
+                continue;
+            }
+            int daysRemaining = reminder.getDaysRemaining(now.toLocalDate());
+            
+            notificationService.notifyReturnReminder(
+                transaction.getBorrowerId(),
+                book.getTitle(),
+                daysRemaining,
+                transaction.getTransactionId()
+            );
+            
+            if (reminder.getStage() == ReminderStage.ESCALATED) {
+                updateUserTrustScore(
                     transaction.getBorrowerId(),
-                    book.getTitle(),
-                    (int) -daysOverdue,
-                    transaction.getTransactionId()
+                    -0.1,
+                    "Trả sách quá hạn " + (-daysRemaining) + " ngày"
                 );
-                
-                // Giảm điểm uy tín nếu quá hạn > 3 ngày
-                if (daysOverdue > 3) {
-                    updateUserTrustScore(
-                        transaction.getBorrowerId(),
-                        -0.1,
-                        "Trả sách quá hạn " + daysOverdue + " ngày"
-                    );
-                }
             }
         }
     }
+    
+    /**
+     * Chạy checkOverdueBooks định kỳ trên thread daemon
+     * (chu kỳ -Dbookshare.reminders.checkSeconds, mặc định 60 giây)
+     */
+    public synchronized void startReminderChecks() {
+        if (reminderChecks != null) {
+            return;
+        }
+        long interval = Long.getLong("bookshare.reminders.checkSeconds", 60);
+        reminderChecks = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "return-reminders");
+            t.setDaemon(true);
+            return t;
+        });
+        reminderChecks.scheduleWithFixedDelay(() -> {
+            try {
+                checkOverdueBooks();
+            } catch (RuntimeException e) {
+                System.err.println("Lỗi gửi nhắc trả sách: " + e.getMessage());
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+    
+    public synchronized void stopReminderChecks() {
+        if (reminderChecks != null) {
+            reminderChecks.shutdownNow();
+            reminderChecks = null;
+        }
+    }
 }
\ No newline at end of file
@@ -2,18 +2,57 @@ package src.com.dnu.bookshare.service;
 
 import src.com.dnu.bookshare.model.Book;
 import src.com.dnu.bookshare.model.Book.*;
+import src.com.dnu.bookshare.model.IdGenerator;
 import src.com.dnu.bookshare.persistence.DataManager;
+import src.com.dnu.bookshare.persistence.EntityType;
+import src.com.dnu.bookshare.persistence.UnitOfWork;
+import src.com.dnu.bookshare.service.search.BookQuery;
+import src.com.dnu.bookshare.service.search.BookSearchIndex;
+import src.com.dnu.bookshare.service.search.Completion;
+import src.com.dnu.bookshare.service.search.FuzzySearchResult;
+import src.com.dnu.bookshare.service.search.SearchCacheStats;
+import src.com.dnu.bookshare.service.search.SearchPage;
+import src.com.dnu.bookshare.service.views.ViewCounter;
+import src.com.dnu.bookshare.service.views.ViewCounterStats;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.stream.Collectors;
 
 public class BookService {
-    private Map<String, Book> books;
+    // Sắp theo id: id sinh bởi IdGenerator tăng theo thời gian đăng
+    private NavigableMap<String, Book> books;
     private DataManager dataManager;
+    private final BookSearchIndex searchIndex = new BookSearchIndex();
+    // Lượt xem đếm trong bộ nhớ, ghi xuống storage định kỳ
+    private final ViewCounter viewCounter = new ViewCounter(bookId -> books.get(bookId), this::onViewsFlushed);
     
     public BookService(DataManager dataManager) {
-        this.books = new HashMap<>();
+        this.books = new ConcurrentSkipListMap<>();
         this.dataManager = dataManager;
         loadBooksFromStorage();
+        buildSearchIndex();
+        viewCounter.start();
+    }
+    
+    /**
+     * Khởi tạo từ dữ liệu đã load sẵn (dùng bởi ServiceBootstrap), dùng luôn map được truyền vào
+     */
+    public BookService(DataManager dataManager, ConcurrentNavigableMap<String, Book> books) {
+        this.books = books;
+        this.dataManager = dataManager;
+        buildSearchIndex();
+        viewCounter.start();
+    }
+    
+    /**
+     * Dựng chỉ mục tìm kiếm theo thứ tự id (= thứ tự đăng)
+     */
+    private void buildSearchIndex() {
+        for (Book book : books.values()) {
+            searchIndex.update(book);
+        }
     }
     
     /**
@@ -21,10 +60,7 @@ public class BookService {
      */
     private void loadBooksFromStorage() {
         try {
-            List<Book> loadedBooks = dataManager.findAllBooks();
-            for (Book book : loadedBooks) {
-                books.put(book.getBookId(), book);
-            }
+            dataManager.forEachBook(b -> books.put(b.getBookId(), b));
             System.out.println("Đã load " + books.size() + " sách từ storage");
         } catch (Exception e) {
             System.out.println("Không thể load books: " + e.getMessage());
@@ -35,6 +71,7 @@ public class BookService {
     public Book createBook(String ownerId, String title, String author) {
         Book book = new Book(ownerId, title, author);
         books.put(book.getBookId(), book);
+        searchIndex.update(book);
         
         try {
             dataManager.saveBook(book);
@@ -58,6 +95,7 @@ public class BookService {
         book.setAuthor(author);
         book.setSubject(subject);
         book.setDescription(description);
+        searchIndex.update(book);
         
         dataManager.saveBook(book);
     }
@@ -78,6 +116,8 @@ public class BookService {
         }
         
         books.remove(bookId);
+        searchIndex.remove(bookId);
+        viewCounter.forget(bookId);
         dataManager.deleteBook(bookId);
     }
     
@@ -86,6 +126,7 @@ public class BookService {
         Book book = books.get(bookId);
         if (book != null) {
             book.setImageUrl(imageUrl);
+            searchIndex.update(book);
             try {
                 dataManager.saveBook(book);
             } catch (Exception e) {
@@ -99,6 +140,7 @@ public class BookService {
         Book book = books.get(bookId);
         if (book != null) {
             book.setCondition(condition);
+            searchIndex.update(book);
             try {
                 dataManager.saveBook(book);
             } catch (Exception e) {
@@ -119,6 +161,7 @@ public class BookService {
             if (type == TransactionType.BORROW && borrowDays != null) {
                 book.setBorrowDays(borrowDays);
             }
+            searchIndex.update(book);
             try {
                 dataManager.saveBook(book);
             } catch (Exception e) {
@@ -132,6 +175,7 @@ public class BookService {
         Book book = books.get(bookId);
         if (book != null) {
             book.setVisible(!book.isVisible());
+            searchIndex.update(book);
             try {
                 dataManager.saveBook(book);
             } catch (Exception e) {
@@ -140,98 +184,260 @@ public class BookService {
         }
     }
     
-    // 16. Tăng lượt xem
+    // 16. Tăng lượt xem (chỉ đếm trong bộ nhớ, không ghi storage)
     public void incrementViewCount(String bookId) {
-        Book book = books.get(bookId);
-        if (book != null) {
-            book.incrementViewCount();
-            try {
-                dataManager.saveBook(book);
-            } catch (Exception e) {
-                System.err.println("Lỗi tăng view count: " + e.getMessage());
+        viewCounter.record(bookId);
+    }
+    
+    /**
+     * Lượt xem của một người dùng: tính thêm vào số người xem phân biệt và điểm xu hướng
+     * (tải lại nhiều lần chỉ tăng tổng lượt xem)
+     */
+    public void incrementViewCount(String bookId, String viewerId) {
+        viewCounter.record(bookId, viewerId);
+    }
+    
+    /**
+     * Số người xem phân biệt (ước lượng) từ lúc khởi động
+     */
+    public long getUniqueViewers(String bookId) {
+        return viewCounter.getUniqueViewers(bookId);
+    }
+    
+    /**
+     * Điểm xu hướng hiện tại của sách (số người xem gần đây, giảm dần theo thời gian)
+     */
+    public double getTrendingScore(String bookId) {
+        return viewCounter.getTrendingScore(bookId);
+    }
+    
+    /**
+     * Lượt xem hiện tại của sách, gồm cả phần chưa ghi xuống storage
+     */
+    public long getViewCount(String bookId) {
+        return viewCounter.getViewCount(bookId);
+    }
+    
+    /**
+     * Các sách nhiều lượt xem nhất theo bộ đếm hiện tại (không chờ flush)
+     */
+    public List<Book> getMostViewedBooks(int limit) {
+        return topBooks(limit, Comparator.comparingLong(viewCounter::getViewCount));
+    }
+    
+    /**
+     * Các sách nhiều người xem phân biệt nhất (một người tải lại nhiều lần chỉ tính một),
+     * cùng số người xem thì xét tổng lượt xem
+     */
+    public List<Book> getMostViewedByUniqueViewers(int limit) {
+        Comparator<Book> byViewers = Comparator.comparingLong(b -> viewCounter.getUniqueViewers(b.getBookId()));
+        return topBooks(limit, byViewers.thenComparingLong(viewCounter::getViewCount));
+    }
+    
+    /**
+     * Các sách có điểm xu hướng cao nhất tại thời điểm hiện tại
+     */
+    public List<Book> getTrendingBooks(int limit) {
+        return topBooks(limit, Comparator.comparingDouble(b -> viewCounter.getTrendingScore(b.getBookId())));
+    }
+    
+    /**
+     * limit sách lớn nhất theo order, giảm dần
+     */
+    private List<Book> topBooks(int limit, Comparator<Book> order) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        // Heap giữ limit sách lớn nhất, sách nhỏ nhất ở đỉnh
+        PriorityQueue<Book> heap = new PriorityQueue<>(limit + 1, order);
+        for (Book book : books.values()) {
+            heap.add(book);
+            if (heap.size() > limit) {
+                heap.poll();
             }
         }
+        List<Book> result = new ArrayList<>(heap);
+        result.sort(order.reversed());
+        return result;
+    }
+    
+    /**
+     * Ghi ngay lượt xem đang đếm xuống storage
+     */
+    public void flushViewCounts() throws Exception {
+        viewCounter.flush();
+    }
+    
+    /**
+     * Dừng flush lượt xem định kỳ và ghi nốt lượt xem đang đếm (gọi trước khi đóng storage)
+     */
+    public void shutdown() {
+        viewCounter.shutdown();
+    }
+    
+    public ViewCounterStats getViewCounterStats() {
+        return viewCounter.getStats();
+    }
+    
+    /**
+     * Sau mỗi lần flush lượt xem: cập nhật chỉ mục sắp xếp "popular", "trending"
+     * và ghi các sách thay đổi bằng một lô
+     */
+    private void onViewsFlushed(List<Book> changed, Map<String, Double> trendingKeys) throws Exception {
+        for (Book book : changed) {
+            searchIndex.updateViewCount(book);
+        }
+        for (Map.Entry<String, Double> e : trendingKeys.entrySet()) {
+            searchIndex.updateTrending(e.getKey(), e.getValue());
+        }
+        if (!changed.isEmpty()) {
+            dataManager.saveBooks(changed);
+        }
     }
     
     // 17. Cập nhật trạng thái sách
-    public void updateBookStatus(String bookId, BookStatus status) {
+    /**
+     * Chuyển sách sang status nếu bảng BookStatus.canTransitionTo cho phép từ trạng thái hiện tại
+     * (CAS, thử lại khi thread khác vừa đổi)
+     * @return false nếu sách không tồn tại hoặc không chuyển được
+     */
+    public boolean updateBookStatus(String bookId, BookStatus status) {
+        return updateBookStatus(bookId, status, null);
+    }
+    
+    /**
+     * Như trên; sách đã đổi được thêm vào unit thay vì ghi ngay (unit null thì ghi ngay)
+     */
+    public boolean updateBookStatus(String bookId, BookStatus status, UnitOfWork unit) {
         Book book = books.get(bookId);
-        if (book != null) {
-            book.setStatus(status);
-            try {
-                dataManager.saveBook(book);
-            } catch (Exception e) {
-                System.err.println("Lỗi cập nhật status: " + e.getMessage());
+        if (book == null) {
+            return false;
+        }
+        while (true) {
+            BookStatus current = book.getStatus();
+            if (current == status) {
+                return true;
+            }
+            if (current != null && !current.canTransitionTo(status)) {
+                return false;
+            }
+            if (book.compareAndSetStatus(current, status)) {
+                break;
             }
         }
+        onStatusChanged(book, unit);
+        return true;
+    }
+    
+    /**
+     * Chuyển sách từ expected sang status chỉ khi sách đang ở expected (CAS).
+     * Nhiều thread cùng đặt trước một sách AVAILABLE thì đúng một thread nhận true.
+     */
+    public boolean transitionBookStatus(String bookId, BookStatus expected, BookStatus status) {
+        return transitionBookStatus(bookId, expected, status, null);
+    }
+    
+    public boolean transitionBookStatus(String bookId, BookStatus expected, BookStatus status, UnitOfWork unit) {
+        Book book = books.get(bookId);
+        if (book == null || !expected.canTransitionTo(status) || !book.compareAndSetStatus(expected, status)) {
+            return false;
+        }
+        onStatusChanged(book, unit);
+        return true;
+    }
+    
+    private void onStatusChanged(Book book, UnitOfWork unit) {
+        searchIndex.update(book);
+        if (unit != null) {
+            unit.upsert(EntityType.BOOKS, book);
+            return;
+        }
+        try {
+            dataManager.saveBook(book);
+        } catch (Exception e) {
+            System.err.println("Lỗi cập nhật status: " + e.getMessage());
+        }
     }
     
     // 21-28. Tìm kiếm và lọc sách
+    // keyword: tìm trong tiêu đề, tác giả, mô tả; không phân biệt dấu, mỗi từ khớp theo tiền tố,
+    // "cụm từ" trong ngoặc kép phải liền nhau
+    // sortBy: newest, price_asc, price_desc, popular, trending (người xem gần đây, cập nhật mỗi lần flush lượt xem),
+    // relevance (BM25, ưu tiên tiêu đề rồi tác giả), posted; null = relevance nếu có keyword, không thì posted
     public List<Book> searchBooks(String keyword, String subject, String faculty,
                                  BookCondition condition, TransactionType type,
                                  String sortBy) {
-        List<Book> result = books.values().stream()
-                .filter(b -> b.isVisible())
-                .collect(Collectors.toList());
-        
-        // Tìm kiếm theo keyword
-        if (keyword != null && !keyword.isEmpty()) {
-            String lowerKeyword = keyword.toLowerCase();
-            result = result.stream()
-                    .filter(b -> b.getTitle().toLowerCase().contains(lowerKeyword) ||
-                               b.getAuthor().toLowerCase().contains(lowerKeyword) ||
-                               (b.getDescription() != null && 
-                                b.getDescription().toLowerCase().contains(lowerKeyword)))
-                    .collect(Collectors.toList());
-        }
-        
-        // Lọc theo môn học
-        if (subject != null && !subject.isEmpty()) {
-            result = result.stream()
-                    .filter(b -> subject.equals(b.getSubject()))
-                    .collect(Collectors.toList());
-        }
-        
-        // Lọc theo khoa
-        if (faculty != null && !faculty.isEmpty()) {
-            result = result.stream()
-                    .filter(b -> faculty.equals(b.getFaculty()))
-                    .collect(Collectors.toList());
-        }
-        
-        // Lọc theo tình trạng
-        if (condition != null) {
-            result = result.stream()
-                    .filter(b -> condition == b.getCondition())
-                    .collect(Collectors.toList());
-        }
-        
-        // Lọc theo hình thức
-        if (type != null) {
-            result = result.stream()
-                    .filter(b -> b.getAvailableTypes().contains(type))
-                    .collect(Collectors.toList());
-        }
-        
-        // Sắp xếp
-        if (sortBy != null) {
-            switch (sortBy) {
-                case "price_asc":
-                    result.sort(Comparator.comparingDouble(Book::getPrice));
-                    break;
-                case "price_desc":
-                    result.sort(Comparator.comparingDouble(Book::getPrice).reversed());
-                    break;
-                case "newest":
-                    result.sort(Comparator.comparing(Book::getBookId).reversed());
-                    break;
-                case "popular":
-                    result.sort(Comparator.comparingInt(Book::getViewCount).reversed());
-                    break;
-            }
+        return searchBooks(keyword, subject, faculty, condition, type, null, sortBy);
+    }
+    
+    /**
+     * Như trên, lọc thêm theo trạng thái (null = mọi trạng thái)
+     */
+    public List<Book> searchBooks(String keyword, String subject, String faculty,
+                                 BookCondition condition, TransactionType type,
+                                 BookStatus status, String sortBy) {
+        // Các bộ lọc được giải bằng phép AND trên bitmap, từ khóa giao sau cùng.
+        // Thứ tự lấy từ chỉ mục (thứ tự đăng, giá, lượt xem) thay vì sắp xếp lại kết quả;
+        // độ liên quan tính từ thống kê của chỉ mục từ khóa
+        BookQuery query = new BookQuery()
+                .keyword(keyword)
+                .subject(subject)
+                .faculty(faculty)
+                .condition(condition)
+                .type(type)
+                .status(status)
+                .sort(BookQuery.Sort.fromString(sortBy));
+        return searchIndex.search(query);
+    }
+    
+    /**
+     * Tìm gần đúng khi gõ sai chính tả: xếp theo độ khớp, kèm gợi ý từ khóa đúng
+     * (dùng khi searchBooks không có kết quả)
+     */
+    public FuzzySearchResult<Book> searchBooksFuzzy(BookQuery query, int limit) {
+        return searchIndex.fuzzySearch(query, limit);
+    }
+    
+    /**
+     * Gợi ý khi gõ (type-ahead): tiêu đề, tác giả, môn học bắt đầu bằng prefix,
+     * phổ biến nhất trước; kind = null là cả ba loại
+     */
+    public List<Completion> autocomplete(String prefix, Completion.Kind kind, int limit) {
+        return searchIndex.complete(prefix, kind, limit);
+    }
+    
+    /**
+     * Tìm sách theo trang: cursor = getNextCursor() của trang trước (null = trang đầu).
+     * Chỉ lấy đủ limit sách đầu tiên theo thứ tự, không sắp xếp toàn bộ kết quả.
+     * Sách cùng giá/lượt xem giữ thứ tự đăng như searchBooks.
+     */
+    public SearchPage<Book> searchBooksPage(BookQuery query, String cursor, int limit) throws Exception {
+        try {
+            return searchIndex.page(query, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            throw new Exception("Không thể tìm sách: " + e.getMessage());
         }
-        
-        return result;
+    }
+    
+    /**
+     * Số cụm gợi ý khác nhau (tiêu đề, tác giả, môn học)
+     */
+    public int getCompletionCount() {
+        return searchIndex.getCompletionCount();
+    }
+    
+    /**
+     * Bộ nhớ ước lượng (bytes) của trie gợi ý
+     */
+    public long getCompletionBytes() {
+        return searchIndex.getCompletionBytes();
+    }
+    
+    /**
+     * Thống kê cache kết quả searchBooks (hit rate, loại bỏ, vô hiệu)
+     */
+    public SearchCacheStats getSearchCacheStats() {
+        return searchIndex.getCacheStats();
     }
     
     // Get methods
@@ -249,6 +455,25 @@ public class BookService {
         return new ArrayList<>(books.values());
     }
     
+    /**
+     * Sách được đăng trong khoảng [from, to), theo thứ tự đăng.
+     * Quét đoạn con của map theo id, không duyệt toàn bộ.
+     */
+    public List<Book> getBooksPostedBetween(LocalDateTime from, LocalDateTime to) {
+        return new ArrayList<>(books.subMap(IdGenerator.lowerBound("BOOK", from), true,
+                                            IdGenerator.lowerBound("BOOK", to), false).values());
+    }
+    
+    /**
+     * limit sách mới nhất (đang hiển thị)
+     */
+    public List<Book> getNewestBooks(int limit) {
+        return books.descendingMap().values().stream()
+                .filter(Book::isVisible)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+    
     public Map<String, Long> getBookStatsByFaculty() {
         return books.values().stream()
                 .filter(b -> b.getFaculty() != null)
@@ -4,6 +4,8 @@ import src.com.dnu.bookshare.model.Notification;
 import src.com.dnu.bookshare.model.Notification.*;
 import src.com.dnu.bookshare.persistence.DataManager;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 /**
@@ -14,17 +16,22 @@ public class NotificationService {
     private DataManager dataManager;
     
     public NotificationService(DataManager dataManager) {
-        this.notifications = new HashMap<>();
+        this.notifications = new ConcurrentHashMap<>();
         this.dataManager = dataManager;
         loadNotificationsFromStorage();
     }
     
+    /**
+     * Khởi tạo từ dữ liệu đã load sẵn (dùng bởi ServiceBootstrap), dùng luôn map được truyền vào
+     */
+    public NotificationService(DataManager dataManager, ConcurrentMap<String, Notification> notifications) {
+        this.notifications = notifications;
+        this.dataManager = dataManager;
+    }
+    
     private void loadNotificationsFromStorage() {
         try {
-            List<Notification> loadedNotifs = dataManager.findAllNotifications();
-            for (Notification notif : loadedNotifs) {
-                notifications.put(notif.getNotificationId(), notif);
-            }
+            dataManager.forEachNotification(n -> notifications.put(n.getNotificationId(), n));
             System.out.println("Đã load " + notifications.size() + " thông báo");
         } catch (Exception e) {
             System.out.println("Không thể load notifications: " + e.getMessage());
@@ -114,8 +121,13 @@ public class NotificationService {
      * Xóa thông báo
      */
     public void deleteNotification(String notificationId) {
-        notifications.remove(notificationId);
-        // Note: DataManager chưa có deleteNotification, cần implement
+        if (notifications.remove(notificationId) != null) {
+            try {
+                dataManager.deleteNotification(notificationId);
+            } catch (Exception e) {
+                System.err.println("Lỗi xóa notification: " + e.getMessage());
+            }
+        }
     }
     
     /**
@@ -173,7 +185,7 @@ public class NotificationService {
             transactionId
         );
     }
-    
+     
      /**
      * Thông báo sách đã được giao
      */
@@ -5,6 +5,8 @@ import src.com.dnu.bookshare.model.Report.*;
 import src.com.dnu.bookshare.persistence.DataManager;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 public class ReportService {
@@ -12,17 +14,22 @@ public class ReportService {
     private DataManager dataManager;
     
     public ReportService(DataManager dataManager) {
-        this.reports = new HashMap<>();
+        this.reports = new ConcurrentHashMap<>();
         this.dataManager = dataManager;
         loadReportsFromStorage();
     }
     
+    /**
+     * Khởi tạo từ dữ liệu đã load sẵn (dùng bởi ServiceBootstrap), dùng luôn map được truyền vào
+     */
+    public ReportService(DataManager dataManager, ConcurrentMap<String, Report> reports) {
+        this.reports = reports;
+        this.dataManager = dataManager;
+    }
+    
     private void loadReportsFromStorage() {
         try {
-            List<Report> loadedReports = dataManager.findAllReports();
-            for (Report report : loadedReports) {
-                reports.put(report.getReportId(), report);
-            }
+            dataManager.forEachReport(r -> reports.put(r.getReportId(), r));
             System.out.println("Đã load " + reports.size() + " báo cáo");
         } catch (Exception e) {
             System.out.println("Không thể load reports: " + e.getMessage());
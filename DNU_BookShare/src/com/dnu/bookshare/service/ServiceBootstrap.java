@@ -0,0 +1,159 @@
+package src.com.dnu.bookshare.service;
+
+import src.com.dnu.bookshare.model.*;
+import src.com.dnu.bookshare.persistence.DataManager;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * ServiceBootstrap - Khởi tạo các service song song
+ * Pha 1: load 6 tập entity đồng thời trên một thread pool giới hạn.
+ * Pha 2: mỗi service được dựng ngay khi dữ liệu của nó (và service nó phụ thuộc) sẵn sàng:
+ *   TransactionService cần BookService và sự kiện giao dịch, AdminService cần tất cả.
+ * Thời gian sẵn sàng xấp xỉ lần load chậm nhất thay vì tổng các lần load.
+ * Sau khi dựng xong, bật kiểm tra nhắc trả sách định kỳ (AdminService.startReminderChecks).
+ */
+public class ServiceBootstrap {
+    private final DataManager dataManager;
+    private final int threads;
+    private final Map<String, Long> timings = Collections.synchronizedMap(new LinkedHashMap<>());
+    
+    private UserService userService;
+    private BookService bookService;
+    private TransactionService transactionService;
+    private ReportService reportService;
+    private NotificationService notificationService;
+    private AdminService adminService;
+    
+    public ServiceBootstrap(DataManager dataManager) {
+        this(dataManager, Integer.getInteger("bookshare.bootstrap.threads",
+                Math.min(5, Runtime.getRuntime().availableProcessors())));
+    }
+    
+    public ServiceBootstrap(DataManager dataManager, int threads) {
+        this.dataManager = dataManager;
+        this.threads = Math.max(1, threads);
+    }
+    
+    /**
+     * Load dữ liệu và dựng toàn bộ service, chờ đến khi xong
+     */
+    public void start() throws Exception {
+        AtomicInteger threadNo = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "bootstrap-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        long start = System.nanoTime();
+        
+        try {
+            // Pha 1: load dữ liệu
+            // Mỗi service dùng luôn map được load, không sao chép sang map khác
+            CompletableFuture<ConcurrentMap<String, User>> users = load("users", "người dùng", executor,
+                    ConcurrentHashMap::new, c -> dataManager.forEachUser(u -> c.put(u.getUserId(), u)));
+            CompletableFuture<ConcurrentNavigableMap<String, Book>> books = load("books", "sách", executor,
+                    ConcurrentSkipListMap::new, c -> dataManager.forEachBook(b -> c.put(b.getBookId(), b)));
+            CompletableFuture<ConcurrentMap<String, Transaction>> transactions = load("transactions", "giao dịch",
+                    executor, ConcurrentHashMap::new,
+                    c -> dataManager.forEachTransaction(t -> c.put(t.getTransactionId(), t)));
+            CompletableFuture<ConcurrentMap<String, Report>> reports = load("reports", "báo cáo", executor,
+                    ConcurrentHashMap::new, c -> dataManager.forEachReport(r -> c.put(r.getReportId(), r)));
+            CompletableFuture<ConcurrentMap<String, Notification>> notifications = load("notifications",
+                    "thông báo", executor, ConcurrentHashMap::new,
+                    c -> dataManager.forEachNotification(n -> c.put(n.getNotificationId(), n)));
+            CompletableFuture<Map<String, TransactionEvent>> events = load("transaction_events", "sự kiện giao dịch",
+                    executor, HashMap::new,
+                    c -> dataManager.forEachTransactionEvent(e -> c.put(e.getEventId(), e)));
+            
+            // Pha 2: dựng service theo phụ thuộc
+            CompletableFuture<UserService> userF = users.thenApplyAsync(
+                    m -> timed("UserService", () -> new UserService(dataManager, m)), executor);
+            CompletableFuture<BookService> bookF = books.thenApplyAsync(
+                    m -> timed("BookService", () -> new BookService(dataManager, m)), executor);
+            CompletableFuture<TransactionService> transactionF = CompletableFuture
+                    .allOf(bookF, transactions, events)
+                    .thenApplyAsync(v -> timed("TransactionService", () -> new TransactionService(
+                            bookF.join(), dataManager, transactions.join(), events.join().values())), executor);
+            CompletableFuture<ReportService> reportF = reports.thenApplyAsync(
+                    m -> timed("ReportService", () -> new ReportService(dataManager, m)), executor);
+            CompletableFuture<NotificationService> notificationF = notifications.thenApplyAsync(
+                    m -> timed("NotificationService", () -> new NotificationService(dataManager, m)), executor);
+            
+            CompletableFuture<AdminService> adminF = CompletableFuture
+                    .allOf(userF, bookF, transactionF, reportF, notificationF)
+                    .thenApply(v -> timed("AdminService", () -> new AdminService(
+                            userF.join(), bookF.join(), transactionF.join(),
+                            reportF.join(), notificationF.join(), dataManager)));
+            
+            try {
+                adminService = adminF.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                        ? e.getCause().getCause() : e.getCause();
+                throw new Exception("Lỗi khởi tạo service: " + cause.getMessage(), cause);
+            }
+            userService = userF.join();
+            bookService = bookF.join();
+            transactionService = transactionF.join();
+            reportService = reportF.join();
+            notificationService = notificationF.join();
+            adminService.startReminderChecks();
+        } finally {
+            executor.shutdown();
+        }
+        
+        printTimings((System.nanoTime() - start) / 1_000_000);
+    }
+    
+    private <M extends Map<String, ?>> CompletableFuture<M> load(String name, String label, Executor executor,
+                                                                 Supplier<M> container, Consumer<M> loader) {
+        return CompletableFuture.supplyAsync(() -> timed("load " + name, () -> {
+            M map = container.get();
+            loader.accept(map);
+            System.out.println("Đã load " + map.size() + " " + label);
+            return map;
+        }), executor);
+    }
+    
+    private <R> R timed(String phase, Supplier<R> work) {
+        long start = System.nanoTime();
+        R result = work.get();
+        timings.put(phase, (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+    
+    private void printTimings(long totalMillis) {
+        long loadSum = 0;
+        long slowestLoad = 0;
+        StringBuilder sb = new StringBuilder("⏱  Thời gian khởi tạo (" + threads + " thread):\n");
+        synchronized (timings) {
+            for (Map.Entry<String, Long> e : timings.entrySet()) {
+                sb.append(String.format("   %-22s %6d ms%n", e.getKey(), e.getValue()));
+                if (e.getKey().startsWith("load ")) {
+                    loadSum += e.getValue();
+                    slowestLoad = Math.max(slowestLoad, e.getValue());
+                }
+            }
+        }
+        sb.append(String.format("   Sẵn sàng sau %d ms (load chậm nhất %d ms, tổng các lần load %d ms)",
+                                totalMillis, slowestLoad, loadSum));
+        System.out.println(sb);
+    }
+    
+    public Map<String, Long> getTimings() {
+        synchronized (timings) {
+            return new LinkedHashMap<>(timings);
+        }
+    }
+    
+    public UserService getUserService() { return userService; }
+    public BookService getBookService() { return bookService; }
+    public TransactionService getTransactionService() { return transactionService; }
+    public ReportService getReportService() { return reportService; }
+    public NotificationService getNotificationService() { return notificationService; }
+    public AdminService getAdminService() { return adminService; }
+}
@@ -2,36 +2,185 @@ package src.com.dnu.bookshare.service;
 
 import src.com.dnu.bookshare.model.Transaction;
 import src.com.dnu.bookshare.model.Transaction.*;
+import src.com.dnu.bookshare.model.TransactionEvent;
+import src.com.dnu.bookshare.model.TransactionEvent.EventType;
 import src.com.dnu.bookshare.model.Book;
 import src.com.dnu.bookshare.persistence.DataManager;
+import src.com.dnu.bookshare.persistence.EntityType;
+import src.com.dnu.bookshare.persistence.UnitOfWork;
+import src.com.dnu.bookshare.service.transactions.*;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
+/**
+ * TransactionService - Vòng đời giao dịch mượn/mua
+ * Trạng thái giao dịch và sách chỉ đổi theo bảng chuyển trạng thái (canTransitionTo của
+ * TransactionStatus, BookStatus) bằng compare-and-set trên từng entity, không có khóa chung:
+ * nhiều người cùng gửi yêu cầu cho một sách thì chỉ một người đặt được.
+ * Thao tác đổi cả giao dịch và sách ghi cả hai bằng một UnitOfWork (DataManager.commit).
+ * Mỗi bước của vòng đời được ghi thêm một TransactionEvent vào log sự kiện, trong cùng UnitOfWork;
+ * các projection (trạng thái, lịch sử theo người dùng, số lần cho mượn theo sách) cập nhật tăng dần
+ * từ log và dựng lại được bằng cách phát lại log (rebuildProjections).
+ */
 public class TransactionService {
     private Map<String, Transaction> transactions;
     private BookService bookService;
     private DataManager dataManager;
+    // Giao dịch theo người dùng và trạng thái, cập nhật ở mỗi lần tạo/đổi trạng thái
+    private TransactionIndex index;
+    // Hạn trả của các giao dịch mượn đang diễn ra, cập nhật khi giao sách, gia hạn, trả, hủy
+    private DueDateScheduler dueDates;
+    // Log sự kiện vòng đời giao dịch và các projection đăng ký vào nó
+    private TransactionEventLog events;
+    private TransactionStateProjection states = new TransactionStateProjection();
+    private UserHistoryProjection histories = new UserHistoryProjection();
+    private BookLendingProjection lending = new BookLendingProjection();
     
     public TransactionService(BookService bookService, DataManager dataManager) {
-        this.transactions = new HashMap<>();
+        this.transactions = new ConcurrentHashMap<>();
         this.bookService = bookService;
         this.dataManager = dataManager;
         loadTransactionsFromStorage();
+        this.index = new TransactionIndex(transactions.values());
+        this.dueDates = new DueDateScheduler(transactions.values());
+        initEvents(loadEventsFromStorage(dataManager));
+    }
+    
+    /**
+     * Khởi tạo từ giao dịch đã load sẵn, sự kiện đọc từ storage
+     */
+    public TransactionService(BookService bookService, DataManager dataManager,
+                              ConcurrentMap<String, Transaction> transactions) {
+        this(bookService, dataManager, transactions, loadEventsFromStorage(dataManager));
+    }
+    
+    /**
+     * Khởi tạo từ dữ liệu đã load sẵn (dùng bởi ServiceBootstrap), dùng luôn map được truyền vào
+     */
+    public TransactionService(BookService bookService, DataManager dataManager,
+                              ConcurrentMap<String, Transaction> transactions, Collection<TransactionEvent> events) {
+        this.transactions = transactions;
+        this.bookService = bookService;
+        this.dataManager = dataManager;
+        this.index = new TransactionIndex(transactions.values());
+        this.dueDates = new DueDateScheduler(transactions.values());
+        initEvents(events);
     }
     
     private void loadTransactionsFromStorage() {
         try {
-            List<Transaction> loadedTransactions = dataManager.findAllTransactions();
-            for (Transaction transaction : loadedTransactions) {
-                transactions.put(transaction.getTransactionId(), transaction);
-            }
+            dataManager.forEachTransaction(t -> transactions.put(t.getTransactionId(), t));
             System.out.println("Đã load " + transactions.size() + " giao dịch");
         } catch (Exception e) {
             System.out.println("Không thể load transactions: " + e.getMessage());
         }
     }
     
+    private static List<TransactionEvent> loadEventsFromStorage(DataManager dataManager) {
+        List<TransactionEvent> loaded = new ArrayList<>();
+        dataManager.forEachTransactionEvent(loaded::add);
+        return loaded;
+    }
+    
+    /**
+     * Dựng log sự kiện, bổ sung sự kiện cho giao dịch chưa có (dữ liệu trước khi có log),
+     * rồi đăng ký các projection (catch-up từ đầu log)
+     */
+    private void initEvents(Collection<TransactionEvent> loaded) {
+        this.events = new TransactionEventLog(loaded);
+        backfillEvents();
+        events.register(states);
+        events.register(histories);
+        events.register(lending);
+    }
+    
+    /**
+     * Giao dịch không có sự kiện nào trong log: dựng lại các sự kiện từ mốc thời gian của giao dịch
+     * (requestedAt, approvedAt, deliveredAt, returnedAt, đánh giá, trạng thái cuối), ghi một lô
+     */
+    private void backfillEvents() {
+        Set<String> logged = new HashSet<>();
+        for (TransactionEvent event : events.eventsAfter(0)) {
+            logged.add(event.getTransactionId());
+        }
+        List<TransactionEvent> missing = new ArrayList<>();
+        for (Transaction t : transactions.values()) {
+            if (!logged.contains(t.getTransactionId())) {
+                missing.addAll(historyOf(t));
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        missing.sort(Comparator.comparing(TransactionEvent::getOccurredAt,
+                                          Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder())));
+        for (TransactionEvent event : missing) {
+            events.append(event);
+        }
+        try {
+            dataManager.saveTransactionEvents(missing);
+            System.out.println("Đã bổ sung " + missing.size() + " sự kiện cho giao dịch cũ");
+        } catch (Exception e) {
+            System.err.println("Lỗi lưu sự kiện giao dịch: " + e.getMessage());
+        }
+    }
+    
+    private static List<TransactionEvent> historyOf(Transaction t) {
+        List<TransactionEvent> history = new ArrayList<>();
+        TransactionEvent requested = new TransactionEvent(EventType.REQUESTED, t, TransactionStatus.PENDING,
+                                                          t.getRequestedAt());
+        requested.setAmount(t.getAmount());
+        history.add(requested);
+        LocalDateTime last = t.getRequestedAt();
+        
+        if (t.getStatus() == TransactionStatus.REJECTED) {
+            TransactionEvent rejected = new TransactionEvent(EventType.REJECTED, t, TransactionStatus.REJECTED,
+                                                             last);
+            rejected.setMessage(t.getMessage());
+            history.add(rejected);
+            return history;
+        }
+        requested.setMessage(t.getMessage());
+        if (t.getApprovedAt() != null) {
+            last = t.getApprovedAt();
+            history.add(new TransactionEvent(EventType.APPROVED, t, TransactionStatus.APPROVED, last));
+        }
+        if (t.getDeliveredAt() != null) {
+            last = t.getDeliveredAt();
+            TransactionEvent delivered = new TransactionEvent(EventType.DELIVERED, t,
+                    t.getType() == TransactionType.BUY ? TransactionStatus.COMPLETED : TransactionStatus.IN_PROGRESS,
+                    last);
+            delivered.setDueDate(t.getDueDate());
+            history.add(delivered);
+        }
+        if (t.getReturnedAt() != null) {
+            last = t.getReturnedAt();
+            history.add(new TransactionEvent(EventType.RETURNED, t, TransactionStatus.COMPLETED, last));
+        }
+        if (t.getStatus() == TransactionStatus.CANCELLED) {
+            history.add(new TransactionEvent(EventType.CANCELLED, t, TransactionStatus.CANCELLED, last));
+        }
+        if (t.getOwnerRating() > 0) {
+            history.add(rated(t, t.getBorrowerId(), t.getOwnerRating(), t.getOwnerReview(), last));
+        }
+        if (t.getBorrowerRating() > 0) {
+            history.add(rated(t, t.getOwnerId(), t.getBorrowerRating(), t.getBorrowerReview(), last));
+        }
+        return history;
+    }
+    
+    private static TransactionEvent rated(Transaction t, String userId, int rating, String review,
+                                          LocalDateTime at) {
+        TransactionEvent event = new TransactionEvent(EventType.RATED, t, at);
+        event.setActorId(userId);
+        event.setRating(rating);
+        event.setMessage(review);
+        return event;
+    }
+    
     // 29. Tạo yêu cầu mượn/mua
     public Transaction createRequest(String bookId, String borrowerId, 
                                     TransactionType type, String message) throws Exception {
@@ -40,14 +189,16 @@ public class TransactionService {
             throw new Exception("Sách không tồn tại");
         }
         
-        if (book.getStatus() != Book.BookStatus.AVAILABLE) {
-            throw new Exception("Sách không khả dụng");
-        }
-        
         if (book.getOwnerId().equals(borrowerId)) {
             throw new Exception("Không thể mượn sách của chính mình");
         }
         
+        // Kiểm tra và đặt trước trong một bước: chỉ một yêu cầu thắng khi nhiều người cùng gửi
+        UnitOfWork unit = new UnitOfWork();
+        if (!bookService.transitionBookStatus(bookId, Book.BookStatus.AVAILABLE, Book.BookStatus.RESERVED, unit)) {
+            throw new Exception("Sách không khả dụng");
+        }
+        
         Transaction transaction = new Transaction(bookId, book.getOwnerId(), 
                                                   borrowerId, type);
         transaction.setMessage(message);
@@ -57,13 +208,12 @@ public class TransactionService {
         }
         
         transactions.put(transaction.getTransactionId(), transaction);
-        bookService.updateBookStatus(bookId, Book.BookStatus.RESERVED);
-        
-        try {
-            dataManager.saveTransaction(transaction);
-        } catch (Exception e) {
-            System.err.println("Lỗi lưu transaction: " + e.getMessage());
-        }
+        index.add(transaction);
+        TransactionEvent event = new TransactionEvent(EventType.REQUESTED, transaction, transaction.getRequestedAt());
+        event.setMessage(message);
+        event.setAmount(transaction.getAmount());
+        record(event, unit);
+        save(transaction, unit);
         
         return transaction;
     }
@@ -75,14 +225,12 @@ public class TransactionService {
             throw new Exception("Giao dịch không tồn tại");
         }
         
-        transaction.setStatus(TransactionStatus.APPROVED);
+        changeStatus(transaction, TransactionStatus.APPROVED);
         transaction.setApprovedAt(LocalDateTime.now());
         
-        try {
-            dataManager.saveTransaction(transaction);
-        } catch (Exception e) {
-            System.err.println("Lỗi lưu transaction: " + e.getMessage());
-        }
+        UnitOfWork unit = new UnitOfWork();
+        record(new TransactionEvent(EventType.APPROVED, transaction, transaction.getApprovedAt()), unit);
+        save(transaction, unit);
     }
     
     // 32. Từ chối yêu cầu
@@ -92,15 +240,14 @@ public class TransactionService {
             throw new Exception("Giao dịch không tồn tại");
         }
         
-        transaction.setStatus(TransactionStatus.REJECTED);
+        changeStatus(transaction, TransactionStatus.REJECTED);
         transaction.setMessage(reason);
-        bookService.updateBookStatus(transaction.getBookId(), Book.BookStatus.AVAILABLE);
-        
-        try {
-            dataManager.saveTransaction(transaction);
-        } catch (Exception e) {
-            System.err.println("Lỗi lưu transaction: " + e.getMessage());
-        }
+        UnitOfWork unit = new UnitOfWork();
+        bookService.updateBookStatus(transaction.getBookId(), Book.BookStatus.AVAILABLE, unit);
+        TransactionEvent event = new TransactionEvent(EventType.REJECTED, transaction, LocalDateTime.now());
+        event.setMessage(reason);
+        record(event, unit);
+        save(transaction, unit);
     }
     
     // 33. Xác nhận giao sách
@@ -110,23 +257,23 @@ public class TransactionService {
             throw new Exception("Giao dịch không tồn tại");
         }
         
-        transaction.setStatus(TransactionStatus.IN_PROGRESS);
+        changeStatus(transaction, TransactionStatus.IN_PROGRESS);
         transaction.setDeliveredAt(LocalDateTime.now());
         
+        UnitOfWork unit = new UnitOfWork();
         if (transaction.getType() == TransactionType.BORROW) {
             LocalDateTime dueDate = LocalDateTime.now().plusDays(borrowDays);
             transaction.setDueDate(dueDate);
-            bookService.updateBookStatus(transaction.getBookId(), Book.BookStatus.BORROWED);
+            bookService.updateBookStatus(transaction.getBookId(), Book.BookStatus.BORROWED, unit);
         } else if (transaction.getType() == TransactionType.BUY) {
-            bookService.updateBookStatus(transaction.getBookId(), Book.BookStatus.SOLD);
-            transaction.setStatus(TransactionStatus.COMPLETED);
-        }
-        
-        try {
-            dataManager.saveTransaction(transaction);
-        } catch (Exception e) {
-            System.err.println("Lỗi lưu transaction: " + e.getMessage());
+            bookService.updateBookStatus(transaction.getBookId(), Book.BookStatus.SOLD, unit);
+            changeStatus(transaction, TransactionStatus.COMPLETED);
         }
+        dueDates.schedule(transaction, LocalDateTime.now());
+        TransactionEvent event = new TransactionEvent(EventType.DELIVERED, transaction, transaction.getDeliveredAt());
+        event.setDueDate(transaction.getDueDate());
+        record(event, unit);
+        save(transaction, unit);
     }
     
     // 34. Xác nhận trả sách
@@ -140,15 +287,13 @@ public class TransactionService {
             throw new Exception("Chỉ giao dịch mượn mới có trả sách");
         }
         
-        transaction.setStatus(TransactionStatus.COMPLETED);
+        changeStatus(transaction, TransactionStatus.COMPLETED);
         transaction.setReturnedAt(LocalDateTime.now());
-        bookService.updateBookStatus(transaction.getBookId(), Book.BookStatus.AVAILABLE);
-        
-        try {
-            dataManager.saveTransaction(transaction);
-        } catch (Exception e) {
-            System.err.println("Lỗi lưu transaction: " + e.getMessage());
-        }
+        dueDates.cancel(transaction);
+        UnitOfWork unit = new UnitOfWork();
+        bookService.updateBookStatus(transaction.getBookId(), Book.BookStatus.AVAILABLE, unit);
+        record(new TransactionEvent(EventType.RETURNED, transaction, transaction.getReturnedAt()), unit);
+        save(transaction, unit);
     }
     
     // 35. Gia hạn mượn sách
@@ -164,12 +309,13 @@ public class TransactionService {
         
         LocalDateTime newDueDate = transaction.getDueDate().plusDays(extraDays);
         transaction.setDueDate(newDueDate);
+        dueDates.schedule(transaction, LocalDateTime.now());
         
-        try {
-            dataManager.saveTransaction(transaction);
-        } catch (Exception e) {
-            System.err.println("Lỗi lưu transaction: " + e.getMessage());
-        }
+        UnitOfWork unit = new UnitOfWork();
+        TransactionEvent event = new TransactionEvent(EventType.EXTENDED, transaction, LocalDateTime.now());
+        event.setDueDate(newDueDate);
+        record(event, unit);
+        save(transaction, unit);
     }
     
     // 36. Hủy giao dịch
@@ -179,19 +325,14 @@ public class TransactionService {
             throw new Exception("Giao dịch không tồn tại");
         }
         
-        transaction.setStatus(TransactionStatus.CANCELLED);
-        
-        // Trả lại trạng thái sách
-        Book book = bookService.getBookById(transaction.getBookId());
-        if (book != null && book.getStatus() != Book.BookStatus.SOLD) {
-            bookService.updateBookStatus(transaction.getBookId(), Book.BookStatus.AVAILABLE);
-        }
+        changeStatus(transaction, TransactionStatus.CANCELLED);
+        dueDates.cancel(transaction);
         
-        try {
-            dataManager.saveTransaction(transaction);
-        } catch (Exception e) {
-            System.err.println("Lỗi lưu transaction: " + e.getMessage());
-        }
+        // Trả lại trạng thái sách (sách đã bán thì bảng trạng thái không cho đổi)
+        UnitOfWork unit = new UnitOfWork();
+        bookService.updateBookStatus(transaction.getBookId(), Book.BookStatus.AVAILABLE, unit);
+        record(new TransactionEvent(EventType.CANCELLED, transaction, LocalDateTime.now()), unit);
+        save(transaction, unit);
     }
     
     // 37. Đánh giá sau giao dịch
@@ -220,43 +361,86 @@ public class TransactionService {
             throw new Exception("Bạn không tham gia giao dịch này");
         }
         
+        UnitOfWork unit = new UnitOfWork();
+        record(rated(transaction, userId, rating, review, LocalDateTime.now()), unit);
+        save(transaction, unit);
+    }
+    
+    /**
+     * Đổi trạng thái theo bảng TransactionStatus.canTransitionTo bằng CAS, rồi chuyển giao dịch
+     * sang đúng danh sách trong chỉ mục. Hai thao tác đồng thời trên cùng giao dịch (duyệt và hủy):
+     * một cái thắng, cái kia thấy trạng thái mới và bị từ chối nếu bảng không cho phép.
+     */
+    private void changeStatus(Transaction transaction, TransactionStatus status) throws Exception {
+        while (true) {
+            TransactionStatus previous = transaction.getStatus();
+            if (!previous.canTransitionTo(status)) {
+                throw new Exception("Không thể chuyển giao dịch từ " + previous + " sang " + status);
+            }
+            if (transaction.compareAndSetStatus(previous, status)) {
+                index.moveStatus(transaction, previous);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Ghi sự kiện vào log (các projection cập nhật ngay) và đưa vào unit để lưu cùng giao dịch
+     */
+    private void record(TransactionEvent event, UnitOfWork unit) {
+        events.append(event);
+        unit.upsert(EntityType.TRANSACTION_EVENTS, event);
+    }
+    
+    /**
+     * Ghi giao dịch cùng các sách đã đổi trong unit bằng một lần commit
+     */
+    private void save(Transaction transaction, UnitOfWork unit) {
+        unit.upsert(EntityType.TRANSACTIONS, transaction);
         try {
-            dataManager.saveTransaction(transaction);
+            dataManager.commit(unit);
         } catch (Exception e) {
             System.err.println("Lỗi lưu transaction: " + e.getMessage());
         }
     }
     
-    // 39-42. Lịch sử giao dịch
+    // 39-42. Lịch sử giao dịch (mới nhất trước, đọc từ chỉ mục theo người dùng)
     public List<Transaction> getUserTransactions(String userId) {
-        return transactions.values().stream()
-                .filter(t -> t.getOwnerId().equals(userId) || 
-                           t.getBorrowerId().equals(userId))
-                .sorted(Comparator.comparing(Transaction::getRequestedAt).reversed())
-                .collect(Collectors.toList());
+        return index.ofUser(userId);
     }
     
     public List<Transaction> getBorrowedBooks(String userId) {
-        return transactions.values().stream()
-                .filter(t -> t.getBorrowerId().equals(userId) && 
-                           t.getType() == TransactionType.BORROW &&
-                           t.getStatus() == TransactionStatus.IN_PROGRESS)
+        return index.ofBorrower(userId, TransactionStatus.IN_PROGRESS).stream()
+                .filter(t -> t.getType() == TransactionType.BORROW)
                 .collect(Collectors.toList());
     }
     
     public List<Transaction> getLentBooks(String userId) {
-        return transactions.values().stream()
-                .filter(t -> t.getOwnerId().equals(userId) && 
-                           t.getType() == TransactionType.BORROW &&
-                           t.getStatus() == TransactionStatus.IN_PROGRESS)
+        return index.ofOwner(userId, TransactionStatus.IN_PROGRESS).stream()
+                .filter(t -> t.getType() == TransactionType.BORROW)
                 .collect(Collectors.toList());
     }
     
-    // 43. Kiểm tra sách quá hạn
+    // 43. Kiểm tra sách quá hạn (đọc từ lịch hạn trả, hạn sớm nhất trước)
     public List<Transaction> getOverdueTransactions() {
-        return transactions.values().stream()
-                .filter(Transaction::isOverdue)
-                .collect(Collectors.toList());
+        return dueDates.overdue(LocalDateTime.now());
+    }
+    
+    /**
+     * Các mốc nhắc trả đã tới tại now và chưa gửi (mỗi mốc chỉ trả về một lần).
+     * Tiến độ nhắc được ghi xuống storage trước khi người gọi gửi thông báo,
+     * nên khởi động lại không gửi lại.
+     */
+    public List<DueReminder> pollDueReminders(LocalDateTime now) {
+        List<DueReminder> reminders = dueDates.poll(now);
+        for (DueReminder reminder : reminders) {
+            try {
+                dataManager.saveTransaction(reminder.getTransaction());
+            } catch (Exception e) {
+                System.err.println("Lỗi lưu transaction: " + e.getMessage());
+            }
+        }
+        return reminders;
     }
     
     public Transaction getTransactionById(String transactionId) {
@@ -264,16 +448,57 @@ public class TransactionService {
     }
     
     public List<Transaction> getPendingRequests(String ownerId) {
-        return transactions.values().stream()
-                .filter(t -> t.getOwnerId().equals(ownerId) && 
-                           t.getStatus() == TransactionStatus.PENDING)
-                .collect(Collectors.toList());
+        return index.ofOwner(ownerId, TransactionStatus.PENDING);
     }
     
     public List<Transaction> getAllTransactions() {
         return new ArrayList<>(transactions.values());
     }
     
+    // ============ LOG SỰ KIỆN VÀ PROJECTION ============
+    
+    /**
+     * Tối đa limit sự kiện giao dịch gần nhất của người dùng, mới nhất trước
+     */
+    public List<TransactionEvent> getUserActivity(String userId, int limit) {
+        return histories.history(userId, limit);
+    }
+    
+    public BookLendingProjection.Counts getBookLendingCounts(String bookId) {
+        return lending.countsOf(bookId);
+    }
+    
+    /**
+     * Id của các sách được cho mượn nhiều nhất
+     */
+    public List<String> getMostLentBookIds(int limit) {
+        return lending.mostLent(limit);
+    }
+    
+    /**
+     * Số giao dịch theo trạng thái (projection trạng thái, không quét giao dịch)
+     */
+    public int countByStatus(TransactionStatus status) {
+        return states.count(status);
+    }
+    
+    public int getEventCount() {
+        return events.size();
+    }
+    
+    /**
+     * Dựng lại mọi projection bằng cách phát lại toàn bộ log sự kiện
+     * @return số sự kiện đã phát lại
+     */
+    public int rebuildProjections() {
+        int replayed = 0;
+        for (TransactionProjection projection : List.of(states, histories, lending)) {
+            replayed = events.rebuild(projection);
+        }
+        System.out.println("Đã dựng lại projection giao dịch từ " + replayed + " sự kiện");
+        return replayed;
+    }
+    
     /**
      * Lưu tất cả transactions
      */
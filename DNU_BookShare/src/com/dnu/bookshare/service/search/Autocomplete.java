@@ -0,0 +1,147 @@
+package src.com.dnu.bookshare.service.search;
+
+import java.util.*;
+
+/**
+ * Autocomplete - Gợi ý khi gõ cho tiêu đề, tác giả và môn học: mỗi loại một CompletionTrie.
+ * Chỉ sách đang hiển thị được tính; trọng số mỗi sách = lượt xem + 1.
+ *
+ * Không thread-safe; BookSearchIndex bọc khóa bên ngoài.
+ */
+final class Autocomplete {
+    private final CompletionTrie titles = new CompletionTrie();
+    private final CompletionTrie authors = new CompletionTrie();
+    private final CompletionTrie subjects = new CompletionTrie();
+    // Những gì đã thêm vào trie cho từng doc, để gỡ đúng khi sách thay đổi
+    private final Map<Integer, Indexed> documents = new HashMap<>();
+    
+    /**
+     * Index (lại) một doc; visible = false thì gỡ khỏi gợi ý
+     */
+    void index(int doc, String title, String author, String subject, int viewCount, boolean visible) {
+        Indexed previous = documents.get(doc);
+        if (!visible) {
+            remove(doc);
+            return;
+        }
+        Indexed current = new Indexed(title, author, subject, Math.max(0, viewCount) + 1L);
+        if (previous != null && previous.sameText(current)) {
+            updateWeight(doc, current.weight);
+            return;
+        }
+        remove(doc);
+        documents.put(doc, current);
+        add(titles, current.title, current.weight);
+        add(authors, current.author, current.weight);
+        add(subjects, current.subject, current.weight);
+    }
+    
+    void remove(int doc) {
+        Indexed previous = documents.remove(doc);
+        if (previous == null) {
+            return;
+        }
+        remove(titles, previous.title, previous.weight);
+        remove(authors, previous.author, previous.weight);
+        remove(subjects, previous.subject, previous.weight);
+    }
+    
+    /**
+     * Chỉ đổi lượt xem (đường nóng khi flush lượt xem)
+     */
+    void updateWeight(int doc, int viewCount) {
+        updateWeight(doc, Math.max(0, viewCount) + 1L);
+    }
+    
+    private void updateWeight(int doc, long weight) {
+        Indexed indexed = documents.get(doc);
+        if (indexed == null || indexed.weight == weight) {
+            return;
+        }
+        long delta = weight - indexed.weight;
+        indexed.weight = weight;
+        adjust(titles, indexed.title, delta);
+        adjust(authors, indexed.author, delta);
+        adjust(subjects, indexed.subject, delta);
+    }
+    
+    /**
+     * Tối đa limit gợi ý cho prefix; kind = null thì gộp cả ba loại theo độ phổ biến.
+     * Khoảng trắng cuối prefix được giữ: "lap " chỉ gợi ý cụm có từ "lap" trọn vẹn.
+     */
+    List<Completion> complete(String prefix, Completion.Kind kind, int limit) {
+        List<Completion> result = new ArrayList<>(Math.min(limit, CompletionTrie.TOP_K) * 3);
+        String key = CompletionTrie.keyOf(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return result;
+        }
+        if (Character.isWhitespace(prefix.charAt(prefix.length() - 1))) {
+            key += " ";
+        }
+        if (kind == null || kind == Completion.Kind.TITLE) {
+            titles.complete(key, limit, Completion.Kind.TITLE, result);
+        }
+        if (kind == null || kind == Completion.Kind.AUTHOR) {
+            authors.complete(key, limit, Completion.Kind.AUTHOR, result);
+        }
+        if (kind == null || kind == Completion.Kind.SUBJECT) {
+            subjects.complete(key, limit, Completion.Kind.SUBJECT, result);
+        }
+        if (kind == null) {
+            result.sort(Comparator.comparingLong(Completion::getPopularity).reversed());
+            if (result.size() > limit) {
+                result.subList(limit, result.size()).clear();
+            }
+        }
+        return result;
+    }
+    
+    int getEntryCount() {
+        return titles.getEntryCount() + authors.getEntryCount() + subjects.getEntryCount();
+    }
+    
+    int getNodeCount() {
+        return titles.getNodeCount() + authors.getNodeCount() + subjects.getNodeCount();
+    }
+    
+    long getNodeBytes() {
+        return titles.getNodeBytes() + authors.getNodeBytes() + subjects.getNodeBytes();
+    }
+    
+    private static void add(CompletionTrie trie, String text, long weight) {
+        if (text != null) {
+            trie.add(text, weight);
+        }
+    }
+    
+    private static void remove(CompletionTrie trie, String text, long weight) {
+        if (text != null) {
+            trie.remove(text, weight);
+        }
+    }
+    
+    private static void adjust(CompletionTrie trie, String text, long delta) {
+        if (text != null) {
+            trie.adjust(text, delta);
+        }
+    }
+    
+    private static final class Indexed {
+        final String title;
+        final String author;
+        final String subject;
+        long weight;
+        
+        Indexed(String title, String author, String subject, long weight) {
+            this.title = title;
+            this.author = author;
+            this.subject = subject;
+            this.weight = weight;
+        }
+        
+        boolean sameText(Indexed other) {
+            return Objects.equals(title, other.title) && Objects.equals(author, other.author)
+                    && Objects.equals(subject, other.subject);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package src.com.dnu.bookshare.service.search;
+
+import java.util.*;
+
+/**
+ * BitmapIndex - Chỉ mục phụ: mỗi giá trị của một thuộc tính → bitmap các ordinal có giá trị đó
+ */
+final class BitmapIndex<K> {
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+    private final Map<K, RoaringBitmap> bitmaps = new HashMap<>();
+    
+    void add(K key, int ordinal) {
+        if (key != null) {
+            bitmaps.computeIfAbsent(key, k -> new RoaringBitmap()).add(ordinal);
+        }
+    }
+    
+    void remove(K key, int ordinal) {
+        if (key == null) {
+            return;
+        }
+        RoaringBitmap bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.remove(ordinal);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+    
+    /**
+     * Bitmap của giá trị (chỉ đọc), rỗng nếu không sách nào có giá trị này
+     */
+    RoaringBitmap get(K key) {
+        return bitmaps.getOrDefault(key, EMPTY);
+    }
+    
+    int keyCount() {
+        return bitmaps.size();
+    }
+    
+    long sizeInBytes() {
+        long bytes = 0;
+        for (RoaringBitmap bitmap : bitmaps.values()) {
+            bytes += bitmap.sizeInBytes();
+        }
+        return bytes;
+    }
+}
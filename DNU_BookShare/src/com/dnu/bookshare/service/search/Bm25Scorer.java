@@ -0,0 +1,297 @@
+package src.com.dnu.bookshare.service.search;
+
+import java.util.*;
+
+/**
+ * Bm25Scorer - Điểm liên quan BM25F của một truy vấn từ khóa trên các trường tiêu đề, tác giả, mô tả
+ * (đúng thứ tự BookSearchIndex index), tính từ thống kê của InvertedIndex:
+ *   tf~ = Σ trường boost * tf / (1 - b + b * độ dài trường / độ dài trung bình)
+ *   điểm của một từ = idf * tf~ / (K1 + tf~),   idf = ln(1 + (N - df + 0.5) / (df + 0.5))
+ * Mỗi từ của truy vấn khớp theo tiền tố như tìm kiếm; từ trong chỉ mục chỉ bắt đầu bằng nó được
+ * nhân PREFIX_WEIGHT, và một từ truy vấn chỉ lấy điểm cao nhất trong các từ nó khớp.
+ *
+ * Mỗi từ có một cận trên điểm = điểm lớn nhất thật sự của nó trên mọi doc (tf~ lớn nhất của
+ * từng danh sách doc, lưu ở PostingList và chỉ tính lại khi nội dung chỉ mục đổi), để
+ * BookSearchIndex dừng sớm kiểu MaxScore: bỏ qua doc khi điểm đã tính + cận trên các từ còn lại
+ * không vượt được ngưỡng top-K.
+ *
+ * Một Ranking dùng con trỏ tiến dần trên các danh sách doc nên phải hỏi điểm theo ordinal tăng dần.
+ */
+final class Bm25Scorer {
+    static final double K1 = 1.2;
+    // Tiêu đề, tác giả, mô tả
+    private static final double[] BOOSTS = {3.0, 2.0, 1.0};
+    private static final double[] B = {0.5, 0.5, 0.75};
+    static final double PREFIX_WEIGHT = 0.8;
+    // Từ truy vấn khớp nhiều từ hơn ngần này (tiền tố ngắn): tính sẵn điểm cho mọi doc
+    // thay vì giữ một con trỏ cho mỗi từ khớp
+    private static final int MAX_CURSORS = 16;
+    
+    private Bm25Scorer() {
+    }
+    
+    /**
+     * Chuẩn bị chấm điểm cho keyword (cùng cú pháp với InvertedIndex.search)
+     * @param docCapacity lớn hơn mọi ordinal đang có
+     */
+    static Ranking rank(InvertedIndex text, String keyword, int docCapacity) {
+        double[] averages = new double[BOOSTS.length];
+        for (int f = 0; f < averages.length; f++) {
+            averages[f] = text.averageFieldLength(f);
+        }
+        Ranking ranking = new Ranking(text, averages);
+        Set<String> seen = new HashSet<>();
+        String[] parts = keyword == null ? new String[0] : keyword.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            boolean phrase = i % 2 == 1;
+            for (String token : TextNormalizer.tokenize(parts[i])) {
+                // Từ trong cụm từ phải trùng hẳn
+                if (seen.add((phrase ? "\"" : "") + token)) {
+                    ranking.addWord(token, phrase, docCapacity);
+                }
+            }
+        }
+        ranking.sortWords();
+        return ranking;
+    }
+    
+    private static double saturate(double tf) {
+        return tf / (K1 + tf);
+    }
+    
+    static final class Ranking {
+        private final InvertedIndex text;
+        private final double[] averages;
+        private final int documentCount;
+        private final long generation;
+        private final List<Word> words = new ArrayList<>();
+        // remaining[i] = tổng cận trên của words[i..]
+        private double[] remaining = new double[1];
+        // Mẫu số chuẩn hóa độ dài (1 - b + b * độ dài / trung bình) từng trường của doc đang chấm
+        private final double[] norms = new double[BOOSTS.length];
+        
+        private Ranking(InvertedIndex text, double[] averages) {
+            this.text = text;
+            this.averages = averages;
+            this.documentCount = text.getDocumentCount();
+            this.generation = text.generation();
+        }
+        
+        boolean isEmpty() {
+            return words.isEmpty();
+        }
+        
+        /**
+         * Cận trên điểm của mọi doc
+         */
+        double maxScore() {
+            return remaining[0];
+        }
+        
+        /**
+         * Điểm của doc; -1 nếu chắc chắn không lớn hơn threshold (dừng giữa chừng).
+         * Các lần gọi phải có doc tăng dần.
+         */
+        double score(int doc, double threshold) {
+            int[] lengths = text.fieldLengths(doc);
+            if (lengths == null) {
+                return -1;
+            }
+            normalize(lengths);
+            double score = 0;
+            for (int i = 0; i < words.size(); i++) {
+                if (score + remaining[i] <= threshold) {
+                    return -1;
+                }
+                score += words.get(i).score(doc, lengths, true);
+            }
+            return score > threshold ? score : -1;
+        }
+        
+        /**
+         * Điểm của một doc bất kỳ (không dùng con trỏ, không ảnh hưởng các lần gọi score)
+         */
+        double scoreOf(int doc) {
+            int[] lengths = text.fieldLengths(doc);
+            if (lengths == null) {
+                return 0;
+            }
+            normalize(lengths);
+            double score = 0;
+            for (Word word : words) {
+                score += word.score(doc, lengths, false);
+            }
+            return score;
+        }
+        
+        private void normalize(int[] lengths) {
+            for (int f = 0; f < norms.length; f++) {
+                int length = f < lengths.length ? lengths[f] : 0;
+                norms[f] = averages[f] > 0 ? 1 - B[f] + B[f] * length / averages[f] : 1;
+            }
+        }
+        
+        private void addWord(String token, boolean exactOnly, int docCapacity) {
+            Word word = new Word();
+            if (exactOnly) {
+                PostingList postings = text.postings(token);
+                if (postings != null) {
+                    word.add(postings, idf(postings));
+                }
+            } else {
+                for (Map.Entry<String, PostingList> e : text.prefixRange(token).entrySet()) {
+                    double weight = e.getKey().length() == token.length() ? 1 : PREFIX_WEIGHT;
+                    word.add(e.getValue(), weight * idf(e.getValue()));
+                }
+            }
+            if (word.terms.size() > MAX_CURSORS) {
+                word.precompute(docCapacity);
+            } else {
+                for (Term term : word.terms) {
+                    term.upperBound = term.weight * saturate(maxTermFrequency(term.postings));
+                    word.upperBound = Math.max(word.upperBound, term.upperBound);
+                }
+            }
+            words.add(word);
+        }
+        
+        /**
+         * Từ có cận trên lớn trước: phần còn lại giảm nhanh, dừng sớm được sớm hơn
+         */
+        private void sortWords() {
+            words.sort(Comparator.comparingDouble((Word w) -> w.upperBound).reversed());
+            remaining = new double[words.size() + 1];
+            for (int i = words.size() - 1; i >= 0; i--) {
+                remaining[i] = remaining[i + 1] + words.get(i).upperBound;
+            }
+        }
+        
+        private double idf(PostingList postings) {
+            int df = postings.size();
+            return Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+        }
+        
+        /**
+         * tf~ của một từ trong doc đang chấm (norms đã tính cho doc đó).
+         * Vị trí tăng dần; các trường nối tiếp nhau, cách nhau một ô null.
+         */
+        private double termFrequency(int[] positions, int[] lengths) {
+            double tf = 0;
+            int field = 0;
+            int end = lengths[0];
+            int count = 0;
+            for (int position : positions) {
+                while (position >= end) {
+                    tf += fieldScore(field, count);
+                    count = 0;
+                    field++;
+                    end += 1 + lengths[field];
+                }
+                count++;
+            }
+            return tf + fieldScore(field, count);
+        }
+        
+        private double fieldScore(int field, int count) {
+            return count == 0 || field >= BOOSTS.length ? 0 : BOOSTS[field] * count / norms[field];
+        }
+        
+        /**
+         * tf~ lớn nhất của một từ trên mọi doc; duyệt cả danh sách doc lần đầu sau mỗi thay đổi nội dung
+         */
+        private double maxTermFrequency(PostingList postings) {
+            double cached = postings.maxTermFrequency(generation);
+            if (!Double.isNaN(cached)) {
+                return cached;
+            }
+            double max = 0;
+            for (int i = 0; i < postings.size(); i++) {
+                int[] lengths = text.fieldLengths(postings.doc(i));
+                if (lengths != null) {
+                    normalize(lengths);
+                    max = Math.max(max, termFrequency(postings.positionsAt(i), lengths));
+                }
+            }
+            postings.setMaxTermFrequency(generation, max);
+            return max;
+        }
+        
+        /**
+         * Một từ của truy vấn và các từ trong chỉ mục nó khớp
+         */
+        private final class Word {
+            final List<Term> terms = new ArrayList<>();
+            double upperBound;
+            // Điểm tính sẵn theo ordinal khi khớp quá nhiều từ, null nếu dùng con trỏ
+            float[] precomputed;
+            
+            void add(PostingList postings, double weight) {
+                terms.add(new Term(postings, weight));
+            }
+            
+            void precompute(int docCapacity) {
+                precomputed = new float[docCapacity];
+                for (Term term : terms) {
+                    PostingList postings = term.postings;
+                    for (int i = 0; i < postings.size(); i++) {
+                        int doc = postings.doc(i);
+                        int[] lengths = text.fieldLengths(doc);
+                        if (doc < docCapacity && lengths != null) {
+                            normalize(lengths);
+                            double score = term.score(postings.positionsAt(i), lengths);
+                            precomputed[doc] = (float) Math.max(precomputed[doc], score);
+                        }
+                    }
+                }
+                // Đã có điểm của mọi doc: cận trên là điểm lớn nhất
+                for (float score : precomputed) {
+                    upperBound = Math.max(upperBound, score);
+                }
+            }
+            
+            double score(int doc, int[] lengths, boolean advance) {
+                if (precomputed != null) {
+                    return doc < precomputed.length ? precomputed[doc] : 0;
+                }
+                double best = 0;
+                for (Term term : terms) {
+                    if (term.upperBound <= best) {
+                        // Không thể cao hơn; con trỏ sẽ được tiến ở doc sau
+                        continue;
+                    }
+                    int[] positions;
+                    if (advance) {
+                        term.cursor = term.postings.seek(doc, term.cursor);
+                        if (term.cursor >= term.postings.size() || term.postings.doc(term.cursor) != doc) {
+                            continue;
+                        }
+                        positions = term.postings.positionsAt(term.cursor);
+                    } else {
+                        positions = term.postings.positionsOf(doc);
+                        if (positions == null) {
+                            continue;
+                        }
+                    }
+                    best = Math.max(best, term.score(positions, lengths));
+                }
+                return best;
+            }
+        }
+        
+        private final class Term {
+            final PostingList postings;
+            final double weight;
+            double upperBound;
+            int cursor;
+            
+            Term(PostingList postings, double weight) {
+                this.postings = postings;
+                this.weight = weight;
+            }
+            
+            double score(int[] positions, int[] lengths) {
+                return weight * saturate(termFrequency(positions, lengths));
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package src.com.dnu.bookshare.service.search;
+
+import src.com.dnu.bookshare.model.Book.*;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+
+/**
+ * BookQuery - Điều kiện tìm sách; null/rỗng = bỏ qua điều kiện đó
+ * Các setter trả về chính đối tượng để viết liền:
+ * new BookQuery().keyword("java").faculty("CNTT").sort(BookQuery.Sort.PRICE_ASC)
+ * Không chọn thứ tự (hoặc sort(null)): có từ khóa thì xếp theo độ liên quan, không thì theo thứ tự đăng.
+ */
+public class BookQuery {
+    
+    public enum Sort {
+        POSTED,       // theo thứ tự đăng (mặc định khi không có từ khóa)
+        NEWEST,
+        PRICE_ASC,
+        PRICE_DESC,
+        POPULAR,
+        TRENDING,     // điểm xu hướng theo số người xem gần đây
+        RELEVANCE;    // điểm BM25 của từ khóa (mặc định khi có từ khóa)
+        
+        /**
+         * Từ tên dùng trong searchBooks ("posted", "newest", "price_asc", "price_desc", "popular",
+         * "trending", "relevance"); null hoặc tên lạ = thứ tự mặc định (null)
+         */
+        public static Sort fromString(String sortBy) {
+            if (sortBy == null) {
+                return null;
+            }
+            switch (sortBy) {
+                case "posted": return POSTED;
+                case "newest": return NEWEST;
+                case "price_asc": return PRICE_ASC;
+                case "price_desc": return PRICE_DESC;
+                case "popular": return POPULAR;
+                case "trending": return TRENDING;
+                case "relevance": return RELEVANCE;
+                default: return null;
+            }
+        }
+        
+        boolean isDescending() {
+            return this == NEWEST || this == PRICE_DESC || this == POPULAR || this == TRENDING || this == RELEVANCE;
+        }
+    }
+    
+    private String keyword;
+    private String subject;
+    private String faculty;
+    private BookCondition condition;
+    private TransactionType type;
+    private BookStatus status;
+    private Double minPrice;
+    private Double maxPrice;
+    // null = mặc định theo từ khóa
+    private Sort sort;
+    
+    public BookQuery keyword(String keyword) { this.keyword = keyword; return this; }
+    public BookQuery subject(String subject) { this.subject = subject; return this; }
+    public BookQuery faculty(String faculty) { this.faculty = faculty; return this; }
+    public BookQuery condition(BookCondition condition) { this.condition = condition; return this; }
+    public BookQuery type(TransactionType type) { this.type = type; return this; }
+    public BookQuery status(BookStatus status) { this.status = status; return this; }
+    public BookQuery minPrice(Double minPrice) { this.minPrice = minPrice; return this; }
+    public BookQuery maxPrice(Double maxPrice) { this.maxPrice = maxPrice; return this; }
+    public BookQuery sort(Sort sort) { this.sort = sort; return this; }
+    
+    public String getKeyword() { return keyword; }
+    public String getSubject() { return subject; }
+    public String getFaculty() { return faculty; }
+    public BookCondition getCondition() { return condition; }
+    public TransactionType getType() { return type; }
+    public BookStatus getStatus() { return status; }
+    public Double getMinPrice() { return minPrice; }
+    public Double getMaxPrice() { return maxPrice; }
+    
+    /**
+     * Thứ tự sẽ dùng: thứ tự đã chọn, hoặc RELEVANCE nếu có từ khóa, POSTED nếu không
+     */
+    public Sort getSort() {
+        if (sort != null) {
+            return sort;
+        }
+        return keyword != null && !keyword.trim().isEmpty() ? Sort.RELEVANCE : Sort.POSTED;
+    }
+    
+    boolean hasPriceRange() {
+        return minPrice != null || maxPrice != null;
+    }
+    
+    boolean inPriceRange(double price) {
+        return (minPrice == null || price >= minPrice) && (maxPrice == null || price <= maxPrice);
+    }
+    
+    BookQuery copy() {
+        return new BookQuery().keyword(keyword).subject(subject).faculty(faculty).condition(condition)
+                .type(type).status(status).minPrice(minPrice).maxPrice(maxPrice).sort(sort);
+    }
+    
+    /**
+     * Khóa cache: hai truy vấn cho cùng kết quả thì cùng khóa
+     * ("Lập Trình  java" và "java lap trinh" như nhau; chuỗi rỗng như null)
+     */
+    String cacheKey() {
+        StringBuilder key = new StringBuilder(getSort().name());
+        key.append('|').append(normalizeKeyword(keyword));
+        key.append('|').append(subject == null ? "" : subject);
+        key.append('|').append(faculty == null ? "" : faculty);
+        key.append('|').append(condition == null ? "" : condition.name());
+        key.append('|').append(type == null ? "" : type.name());
+        key.append('|').append(status == null ? "" : status.name());
+        key.append('|').append(minPrice == null ? "" : minPrice);
+        key.append('|').append(maxPrice == null ? "" : maxPrice);
+        return key.toString();
+    }
+    
+    /**
+     * Các từ lẻ (AND, không phụ thuộc thứ tự) được sắp xếp và bỏ trùng; cụm từ giữ nguyên thứ tự
+     */
+    private static String normalizeKeyword(String keyword) {
+        if (keyword == null || keyword.isEmpty()) {
+            return "";
+        }
+        TreeSet<String> terms = new TreeSet<>();
+        TreeSet<String> phrases = new TreeSet<>();
+        String[] parts = keyword.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            List<String> tokens = TextNormalizer.tokenize(parts[i]);
+            if (tokens.isEmpty()) {
+                continue;
+            }
+            if (i % 2 == 1) {
+                phrases.add("\"" + String.join(" ", tokens) + "\"");
+            } else {
+                terms.addAll(tokens);
+            }
+        }
+        if (terms.isEmpty() && phrases.isEmpty()) {
+            // Có từ khóa nhưng không có từ nào: không khớp sách nào, khác với không lọc
+            return "\"\"";
+        }
+        StringJoiner joiner = new StringJoiner(" ");
+        terms.forEach(joiner::add);
+        phrases.forEach(joiner::add);
+        return joiner.toString();
+    }
+}
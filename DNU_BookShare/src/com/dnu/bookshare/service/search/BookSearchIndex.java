@@ -0,0 +1,1045 @@
+package src.com.dnu.bookshare.service.search;
+
+import src.com.dnu.bookshare.model.Book;
+import src.com.dnu.bookshare.model.Book.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * BookSearchIndex - Các chỉ mục tìm kiếm sách trong bộ nhớ, cập nhật tăng dần bởi BookService
+ * - InvertedIndex cho từ khóa (tiêu đề, tác giả, mô tả)
+ * - FuzzyIndex (trigram) trên các từ của tiêu đề và tác giả cho tìm gần đúng
+ * - Bitmap theo từng giá trị cho môn học, khoa, tình trạng, hình thức, trạng thái, hiển thị
+ * - Chỉ mục có thứ tự cho giá, lượt xem và điểm xu hướng; thứ tự đăng chính là thứ tự ordinal
+ * - Độ liên quan BM25 (Bm25Scorer) tính từ thống kê của InvertedIndex, chỉ giữ top-K
+ * - Trie gợi ý khi gõ cho tiêu đề, tác giả, môn học (top-K theo lượt xem giữ sẵn ở từng nút)
+ * - Cache kết quả search(BookQuery); khi một sách thay đổi chỉ xóa các mục mà sách đó
+ *   đang thuộc về hoặc sắp thuộc về (kích thước: -Dbookshare.searchCache.size, mặc định 256)
+ *
+ * Mỗi sách có một ordinal (số nguyên dày) cố định suốt đời; BookService index sách theo
+ * thứ tự id nên thứ tự ordinal cũng là thứ tự đăng.
+ * Sửa Book phải đi qua BookService để chỉ mục được cập nhật.
+ */
+public class BookSearchIndex {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Sắp theo id: cursor của sách đã bị xóa vẫn tìm được vị trí nhờ floor/ceiling
+    private final TreeMap<String, Integer> ordinals = new TreeMap<>();
+    private final List<Book> books = new ArrayList<>();
+    // Giá trị đã index của từng ordinal, để gỡ đúng bit khi sách thay đổi
+    private final List<IndexedFields> indexed = new ArrayList<>();
+    private final InvertedIndex text = new InvertedIndex();
+    private final FuzzyIndex fuzzy = new FuzzyIndex();
+    private final Autocomplete completions = new Autocomplete();
+    private final BitmapIndex<String> subjects = new BitmapIndex<>();
+    private final BitmapIndex<String> faculties = new BitmapIndex<>();
+    private final BitmapIndex<BookCondition> conditions = new BitmapIndex<>();
+    private final BitmapIndex<TransactionType> types = new BitmapIndex<>();
+    private final BitmapIndex<BookStatus> statuses = new BitmapIndex<>();
+    private final RoaringBitmap visible = new RoaringBitmap();
+    private final SortedIndex prices = new SortedIndex();
+    private final SortedIndex views = new SortedIndex();
+    // Khóa do ViewCounter tính (điểm xu hướng quy về một mốc); sách chưa có người xem = 0
+    private final SortedIndex trending = new SortedIndex();
+    private final SearchCache cache;
+    
+    public BookSearchIndex() {
+        this(Integer.getInteger("bookshare.searchCache.size", 256));
+    }
+    
+    public BookSearchIndex(int cacheSize) {
+        this.cache = new SearchCache(cacheSize);
+    }
+    
+    /**
+     * Thêm sách mới hoặc index lại sách đã có (chỉ phần thay đổi)
+     */
+    public void update(Book book) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(book.getBookId());
+            if (ordinal == null) {
+                ordinal = books.size();
+                ordinals.put(book.getBookId(), ordinal);
+                books.add(book);
+                indexed.add(null);
+            } else {
+                books.set(ordinal, book);
+            }
+            double previousPrice = prices.keyOf(ordinal);
+            double previousViews = views.keyOf(ordinal);
+            boolean textChanged = text.index(ordinal, book.getTitle(), book.getAuthor(), book.getDescription());
+            fuzzy.index(ordinal, book.getTitle(), book.getAuthor());
+            completions.index(ordinal, book.getTitle(), book.getAuthor(), book.getSubject(),
+                    book.getViewCount(), book.isVisible());
+            
+            IndexedFields current = new IndexedFields(book);
+            IndexedFields previous = indexed.get(ordinal);
+            if (!current.equals(previous)) {
+                if (previous != null) {
+                    unindex(previous, ordinal);
+                }
+                index(current, ordinal);
+                indexed.set(ordinal, current);
+            }
+            prices.put(ordinal, book.getPrice());
+            views.put(ordinal, book.getViewCount());
+            if (Double.isNaN(trending.keyOf(ordinal))) {
+                trending.put(ordinal, 0);
+            }
+            
+            int changed = ordinal;
+            boolean priceChanged = Double.compare(previousPrice, book.getPrice()) != 0;
+            boolean viewsChanged = Double.compare(previousViews, book.getViewCount()) != 0;
+            cache.invalidateIf(entry -> {
+                // Nội dung đổi thì thống kê BM25 (idf, độ dài trung bình) đổi: mọi thứ tự liên quan có thể đổi
+                if (textChanged && entry.query.getSort() == BookQuery.Sort.RELEVANCE) {
+                    return true;
+                }
+                boolean wasMember = entry.members.contains(changed);
+                if (wasMember != matches(entry.query, changed)) {
+                    return true;
+                }
+                // Vẫn trong kết quả: chỉ thứ tự có thể đổi
+                return wasMember && sortKeyChanged(entry.query.getSort(), priceChanged, viewsChanged);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(String bookId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(bookId);
+            if (ordinal == null) {
+                return;
+            }
+            books.set(ordinal, null);
+            text.remove(ordinal);
+            fuzzy.remove(ordinal);
+            completions.remove(ordinal);
+            unindex(indexed.get(ordinal), ordinal);
+            indexed.set(ordinal, null);
+            prices.remove(ordinal);
+            views.remove(ordinal);
+            trending.remove(ordinal);
+            int removed = ordinal;
+            cache.invalidateIf(entry -> entry.members.contains(removed)
+                    || entry.query.getSort() == BookQuery.Sort.RELEVANCE);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Chỉ cập nhật lượt xem (đường nóng, không index lại nội dung)
+     */
+    public void updateViewCount(Book book) {
+        lock.writeLock().lock();
+        try {
+            updateKey(book.getBookId(), views, BookQuery.Sort.POPULAR, book.getViewCount());
+            Integer ordinal = ordinals.get(book.getBookId());
+            if (ordinal != null) {
+                completions.updateWeight(ordinal, book.getViewCount());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Đặt khóa sắp xếp "trending" của sách
+     */
+    public void updateTrending(String bookId, double key) {
+        updateKey(bookId, trending, BookQuery.Sort.TRENDING, key);
+    }
+    
+    private void updateKey(String bookId, SortedIndex keyIndex, BookQuery.Sort sort, double key) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(bookId);
+            if (ordinal != null && Double.compare(keyIndex.keyOf(ordinal), key) != 0) {
+                keyIndex.put(ordinal, key);
+                int changed = ordinal;
+                cache.invalidateIf(entry -> entry.query.getSort() == sort && entry.members.contains(changed));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void index(IndexedFields f, int ordinal) {
+        subjects.add(f.subject, ordinal);
+        faculties.add(f.faculty, ordinal);
+        conditions.add(f.condition, ordinal);
+        for (TransactionType type : f.types) {
+            types.add(type, ordinal);
+        }
+        statuses.add(f.status, ordinal);
+        if (f.visible) {
+            visible.add(ordinal);
+        }
+    }
+    
+    private void unindex(IndexedFields f, int ordinal) {
+        subjects.remove(f.subject, ordinal);
+        faculties.remove(f.faculty, ordinal);
+        conditions.remove(f.condition, ordinal);
+        for (TransactionType type : f.types) {
+            types.remove(type, ordinal);
+        }
+        statuses.remove(f.status, ordinal);
+        visible.remove(ordinal);
+    }
+    
+    /**
+     * Toàn bộ sách đang hiển thị khớp truy vấn, theo thứ tự của query.getSort()
+     */
+    public List<Book> search(BookQuery query) {
+        String key = query.cacheKey();
+        lock.readLock().lock();
+        try {
+            // Đọc và ghi cache trong khóa đọc: không có cập nhật nào chen giữa
+            SearchCache.Entry cached = cache.get(key);
+            if (cached != null) {
+                return toBooks(cached.ordered);
+            }
+            int[] found = collect(query, resolve(query), null, Integer.MAX_VALUE);
+            cache.put(key, query, found);
+            return toBooks(found);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Một trang kết quả, bắt đầu sau cursor (null = trang đầu).
+     * Chỉ lấy limit + 1 sách (để biết còn trang sau), không sắp xếp toàn bộ kết quả:
+     * - thứ tự đăng/mới nhất: duyệt bitmap kết quả theo ordinal
+     * - giá/lượt xem: duyệt chỉ mục có thứ tự lọc theo bitmap khi kết quả dày,
+     *   hoặc giữ top-K bằng heap khi kết quả thưa
+     * @throws IllegalArgumentException nếu cursor không hợp lệ hoặc không thuộc kiểu sắp xếp này
+     */
+    public SearchPage<Book> page(BookQuery query, String cursor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit phải lớn hơn 0");
+        }
+        lock.readLock().lock();
+        try {
+            Position after = cursor == null ? null : decodeCursor(cursor, query.getSort());
+            int[] found = collect(query, resolve(query), after, limit + 1);
+            String nextCursor = null;
+            if (found.length > limit) {
+                found = Arrays.copyOf(found, limit);
+                nextCursor = encodeCursor(query, found[limit - 1]);
+            }
+            return new SearchPage<>(toBooks(found), nextCursor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Gợi ý khi gõ: tối đa limit tiêu đề/tác giả/môn học bắt đầu bằng prefix (không phân biệt dấu,
+     * hoa thường), phổ biến nhất trước; kind = null là cả ba loại.
+     * Chỉ đi xuống trie theo prefix và đọc top-K có sẵn của nút cuối, limit tối đa CompletionTrie.TOP_K.
+     */
+    public List<Completion> complete(String prefix, Completion.Kind kind, int limit) {
+        if (prefix == null) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            return completions.complete(prefix, kind, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // ============ TÌM GẦN ĐÚNG ============
+    
+    /**
+     * Tìm chịu lỗi chính tả. Mỗi từ của keyword khớp:
+     * - các từ bắt đầu bằng nó (trùng hẳn: trọng số 1, chỉ là tiền tố: 0.9)
+     * - nếu không có từ nào như vậy: các từ trong tiêu đề/tác giả cách nó tối đa 1 phép sửa
+     *   (từ 3-5 ký tự) hay 2 phép sửa (từ 6 ký tự trở lên), trọng số giảm theo khoảng cách
+     * Sách phải khớp mọi từ; nếu không có sách nào thì tìm lại, cho phép sửa cả những từ có thật
+     * ("lop trinh" → "lập trình"). Xếp theo tổng trọng số, cùng điểm thì sách mới hơn trước.
+     * Các bộ lọc khác của query vẫn áp dụng, thứ tự sắp xếp của query bị bỏ qua.
+     */
+    public FuzzySearchResult<Book> fuzzySearch(BookQuery query, int limit) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(
+                TextNormalizer.tokenize(query.getKeyword() == null ? "" : query.getKeyword())));
+        if (words.isEmpty() || limit <= 0) {
+            return new FuzzySearchResult<>(new ArrayList<>(), 0, null);
+        }
+        lock.readLock().lock();
+        try {
+            List<WordMatch> matches = new ArrayList<>();
+            for (String word : words) {
+                matches.add(expand(word, false));
+            }
+            float[] score = new float[books.size()];
+            int[] hits = match(query, matches, score);
+            if (hits.length == 0) {
+                matches.clear();
+                for (String word : words) {
+                    matches.add(expand(word, true));
+                }
+                score = new float[books.size()];
+                hits = match(query, matches, score);
+            }
+            int[] top = topByScore(hits, score, limit);
+            List<Book> results = new ArrayList<>(top.length);
+            for (int doc : top) {
+                results.add(books.get(doc));
+            }
+            String suggestion = top.length > 0 ? suggestFrom(top[0], words, matches) : suggest(words);
+            return new FuzzySearchResult<>(results, hits.length, suggestion);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Các doc khớp mọi từ, điểm ghi vào score.
+     * Từ có ít sách nhất tạo danh sách ứng viên; mỗi từ còn lại đánh dấu các doc của nó
+     * rồi giữ lại ứng viên được đánh dấu.
+     */
+    private int[] match(BookQuery query, List<WordMatch> matches, float[] score) {
+        List<WordMatch> ordered = new ArrayList<>(matches);
+        ordered.sort(Comparator.comparingLong(m -> m.postingSize));
+        WordMatch driver = ordered.get(0);
+        IntBuffer candidates = new IntBuffer((int) Math.min(driver.postingSize, 1 << 16));
+        for (Expansion expansion : driver.expansions) {
+            PostingList postings = expansion.postings;
+            for (int i = 0; i < postings.size(); i++) {
+                int doc = postings.doc(i);
+                if (score[doc] == 0) {
+                    candidates.add(doc);
+                }
+                score[doc] = Math.max(score[doc], expansion.weight);
+            }
+        }
+        int[] docs = candidates.toArray();
+        int count = docs.length;
+        float[] wordScore = null;
+        for (int w = 1; w < ordered.size() && count > 0; w++) {
+            WordMatch word = ordered.get(w);
+            int kept = 0;
+            if (wordScore == null) {
+                wordScore = new float[score.length];
+            } else {
+                Arrays.fill(wordScore, 0f);
+            }
+            for (Expansion expansion : word.expansions) {
+                PostingList postings = expansion.postings;
+                for (int i = 0; i < postings.size(); i++) {
+                    int doc = postings.doc(i);
+                    wordScore[doc] = Math.max(wordScore[doc], expansion.weight);
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                float weight = wordScore[docs[i]];
+                if (weight > 0) {
+                    score[docs[i]] += weight;
+                    docs[kept++] = docs[i];
+                }
+            }
+            count = kept;
+        }
+        RoaringBitmap allowed = filter(query);
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int doc = docs[i];
+            if (allowed.contains(doc) && (!query.hasPriceRange() || query.inPriceRange(prices.keyOf(doc)))) {
+                docs[kept++] = doc;
+            }
+        }
+        return Arrays.copyOf(docs, kept);
+    }
+    
+    /**
+     * limit doc điểm cao nhất (cùng điểm: ordinal lớn hơn trước), giữ bằng heap nhỏ nhất ở đỉnh
+     */
+    private static int[] topByScore(int[] docs, float[] score, int limit) {
+        Comparator<Integer> order = (a, b) -> {
+            int c = Float.compare(score[b], score[a]);
+            return c != 0 ? c : Integer.compare(b, a);
+        };
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(docs.length, limit) + 1, order.reversed());
+        // Ứng viên gần như tăng dần theo ordinal: duyệt ngược để ít phải thay đỉnh heap
+        for (int i = docs.length - 1; i >= 0; i--) {
+            int doc = docs[i];
+            if (heap.size() < limit) {
+                heap.add(doc);
+            } else if (order.compare(doc, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(doc);
+            }
+        }
+        List<Integer> top = new ArrayList<>(heap);
+        top.sort(order);
+        int[] result = new int[top.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = top.get(i);
+        }
+        return result;
+    }
+    
+    /**
+     * Số phép sửa cho phép theo độ dài từ
+     */
+    private static int maxEdits(String word) {
+        return word.length() < 3 ? 0 : word.length() < 6 ? 1 : 2;
+    }
+    
+    /**
+     * Các từ trong chỉ mục mà một từ của truy vấn được khớp vào
+     * @param correctAll cho phép sửa cả từ đã có trong chỉ mục
+     */
+    private WordMatch expand(String word, boolean correctAll) {
+        WordMatch match = new WordMatch(word);
+        for (Map.Entry<String, PostingList> e : text.prefixRange(word).entrySet()) {
+            match.add(e.getValue(), e.getKey().length() == word.length() ? 1f : WordMatch.PREFIX_WEIGHT);
+        }
+        if (match.expansions.isEmpty() || correctAll) {
+            for (FuzzyIndex.Match similar : fuzzy.similar(word, maxEdits(word))) {
+                PostingList postings = text.postings(similar.word);
+                if (postings != null && !similar.word.startsWith(word)) {
+                    float weight = (float) (word.length() - similar.distance) / word.length();
+                    match.add(postings, weight);
+                    match.corrections.put(similar.word, weight);
+                }
+            }
+        }
+        return match;
+    }
+    
+    /**
+     * Gợi ý theo sách khớp nhất: từ nào của truy vấn được khớp bằng một từ đã sửa thì thay bằng từ đó
+     */
+    private String suggestFrom(int doc, List<String> words, List<WordMatch> matches) {
+        String[] tokens = text.tokensOf(doc);
+        StringJoiner suggestion = new StringJoiner(" ");
+        boolean corrected = false;
+        for (int w = 0; w < words.size(); w++) {
+            WordMatch match = matches.get(w);
+            String best = null;
+            float bestWeight = 0;
+            for (String token : tokens) {
+                float weight = token == null ? 0 : match.weightOf(token);
+                if (weight > bestWeight) {
+                    best = token;
+                    bestWeight = weight;
+                }
+            }
+            if (best != null && match.corrections.containsKey(best)) {
+                String surface = fuzzy.surfaceOf(best);
+                suggestion.add(surface != null ? surface : best);
+                corrected = true;
+            } else {
+                String surface = fuzzy.surfaceOf(words.get(w));
+                suggestion.add(surface != null ? surface : words.get(w));
+            }
+        }
+        return corrected ? suggestion.toString() : null;
+    }
+    
+    /**
+     * Gợi ý khi không có sách nào khớp: thay các từ không có trong chỉ mục bằng từ gần nhất
+     * (ít phép sửa nhất, nhiều sách nhất); null nếu không có từ nào thay được
+     */
+    private String suggest(List<String> words) {
+        StringJoiner suggestion = new StringJoiner(" ");
+        boolean corrected = false;
+        for (String word : words) {
+            List<FuzzyIndex.Match> similar = text.hasPrefix(word)
+                    ? Collections.emptyList() : fuzzy.similar(word, maxEdits(word));
+            if (!similar.isEmpty()) {
+                suggestion.add(similar.get(0).surface);
+                corrected = true;
+            } else {
+                String surface = fuzzy.surfaceOf(word);
+                suggestion.add(surface != null ? surface : word);
+            }
+        }
+        return corrected ? suggestion.toString() : null;
+    }
+    
+    /**
+     * Một từ của truy vấn và các từ trong chỉ mục khớp với nó
+     */
+    private static final class WordMatch {
+        static final float PREFIX_WEIGHT = 0.9f;
+        final String word;
+        final List<Expansion> expansions = new ArrayList<>();
+        // Từ đã sửa → trọng số
+        final Map<String, Float> corrections = new HashMap<>();
+        long postingSize;
+        
+        WordMatch(String word) {
+            this.word = word;
+        }
+        
+        void add(PostingList postings, float weight) {
+            expansions.add(new Expansion(postings, weight));
+            postingSize += postings.size();
+        }
+        
+        float weightOf(String token) {
+            if (token.startsWith(word)) {
+                return token.length() == word.length() ? 1f : PREFIX_WEIGHT;
+            }
+            return corrections.getOrDefault(token, 0f);
+        }
+    
+    }
+    
+    private static final class Expansion {
+        final PostingList postings;
+        final float weight;
+        
+        Expansion(PostingList postings, float weight) {
+            this.postings = postings;
+            this.weight = weight;
+        }
+    }
+    
+    /**
+     * Bitmap các sách hiển thị khớp bộ lọc và từ khóa (chưa xét khoảng giá).
+     * Các bitmap lọc được giao với nhau trước, từ khóa (chỉ mục ngược) được giao sau cùng.
+     * Có thể trả về chính bitmap của chỉ mục: chỉ đọc.
+     */
+    private RoaringBitmap resolve(BookQuery query) {
+        RoaringBitmap allowed = filter(query);
+        String keyword = query.getKeyword();
+        if (keyword == null || keyword.isEmpty()) {
+            return allowed;
+        }
+        RoaringBitmap matches = new RoaringBitmap();
+        for (int ordinal : text.search(keyword)) {
+            if (allowed.contains(ordinal)) {
+                matches.add(ordinal);
+            }
+        }
+        return matches;
+    }
+    
+    /**
+     * Bitmap các sách hiển thị khớp bộ lọc (không xét từ khóa, khoảng giá)
+     */
+    private RoaringBitmap filter(BookQuery query) {
+        List<RoaringBitmap> filters = new ArrayList<>();
+        filters.add(visible);
+        if (query.getSubject() != null && !query.getSubject().isEmpty()) {
+            filters.add(subjects.get(query.getSubject()));
+        }
+        if (query.getFaculty() != null && !query.getFaculty().isEmpty()) {
+            filters.add(faculties.get(query.getFaculty()));
+        }
+        if (query.getCondition() != null) {
+            filters.add(conditions.get(query.getCondition()));
+        }
+        if (query.getType() != null) {
+            filters.add(types.get(query.getType()));
+        }
+        if (query.getStatus() != null) {
+            filters.add(statuses.get(query.getStatus()));
+        }
+        return filters.size() == 1 ? visible : RoaringBitmap.and(filters);
+    }
+    
+    /**
+     * Tối đa k ordinal khớp, đúng thứ tự sắp xếp, nằm sau vị trí after (null = từ đầu)
+     */
+    private int[] collect(BookQuery query, RoaringBitmap allowed, Position after, int k) {
+        BookQuery.Sort sort = query.getSort();
+        if (sort == BookQuery.Sort.RELEVANCE) {
+            return relevanceTopK(query, allowed, after, k);
+        }
+        SortedIndex keyIndex = keyIndexOf(sort);
+        if (keyIndex == null) {
+            return walkPosted(query, allowed, after, k, sort.isDescending());
+        }
+        int matches = allowed.cardinality();
+        // Duyệt chỉ mục tốn ~ k * N / matches bước (dừng khi đủ k), heap tốn ~ matches bước
+        long walkCost = (long) k * Math.max(1, ordinals.size()) / Math.max(1, matches);
+        if (k < matches && walkCost < matches) {
+            return walkSorted(query, keyIndex, allowed, after, k, sort.isDescending());
+        }
+        return topK(query, keyIndex, allowed, after, k, sort.isDescending());
+    }
+    
+    /**
+     * Sách (theo trạng thái đang index) có khớp truy vấn không; cùng điều kiện với resolve + khoảng giá
+     */
+    private boolean matches(BookQuery query, int ordinal) {
+        IndexedFields f = indexed.get(ordinal);
+        if (f == null || !f.visible) {
+            return false;
+        }
+        if (query.getSubject() != null && !query.getSubject().isEmpty() && !query.getSubject().equals(f.subject)) {
+            return false;
+        }
+        if (query.getFaculty() != null && !query.getFaculty().isEmpty() && !query.getFaculty().equals(f.faculty)) {
+            return false;
+        }
+        if ((query.getCondition() != null && query.getCondition() != f.condition)
+                || (query.getType() != null && !f.types.contains(query.getType()))
+                || (query.getStatus() != null && query.getStatus() != f.status)) {
+            return false;
+        }
+        if (query.hasPriceRange() && !query.inPriceRange(prices.keyOf(ordinal))) {
+            return false;
+        }
+        String keyword = query.getKeyword();
+        return keyword == null || keyword.isEmpty() || text.matches(ordinal, keyword);
+    }
+    
+    private static boolean sortKeyChanged(BookQuery.Sort sort, boolean priceChanged, boolean viewsChanged) {
+        switch (sort) {
+            case PRICE_ASC:
+            case PRICE_DESC:
+                return priceChanged;
+            case POPULAR:
+                return viewsChanged;
+            default:
+                return false;
+        }
+    }
+    
+    private SortedIndex keyIndexOf(BookQuery.Sort sort) {
+        switch (sort) {
+            case PRICE_ASC:
+            case PRICE_DESC:
+                return prices;
+            case POPULAR:
+                return views;
+            case TRENDING:
+                return trending;
+            default:
+                return null;
+        }
+    }
+    
+    /**
+     * Thứ tự đăng = thứ tự ordinal: lấy lần lượt từ bitmap kết quả
+     */
+    private int[] walkPosted(BookQuery query, RoaringBitmap allowed, Position after, int k, boolean descending) {
+        IntBuffer result = new IntBuffer(k);
+        int ordinal;
+        if (descending) {
+            ordinal = allowed.previousValue(after == null ? Integer.MAX_VALUE : after.boundary - 1);
+        } else {
+            ordinal = allowed.nextValue(after == null ? 0 : after.boundary + 1);
+        }
+        while (ordinal >= 0 && result.size() < k) {
+            if (!query.hasPriceRange() || query.inPriceRange(prices.keyOf(ordinal))) {
+                result.add(ordinal);
+            }
+            ordinal = descending ? allowed.previousValue(ordinal - 1) : allowed.nextValue(ordinal + 1);
+        }
+        return result.toArray();
+    }
+    
+    /**
+     * Duyệt các bucket của chỉ mục có thứ tự, giữ các ordinal có trong bitmap kết quả
+     */
+    private int[] walkSorted(BookQuery query, SortedIndex keyIndex, RoaringBitmap allowed, Position after,
+                             int k, boolean descending) {
+        boolean byPrice = keyIndex == prices;
+        NavigableMap<Double, RoaringBitmap> range = byPrice
+                ? keyIndex.range(query.getMinPrice(), query.getMaxPrice(), descending)
+                : keyIndex.range(null, null, descending);
+        if (after != null) {
+            range = range.tailMap(after.key, true);
+        }
+        boolean checkPrice = !byPrice && query.hasPriceRange();
+        IntBuffer result = new IntBuffer(k);
+        for (Map.Entry<Double, RoaringBitmap> bucket : range.entrySet()) {
+            RoaringBitmap hits = RoaringBitmap.and(bucket.getValue(), allowed);
+            boolean cursorBucket = after != null && bucket.getKey() == after.key;
+            // Cùng khóa: theo thứ tự đăng
+            int ordinal = hits.nextValue(cursorBucket ? after.boundary + 1 : 0);
+            while (ordinal >= 0) {
+                if (!checkPrice || query.inPriceRange(prices.keyOf(ordinal))) {
+                    result.add(ordinal);
+                    if (result.size() == k) {
+                        return result.toArray();
+                    }
+                }
+                ordinal = hits.nextValue(ordinal + 1);
+            }
+        }
+        return result.toArray();
+    }
+    
+    /**
+     * Duyệt bitmap kết quả, giữ k phần tử đứng đầu bằng heap (hoặc sắp xếp hết nếu ít hơn k)
+     */
+    private int[] topK(BookQuery query, SortedIndex keyIndex, RoaringBitmap allowed, Position after,
+                       int k, boolean descending) {
+        Comparator<Integer> order = (a, b) -> {
+            int c = Double.compare(keyIndex.keyOf(a), keyIndex.keyOf(b));
+            if (descending) {
+                c = -c;
+            }
+            return c != 0 ? c : Integer.compare(a, b);
+        };
+        IntBuffer candidates = new IntBuffer(Math.min(k, 1024));
+        allowed.forEach(ordinal -> {
+            if (query.hasPriceRange() && !query.inPriceRange(prices.keyOf(ordinal))) {
+                return;
+            }
+            if (after != null && !after.isAfter(keyIndex.keyOf(ordinal), ordinal, descending)) {
+                return;
+            }
+            candidates.add(ordinal);
+        });
+        
+        List<Integer> selected;
+        if (candidates.size() <= k) {
+            selected = new ArrayList<>(candidates.size());
+            for (int ordinal : candidates.toArray()) {
+                selected.add(ordinal);
+            }
+            selected.sort(order);
+        } else {
+            // Heap giữ k phần tử tốt nhất, phần tử "kém" nhất ở đỉnh
+            PriorityQueue<Integer> heap = new PriorityQueue<>(k + 1, order.reversed());
+            for (int ordinal : candidates.toArray()) {
+                heap.add(ordinal);
+                if (heap.size() > k) {
+                    heap.poll();
+                }
+            }
+            selected = new ArrayList<>(heap);
+            selected.sort(order);
+        }
+        int[] result = new int[selected.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = selected.get(i);
+        }
+        return result;
+    }
+    
+    /**
+     * Xếp theo điểm BM25 giảm dần (cùng điểm: thứ tự đăng), giữ k doc tốt nhất bằng heap.
+     * Duyệt kết quả theo ordinal tăng dần; khi heap đầy:
+     * - doc nào có điểm đã tính + cận trên các từ còn lại không vượt đỉnh heap thì bỏ, không tính tiếp
+     * - cận trên của cả truy vấn không vượt đỉnh heap thì dừng hẳn: doc sau có điểm bằng cũng đứng sau
+     */
+    private int[] relevanceTopK(BookQuery query, RoaringBitmap allowed, Position after, int k) {
+        Bm25Scorer.Ranking ranking = Bm25Scorer.rank(text, query.getKeyword(), books.size());
+        if (ranking.isEmpty()) {
+            // Không có từ nào để chấm (chỉ lọc): mọi điểm bằng 0, theo thứ tự đăng
+            return walkPosted(query, allowed, after, k, false);
+        }
+        int[] candidates = allowed.toArray();
+        ScoredHeap heap = new ScoredHeap(Math.min(k, candidates.length));
+        for (int ordinal : candidates) {
+            if (heap.isFull() && ranking.maxScore() <= heap.threshold()) {
+                break;
+            }
+            if (query.hasPriceRange() && !query.inPriceRange(prices.keyOf(ordinal))) {
+                continue;
+            }
+            double score = ranking.score(ordinal, heap.threshold());
+            if (score < 0 || (after != null && !after.isAfter(score, ordinal, true))) {
+                continue;
+            }
+            heap.offer(ordinal, score);
+        }
+        return heap.toSortedArray();
+    }
+    
+    private List<Book> toBooks(int[] found) {
+        List<Book> result = new ArrayList<>(found.length);
+        for (int ordinal : found) {
+            result.add(books.get(ordinal));
+        }
+        return result;
+    }
+    
+    // ============ CURSOR ============
+    
+    /**
+     * Cursor = base64("SORT|khóa|bookId") của sách cuối trang: không phụ thuộc ordinal
+     * nên vẫn dùng được sau khi khởi động lại
+     */
+    private String encodeCursor(BookQuery query, int ordinal) {
+        BookQuery.Sort sort = query.getSort();
+        SortedIndex keyIndex = keyIndexOf(sort);
+        double key;
+        if (sort == BookQuery.Sort.RELEVANCE) {
+            key = Bm25Scorer.rank(text, query.getKeyword(), books.size()).scoreOf(ordinal);
+        } else {
+            key = keyIndex == null ? 0 : keyIndex.keyOf(ordinal);
+        }
+        String raw = sort.name() + "|" + key + "|" + books.get(ordinal).getBookId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private Position decodeCursor(String cursor, BookQuery.Sort sort) {
+        String[] parts;
+        double key;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 3);
+            key = parts.length == 3 ? Double.parseDouble(parts[1]) : 0;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor không hợp lệ");
+        }
+        if (parts.length != 3 || !parts[0].equals(sort.name())) {
+            throw new IllegalArgumentException("Cursor không hợp lệ cho kiểu sắp xếp " + sort);
+        }
+        // Vị trí theo ordinal của bookId; nếu sách đã bị xóa, lấy sách còn lại liền kề
+        // (thứ tự id = thứ tự ordinal)
+        String bookId = parts[2];
+        boolean newest = sort == BookQuery.Sort.NEWEST;
+        Map.Entry<String, Integer> boundary = newest ? ordinals.ceilingEntry(bookId) : ordinals.floorEntry(bookId);
+        int ordinal = boundary != null ? boundary.getValue() : newest ? Integer.MAX_VALUE : -1;
+        return new Position(key, ordinal);
+    }
+    
+    /**
+     * Vị trí của sách cuối trang trước: (khóa sắp xếp, ordinal)
+     */
+    private static final class Position {
+        final double key;
+        final int boundary;
+        
+        Position(double key, int boundary) {
+            this.key = key;
+            this.boundary = boundary;
+        }
+        
+        /**
+         * Sách (khóa, ordinal) có đứng sau vị trí này không; cùng khóa thì xét thứ tự đăng
+         */
+        boolean isAfter(double ordinalKey, int ordinal, boolean descending) {
+            int c = Double.compare(ordinalKey, key);
+            if (c == 0) {
+                return ordinal > boundary;
+            }
+            return descending ? c < 0 : c > 0;
+        }
+    }
+    
+    /**
+     * Mảng int tự giãn
+     */
+    private static final class IntBuffer {
+        private int[] values;
+        private int size;
+        
+        IntBuffer(int capacity) {
+            values = new int[Math.max(16, Math.min(capacity, 1 << 16))];
+        }
+        
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+        
+        int size() {
+            return size;
+        }
+        
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+    
+    /**
+     * Heap k doc tốt nhất theo (điểm giảm dần, ordinal tăng dần), doc kém nhất ở đỉnh
+     */
+    private static final class ScoredHeap {
+        private final int[] ordinals;
+        private final double[] scores;
+        private int size;
+        
+        ScoredHeap(int capacity) {
+            ordinals = new int[capacity];
+            scores = new double[capacity];
+        }
+        
+        boolean isFull() {
+            return size == ordinals.length;
+        }
+        
+        /**
+         * Điểm phải vượt để vào heap; -1 khi heap chưa đầy (mọi điểm đều vào)
+         */
+        double threshold() {
+            return isFull() && size > 0 ? scores[0] : -1;
+        }
+        
+        void offer(int ordinal, double score) {
+            if (!isFull()) {
+                ordinals[size] = ordinal;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (size > 0 && worse(ordinals[0], scores[0], ordinal, score)) {
+                ordinals[0] = ordinal;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+        
+        /**
+         * Các ordinal từ tốt nhất đến kém nhất (làm rỗng heap)
+         */
+        int[] toSortedArray() {
+            int[] result = new int[size];
+            for (int i = result.length - 1; i >= 0; i--) {
+                result[i] = ordinals[0];
+                size--;
+                ordinals[0] = ordinals[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return result;
+        }
+        
+        private static boolean worse(int ordinalA, double scoreA, int ordinalB, double scoreB) {
+            return scoreA < scoreB || (scoreA == scoreB && ordinalA > ordinalB);
+        }
+        
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!worse(ordinals[i], scores[i], ordinals[parent], scores[parent])) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+        
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                    if (worse(ordinals[child], scores[child], ordinals[smallest], scores[smallest])) {
+                        smallest = child;
+                    }
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+        
+        private void swap(int a, int b) {
+            int ordinal = ordinals[a];
+            ordinals[a] = ordinals[b];
+            ordinals[b] = ordinal;
+            double score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return text.getTermCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Số cụm gợi ý (tiêu đề, tác giả, môn học khác nhau)
+     */
+    public int getCompletionCount() {
+        lock.readLock().lock();
+        try {
+            return completions.getEntryCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Bộ nhớ ước lượng (bytes) của các mảng nút trie gợi ý
+     */
+    public long getCompletionBytes() {
+        lock.readLock().lock();
+        try {
+            return completions.getNodeBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public SearchCacheStats getCacheStats() {
+        return cache.getStats();
+    }
+    
+    /**
+     * Bộ nhớ ước lượng (bytes) của các bitmap lọc
+     */
+    public long getBitmapBytes() {
+        lock.readLock().lock();
+        try {
+            return subjects.sizeInBytes() + faculties.sizeInBytes() + conditions.sizeInBytes()
+                    + types.sizeInBytes() + statuses.sizeInBytes() + visible.sizeInBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Giá trị các thuộc tính lọc tại lần index gần nhất
+     */
+    private static final class IndexedFields {
+        final String subject;
+        final String faculty;
+        final BookCondition condition;
+        final Set<TransactionType> types;
+        final BookStatus status;
+        final boolean visible;
+        
+        IndexedFields(Book book) {
+            this.subject = book.getSubject();
+            this.faculty = book.getFaculty();
+            this.condition = book.getCondition();
+            this.types = book.getAvailableTypes() == null || book.getAvailableTypes().isEmpty()
+                    ? EnumSet.noneOf(TransactionType.class) : EnumSet.copyOf(book.getAvailableTypes());
+            this.status = book.getStatus();
+            this.visible = book.isVisible();
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof IndexedFields)) {
+                return false;
+            }
+            IndexedFields other = (IndexedFields) o;
+            return visible == other.visible && condition == other.condition && status == other.status
+                    && Objects.equals(subject, other.subject) && Objects.equals(faculty, other.faculty)
+                    && types.equals(other.types);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(subject, faculty, condition, types, status, visible);
+        }
+    }
+}
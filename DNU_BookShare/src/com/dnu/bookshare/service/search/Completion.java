@@ -0,0 +1,43 @@
+package src.com.dnu.bookshare.service.search;
+
+/**
+ * Completion - Một gợi ý khi gõ: tiêu đề, tác giả hoặc môn học kèm số sách và độ phổ biến
+ */
+public class Completion {
+    
+    public enum Kind {
+        TITLE,
+        AUTHOR,
+        SUBJECT
+    }
+    
+    private final String text;
+    private final Kind kind;
+    private final int bookCount;
+    private final long popularity;
+    
+    public Completion(String text, Kind kind, int bookCount, long popularity) {
+        this.text = text;
+        this.kind = kind;
+        this.bookCount = bookCount;
+        this.popularity = popularity;
+    }
+    
+    public String getText() { return text; }
+    public Kind getKind() { return kind; }
+    
+    /**
+     * Số sách đang hiển thị mang cụm này
+     */
+    public int getBookCount() { return bookCount; }
+    
+    /**
+     * Tổng (lượt xem + 1) của các sách đó
+     */
+    public long getPopularity() { return popularity; }
+    
+    @Override
+    public String toString() {
+        return text + " (" + kind + ", " + bookCount + " sách)";
+    }
+}
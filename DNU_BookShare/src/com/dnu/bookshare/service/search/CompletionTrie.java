@@ -0,0 +1,320 @@
+package src.com.dnu.bookshare.service.search;
+
+import java.util.*;
+
+/**
+ * CompletionTrie - Trie các cụm (tiêu đề, tác giả hoặc môn học) đã chuẩn hóa để gợi ý khi gõ.
+ * Mỗi nút giữ sẵn TOP_K cụm phổ biến nhất trong cây con của nó, nên gợi ý cho một tiền tố
+ * chỉ là đi xuống theo từng ký tự rồi đọc danh sách của nút cuối, không duyệt cây con.
+ *
+ * Nút lưu trong các mảng song song (không có object cho từng nút); con của một nút là
+ * danh sách liên kết qua nextSibling. Nhánh không còn cụm nào không bị thu hồi, chỉ có
+ * danh sách top rỗng, và được dùng lại khi có cụm mới cùng tiền tố.
+ *
+ * Độ phổ biến của một cụm = tổng trọng số các sách mang cụm đó (BookSearchIndex dùng lượt xem + 1).
+ * Khi độ phổ biến tăng, chỉ chèn lại cụm vào danh sách của các nút tổ tiên; khi giảm, tính lại
+ * danh sách từ các con, và dừng ở nút đầu tiên mà cụm không nằm trong top.
+ *
+ * Không thread-safe; BookSearchIndex bọc khóa bên ngoài.
+ */
+final class CompletionTrie {
+    static final int TOP_K = 8;
+    private static final int NONE = -1;
+    
+    private char[] labels = new char[1024];
+    private int[] firstChild = new int[1024];
+    private int[] nextSibling = new int[1024];
+    private int[] parents = new int[1024];
+    private int[] terminals = new int[1024];
+    // TOP_K id cụm của mỗi nút, giảm dần theo độ phổ biến, NONE = còn trống
+    private int[] tops = new int[1024 * TOP_K];
+    private int nodeCount;
+    
+    private final Map<String, Integer> entryIds = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+    
+    CompletionTrie() {
+        newNode(NONE, '\0');
+    }
+    
+    /**
+     * Thêm một sách mang cụm text với trọng số weight
+     */
+    void add(String text, long weight) {
+        String key = keyOf(text);
+        if (key.isEmpty()) {
+            return;
+        }
+        Integer id = entryIds.get(key);
+        Entry entry;
+        if (id == null) {
+            id = freeIds.isEmpty() ? entries.size() : freeIds.pop();
+            entry = new Entry(key, insert(key));
+            if (id == entries.size()) {
+                entries.add(entry);
+            } else {
+                entries.set(id, entry);
+            }
+            entryIds.put(key, id);
+            terminals[entry.node] = id;
+        } else {
+            entry = entries.get(id);
+        }
+        entry.bookCount++;
+        entry.surfaces.merge(text.trim(), 1, Integer::sum);
+        entry.popularity += weight;
+        raise(entry.node, id);
+    }
+    
+    /**
+     * Gỡ một sách đã thêm bằng add(text, weight)
+     */
+    void remove(String text, long weight) {
+        Integer id = entryIds.get(keyOf(text));
+        if (id == null) {
+            return;
+        }
+        Entry entry = entries.get(id);
+        entry.surfaces.computeIfPresent(text.trim(), (s, n) -> n > 1 ? n - 1 : null);
+        entry.popularity -= weight;
+        if (--entry.bookCount > 0) {
+            lower(entry.node, id);
+            return;
+        }
+        terminals[entry.node] = NONE;
+        lower(entry.node, id);
+        entryIds.remove(entry.key);
+        entries.set(id, null);
+        freeIds.push(id);
+    }
+    
+    /**
+     * Đổi trọng số của một sách mang cụm text
+     */
+    void adjust(String text, long delta) {
+        Integer id = entryIds.get(keyOf(text));
+        if (id == null || delta == 0) {
+            return;
+        }
+        Entry entry = entries.get(id);
+        entry.popularity += delta;
+        if (delta > 0) {
+            raise(entry.node, id);
+        } else {
+            lower(entry.node, id);
+        }
+    }
+    
+    /**
+     * Tối đa limit (≤ TOP_K) cụm phổ biến nhất bắt đầu bằng prefix (đã chuẩn hóa),
+     * thêm vào out theo thứ tự giảm dần
+     */
+    void complete(String prefix, int limit, Completion.Kind kind, List<Completion> out) {
+        int node = find(prefix);
+        if (node == NONE) {
+            return;
+        }
+        int base = node * TOP_K;
+        for (int i = 0; i < Math.min(limit, TOP_K) && tops[base + i] != NONE; i++) {
+            Entry entry = entries.get(tops[base + i]);
+            out.add(new Completion(entry.surface(), kind, entry.bookCount, entry.popularity));
+        }
+    }
+    
+    int getEntryCount() {
+        return entryIds.size();
+    }
+    
+    int getNodeCount() {
+        return nodeCount;
+    }
+    
+    /**
+     * Bộ nhớ của các mảng nút (byte, ước lượng)
+     */
+    long getNodeBytes() {
+        return (long) labels.length * 2 + (long) labels.length * 4 * 4 + (long) tops.length * 4;
+    }
+    
+    /**
+     * Khóa của một cụm: các từ đã chuẩn hóa nối bằng một khoảng trắng
+     */
+    static String keyOf(String text) {
+        return String.join(" ", TextNormalizer.tokenize(text));
+    }
+    
+    private int find(String key) {
+        int node = 0;
+        for (int i = 0; i < key.length() && node != NONE; i++) {
+            node = child(node, key.charAt(i));
+        }
+        return node;
+    }
+    
+    private int child(int node, char label) {
+        for (int c = firstChild[node]; c != NONE; c = nextSibling[c]) {
+            if (labels[c] == label) {
+                return c;
+            }
+        }
+        return NONE;
+    }
+    
+    private int insert(String key) {
+        int node = 0;
+        for (int i = 0; i < key.length(); i++) {
+            int next = child(node, key.charAt(i));
+            node = next != NONE ? next : newNode(node, key.charAt(i));
+        }
+        return node;
+    }
+    
+    private int newNode(int parent, char label) {
+        if (nodeCount == labels.length) {
+            int capacity = nodeCount * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            terminals = Arrays.copyOf(terminals, capacity);
+            tops = Arrays.copyOf(tops, capacity * TOP_K);
+        }
+        int node = nodeCount++;
+        labels[node] = label;
+        parents[node] = parent;
+        firstChild[node] = NONE;
+        terminals[node] = NONE;
+        Arrays.fill(tops, node * TOP_K, (node + 1) * TOP_K, NONE);
+        if (parent != NONE) {
+            nextSibling[node] = firstChild[parent];
+            firstChild[parent] = node;
+        } else {
+            nextSibling[node] = NONE;
+        }
+        return node;
+    }
+    
+    /**
+     * Độ phổ biến của id tăng: chèn lại vào top của các nút từ node lên gốc.
+     * Nút nào không giữ được id trong top thì tổ tiên của nó cũng không.
+     */
+    private void raise(int node, int id) {
+        for (int n = node; n != NONE; n = parents[n]) {
+            if (!offer(n, id)) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Độ phổ biến của id giảm (hoặc id bị gỡ): tính lại top của các nút đang chứa id
+     */
+    private void lower(int node, int id) {
+        for (int n = node; n != NONE; n = parents[n]) {
+            if (!contains(n, id)) {
+                return;
+            }
+            recompute(n);
+        }
+    }
+    
+    private boolean contains(int node, int id) {
+        int base = node * TOP_K;
+        for (int i = 0; i < TOP_K && tops[base + i] != NONE; i++) {
+            if (tops[base + i] == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Đặt id vào đúng vị trí trong top của node; false nếu id không lọt vào top
+     */
+    private boolean offer(int node, int id) {
+        int base = node * TOP_K;
+        int size = 0;
+        // Bỏ id khỏi vị trí cũ (nếu có) rồi chèn lại như mới
+        for (int i = 0; i < TOP_K && tops[base + i] != NONE; i++) {
+            if (tops[base + i] != id) {
+                tops[base + size++] = tops[base + i];
+            }
+        }
+        for (int i = size; i < TOP_K; i++) {
+            tops[base + i] = NONE;
+        }
+        int at = size;
+        while (at > 0 && before(id, tops[base + at - 1])) {
+            at--;
+        }
+        if (at == TOP_K) {
+            return false;
+        }
+        int last = Math.min(size, TOP_K - 1);
+        System.arraycopy(tops, base + at, tops, base + at + 1, last - at);
+        tops[base + at] = id;
+        return true;
+    }
+    
+    /**
+     * Top của node = TOP_K id tốt nhất trong cụm kết thúc tại node và top của các con
+     */
+    private void recompute(int node) {
+        int base = node * TOP_K;
+        Arrays.fill(tops, base, base + TOP_K, NONE);
+        if (terminals[node] != NONE) {
+            tops[base] = terminals[node];
+        }
+        for (int c = firstChild[node]; c != NONE; c = nextSibling[c]) {
+            int childBase = c * TOP_K;
+            for (int i = 0; i < TOP_K && tops[childBase + i] != NONE; i++) {
+                if (!offer(node, tops[childBase + i])) {
+                    // Top của con đã giảm dần: phần còn lại càng không lọt
+                    break;
+                }
+            }
+        }
+    }
+    
+    /**
+     * a đứng trước b: phổ biến hơn, cùng độ phổ biến thì nhiều sách hơn, rồi theo khóa
+     */
+    private boolean before(int a, int b) {
+        Entry x = entries.get(a);
+        Entry y = entries.get(b);
+        if (x.popularity != y.popularity) {
+            return x.popularity > y.popularity;
+        }
+        if (x.bookCount != y.bookCount) {
+            return x.bookCount > y.bookCount;
+        }
+        return x.key.compareTo(y.key) < 0;
+    }
+    
+    private static final class Entry {
+        final String key;
+        final int node;
+        int bookCount;
+        long popularity;
+        // Dạng hiển thị (giữ dấu, hoa thường) → số sách
+        final Map<String, Integer> surfaces = new HashMap<>(2);
+        
+        Entry(String key, int node) {
+            this.key = key;
+            this.node = node;
+        }
+        
+        String surface() {
+            String best = key;
+            int bestCount = 0;
+            for (Map.Entry<String, Integer> e : surfaces.entrySet()) {
+                if (e.getValue() > bestCount) {
+                    best = e.getKey();
+                    bestCount = e.getValue();
+                }
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package src.com.dnu.bookshare.service.search;
+
+import java.util.*;
+
+/**
+ * FuzzyIndex - Chỉ mục trigram trên tập từ (đã chuẩn hóa) của tiêu đề và tác giả
+ * Tìm các từ gần đúng với một từ gõ sai: trigram của từ → danh sách từ chứa trigram đó,
+ * lọc ứng viên theo số trigram chung rồi mới tính khoảng cách chỉnh sửa.
+ * Mỗi từ được đệm "$$" hai đầu nên từ 3 ký tự vẫn có 5 trigram.
+ *
+ * Không thread-safe; BookSearchIndex bọc khóa bên ngoài.
+ */
+final class FuzzyIndex {
+    private static final char PAD = '$';
+    private final Map<String, Term> vocabulary = new HashMap<>();
+    private final List<Term> termsById = new ArrayList<>();
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+    private final Map<String, IntList> grams = new HashMap<>();
+    // Các từ (dạng chuẩn hóa, dạng gốc xen kẽ) của từng doc, để gỡ khi sách thay đổi
+    private final Map<Integer, String[]> documents = new HashMap<>();
+    
+    /**
+     * Index (lại) tiêu đề và tác giả của doc
+     */
+    void index(int doc, String... fields) {
+        List<String> folded = new ArrayList<>();
+        List<String> surface = new ArrayList<>();
+        for (String field : fields) {
+            TextNormalizer.tokenize(field, folded, surface);
+        }
+        // Mỗi từ chỉ tính một lần cho một doc
+        Map<String, String> words = new LinkedHashMap<>();
+        for (int i = 0; i < folded.size(); i++) {
+            words.putIfAbsent(folded.get(i), surface.get(i));
+        }
+        String[] pairs = new String[words.size() * 2];
+        int i = 0;
+        for (Map.Entry<String, String> e : words.entrySet()) {
+            pairs[i++] = e.getKey();
+            pairs[i++] = e.getValue();
+        }
+        String[] previous = documents.get(doc);
+        if (Arrays.equals(previous, pairs)) {
+            return;
+        }
+        remove(doc);
+        documents.put(doc, pairs);
+        for (int p = 0; p < pairs.length; p += 2) {
+            addTerm(pairs[p], pairs[p + 1]);
+        }
+    }
+    
+    void remove(int doc) {
+        String[] pairs = documents.remove(doc);
+        if (pairs == null) {
+            return;
+        }
+        for (int p = 0; p < pairs.length; p += 2) {
+            removeTerm(pairs[p], pairs[p + 1]);
+        }
+    }
+    
+    private void addTerm(String word, String surface) {
+        Term term = vocabulary.get(word);
+        if (term == null) {
+            int id = freeIds.isEmpty() ? termsById.size() : freeIds.pop();
+            term = new Term(id, word);
+            vocabulary.put(word, term);
+            if (id == termsById.size()) {
+                termsById.add(term);
+            } else {
+                termsById.set(id, term);
+            }
+            for (String gram : gramsOf(word)) {
+                grams.computeIfAbsent(gram, g -> new IntList()).add(id);
+            }
+        }
+        term.docCount++;
+        term.surfaces.merge(surface, 1, Integer::sum);
+    }
+    
+    private void removeTerm(String word, String surface) {
+        Term term = vocabulary.get(word);
+        if (term == null) {
+            return;
+        }
+        term.surfaces.computeIfPresent(surface, (s, n) -> n > 1 ? n - 1 : null);
+        if (--term.docCount > 0) {
+            return;
+        }
+        vocabulary.remove(word);
+        termsById.set(term.id, null);
+        freeIds.push(term.id);
+        for (String gram : gramsOf(word)) {
+            IntList ids = grams.get(gram);
+            ids.remove(term.id);
+            if (ids.size == 0) {
+                grams.remove(gram);
+            }
+        }
+    }
+    
+    /**
+     * Các từ trong chỉ mục cách word không quá maxDistance phép sửa (thêm, xóa, thay,
+     * đổi chỗ hai ký tự kề nhau), không gồm chính word
+     */
+    List<Match> similar(String word, int maxDistance) {
+        List<Match> result = new ArrayList<>();
+        if (maxDistance <= 0) {
+            return result;
+        }
+        List<String> queryGrams = gramsOf(word);
+        // Mỗi phép sửa làm mất tối đa 4 trigram (đổi chỗ hai ký tự kề nhau)
+        int minShared = Math.max(1, queryGrams.size() - 4 * maxDistance);
+        int[] shared = new int[termsById.size()];
+        List<Integer> touched = new ArrayList<>();
+        for (String gram : new HashSet<>(queryGrams)) {
+            IntList ids = grams.get(gram);
+            if (ids == null) {
+                continue;
+            }
+            int times = Collections.frequency(queryGrams, gram);
+            for (int i = 0; i < ids.size; i++) {
+                int id = ids.values[i];
+                if (shared[id] == 0) {
+                    touched.add(id);
+                }
+                shared[id] += times;
+            }
+        }
+        for (int id : touched) {
+            if (shared[id] < minShared) {
+                continue;
+            }
+            Term term = termsById.get(id);
+            if (term.word.equals(word) || Math.abs(term.word.length() - word.length()) > maxDistance) {
+                continue;
+            }
+            int distance = editDistance(word, term.word, maxDistance);
+            if (distance <= maxDistance) {
+                result.add(new Match(term.word, distance, term.docCount, term.surface()));
+            }
+        }
+        result.sort(Comparator.comparingInt((Match m) -> m.distance)
+                .thenComparing(Comparator.comparingInt((Match m) -> m.docCount).reversed()));
+        return result;
+    }
+    
+    boolean contains(String word) {
+        return vocabulary.containsKey(word);
+    }
+    
+    /**
+     * Dạng hiển thị phổ biến nhất của từ (có dấu), null nếu không có
+     */
+    String surfaceOf(String word) {
+        Term term = vocabulary.get(word);
+        return term == null ? null : term.surface();
+    }
+    
+    int getTermCount() {
+        return vocabulary.size();
+    }
+    
+    private static List<String> gramsOf(String word) {
+        String padded = "" + PAD + PAD + word + PAD + PAD;
+        List<String> result = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+    
+    /**
+     * Khoảng cách Damerau-Levenshtein (bản giới hạn: đổi chỗ hai ký tự kề nhau tính 1),
+     * dừng sớm và trả về max + 1 khi chắc chắn vượt max
+     */
+    static int editDistance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        int[] before = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, before[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = before;
+            before = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[m];
+    }
+    
+    /**
+     * Một từ gần đúng: khoảng cách, số sách chứa từ và dạng hiển thị
+     */
+    static final class Match {
+        final String word;
+        final int distance;
+        final int docCount;
+        final String surface;
+        
+        Match(String word, int distance, int docCount, String surface) {
+            this.word = word;
+            this.distance = distance;
+            this.docCount = docCount;
+            this.surface = surface;
+        }
+    }
+    
+    private static final class Term {
+        final int id;
+        final String word;
+        int docCount;
+        final Map<String, Integer> surfaces = new HashMap<>(2);
+        
+        Term(int id, String word) {
+            this.id = id;
+            this.word = word;
+        }
+        
+        String surface() {
+            String best = word;
+            int bestCount = 0;
+            for (Map.Entry<String, Integer> e : surfaces.entrySet()) {
+                if (e.getValue() > bestCount) {
+                    best = e.getKey();
+                    bestCount = e.getValue();
+                }
+            }
+            return best;
+        }
+    }
+    
+    /**
+     * Mảng id tự giãn, xóa bằng cách đổi chỗ với phần tử cuối
+     */
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+        
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+        
+        void remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package src.com.dnu.bookshare.service.search;
+
+import java.util.List;
+
+/**
+ * FuzzySearchResult - Kết quả tìm gần đúng: sách xếp theo độ khớp và gợi ý "có phải bạn muốn tìm"
+ */
+public class FuzzySearchResult<T> {
+    private final List<T> results;
+    private final int totalMatches;
+    private final String suggestion;
+    
+    public FuzzySearchResult(List<T> results, int totalMatches, String suggestion) {
+        this.results = results;
+        this.totalMatches = totalMatches;
+        this.suggestion = suggestion;
+    }
+    
+    public List<T> getResults() { return results; }
+    
+    /**
+     * Tổng số sách khớp (kết quả có thể bị cắt theo limit)
+     */
+    public int getTotalMatches() { return totalMatches; }
+    
+    /**
+     * Từ khóa đã sửa lỗi chính tả (có dấu), null nếu từ khóa không cần sửa
+     */
+    public String getSuggestion() { return suggestion; }
+    
+    public boolean hasSuggestion() { return suggestion != null; }
+}
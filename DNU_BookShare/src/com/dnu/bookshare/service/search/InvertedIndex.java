@@ -0,0 +1,363 @@
+package src.com.dnu.bookshare.service.search;
+
+import java.util.*;
+
+/**
+ * InvertedIndex - Chỉ mục ngược từ → danh sách sách (theo ordinal) kèm vị trí
+ * Từ được chuẩn hóa bởi TextNormalizer nên "lap trinh" khớp "Lập trình".
+ *
+ * Cú pháp truy vấn:
+ * - Các từ cách nhau bởi khoảng trắng: sách phải chứa tất cả (AND), mỗi từ khớp theo tiền tố
+ *   ("lap tr" khớp "Lập trình")
+ * - Đoạn trong ngoặc kép là cụm từ: các từ phải liền nhau đúng thứ tự trong cùng một trường
+ *
+ * Không thread-safe; BookSearchIndex bọc khóa bên ngoài.
+ */
+public class InvertedIndex {
+    private final TreeMap<String, PostingList> terms = new TreeMap<>();
+    // Dãy từ của từng doc (null ngăn cách các trường), dùng để gỡ index và so thay đổi
+    private final Map<Integer, String[]> documents = new HashMap<>();
+    // Thống kê cho xếp hạng BM25: số từ của từng trường theo doc (mảng dày theo ordinal)
+    // và tổng số từ của từng trường trên mọi doc
+    private int[][] fieldLengths = new int[1024][];
+    private long[] totalLengths = new long[0];
+    // Tăng mỗi khi nội dung index đổi: các giá trị tính từ thống kê (cận trên BM25) phải tính lại
+    private long generation;
+    
+    /**
+     * Index (lại) một doc từ nội dung các trường
+     * @return false nếu nội dung không đổi so với lần index trước
+     */
+    public boolean index(int doc, String... fields) {
+        List<String> tokens = new ArrayList<>();
+        for (int f = 0; f < fields.length; f++) {
+            if (f > 0) {
+                // Khoảng trống giữa hai trường để cụm từ không nối qua trường khác;
+                // luôn có (kể cả sau trường rỗng) để biết mỗi vị trí thuộc trường nào
+                tokens.add(null);
+            }
+            TextNormalizer.tokenize(fields[f], tokens);
+        }
+        String[] sequence = tokens.toArray(new String[0]);
+        String[] previous = documents.get(doc);
+        if (Arrays.equals(previous, sequence)) {
+            return false;
+        }
+        if (previous != null) {
+            removeTerms(doc, previous);
+        }
+        documents.put(doc, sequence);
+        setFieldLengths(doc, lengthsOf(sequence));
+        generation++;
+        
+        // Đa số từ chỉ xuất hiện một lần trong sách nên mảng vị trí thường có 1 phần tử
+        Map<String, int[]> positions = new HashMap<>(sequence.length * 2);
+        for (int i = 0; i < sequence.length; i++) {
+            String term = sequence[i];
+            if (term == null) {
+                continue;
+            }
+            int[] previousPositions = positions.get(term);
+            if (previousPositions == null) {
+                positions.put(term, new int[] {i});
+            } else {
+                int[] grown = Arrays.copyOf(previousPositions, previousPositions.length + 1);
+                grown[previousPositions.length] = i;
+                positions.put(term, grown);
+            }
+        }
+        for (Map.Entry<String, int[]> e : positions.entrySet()) {
+            PostingList postings = terms.get(e.getKey());
+            if (postings == null) {
+                postings = new PostingList();
+                terms.put(e.getKey(), postings);
+            }
+            postings.put(doc, e.getValue());
+        }
+        return true;
+    }
+    
+    public void remove(int doc) {
+        String[] previous = documents.remove(doc);
+        if (previous != null) {
+            removeTerms(doc, previous);
+            setFieldLengths(doc, null);
+            generation++;
+        }
+    }
+    
+    private static int[] lengthsOf(String[] sequence) {
+        int fields = 1;
+        for (String term : sequence) {
+            if (term == null) {
+                fields++;
+            }
+        }
+        int[] lengths = new int[fields];
+        int field = 0;
+        for (String term : sequence) {
+            if (term == null) {
+                field++;
+            } else {
+                lengths[field]++;
+            }
+        }
+        return lengths;
+    }
+    
+    private void setFieldLengths(int doc, int[] lengths) {
+        if (doc >= fieldLengths.length) {
+            fieldLengths = Arrays.copyOf(fieldLengths, Math.max(doc + 1, fieldLengths.length * 2));
+        }
+        int[] previous = fieldLengths[doc];
+        if (previous != null) {
+            for (int f = 0; f < previous.length; f++) {
+                totalLengths[f] -= previous[f];
+            }
+        }
+        fieldLengths[doc] = lengths;
+        if (lengths != null) {
+            if (lengths.length > totalLengths.length) {
+                totalLengths = Arrays.copyOf(totalLengths, lengths.length);
+            }
+            for (int f = 0; f < lengths.length; f++) {
+                totalLengths[f] += lengths[f];
+            }
+        }
+    }
+    
+    private void removeTerms(int doc, String[] sequence) {
+        for (String term : new HashSet<>(Arrays.asList(sequence))) {
+            if (term == null) {
+                continue;
+            }
+            PostingList postings = terms.get(term);
+            if (postings != null) {
+                postings.remove(doc);
+                if (postings.size() == 0) {
+                    terms.remove(term);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Các ordinal (tăng dần) khớp truy vấn; truy vấn không có từ nào thì trả về mảng rỗng
+     */
+    public int[] search(String query) {
+        List<int[]> clauses = new ArrayList<>();
+        String[] parts = query.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            List<String> tokens = TextNormalizer.tokenize(parts[i]);
+            if (tokens.isEmpty()) {
+                continue;
+            }
+            if (i % 2 == 1) {
+                clauses.add(phraseDocs(tokens));
+            } else {
+                for (String token : tokens) {
+                    clauses.add(prefixDocs(token));
+                }
+            }
+        }
+        if (clauses.isEmpty()) {
+            return new int[0];
+        }
+        return intersect(clauses);
+    }
+    
+    /**
+     * Doc có khớp truy vấn không, xét trên dãy từ đã index của doc (không duyệt chỉ mục)
+     */
+    public boolean matches(int doc, String query) {
+        String[] sequence = documents.get(doc);
+        if (sequence == null) {
+            return false;
+        }
+        boolean hasClause = false;
+        String[] parts = query.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            List<String> tokens = TextNormalizer.tokenize(parts[i]);
+            if (tokens.isEmpty()) {
+                continue;
+            }
+            hasClause = true;
+            if (i % 2 == 1) {
+                if (!containsPhrase(sequence, tokens)) {
+                    return false;
+                }
+            } else {
+                for (String token : tokens) {
+                    if (!containsPrefix(sequence, token)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return hasClause;
+    }
+    
+    private static boolean containsPrefix(String[] sequence, String prefix) {
+        for (String term : sequence) {
+            if (term != null && term.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean containsPhrase(String[] sequence, List<String> tokens) {
+        for (int start = 0; start + tokens.size() <= sequence.length; start++) {
+            int i = 0;
+            while (i < tokens.size() && tokens.get(i).equals(sequence[start + i])) {
+                i++;
+            }
+            if (i == tokens.size()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Danh sách doc của đúng một từ, null nếu không có
+     */
+    PostingList postings(String term) {
+        return terms.get(term);
+    }
+    
+    /**
+     * Dãy từ đã index của doc (null ngăn cách các trường), mảng rỗng nếu không có
+     */
+    String[] tokensOf(int doc) {
+        String[] sequence = documents.get(doc);
+        return sequence == null ? new String[0] : sequence;
+    }
+    
+    /**
+     * Có từ nào bắt đầu bằng prefix không
+     */
+    boolean hasPrefix(String prefix) {
+        String next = terms.ceilingKey(prefix);
+        return next != null && next.startsWith(prefix);
+    }
+    
+    /**
+     * Các từ bắt đầu bằng prefix (theo thứ tự)
+     */
+    SortedMap<String, PostingList> prefixRange(String prefix) {
+        return terms.subMap(prefix, prefix + Character.MAX_VALUE);
+    }
+    
+    /**
+     * Các doc chứa ít nhất một từ bắt đầu bằng prefix
+     */
+    int[] prefixDocs(String prefix) {
+        SortedMap<String, PostingList> range = terms.subMap(prefix, prefix + Character.MAX_VALUE);
+        if (range.isEmpty()) {
+            return new int[0];
+        }
+        if (range.size() == 1) {
+            return range.values().iterator().next().docs();
+        }
+        BitSet union = new BitSet();
+        for (PostingList postings : range.values()) {
+            for (int i = 0; i < postings.size(); i++) {
+                union.set(postings.doc(i));
+            }
+        }
+        return union.stream().toArray();
+    }
+    
+    /**
+     * Các doc chứa các từ liền nhau đúng thứ tự
+     */
+    int[] phraseDocs(List<String> tokens) {
+        PostingList[] lists = new PostingList[tokens.size()];
+        List<int[]> docLists = new ArrayList<>();
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = terms.get(tokens.get(i));
+            if (lists[i] == null) {
+                return new int[0];
+            }
+            docLists.add(lists[i].docs());
+        }
+        int[] candidates = intersect(docLists);
+        if (lists.length == 1) {
+            return candidates;
+        }
+        int count = 0;
+        for (int doc : candidates) {
+            if (containsPhrase(doc, lists)) {
+                candidates[count++] = doc;
+            }
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+    
+    private static boolean containsPhrase(int doc, PostingList[] lists) {
+        int[] first = lists[0].positionsOf(doc);
+        for (int start : first) {
+            boolean match = true;
+            for (int i = 1; i < lists.length && match; i++) {
+                match = Arrays.binarySearch(lists[i].positionsOf(doc), start + i) >= 0;
+            }
+            if (match) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Giao các danh sách ordinal tăng dần, bắt đầu từ danh sách ngắn nhất
+     */
+    static int[] intersect(List<int[]> lists) {
+        lists.sort(Comparator.comparingInt(a -> a.length));
+        int[] result = lists.get(0);
+        int count = result.length;
+        for (int l = 1; l < lists.size() && count > 0; l++) {
+            int[] other = lists.get(l);
+            int kept = 0;
+            int from = 0;
+            for (int i = 0; i < count; i++) {
+                int found = Arrays.binarySearch(other, from, other.length, result[i]);
+                if (found >= 0) {
+                    result[kept++] = result[i];
+                    from = found + 1;
+                } else {
+                    from = -found - 1;
+                }
+            }
+            count = kept;
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+    
+    /**
+     * Số từ của từng trường trong doc, null nếu doc chưa được index
+     */
+    int[] fieldLengths(int doc) {
+        return doc < fieldLengths.length ? fieldLengths[doc] : null;
+    }
+    
+    long generation() {
+        return generation;
+    }
+    
+    /**
+     * Số từ trung bình của trường field trên các doc đã index
+     */
+    double averageFieldLength(int field) {
+        int count = documents.size();
+        return count == 0 || field >= totalLengths.length ? 0 : (double) totalLengths[field] / count;
+    }
+    
+    public int getTermCount() {
+        return terms.size();
+    }
+    
+    public int getDocumentCount() {
+        return documents.size();
+    }
+}
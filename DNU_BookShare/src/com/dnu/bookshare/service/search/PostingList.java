@@ -0,0 +1,120 @@
+package src.com.dnu.bookshare.service.search;
+
+import java.util.Arrays;
+
+/**
+ * PostingList - Danh sách sách chứa một từ: ordinal tăng dần kèm vị trí của từ trong sách
+ */
+final class PostingList {
+    private int[] docs = new int[4];
+    private int[][] positions = new int[4][];
+    private int size;
+    // tf~ BM25 lớn nhất trên các doc, tính ở thế hệ chỉ mục nào (Bm25Scorer tính lại khi chỉ mục đổi).
+    // Được ghi trong khóa đọc của BookSearchIndex: đối tượng bất biến, ghi đè cùng giá trị là vô hại
+    private volatile TermBound bound;
+    
+    /**
+     * Thêm hoặc thay vị trí của doc
+     */
+    void put(int doc, int[] docPositions) {
+        // Sách mới luôn có ordinal lớn nhất: thêm vào cuối
+        int i = size == 0 || doc > docs[size - 1] ? -size - 1 : Arrays.binarySearch(docs, 0, size, doc);
+        if (i >= 0) {
+            positions[i] = docPositions;
+            return;
+        }
+        i = -i - 1;
+        if (size == docs.length) {
+            docs = Arrays.copyOf(docs, size * 2);
+            positions = Arrays.copyOf(positions, size * 2);
+        }
+        System.arraycopy(docs, i, docs, i + 1, size - i);
+        System.arraycopy(positions, i, positions, i + 1, size - i);
+        docs[i] = doc;
+        positions[i] = docPositions;
+        size++;
+    }
+    
+    void remove(int doc) {
+        int i = Arrays.binarySearch(docs, 0, size, doc);
+        if (i < 0) {
+            return;
+        }
+        System.arraycopy(docs, i + 1, docs, i, size - i - 1);
+        System.arraycopy(positions, i + 1, positions, i, size - i - 1);
+        size--;
+        positions[size] = null;
+    }
+    
+    /**
+     * tf~ lớn nhất đã tính ở thế hệ generation, NaN nếu chưa tính hoặc đã cũ
+     */
+    double maxTermFrequency(long generation) {
+        TermBound current = bound;
+        return current != null && current.generation == generation ? current.maxTermFrequency : Double.NaN;
+    }
+    
+    void setMaxTermFrequency(long generation, double maxTermFrequency) {
+        bound = new TermBound(generation, maxTermFrequency);
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    int doc(int index) {
+        return docs[index];
+    }
+    
+    /**
+     * Vị trí của từ trong doc thứ index của danh sách
+     */
+    int[] positionsAt(int index) {
+        return positions[index];
+    }
+    
+    /**
+     * Chỉ số đầu tiên từ from trở đi có ordinal ≥ doc (size() nếu không có).
+     * Nhảy cấp số nhân rồi tìm nhị phân: rẻ khi các doc cần tìm tăng dần và gần nhau.
+     */
+    int seek(int doc, int from) {
+        if (from >= size || docs[from] >= doc) {
+            return from;
+        }
+        int low = from;
+        int step = 1;
+        int high = from + 1;
+        while (high < size && docs[high] < doc) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        int i = Arrays.binarySearch(docs, low + 1, Math.min(high, size), doc);
+        return i >= 0 ? i : -i - 1;
+    }
+    
+    /**
+     * Vị trí của từ trong doc, null nếu doc không chứa từ
+     */
+    int[] positionsOf(int doc) {
+        int i = Arrays.binarySearch(docs, 0, size, doc);
+        return i >= 0 ? positions[i] : null;
+    }
+    
+    /**
+     * Bản sao các ordinal (tăng dần)
+     */
+    int[] docs() {
+        return Arrays.copyOf(docs, size);
+    }
+    
+    private static final class TermBound {
+        final long generation;
+        final double maxTermFrequency;
+        
+        TermBound(long generation, double maxTermFrequency) {
+            this.generation = generation;
+            this.maxTermFrequency = maxTermFrequency;
+        }
+    }
+}
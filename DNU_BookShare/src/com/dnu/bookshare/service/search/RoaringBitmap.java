@@ -0,0 +1,489 @@
+package src.com.dnu.bookshare.service.search;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * RoaringBitmap - Tập số nguyên không âm nén theo kiểu Roaring (bản rút gọn)
+ * Chia theo 16 bit cao thành các container 65536 giá trị:
+ * - ArrayContainer: mảng char (16 bit thấp) đã sắp xếp, khi có tối đa 4096 phần tử
+ * - BitmapContainer: 1024 long (8KB), khi dày hơn
+ * Không có run container: ordinal sách dày nhưng giá trị lọc thường rải rác.
+ */
+public final class RoaringBitmap {
+    static final int ARRAY_MAX = 4096;
+    
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+    
+    public void add(int value) {
+        char key = (char) (value >>> 16);
+        int i = indexOf(key);
+        if (i >= 0) {
+            containers[i] = containers[i].add((char) value);
+            return;
+        }
+        i = -i - 1;
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = new ArrayContainer().add((char) value);
+        size++;
+    }
+    
+    public void remove(int value) {
+        int i = indexOf((char) (value >>> 16));
+        if (i < 0) {
+            return;
+        }
+        Container c = containers[i].remove((char) value);
+        if (c.cardinality() == 0) {
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+            size--;
+            containers[size] = null;
+        } else {
+            containers[i] = c;
+        }
+    }
+    
+    public boolean contains(int value) {
+        int i = indexOf((char) (value >>> 16));
+        return i >= 0 && containers[i].contains((char) value);
+    }
+    
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += containers[i].cardinality();
+        }
+        return total;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Duyệt các giá trị theo thứ tự tăng dần
+     */
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+    
+    /**
+     * Giá trị nhỏ nhất >= from, -1 nếu không có
+     */
+    public int nextValue(int from) {
+        if (from < 0) {
+            from = 0;
+        }
+        char key = (char) (from >>> 16);
+        int i = Arrays.binarySearch(keys, 0, size, key);
+        if (i >= 0) {
+            int low = containers[i].nextValue((char) from);
+            if (low >= 0) {
+                return (key << 16) | low;
+            }
+            i++;
+        } else {
+            i = -i - 1;
+        }
+        return i < size ? (keys[i] << 16) | containers[i].nextValue((char) 0) : -1;
+    }
+    
+    /**
+     * Giá trị lớn nhất <= from, -1 nếu không có
+     */
+    public int previousValue(int from) {
+        if (from < 0) {
+            return -1;
+        }
+        char key = (char) (from >>> 16);
+        int i = Arrays.binarySearch(keys, 0, size, key);
+        if (i >= 0) {
+            int low = containers[i].previousValue((char) from);
+            if (low >= 0) {
+                return (key << 16) | low;
+            }
+            i--;
+        } else {
+            i = -i - 2;
+        }
+        return i >= 0 ? (keys[i] << 16) | containers[i].previousValue((char) 0xFFFF) : -1;
+    }
+    
+    /**
+     * Các giá trị tăng dần
+     */
+    public int[] toArray() {
+        int[] values = new int[cardinality()];
+        int[] n = {0};
+        forEach(v -> values[n[0]++] = v);
+        return values;
+    }
+    
+    /**
+     * Giao hai bitmap, trả về bitmap mới
+     */
+    public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Container c = a.containers[i].and(b.containers[j]);
+                if (c.cardinality() > 0) {
+                    result.append(a.keys[i], c);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Giao nhiều bitmap, bắt đầu từ các bitmap nhỏ nhất để kết quả trung gian nhỏ nhanh
+     */
+    public static RoaringBitmap and(List<RoaringBitmap> bitmaps) {
+        RoaringBitmap[] sorted = bitmaps.toArray(new RoaringBitmap[0]);
+        int[] cardinalities = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            cardinalities[i] = sorted[i].cardinality();
+        }
+        Integer[] order = new Integer[sorted.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (x, y) -> Integer.compare(cardinalities[x], cardinalities[y]));
+        RoaringBitmap result = sorted[order[0]].copy();
+        for (int k = 1; k < order.length && !result.isEmpty(); k++) {
+            result = and(result, sorted[order[k]]);
+        }
+        return result;
+    }
+    
+    public RoaringBitmap copy() {
+        RoaringBitmap copy = new RoaringBitmap();
+        copy.keys = Arrays.copyOf(keys, Math.max(4, size));
+        copy.containers = new Container[copy.keys.length];
+        for (int i = 0; i < size; i++) {
+            copy.containers[i] = containers[i].copy();
+        }
+        copy.size = size;
+        return copy;
+    }
+    
+    /**
+     * Bộ nhớ ước lượng (bytes) của các container
+     */
+    public long sizeInBytes() {
+        long bytes = size * 3L;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+    
+    private void append(char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        keys[size] = key;
+        containers[size] = container;
+        size++;
+    }
+    
+    private int indexOf(char key) {
+        // Thường thêm vào container cuối cùng (ordinal tăng dần)
+        if (size > 0 && keys[size - 1] == key) {
+            return size - 1;
+        }
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+    
+    private abstract static class Container {
+        abstract Container add(char value);
+        abstract Container remove(char value);
+        abstract boolean contains(char value);
+        // Giá trị (16 bit thấp) nhỏ nhất >= from / lớn nhất <= from, -1 nếu không có
+        abstract int nextValue(char from);
+        abstract int previousValue(char from);
+        abstract int cardinality();
+        abstract Container and(Container other);
+        abstract void forEach(int high, IntConsumer consumer);
+        abstract Container copy();
+        abstract long sizeInBytes();
+    }
+    
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int cardinality;
+        
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+        
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+        
+        @Override
+        Container add(char value) {
+            int i = cardinality > 0 && value > values[cardinality - 1]
+                    ? -cardinality - 1 : Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+            i = -i - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+            }
+            System.arraycopy(values, i, values, i + 1, cardinality - i);
+            values[i] = value;
+            cardinality++;
+            return this;
+        }
+        
+        @Override
+        Container remove(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+                cardinality--;
+            }
+            return this;
+        }
+        
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+        
+        @Override
+        int nextValue(char from) {
+            int i = Arrays.binarySearch(values, 0, cardinality, from);
+            if (i < 0) {
+                i = -i - 1;
+            }
+            return i < cardinality ? values[i] : -1;
+        }
+        
+        @Override
+        int previousValue(char from) {
+            int i = Arrays.binarySearch(values, 0, cardinality, from);
+            if (i < 0) {
+                i = -i - 2;
+            }
+            return i >= 0 ? values[i] : -1;
+        }
+        
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+        
+        @Override
+        Container and(Container other) {
+            char[] result = new char[cardinality];
+            int n = 0;
+            if (other instanceof BitmapContainer) {
+                BitmapContainer bitmap = (BitmapContainer) other;
+                for (int i = 0; i < cardinality; i++) {
+                    if (bitmap.contains(values[i])) {
+                        result[n++] = values[i];
+                    }
+                }
+            } else {
+                ArrayContainer array = (ArrayContainer) other;
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[n++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            }
+            return new ArrayContainer(result, n);
+        }
+        
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < cardinality; i++) {
+                consumer.accept(high | values[i]);
+            }
+        }
+        
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(4, cardinality)), cardinality);
+        }
+        
+        @Override
+        long sizeInBytes() {
+            return values.length * 2L + 16;
+        }
+        
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+    
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+        
+        BitmapContainer() {
+            this(new long[1024], 0);
+        }
+        
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+        
+        @Override
+        Container add(char value) {
+            long before = words[value >>> 6];
+            long after = before | (1L << value);
+            if (before != after) {
+                words[value >>> 6] = after;
+                cardinality++;
+            }
+            return this;
+        }
+        
+        @Override
+        Container remove(char value) {
+            long before = words[value >>> 6];
+            long after = before & ~(1L << value);
+            if (before != after) {
+                words[value >>> 6] = after;
+                cardinality--;
+                if (cardinality <= ARRAY_MAX / 2) {
+                    // Ngưỡng thấp hơn ARRAY_MAX để không đổi qua lại liên tục quanh ngưỡng
+                    return toArray();
+                }
+            }
+            return this;
+        }
+        
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+        
+        @Override
+        int nextValue(char from) {
+            int w = from >>> 6;
+            long word = words[w] & (-1L << from);
+            while (true) {
+                if (word != 0) {
+                    return (w << 6) | Long.numberOfTrailingZeros(word);
+                }
+                if (++w == 1024) {
+                    return -1;
+                }
+                word = words[w];
+            }
+        }
+        
+        @Override
+        int previousValue(char from) {
+            int w = from >>> 6;
+            long word = words[w] & (-1L >>> (63 - (from & 63)));
+            while (true) {
+                if (word != 0) {
+                    return (w << 6) | (63 - Long.numberOfLeadingZeros(word));
+                }
+                if (--w < 0) {
+                    return -1;
+                }
+                word = words[w];
+            }
+        }
+        
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+        
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[1024];
+            int count = 0;
+            for (int i = 0; i < 1024; i++) {
+                result[i] = words[i] & otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            BitmapContainer bitmap = new BitmapContainer(result, count);
+            return count <= ARRAY_MAX ? bitmap.toArray() : bitmap;
+        }
+        
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < 1024; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    consumer.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+        
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+        
+        @Override
+        long sizeInBytes() {
+            return 8192 + 16;
+        }
+        
+        private ArrayContainer toArray() {
+            char[] values = new char[Math.max(4, cardinality)];
+            int n = 0;
+            for (int i = 0; i < 1024; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[n++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, n);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package src.com.dnu.bookshare.service.search;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * SearchCache - Cache LRU kết quả search(BookQuery), khóa theo BookQuery.cacheKey()
+ * Mỗi mục giữ kết quả (ordinal theo thứ tự) và bitmap thành viên để BookSearchIndex
+ * chỉ xóa những mục mà sách vừa thay đổi có thể làm kết quả khác đi.
+ * capacity = 0 thì tắt cache.
+ */
+final class SearchCache {
+    private final int capacity;
+    private final LinkedHashMap<String, Entry> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    
+    SearchCache(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > SearchCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+    
+    synchronized void put(String key, BookQuery query, int[] ordered) {
+        if (capacity == 0) {
+            return;
+        }
+        RoaringBitmap members = new RoaringBitmap();
+        for (int ordinal : ordered) {
+            members.add(ordinal);
+        }
+        entries.put(key, new Entry(query.copy(), ordered, members));
+    }
+    
+    /**
+     * Xóa các mục thỏa điều kiện
+     */
+    synchronized void invalidateIf(Predicate<Entry> affected) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (affected.test(it.next())) {
+                it.remove();
+                invalidations++;
+            }
+        }
+    }
+    
+    synchronized SearchCacheStats getStats() {
+        return new SearchCacheStats(hits, misses, evictions, invalidations, entries.size(), capacity);
+    }
+    
+    static final class Entry {
+        final BookQuery query;
+        final int[] ordered;
+        final RoaringBitmap members;
+        
+        Entry(BookQuery query, int[] ordered, RoaringBitmap members) {
+            this.query = query;
+            this.ordered = ordered;
+            this.members = members;
+        }
+    }
+}
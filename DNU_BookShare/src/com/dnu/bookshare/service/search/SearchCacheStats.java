@@ -0,0 +1,42 @@
+package src.com.dnu.bookshare.service.search;
+
+/**
+ * SearchCacheStats - Thống kê cache kết quả tìm kiếm
+ * Loại bỏ (eviction) = bị đẩy ra vì cache đầy; vô hiệu (invalidation) = bị xóa vì sách liên quan thay đổi
+ */
+public class SearchCacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long invalidations;
+    private final int size;
+    private final int capacity;
+    
+    public SearchCacheStats(long hits, long misses, long evictions, long invalidations,
+                            int size, int capacity) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+        this.size = size;
+        this.capacity = capacity;
+    }
+    
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+    public long getInvalidations() { return invalidations; }
+    public int getSize() { return size; }
+    public int getCapacity() { return capacity; }
+    
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%d hit / %d miss (%.1f%%), %d loại bỏ, %d vô hiệu, %d/%d mục",
+                hits, misses, getHitRate() * 100, evictions, invalidations, size, capacity);
+    }
+}
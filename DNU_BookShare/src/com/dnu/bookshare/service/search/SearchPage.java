@@ -0,0 +1,25 @@
+package src.com.dnu.bookshare.service.search;
+
+import java.util.List;
+
+/**
+ * SearchPage - Một trang kết quả tìm kiếm kèm cursor để lấy trang tiếp theo
+ */
+public class SearchPage<T> {
+    private final List<T> results;
+    private final String nextCursor;
+    
+    public SearchPage(List<T> results, String nextCursor) {
+        this.results = results;
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<T> getResults() { return results; }
+    
+    /**
+     * Cursor của trang sau, null nếu đây là trang cuối
+     */
+    public String getNextCursor() { return nextCursor; }
+    
+    public boolean hasMore() { return nextCursor != null; }
+}
@@ -0,0 +1,71 @@
+package src.com.dnu.bookshare.service.search;
+
+import java.util.*;
+
+/**
+ * SortedIndex - Chỉ mục có thứ tự theo một khóa số (giá, lượt xem): khóa → bitmap ordinal
+ * Duyệt các khóa theo thứ tự (kèm khoảng min/max) mà không cần sắp xếp kết quả;
+ * khóa hiện tại của từng ordinal được giữ trong mảng để so sánh nhanh và gỡ đúng bucket.
+ */
+final class SortedIndex {
+    private final TreeMap<Double, RoaringBitmap> buckets = new TreeMap<>();
+    // NaN = ordinal chưa có khóa
+    private double[] keys = new double[0];
+    
+    /**
+     * Đặt (hoặc đổi) khóa của ordinal
+     */
+    void put(int ordinal, double key) {
+        if (ordinal >= keys.length) {
+            int length = keys.length;
+            keys = Arrays.copyOf(keys, Math.max(ordinal + 1, Math.max(16, length * 2)));
+            Arrays.fill(keys, length, keys.length, Double.NaN);
+        }
+        double previous = keys[ordinal];
+        if (Double.compare(previous, key) == 0) {
+            return;
+        }
+        if (!Double.isNaN(previous)) {
+            removeFromBucket(ordinal, previous);
+        }
+        keys[ordinal] = key;
+        buckets.computeIfAbsent(key, k -> new RoaringBitmap()).add(ordinal);
+    }
+    
+    void remove(int ordinal) {
+        if (ordinal < keys.length && !Double.isNaN(keys[ordinal])) {
+            removeFromBucket(ordinal, keys[ordinal]);
+            keys[ordinal] = Double.NaN;
+        }
+    }
+    
+    private void removeFromBucket(int ordinal, double key) {
+        RoaringBitmap bucket = buckets.get(key);
+        bucket.remove(ordinal);
+        if (bucket.isEmpty()) {
+            buckets.remove(key);
+        }
+    }
+    
+    /**
+     * Khóa hiện tại, NaN nếu ordinal chưa có khóa
+     */
+    double keyOf(int ordinal) {
+        return ordinal < keys.length ? keys[ordinal] : Double.NaN;
+    }
+    
+    /**
+     * Các bucket trong khoảng [min, max] (null = không giới hạn), theo chiều tăng hoặc giảm
+     */
+    NavigableMap<Double, RoaringBitmap> range(Double min, Double max, boolean descending) {
+        NavigableMap<Double, RoaringBitmap> range = buckets;
+        if (min != null && max != null) {
+            range = min <= max ? buckets.subMap(min, true, max, true) : Collections.emptyNavigableMap();
+        } else if (min != null) {
+            range = buckets.tailMap(min, true);
+        } else if (max != null) {
+            range = buckets.headMap(max, true);
+        }
+        return descending ? range.descendingMap() : range;
+    }
+}
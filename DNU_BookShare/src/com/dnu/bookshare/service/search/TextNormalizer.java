@@ -0,0 +1,123 @@
+package src.com.dnu.bookshare.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TextNormalizer - Chuẩn hóa văn bản cho tìm kiếm: chữ thường, bỏ dấu tiếng Việt (đ → d)
+ * "Lập trình" → "lap trinh". Bảng tra dựng sẵn một lần cho các khối Latin (gồm cả
+ * Latin Extended Additional chứa chữ Việt có dấu), không gọi Normalizer cho từng chuỗi.
+ */
+public final class TextNormalizer {
+    private static final int TABLE_SIZE = 0x1F00;
+    private static final char DROP = 0;
+    private static final char[] FOLD = new char[TABLE_SIZE];
+    
+    static {
+        for (int c = 0; c < TABLE_SIZE; c++) {
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                // Dấu tổ hợp rời (văn bản dạng NFD)
+                FOLD[c] = DROP;
+                continue;
+            }
+            String decomposed = Normalizer.normalize(String.valueOf((char) c), Normalizer.Form.NFD);
+            FOLD[c] = Character.toLowerCase(decomposed.charAt(0));
+        }
+        FOLD['đ'] = 'd';
+        FOLD['Đ'] = 'd';
+    }
+    
+    private TextNormalizer() {
+    }
+    
+    /**
+     * Chữ thường, bỏ dấu
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = foldChar(text.charAt(i));
+            if (c != DROP) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Tách văn bản (đã fold) thành các từ gồm chữ/số liên tiếp
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        tokenize(text, tokens);
+        return tokens;
+    }
+    
+    /**
+     * Tách từ và thêm vào cuối danh sách cho trước
+     */
+    public static void tokenize(String text, List<String> out) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = foldChar(text.charAt(i));
+            if (c == DROP) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (token.length() > 0) {
+                out.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            out.add(token.toString());
+        }
+    }
+    
+    /**
+     * Như tokenize, đồng thời trả về dạng gốc (chữ thường, giữ dấu) của từng từ
+     * để hiển thị gợi ý: folded.get(i) là dạng chuẩn hóa của surface.get(i)
+     */
+    public static void tokenize(String text, List<String> folded, List<String> surface) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder token = new StringBuilder();
+        StringBuilder original = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char raw = text.charAt(i);
+            char c = foldChar(raw);
+            if (c == DROP) {
+                if (original.length() > 0) {
+                    original.append(raw);
+                }
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+                original.append(Character.toLowerCase(raw));
+            } else if (token.length() > 0) {
+                folded.add(token.toString());
+                surface.add(original.toString());
+                token.setLength(0);
+                original.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            folded.add(token.toString());
+            surface.add(original.toString());
+        }
+    }
+    
+    private static char foldChar(char c) {
+        return c < TABLE_SIZE ? FOLD[c] : Character.toLowerCase(c);
+    }
+}
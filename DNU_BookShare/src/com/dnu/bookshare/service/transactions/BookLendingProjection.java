@@ -0,0 +1,132 @@
+package src.com.dnu.bookshare.service.transactions;
+
+import src.com.dnu.bookshare.model.Transaction.TransactionType;
+import src.com.dnu.bookshare.model.TransactionEvent;
+import java.util.*;
+
+/**
+ * BookLendingProjection - Số lần mỗi sách được yêu cầu, cho mượn, trả, gia hạn, bán và hủy
+ * Một lần cho mượn được tính khi sách được giao (DELIVERED của giao dịch mượn).
+ */
+public final class BookLendingProjection extends TransactionProjection {
+    private final Map<String, Counts> byBook = new HashMap<>();
+    
+    /**
+     * Bộ đếm của một sách
+     */
+    public static final class Counts {
+        private int requests;
+        private int loans;
+        private int returns;
+        private int extensions;
+        private int sales;
+        private int cancellations;
+        
+        Counts() {
+        }
+        
+        Counts(Counts other) {
+            this.requests = other.requests;
+            this.loans = other.loans;
+            this.returns = other.returns;
+            this.extensions = other.extensions;
+            this.sales = other.sales;
+            this.cancellations = other.cancellations;
+        }
+        
+        public int getRequests() { return requests; }
+        public int getLoans() { return loans; }
+        public int getReturns() { return returns; }
+        public int getExtensions() { return extensions; }
+        public int getSales() { return sales; }
+        public int getCancellations() { return cancellations; }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Counts)) {
+                return false;
+            }
+            Counts c = (Counts) o;
+            return requests == c.requests && loans == c.loans && returns == c.returns
+                && extensions == c.extensions && sales == c.sales && cancellations == c.cancellations;
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(requests, loans, returns, extensions, sales, cancellations);
+        }
+        
+        @Override
+        public String toString() {
+            return "yêu cầu " + requests + ", mượn " + loans + ", trả " + returns + ", gia hạn " + extensions
+                 + ", bán " + sales + ", hủy " + cancellations;
+        }
+    }
+    
+    @Override
+    protected void handle(TransactionEvent event) {
+        Counts counts = byBook.computeIfAbsent(event.getBookId(), b -> new Counts());
+        switch (event.getType()) {
+            case REQUESTED:
+                counts.requests++;
+                break;
+            case DELIVERED:
+                if (event.getTransactionType() == TransactionType.BUY) {
+                    counts.sales++;
+                } else {
+                    counts.loans++;
+                }
+                break;
+            case RETURNED:
+                counts.returns++;
+                break;
+            case EXTENDED:
+                counts.extensions++;
+                break;
+            case CANCELLED:
+                counts.cancellations++;
+                break;
+            default:
+                break;
+        }
+    }
+    
+    @Override
+    protected void clear() {
+        byBook.clear();
+    }
+    
+    /**
+     * Bộ đếm của sách (bản sao), toàn 0 nếu sách chưa có giao dịch
+     */
+    public synchronized Counts countsOf(String bookId) {
+        Counts counts = byBook.get(bookId);
+        return counts == null ? new Counts() : new Counts(counts);
+    }
+    
+    /**
+     * Id của tối đa limit sách được cho mượn nhiều nhất (bằng nhau thì nhiều yêu cầu hơn trước)
+     */
+    public synchronized List<String> mostLent(int limit) {
+        return byBook.entrySet().stream()
+                .filter(e -> e.getValue().loans > 0)
+                .sorted(Comparator.comparingInt((Map.Entry<String, Counts> e) -> e.getValue().loans)
+                                  .thenComparingInt(e -> e.getValue().requests)
+                                  .reversed()
+                                  .thenComparing(Map.Entry::getKey))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+    
+    /**
+     * Bản sao mọi bộ đếm, để so sánh hai projection
+     */
+    public synchronized Map<String, Counts> snapshot() {
+        Map<String, Counts> snapshot = new HashMap<>();
+        for (Map.Entry<String, Counts> e : byBook.entrySet()) {
+            snapshot.put(e.getKey(), new Counts(e.getValue()));
+        }
+        return snapshot;
+    }
+}
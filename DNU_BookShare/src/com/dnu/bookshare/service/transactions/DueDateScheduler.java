@@ -0,0 +1,167 @@
+package src.com.dnu.bookshare.service.transactions;
+
+import src.com.dnu.bookshare.model.Transaction;
+import src.com.dnu.bookshare.model.Transaction.*;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * DueDateScheduler - Lịch hạn trả của các giao dịch mượn đang diễn ra (BORROW, IN_PROGRESS)
+ * - Hàng đợi ưu tiên theo thời điểm mốc nhắc kế tiếp (ReminderStage) của từng giao dịch:
+ *   poll(now) chỉ lấy các mốc đã tới, O(số mốc tới * log n), không duyệt mọi giao dịch
+ * - TreeSet theo dueDate: các giao dịch quá hạn là một đoạn đầu, O(log n + số quá hạn)
+ *
+ * Mỗi mốc gửi đúng một lần: số mốc đã gửi lưu trong Transaction.remindersSent (được ghi xuống
+ * storage), lịch dựng lại lúc khởi động tiếp tục từ mốc chưa gửi. Nếu nhiều mốc cùng đã tới
+ * (hệ thống tắt một thời gian) thì chỉ gửi mốc muộn nhất, các mốc trước coi như đã qua.
+ * Gia hạn (schedule lại với hạn mới) mở lại các mốc chưa tới của hạn mới.
+ *
+ * Mục trong hàng đợi không bị gỡ khi lịch đổi; mục cũ bị bỏ qua khi lấy ra.
+ * Các phương thức đồng bộ trên scheduler.
+ */
+public final class DueDateScheduler {
+    private final PriorityQueue<Timer> queue;
+    private final Map<String, Scheduled> scheduled = new HashMap<>();
+    private final TreeSet<Scheduled> byDueDate = new TreeSet<>(
+            Comparator.comparing((Scheduled s) -> s.dueDate).thenComparing(s -> s.transaction.getTransactionId()));
+    
+    /**
+     * Dựng lịch từ các giao dịch đã load; hàng đợi được heapify một lần, O(n)
+     */
+    public DueDateScheduler(Collection<Transaction> transactions) {
+        List<Timer> timers = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            if (isTracked(transaction)) {
+                Scheduled s = track(transaction);
+                if (s.timer != null) {
+                    timers.add(s.timer);
+                }
+            }
+        }
+        queue = new PriorityQueue<>(timers);
+    }
+    
+    /**
+     * Giao dịch mới giao sách hoặc vừa đổi hạn trả: lập (lại) lịch theo dueDate hiện tại.
+     * Giao dịch không còn mượn thì bị gỡ khỏi lịch.
+     */
+    public synchronized void schedule(Transaction transaction, LocalDateTime now) {
+        cancel(transaction);
+        if (!isTracked(transaction)) {
+            return;
+        }
+        // Mốc còn ở tương lai với hạn mới thì được gửi lại
+        int reached = ReminderStage.reached(transaction.getDueDate(), now);
+        transaction.setRemindersSent(Math.min(transaction.getRemindersSent(), reached));
+        Scheduled s = track(transaction);
+        if (s.timer != null) {
+            queue.add(s.timer);
+        }
+    }
+    
+    /**
+     * Giao dịch kết thúc (trả sách, hủy): không nhắc nữa
+     */
+    public synchronized void cancel(Transaction transaction) {
+        Scheduled s = scheduled.remove(transaction.getTransactionId());
+        if (s != null) {
+            byDueDate.remove(s);
+            s.timer = null;
+        }
+    }
+    
+    /**
+     * Các mốc đã tới tại now và chưa gửi; tăng remindersSent của giao dịch tương ứng.
+     * Người gọi gửi thông báo và ghi giao dịch xuống storage.
+     */
+    public synchronized List<DueReminder> poll(LocalDateTime now) {
+        List<DueReminder> due = new ArrayList<>();
+        while (!queue.isEmpty() && !queue.peek().fireAt.isAfter(now)) {
+            Timer timer = queue.poll();
+            Scheduled s = timer.owner;
+            if (s.timer != timer) {
+                // Lịch đã đổi hoặc đã gỡ
+                continue;
+            }
+            Transaction transaction = s.transaction;
+            int reached = ReminderStage.reached(s.dueDate, now);
+            if (reached > transaction.getRemindersSent()) {
+                transaction.setRemindersSent(reached);
+                due.add(new DueReminder(transaction, ReminderStage.at(reached - 1), s.dueDate));
+            }
+            s.timer = nextTimer(s);
+            if (s.timer != null) {
+                queue.add(s.timer);
+            }
+        }
+        return due;
+    }
+    
+    /**
+     * Các giao dịch đã quá hạn tại now, hạn sớm nhất trước
+     */
+    public synchronized List<Transaction> overdue(LocalDateTime now) {
+        List<Transaction> result = new ArrayList<>();
+        for (Scheduled s : byDueDate) {
+            if (!s.dueDate.isBefore(now)) {
+                break;
+            }
+            result.add(s.transaction);
+        }
+        return result;
+    }
+    
+    /**
+     * Số giao dịch đang theo dõi
+     */
+    public synchronized int size() {
+        return scheduled.size();
+    }
+    
+    static boolean isTracked(Transaction transaction) {
+        return transaction.getType() == TransactionType.BORROW
+                && transaction.getStatus() == TransactionStatus.IN_PROGRESS
+                && transaction.getDueDate() != null;
+    }
+    
+    private Scheduled track(Transaction transaction) {
+        Scheduled s = new Scheduled(transaction);
+        s.timer = nextTimer(s);
+        scheduled.put(transaction.getTransactionId(), s);
+        byDueDate.add(s);
+        return s;
+    }
+    
+    private static Timer nextTimer(Scheduled s) {
+        ReminderStage next = ReminderStage.at(s.transaction.getRemindersSent());
+        return next == null ? null : new Timer(next.fireAt(s.dueDate), s);
+    }
+    
+    private static final class Scheduled {
+        final Transaction transaction;
+        // Chụp lại lúc lập lịch: TreeSet không được thấy khóa đổi khi Transaction bị sửa
+        final LocalDateTime dueDate;
+        // Mục còn hiệu lực trong hàng đợi, null nếu không còn mốc hoặc đã gỡ
+        Timer timer;
+        
+        Scheduled(Transaction transaction) {
+            this.transaction = transaction;
+            this.dueDate = transaction.getDueDate();
+        }
+    }
+    
+    private static final class Timer implements Comparable<Timer> {
+        final LocalDateTime fireAt;
+        final Scheduled owner;
+        
+        Timer(LocalDateTime fireAt, Scheduled owner) {
+            this.fireAt = fireAt;
+            this.owner = owner;
+        }
+        
+        @Override
+        public int compareTo(Timer other) {
+            return fireAt.compareTo(other.fireAt);
+        }
+    }
+}
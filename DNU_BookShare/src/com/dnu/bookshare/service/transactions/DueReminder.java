@@ -0,0 +1,37 @@
+package src.com.dnu.bookshare.service.transactions;
+
+import src.com.dnu.bookshare.model.Transaction;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * DueReminder - Một mốc nhắc trả vừa tới của một giao dịch (DueDateScheduler.poll)
+ */
+public final class DueReminder {
+    private final Transaction transaction;
+    private final ReminderStage stage;
+    private final LocalDateTime dueDate;
+    
+    DueReminder(Transaction transaction, ReminderStage stage, LocalDateTime dueDate) {
+        this.transaction = transaction;
+        this.stage = stage;
+        this.dueDate = dueDate;
+    }
+    
+    public Transaction getTransaction() { return transaction; }
+    public ReminderStage getStage() { return stage; }
+    public LocalDateTime getDueDate() { return dueDate; }
+    
+    /**
+     * Số ngày (theo lịch) còn lại đến hạn trả tính từ ngày today, âm nếu đã quá hạn
+     */
+    public int getDaysRemaining(LocalDate today) {
+        return (int) ChronoUnit.DAYS.between(today, dueDate.toLocalDate());
+    }
+    
+    @Override
+    public String toString() {
+        return stage + " " + transaction.getTransactionId() + " (hạn " + dueDate + ")";
+    }
+}
@@ -0,0 +1,47 @@
+package src.com.dnu.bookshare.service.transactions;
+
+import java.time.LocalDateTime;
+
+/**
+ * ReminderStage - Các mốc nhắc trả sách của một giao dịch mượn, theo thứ tự thời gian.
+ * Mốc tính theo ngày lịch của hạn trả (trừ DUE_SOON tính đúng 2 ngày trước hạn).
+ */
+public enum ReminderStage {
+    // Còn 2 ngày
+    DUE_SOON,
+    // 0 giờ ngày hạn trả
+    DUE_TODAY,
+    // 0 giờ ngày sau hạn trả: quá hạn 1 ngày
+    OVERDUE,
+    // Quá hạn hơn 3 ngày: trừ điểm uy tín
+    ESCALATED;
+    
+    private static final ReminderStage[] STAGES = values();
+    
+    /**
+     * Thời điểm mốc này tới với hạn trả dueDate
+     */
+    public LocalDateTime fireAt(LocalDateTime dueDate) {
+        switch (this) {
+            case DUE_SOON: return dueDate.minusDays(2);
+            case DUE_TODAY: return dueDate.toLocalDate().atStartOfDay();
+            case OVERDUE: return dueDate.toLocalDate().plusDays(1).atStartOfDay();
+            default: return dueDate.toLocalDate().plusDays(4).atStartOfDay();
+        }
+    }
+    
+    /**
+     * Số mốc đầu tiên đã tới tại thời điểm now
+     */
+    static int reached(LocalDateTime dueDate, LocalDateTime now) {
+        int count = 0;
+        while (count < STAGES.length && !STAGES[count].fireAt(dueDate).isAfter(now)) {
+            count++;
+        }
+        return count;
+    }
+    
+    static ReminderStage at(int index) {
+        return index < STAGES.length ? STAGES[index] : null;
+    }
+}
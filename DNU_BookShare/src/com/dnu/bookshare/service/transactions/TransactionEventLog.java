@@ -0,0 +1,106 @@
+package src.com.dnu.bookshare.service.transactions;
+
+import src.com.dnu.bookshare.model.TransactionEvent;
+import java.util.*;
+
+/**
+ * TransactionEventLog - Log sự kiện vòng đời giao dịch, chỉ ghi thêm, theo thứ tự sequence
+ * append gán sequence tiếp theo và áp dụng sự kiện vào mọi projection đã đăng ký ngay lúc đó,
+ * nên các projection được cập nhật tăng dần thay vì quét lại toàn bộ giao dịch.
+ * Projection đăng ký muộn hoặc bị reset được catch-up từ vị trí của nó: tìm nhị phân sự kiện
+ * đầu tiên sau vị trí rồi áp dụng phần còn lại. Trong lúc catch-up/rebuild, append phải chờ.
+ *
+ * Lưu trữ do người gọi đảm nhiệm (TransactionService ghi sự kiện cùng giao dịch trong một UnitOfWork).
+ */
+public final class TransactionEventLog {
+    private static final Comparator<TransactionEvent> BY_SEQUENCE =
+            Comparator.comparingLong(TransactionEvent::getSequence).thenComparing(TransactionEvent::getEventId);
+    
+    private final List<TransactionEvent> events = new ArrayList<>();
+    private final List<TransactionProjection> projections = new ArrayList<>();
+    
+    /**
+     * Dựng log từ các sự kiện đã load (thứ tự bất kỳ)
+     */
+    public TransactionEventLog(Collection<TransactionEvent> loaded) {
+        events.addAll(loaded);
+        events.sort(BY_SEQUENCE);
+    }
+    
+    /**
+     * Ghi thêm sự kiện: gán sequence rồi áp dụng vào các projection
+     */
+    public synchronized TransactionEvent append(TransactionEvent event) {
+        event.setSequence(lastSequence() + 1);
+        events.add(event);
+        for (TransactionProjection projection : projections) {
+            projection.apply(event);
+        }
+        return event;
+    }
+    
+    /**
+     * Đăng ký projection: catch-up đến sự kiện cuối, sau đó nhận mọi sự kiện mới
+     * @return số sự kiện đã áp dụng khi catch-up
+     */
+    public synchronized int register(TransactionProjection projection) {
+        int applied = catchUp(projection);
+        projections.add(projection);
+        return applied;
+    }
+    
+    /**
+     * Áp dụng các sự kiện sau vị trí hiện tại của projection
+     * @return số sự kiện đã áp dụng
+     */
+    public synchronized int catchUp(TransactionProjection projection) {
+        int applied = 0;
+        for (int i = firstAfter(projection.getPosition()); i < events.size(); i++) {
+            if (projection.apply(events.get(i))) {
+                applied++;
+            }
+        }
+        return applied;
+    }
+    
+    /**
+     * Dựng lại projection bằng cách phát lại toàn bộ log
+     * @return số sự kiện đã áp dụng
+     */
+    public synchronized int rebuild(TransactionProjection projection) {
+        projection.reset();
+        return catchUp(projection);
+    }
+    
+    /**
+     * Vị trí sự kiện đầu tiên có sequence lớn hơn position
+     */
+    private int firstAfter(long position) {
+        int low = 0;
+        int high = events.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (events.get(mid).getSequence() <= position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    public synchronized long lastSequence() {
+        return events.isEmpty() ? 0 : events.get(events.size() - 1).getSequence();
+    }
+    
+    public synchronized int size() {
+        return events.size();
+    }
+    
+    /**
+     * Các sự kiện có sequence lớn hơn position, theo thứ tự log
+     */
+    public synchronized List<TransactionEvent> eventsAfter(long position) {
+        return new ArrayList<>(events.subList(firstAfter(position), events.size()));
+    }
+}
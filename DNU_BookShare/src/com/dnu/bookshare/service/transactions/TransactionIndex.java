@@ -0,0 +1,134 @@
+package src.com.dnu.bookshare.service.transactions;
+
+import src.com.dnu.bookshare.model.Transaction;
+import src.com.dnu.bookshare.model.Transaction.TransactionStatus;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * TransactionIndex - Chỉ mục phụ của giao dịch theo người dùng:
+ * chủ sách → giao dịch, người mượn/mua → giao dịch, và (chủ, trạng thái), (người mượn, trạng thái).
+ * Mỗi danh sách giữ sẵn thứ tự requestedAt mới nhất trước (cùng thời điểm thì theo id giảm dần),
+ * nên lịch sử và các truy vấn theo trạng thái chỉ duyệt giao dịch của chính người đó, không sắp xếp lại.
+ *
+ * requestedAt và hai bên của giao dịch không đổi sau khi tạo; chỉ trạng thái đổi,
+ * và mỗi lần đổi TransactionService gọi moveStatus để chuyển giao dịch sang danh sách mới.
+ * Không khóa: map đồng thời và ConcurrentSkipListSet; kết quả trả về là bản sao (nhất quán yếu,
+ * một giao dịch vừa đổi trạng thái có thể thoáng nằm ở cả hai danh sách trạng thái).
+ * Danh sách rỗng không bị gỡ để không mất phần tử do thread khác vừa thêm vào.
+ */
+public final class TransactionIndex {
+    /**
+     * Thứ tự lịch sử: mới nhất trước, requestedAt null (dữ liệu cũ) xếp cuối
+     */
+    public static final Comparator<Transaction> NEWEST_FIRST =
+            Comparator.comparing(Transaction::getRequestedAt,
+                                 Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+                      .thenComparing(Transaction::getTransactionId)
+                      .reversed();
+    
+    private final Map<String, NavigableSet<Transaction>> byOwner = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<Transaction>> byBorrower = new ConcurrentHashMap<>();
+    private final Map<String, Map<TransactionStatus, NavigableSet<Transaction>>> byOwnerStatus = new ConcurrentHashMap<>();
+    private final Map<String, Map<TransactionStatus, NavigableSet<Transaction>>> byBorrowerStatus = new ConcurrentHashMap<>();
+    
+    /**
+     * Dựng chỉ mục từ các giao dịch đã load
+     */
+    public TransactionIndex(Collection<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            add(transaction);
+        }
+    }
+    
+    public void add(Transaction transaction) {
+        listOf(byOwner, transaction.getOwnerId()).add(transaction);
+        listOf(byBorrower, transaction.getBorrowerId()).add(transaction);
+        statusListOf(byOwnerStatus, transaction.getOwnerId(), transaction.getStatus()).add(transaction);
+        statusListOf(byBorrowerStatus, transaction.getBorrowerId(), transaction.getStatus()).add(transaction);
+    }
+    
+    /**
+     * Giao dịch vừa đổi trạng thái từ previous sang trạng thái hiện tại
+     */
+    public void moveStatus(Transaction transaction, TransactionStatus previous) {
+        if (previous == transaction.getStatus()) {
+            return;
+        }
+        removeFrom(byOwnerStatus, transaction.getOwnerId(), previous, transaction);
+        removeFrom(byBorrowerStatus, transaction.getBorrowerId(), previous, transaction);
+        statusListOf(byOwnerStatus, transaction.getOwnerId(), transaction.getStatus()).add(transaction);
+        statusListOf(byBorrowerStatus, transaction.getBorrowerId(), transaction.getStatus()).add(transaction);
+    }
+    
+    /**
+     * Giao dịch của userId ở cả hai vai, mới nhất trước: trộn hai danh sách đã sắp
+     */
+    public List<Transaction> ofUser(String userId) {
+        return merge(byOwner.get(userId), byBorrower.get(userId));
+    }
+    
+    public List<Transaction> ofOwner(String ownerId, TransactionStatus status) {
+        return copyOf(statusList(byOwnerStatus, ownerId, status));
+    }
+    
+    public List<Transaction> ofBorrower(String borrowerId, TransactionStatus status) {
+        return copyOf(statusList(byBorrowerStatus, borrowerId, status));
+    }
+    
+    private static NavigableSet<Transaction> listOf(Map<String, NavigableSet<Transaction>> index, String userId) {
+        return index.computeIfAbsent(userId, u -> new ConcurrentSkipListSet<>(NEWEST_FIRST));
+    }
+    
+    private static NavigableSet<Transaction> statusListOf(
+            Map<String, Map<TransactionStatus, NavigableSet<Transaction>>> index,
+            String userId, TransactionStatus status) {
+        return index.computeIfAbsent(userId, u -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(status, s -> new ConcurrentSkipListSet<>(NEWEST_FIRST));
+    }
+    
+    private static NavigableSet<Transaction> statusList(
+            Map<String, Map<TransactionStatus, NavigableSet<Transaction>>> index,
+            String userId, TransactionStatus status) {
+        Map<TransactionStatus, NavigableSet<Transaction>> statuses = index.get(userId);
+        return statuses == null ? null : statuses.get(status);
+    }
+    
+    private static void removeFrom(Map<String, Map<TransactionStatus, NavigableSet<Transaction>>> index,
+                                   String userId, TransactionStatus status, Transaction transaction) {
+        NavigableSet<Transaction> list = statusList(index, userId, status);
+        if (list != null) {
+            list.remove(transaction);
+        }
+    }
+    
+    private static List<Transaction> copyOf(NavigableSet<Transaction> list) {
+        return list == null ? new ArrayList<>() : new ArrayList<>(list);
+    }
+    
+    private static List<Transaction> merge(NavigableSet<Transaction> a, NavigableSet<Transaction> b) {
+        if (a == null || b == null) {
+            return copyOf(a != null ? a : b);
+        }
+        List<Transaction> merged = new ArrayList<>(a.size() + b.size());
+        Iterator<Transaction> left = a.iterator();
+        Iterator<Transaction> right = b.iterator();
+        Transaction x = left.hasNext() ? left.next() : null;
+        Transaction y = right.hasNext() ? right.next() : null;
+        while (x != null || y != null) {
+            if (y == null || (x != null && NEWEST_FIRST.compare(x, y) <= 0)) {
+                // Giao dịch với chính mình (nếu có) nằm ở cả hai danh sách: chỉ lấy một lần
+                if (x != y) {
+                    merged.add(x);
+                }
+                x = left.hasNext() ? left.next() : null;
+            } else {
+                merged.add(y);
+                y = right.hasNext() ? right.next() : null;
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,48 @@
+package src.com.dnu.bookshare.service.transactions;
+
+import src.com.dnu.bookshare.model.TransactionEvent;
+
+/**
+ * TransactionProjection - Trạng thái đọc được dựng từ log sự kiện giao dịch
+ * Mỗi projection nhớ sequence của sự kiện cuối đã áp dụng: sự kiện có sequence không lớn hơn
+ * bị bỏ qua, nên catch-up sau khi đăng ký hay áp dụng lại một sự kiện đều không đếm hai lần.
+ * Dựng lại từ đầu: reset rồi TransactionEventLog.catchUp.
+ */
+public abstract class TransactionProjection {
+    private long position;
+    
+    /**
+     * Áp dụng sự kiện nếu projection chưa thấy nó
+     * @return false nếu sự kiện đã được áp dụng trước đó
+     */
+    public final synchronized boolean apply(TransactionEvent event) {
+        if (event.getSequence() <= position) {
+            return false;
+        }
+        handle(event);
+        position = event.getSequence();
+        return true;
+    }
+    
+    /**
+     * Xóa trạng thái, projection quay về trước sự kiện đầu tiên
+     */
+    public final synchronized void reset() {
+        clear();
+        position = 0;
+    }
+    
+    /**
+     * Sequence của sự kiện cuối đã áp dụng (0 nếu chưa có)
+     */
+    public final synchronized long getPosition() {
+        return position;
+    }
+    
+    /**
+     * Cập nhật trạng thái theo một sự kiện (gọi dưới khóa của projection)
+     */
+    protected abstract void handle(TransactionEvent event);
+    
+    protected abstract void clear();
+}
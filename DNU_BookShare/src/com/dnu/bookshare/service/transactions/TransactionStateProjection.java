@@ -0,0 +1,117 @@
+package src.com.dnu.bookshare.service.transactions;
+
+import src.com.dnu.bookshare.model.Transaction;
+import src.com.dnu.bookshare.model.Transaction.TransactionStatus;
+import src.com.dnu.bookshare.model.TransactionEvent;
+import java.util.*;
+
+/**
+ * TransactionStateProjection - Trạng thái hiện tại của từng giao dịch dựng từ sự kiện,
+ * kèm số giao dịch theo trạng thái (thống kê không phải quét toàn bộ giao dịch).
+ * Trạng thái chỉ đổi theo bảng TransactionStatus.canTransitionTo: sự kiện của thao tác đồng thời
+ * vào log muộn hơn (vd APPROVED sau DELIVERED) không kéo trạng thái lùi lại.
+ */
+public final class TransactionStateProjection extends TransactionProjection {
+    private final Map<String, Transaction> states = new HashMap<>();
+    private final Map<TransactionStatus, Integer> counts = new EnumMap<>(TransactionStatus.class);
+    
+    @Override
+    protected void handle(TransactionEvent event) {
+        Transaction t = states.get(event.getTransactionId());
+        if (t == null) {
+            // Sự kiện đầu tiên của giao dịch, thường là REQUESTED
+            t = create(event);
+            states.put(t.getTransactionId(), t);
+            counts.merge(t.getStatus(), 1, Integer::sum);
+        }
+        
+        switch (event.getType()) {
+            case REQUESTED:
+                break;
+            case APPROVED:
+                t.setApprovedAt(event.getOccurredAt());
+                break;
+            case REJECTED:
+                t.setMessage(event.getMessage());
+                break;
+            case DELIVERED:
+                t.setDeliveredAt(event.getOccurredAt());
+                t.setDueDate(event.getDueDate());
+                // Giao hàng luôn qua IN_PROGRESS; giao dịch mua đi tiếp tới COMPLETED trong cùng sự kiện
+                moveTo(t, TransactionStatus.IN_PROGRESS);
+                break;
+            case EXTENDED:
+                t.setDueDate(event.getDueDate());
+                break;
+            case RETURNED:
+                t.setReturnedAt(event.getOccurredAt());
+                break;
+            case RATED:
+                if (event.getActorId() != null && event.getActorId().equals(t.getOwnerId())) {
+                    t.setBorrowerRating(event.getRating());
+                    t.setBorrowerReview(event.getMessage());
+                } else {
+                    t.setOwnerRating(event.getRating());
+                    t.setOwnerReview(event.getMessage());
+                }
+                break;
+            default:
+                break;
+        }
+        moveTo(t, event.getStatus());
+    }
+    
+    private static Transaction create(TransactionEvent event) {
+        return new Transaction(event.getTransactionId(), event.getBookId(), event.getOwnerId(),
+                               event.getBorrowerId(), event.getTransactionType(), event.getStatus(),
+                               event.getOccurredAt(), null, null, null, null, event.getAmount(),
+                               event.getMessage(), 0, 0, null, null);
+    }
+    
+    private void moveTo(Transaction t, TransactionStatus status) {
+        TransactionStatus previous = t.getStatus();
+        if (status == null || status == previous || !previous.canTransitionTo(status)) {
+            return;
+        }
+        t.setStatus(status);
+        counts.merge(previous, -1, Integer::sum);
+        counts.merge(status, 1, Integer::sum);
+    }
+    
+    @Override
+    protected void clear() {
+        states.clear();
+        counts.clear();
+    }
+    
+    /**
+     * Trạng thái của giao dịch theo log sự kiện, null nếu log không có giao dịch này
+     */
+    public synchronized TransactionStatus statusOf(String transactionId) {
+        Transaction t = states.get(transactionId);
+        return t == null ? null : t.getStatus();
+    }
+    
+    public synchronized int count(TransactionStatus status) {
+        return counts.getOrDefault(status, 0);
+    }
+    
+    public synchronized Map<TransactionStatus, Integer> countByStatus() {
+        return new EnumMap<>(counts);
+    }
+    
+    public synchronized int size() {
+        return states.size();
+    }
+    
+    /**
+     * Ảnh chụp (id → trạng thái) để so sánh hai projection hoặc với giao dịch thật
+     */
+    public synchronized Map<String, TransactionStatus> snapshot() {
+        Map<String, TransactionStatus> snapshot = new HashMap<>();
+        for (Transaction t : states.values()) {
+            snapshot.put(t.getTransactionId(), t.getStatus());
+        }
+        return snapshot;
+    }
+}
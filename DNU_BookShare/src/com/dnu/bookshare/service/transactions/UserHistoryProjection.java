@@ -0,0 +1,62 @@
+package src.com.dnu.bookshare.service.transactions;
+
+import src.com.dnu.bookshare.model.TransactionEvent;
+import java.util.*;
+
+/**
+ * UserHistoryProjection - Dòng hoạt động giao dịch của từng người dùng (ở cả vai chủ sách và người mượn/mua)
+ * Sự kiện được nối vào cuối danh sách của hai bên theo thứ tự log; đọc mới nhất trước bằng cách duyệt ngược.
+ */
+public final class UserHistoryProjection extends TransactionProjection {
+    private final Map<String, List<TransactionEvent>> byUser = new HashMap<>();
+    
+    @Override
+    protected void handle(TransactionEvent event) {
+        add(event.getOwnerId(), event);
+        if (!Objects.equals(event.getBorrowerId(), event.getOwnerId())) {
+            add(event.getBorrowerId(), event);
+        }
+    }
+    
+    private void add(String userId, TransactionEvent event) {
+        if (userId != null) {
+            byUser.computeIfAbsent(userId, u -> new ArrayList<>()).add(event);
+        }
+    }
+    
+    @Override
+    protected void clear() {
+        byUser.clear();
+    }
+    
+    /**
+     * Tối đa limit sự kiện gần nhất của người dùng, mới nhất trước
+     */
+    public synchronized List<TransactionEvent> history(String userId, int limit) {
+        List<TransactionEvent> events = byUser.get(userId);
+        if (events == null) {
+            return new ArrayList<>();
+        }
+        List<TransactionEvent> result = new ArrayList<>(Math.min(limit, events.size()));
+        for (int i = events.size() - 1; i >= 0 && result.size() < limit; i--) {
+            result.add(events.get(i));
+        }
+        return result;
+    }
+    
+    public synchronized int count(String userId) {
+        List<TransactionEvent> events = byUser.get(userId);
+        return events == null ? 0 : events.size();
+    }
+    
+    /**
+     * Số sự kiện theo người dùng, để so sánh hai projection
+     */
+    public synchronized Map<String, Integer> snapshot() {
+        Map<String, Integer> snapshot = new HashMap<>();
+        for (Map.Entry<String, List<TransactionEvent>> e : byUser.entrySet()) {
+            snapshot.put(e.getKey(), e.getValue().size());
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,56 @@
+package src.com.dnu.bookshare.service.views;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * TrendingWindow - Số người xem theo từng giờ trong 24 giờ gần nhất (cửa sổ trượt, vòng tròn)
+ * Mỗi ô là một long: (giờ << 32) | số lượt; ô của giờ cũ được ghi đè bằng CAS khi sang giờ mới.
+ * Điểm xu hướng = tổng số lượt mỗi giờ nhân hệ số suy giảm 2^(-tuổi / chu kỳ bán rã).
+ */
+final class TrendingWindow {
+    static final int HOURS = 24;
+    static final long HOUR_MILLIS = 3_600_000L;
+    private final AtomicLongArray slots = new AtomicLongArray(HOURS);
+    
+    void increment(long hour) {
+        int index = (int) (hour % HOURS);
+        while (true) {
+            long current = slots.get(index);
+            long updated = (current >>> 32) == hour ? current + 1 : (hour << 32) | 1;
+            if (slots.compareAndSet(index, current, updated)) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Điểm tại thời điểm nowMillis: lượt xem mới nhất có trọng số ~1, giảm một nửa sau mỗi halfLifeMillis
+     */
+    double score(long nowMillis, double halfLifeMillis) {
+        return scaledScore(nowMillis, nowMillis, halfLifeMillis);
+    }
+    
+    /**
+     * Điểm quy về mốc landmarkMillis: tỉ lệ với score() của mọi sách tại cùng thời điểm
+     * nên dùng được làm khóa sắp xếp mà không phải tính lại khi thời gian trôi
+     * (chỉ đổi khi có lượt xem mới hoặc một giờ ra khỏi cửa sổ)
+     */
+    double scaledScore(long nowMillis, long landmarkMillis, double halfLifeMillis) {
+        long nowHour = nowMillis / HOUR_MILLIS;
+        double score = 0;
+        for (int i = 0; i < HOURS; i++) {
+            long slot = slots.get(i);
+            long hour = slot >>> 32;
+            long count = slot & 0xFFFFFFFFL;
+            if (count == 0 || hour > nowHour || nowHour - hour >= HOURS) {
+                continue;
+            }
+            score += count * Math.pow(2, (hour * HOUR_MILLIS - landmarkMillis) / halfLifeMillis);
+        }
+        return score;
+    }
+    
+    static int sizeInBytes() {
+        return HOURS * 8;
+    }
+}
@@ -0,0 +1,258 @@
+package src.com.dnu.bookshare.service.views;
+
+import src.com.dnu.bookshare.model.Book;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * ViewCounter - Đếm lượt xem sách trong bộ nhớ, ghi xuống storage định kỳ
+ * Mỗi sách đã được xem có một BookViews:
+ * - LongAdder (các ô đếm tách theo thread) giữ tổng lượt xem, khởi tạo từ viewCount đã lưu
+ * - HyperLogLog số người xem phân biệt
+ * - TrendingWindow: số người xem theo giờ trong 24 giờ, cho điểm xu hướng suy giảm theo thời gian
+ * record() không khóa, không I/O; bộ nhớ mỗi sách cố định (~500 bytes) dù lượng truy cập bao nhiêu.
+ * Thread nền định kỳ chép tổng vào Book.viewCount và ghi các sách thay đổi bằng một lô;
+ * getViewCount() đọc tổng hiện tại, không cần chờ flush. Flush lần cuối khi JVM tắt.
+ * Người xem phân biệt và điểm xu hướng chỉ giữ trong bộ nhớ, bắt đầu lại khi khởi động.
+ */
+public class ViewCounter {
+    
+    /**
+     * Nơi nhận kết quả mỗi lần flush
+     */
+    public interface FlushSink {
+        /**
+         * @param changed các sách có viewCount vừa thay đổi (cần ghi xuống storage)
+         * @param trendingKeys khóa sắp xếp "trending" mới theo bookId (xem getTrendingKey)
+         */
+        void write(List<Book> changed, Map<String, Double> trendingKeys) throws Exception;
+    }
+    
+    private final Function<String, Book> books;
+    private final FlushSink sink;
+    private final LongSupplier clock;
+    private final double halfLifeMillis;
+    private final ConcurrentHashMap<String, BookViews> counters = new ConcurrentHashMap<>();
+    private final RecentViewFilter recentViews = new RecentViewFilter();
+    private final LongAdder recorded = new LongAdder();
+    private ScheduledExecutorService scheduler;
+    private long flushes;
+    private long booksWritten;
+    // Giờ và mốc của lần tính khóa trending gần nhất; đổi thì tính lại cho mọi sách
+    private long keyedHour = -1;
+    private long landmarkMillis = -1;
+    
+    public ViewCounter(Function<String, Book> books, FlushSink sink) {
+        this(books, sink, System::currentTimeMillis,
+             Double.parseDouble(System.getProperty("bookshare.trending.halfLifeHours", "6")));
+    }
+    
+    public ViewCounter(Function<String, Book> books, FlushSink sink, LongSupplier clock, double halfLifeHours) {
+        this.books = books;
+        this.sink = sink;
+        this.clock = clock;
+        this.halfLifeMillis = halfLifeHours * TrendingWindow.HOUR_MILLIS;
+    }
+    
+    /**
+     * Flush định kỳ trên thread daemon (chu kỳ mặc định -Dbookshare.views.flushSeconds, 5 giây)
+     * Không tự flush khi JVM tắt: bên sở hữu gọi shutdown() trước khi đóng storage.
+     */
+    public synchronized void start() {
+        start(Long.getLong("bookshare.views.flushSeconds", 5) * 1000);
+    }
+    
+    public synchronized void start(long intervalMillis) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "view-counter-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Ghi nhận một lượt xem không rõ người xem: chỉ tăng tổng lượt xem
+     * @return false nếu sách không tồn tại
+     */
+    public boolean record(String bookId) {
+        return record(bookId, null);
+    }
+    
+    /**
+     * Ghi nhận một lượt xem của viewerId; mỗi người được tính một lần cho điểm xu hướng
+     * của một sách trong mỗi giờ
+     * @return false nếu sách không tồn tại
+     */
+    public boolean record(String bookId, String viewerId) {
+        BookViews views = counters.get(bookId);
+        if (views == null) {
+            Book book = books.apply(bookId);
+            if (book == null) {
+                return false;
+            }
+            views = counters.computeIfAbsent(bookId, id -> new BookViews(book.getViewCount()));
+        }
+        views.total.increment();
+        recorded.increment();
+        if (viewerId != null) {
+            long viewerHash = HyperLogLog.hash(viewerId);
+            views.viewers.add(viewerHash);
+            long hour = clock.getAsLong() / TrendingWindow.HOUR_MILLIS;
+            if (recentViews.firstViewInHour(viewerHash, views.bookHash(bookId), hour)) {
+                views.trending.increment(hour);
+                views.trendingDirty = true;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Tổng lượt xem hiện tại (gồm cả phần chưa flush)
+     */
+    public long getViewCount(String bookId) {
+        BookViews views = counters.get(bookId);
+        if (views != null) {
+            return views.total.sum();
+        }
+        Book book = books.apply(bookId);
+        return book == null ? 0 : book.getViewCount();
+    }
+    
+    public long getViewCount(Book book) {
+        BookViews views = counters.get(book.getBookId());
+        return views != null ? views.total.sum() : book.getViewCount();
+    }
+    
+    /**
+     * Số người xem phân biệt (ước lượng, sai số ~6.5%) từ lúc khởi động
+     */
+    public long getUniqueViewers(String bookId) {
+        BookViews views = counters.get(bookId);
+        return views == null ? 0 : views.viewers.estimate();
+    }
+    
+    /**
+     * Điểm xu hướng hiện tại: số người xem trong 24 giờ qua, mỗi giờ tuổi giảm trọng số
+     * theo chu kỳ bán rã (-Dbookshare.trending.halfLifeHours, mặc định 6)
+     */
+    public double getTrendingScore(String bookId) {
+        BookViews views = counters.get(bookId);
+        return views == null ? 0 : views.trending.score(clock.getAsLong(), halfLifeMillis);
+    }
+    
+    /**
+     * Bỏ bộ đếm của sách đã xóa
+     */
+    public void forget(String bookId) {
+        counters.remove(bookId);
+    }
+    
+    /**
+     * Chép tổng lượt xem vào các Book thay đổi và ghi chúng bằng một lô,
+     * kèm khóa trending mới của các sách có người xem mới
+     * @return số sách đã ghi
+     */
+    public synchronized int flush() throws Exception {
+        long now = clock.getAsLong();
+        long hour = now / TrendingWindow.HOUR_MILLIS;
+        // Mốc đổi sau 64 chu kỳ bán rã để hệ số 2^(tuổi / bán rã) không tràn số
+        long epoch = (long) (64 * halfLifeMillis);
+        long landmark = now / epoch * epoch;
+        // Sang giờ mới: có giờ ra khỏi cửa sổ, tính lại khóa cho mọi sách
+        boolean rekeyAll = hour != keyedHour || landmark != landmarkMillis;
+        keyedHour = hour;
+        landmarkMillis = landmark;
+        
+        List<Book> changed = new ArrayList<>();
+        Map<String, Double> trendingKeys = new HashMap<>();
+        for (Map.Entry<String, BookViews> e : counters.entrySet()) {
+            Book book = books.apply(e.getKey());
+            if (book == null) {
+                counters.remove(e.getKey());
+                continue;
+            }
+            BookViews views = e.getValue();
+            // Không reset bộ đếm: lượt xem đến trong lúc flush sẽ được ghi ở lần sau
+            int total = (int) Math.min(Integer.MAX_VALUE, views.total.sum());
+            if (total != book.getViewCount()) {
+                book.setViewCount(total);
+                changed.add(book);
+            }
+            if (rekeyAll || views.trendingDirty) {
+                views.trendingDirty = false;
+                trendingKeys.put(e.getKey(), views.trending.scaledScore(now, landmark, halfLifeMillis));
+            }
+        }
+        if (!changed.isEmpty() || !trendingKeys.isEmpty()) {
+            sink.write(changed, trendingKeys);
+        }
+        if (!changed.isEmpty()) {
+            flushes++;
+            booksWritten += changed.size();
+        }
+        return changed.size();
+    }
+    
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            System.err.println("Lỗi flush lượt xem: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Flush lần cuối rồi dừng thread nền
+     */
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+        flushQuietly();
+    }
+    
+    public synchronized ViewCounterStats getStats() {
+        long pending = 0;
+        for (Map.Entry<String, BookViews> e : counters.entrySet()) {
+            Book book = books.apply(e.getKey());
+            if (book != null) {
+                pending += Math.max(0, e.getValue().total.sum() - book.getViewCount());
+            }
+        }
+        return new ViewCounterStats(recorded.sum(), pending, counters.size(), flushes, booksWritten);
+    }
+    
+    /**
+     * Bộ nhớ dữ liệu (bytes) giữ cho mỗi sách đã được xem, không tính header đối tượng
+     */
+    public static int bytesPerBook() {
+        return HyperLogLog.sizeInBytes() + TrendingWindow.sizeInBytes() + 8 + 8;
+    }
+    
+    private static final class BookViews {
+        final LongAdder total = new LongAdder();
+        final HyperLogLog viewers = new HyperLogLog();
+        final TrendingWindow trending = new TrendingWindow();
+        volatile boolean trendingDirty;
+        private long bookHash;
+        
+        BookViews(long initialViews) {
+            total.add(initialViews);
+        }
+        
+        long bookHash(String bookId) {
+            if (bookHash == 0) {
+                bookHash = HyperLogLog.hash(bookId);
+            }
+            return bookHash;
+        }
+    }
+}
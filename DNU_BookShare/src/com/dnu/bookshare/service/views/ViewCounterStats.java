@@ -0,0 +1,37 @@
+package src.com.dnu.bookshare.service.views;
+
+/**
+ * ViewCounterStats - Thống kê bộ đếm lượt xem
+ * Tỉ lệ gộp = số lượt xem ghi nhận / số lần ghi sách xuống storage
+ */
+public class ViewCounterStats {
+    private final long recorded;
+    private final long pending;
+    private final int trackedBooks;
+    private final long flushes;
+    private final long booksWritten;
+    
+    public ViewCounterStats(long recorded, long pending, int trackedBooks, long flushes, long booksWritten) {
+        this.recorded = recorded;
+        this.pending = pending;
+        this.trackedBooks = trackedBooks;
+        this.flushes = flushes;
+        this.booksWritten = booksWritten;
+    }
+    
+    public long getRecorded() { return recorded; }
+    public long getPending() { return pending; }
+    public int getTrackedBooks() { return trackedBooks; }
+    public long getFlushes() { return flushes; }
+    public long getBooksWritten() { return booksWritten; }
+    
+    public double getCoalescingRatio() {
+        return booksWritten == 0 ? 0 : (double) (recorded - pending) / booksWritten;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%d lượt xem, %d chưa ghi, %d sách đang đếm, %d lần flush -> %d lần ghi sách (gộp %.1fx)",
+                recorded, pending, trackedBooks, flushes, booksWritten, getCoalescingRatio());
+    }
+}